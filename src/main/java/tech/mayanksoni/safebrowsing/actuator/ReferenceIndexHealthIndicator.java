@@ -0,0 +1,36 @@
+package tech.mayanksoni.safebrowsing.actuator;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+import tech.mayanksoni.safebrowsing.services.ReferenceDomainIndexService;
+
+/**
+ * Reports {@value #WARMING_UP_CODE} until a reference domain index is loaded. Only the readiness group maps that status
+ * to 503, so a starting node receives traffic once it can match against the index instead of the store, while the
+ * overall health, which orders the status below {@code UP}, stays up. A node that finished warming up without an
+ * active list, because no list was ingested yet, reports {@code UP}. Once loaded, an index keeps serving while the
+ * index of a newer list loads, so the indicator stays up across list changes.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReferenceIndexHealthIndicator implements HealthIndicator {
+    static final String WARMING_UP_CODE = "WARMING_UP";
+    static final Status WARMING_UP = new Status(WARMING_UP_CODE);
+    private final ReferenceDomainIndexService referenceDomainIndexService;
+
+    @Override
+    public Health health() {
+        return this.referenceDomainIndexService.getActiveIndex()
+                .map(referenceDomainIndex -> Health.up()
+                        .withDetail("listId", referenceDomainIndex.getListId())
+                        .withDetail("matchingEngine", referenceDomainIndex.getMatchingEngineType())
+                        .withDetail("domains", referenceDomainIndex.getSize())
+                        .build())
+                .orElseGet(() -> this.referenceDomainIndexService.isWarmUpFinished() && this.referenceDomainIndexService.isActiveListMissing()
+                        ? Health.up().withDetail("reason", "No Tranco list is active yet").build()
+                        : Health.status(WARMING_UP).withDetail("reason", "Reference domain index is not loaded yet").build());
+    }
+}
@@ -0,0 +1,26 @@
+package tech.mayanksoni.safebrowsing.actuator;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+import tech.mayanksoni.safebrowsing.models.TrancoPipelineRun;
+import tech.mayanksoni.safebrowsing.services.TrancoIngestionOrchestrator;
+
+import java.util.List;
+
+/**
+ * Exposes the stage states and durations of the Tranco pipeline runs of this node at {@code /actuator/ingestion}.
+ * Runs are kept in memory, so a replica that did not hold the lease only reports skipped runs.
+ */
+@Component
+@Endpoint(id = "ingestion")
+@RequiredArgsConstructor
+public class TrancoIngestionEndpoint {
+    private final TrancoIngestionOrchestrator trancoIngestionOrchestrator;
+
+    @ReadOperation
+    public List<TrancoPipelineRun> pipelineRuns() {
+        return this.trancoIngestionOrchestrator.getPipelineRuns();
+    }
+}
@@ -0,0 +1,39 @@
+package tech.mayanksoni.safebrowsing.clients;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streams Tranco list downloads to a consumer instead of buffering them into a {@code Resource}, so a list can be
+ * processed while it is still arriving.
+ */
+@Component
+@RequiredArgsConstructor
+public class TrancoStreamingClient {
+    private static final String TOP_1M_LIST_PATH = "/download/{listId}/1000000";
+    private final RestClient trancoRestClient;
+
+    public <T> T streamTrancoTop1MList(String listId, BodyConsumer<T> bodyConsumer) {
+        return this.trancoRestClient.get().uri(TOP_1M_LIST_PATH, listId).exchange((request, response) -> {
+            HttpStatusCode statusCode = response.getStatusCode();
+            if (statusCode.is4xxClientError()) {
+                throw HttpClientErrorException.create(statusCode, response.getStatusText(), response.getHeaders(), null, null);
+            } else if (statusCode.isError()) {
+                throw HttpServerErrorException.create(statusCode, response.getStatusText(), response.getHeaders(), null, null);
+            }
+            return bodyConsumer.consume(response.getBody());
+        });
+    }
+
+    @FunctionalInterface
+    public interface BodyConsumer<T> {
+        T consume(InputStream body) throws IOException;
+    }
+}
@@ -2,6 +2,10 @@ package tech.mayanksoni.safebrowsing.configuration;
 
 import lombok.*;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import tech.mayanksoni.safebrowsing.index.MatchingEngineType;
+import tech.mayanksoni.safebrowsing.models.TrancoIngestionMode;
+
+import java.time.Duration;
 
 @ConfigurationProperties(prefix = "safe-browsing")
 @Builder
@@ -12,9 +16,50 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 public class SafeBrowsignConfig {
     private String minioBucketName;
     @Builder.Default
-    private int dataLoadBatch = 100000;
+    private String trancoBaseUrl = "https://tranco-list.eu";
+    @Builder.Default
+    private int ingestionBatchSize = 10000;
+    @Builder.Default
+    private int ingestionExtractionWorkers = 0;
+    @Builder.Default
+    private int ingestionWriterWorkers = 4;
+    @Builder.Default
+    private int ingestionQueueCapacity = 8;
+    @Builder.Default
+    private TrancoIngestionMode ingestionMode = TrancoIngestionMode.DELTA;
+    @Builder.Default
+    private String bulkLoadWriteConcern = "W1";
+    @Builder.Default
+    private int streamingDownloadChunksInFlight = 16;
+    @Builder.Default
+    private Duration jobLeaseDuration = Duration.ofMinutes(5);
     @Builder.Default
     private int editDistanceThreshold = 2;
     @Builder.Default
     private boolean phoneticMatchingEnabled = false;
+    @Builder.Default
+    private int phoneticMinimumMatchingCodes = 2;
+    @Builder.Default
+    private MatchingEngineType matchingEngine = MatchingEngineType.LEVENSHTEIN_AUTOMATON;
+    @Builder.Default
+    private long symSpellMemoryCapInMb = 2048;
+    private String indexSnapshotDirectory;
+    @Builder.Default
+    private long verdictCacheMaximumSize = 100000;
+    @Builder.Default
+    private Duration verdictCacheTtl = Duration.ofHours(6);
+    @Builder.Default
+    private int typosquattingBatchMaxSize = 1000;
+    @Builder.Default
+    private int bulkScanChunkSize = 1000;
+    @Builder.Default
+    private int bulkScanChunksInFlight = 4;
+    @Builder.Default
+    private Duration bulkScanRequestTimeout = Duration.ofHours(1);
+    @Builder.Default
+    private int bulkScanJobWorkers = 2;
+    @Builder.Default
+    private int bulkScanJobPartSize = 50000;
+    @Builder.Default
+    private Duration bulkScanJobHeartbeatTimeout = Duration.ofMinutes(2);
 }
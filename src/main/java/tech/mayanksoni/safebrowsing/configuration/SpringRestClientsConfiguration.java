@@ -9,12 +9,14 @@ import tech.mayanksoni.safebrowsing.clients.TrancoHttpClient;
 
 @Configuration
 public class SpringRestClientsConfiguration {
-    private static final String TRANCO_BASE_URL = "https://tranco-list.eu";
+    @Bean
+    public RestClient trancoRestClient(RestClient.Builder builder, SafeBrowsignConfig safeBrowsignConfig) {
+        return builder.baseUrl(safeBrowsignConfig.getTrancoBaseUrl()).build();
+    }
 
     @Bean
-    public TrancoHttpClient trancoHttpClient(RestClient.Builder builder) {
-        RestClient restClient = builder.baseUrl(TRANCO_BASE_URL).build();
-        HttpServiceProxyFactory serviceProxyFactory = HttpServiceProxyFactory.builderFor(RestClientAdapter.create(restClient)).build();
+    public TrancoHttpClient trancoHttpClient(RestClient trancoRestClient) {
+        HttpServiceProxyFactory serviceProxyFactory = HttpServiceProxyFactory.builderFor(RestClientAdapter.create(trancoRestClient)).build();
         return serviceProxyFactory.createClient(TrancoHttpClient.class);
     }
 }
@@ -0,0 +1,73 @@
+package tech.mayanksoni.safebrowsing.controllers.v1;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import tech.mayanksoni.safebrowsing.exceptions.ListEntryNotFound;
+import tech.mayanksoni.safebrowsing.models.BulkScanJobEntity;
+import tech.mayanksoni.safebrowsing.models.dto.BulkScanJobRequest;
+import tech.mayanksoni.safebrowsing.services.BulkScanJobService;
+
+@RestController
+@RequestMapping("/v1/phishproof/bulk-scan-jobs")
+@RequiredArgsConstructor
+@Tag(name = "PhishProof", description = "API for phishing and typosquatting detection")
+public class BulkScanJobV1Controller {
+    private final BulkScanJobService bulkScanJobService;
+
+    @Operation(
+            summary = "Submit a bulk scan job",
+            description = "Scans a newline-delimited domain file already uploaded to the object store and writes the verdicts to bulk-scan-results/<jobId>.ndjson in the same bucket"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Job accepted",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkScanJobEntity.class))
+            ),
+            @ApiResponse(responseCode = "404", description = "Input file not found in the object store"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping
+    public ResponseEntity<BulkScanJobEntity> submitBulkScanJob(
+            @Parameter(description = "Bulk scan job request naming the input file", required = true)
+            @RequestBody BulkScanJobRequest jobRequest) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(this.bulkScanJobService.submitJob(jobRequest));
+        } catch (ListEntryNotFound e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @Operation(
+            summary = "Get bulk scan job progress",
+            description = "Returns the status, checkpoint and verdict counts of a bulk scan job"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Job found",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkScanJobEntity.class))
+            ),
+            @ApiResponse(responseCode = "404", description = "Job not found")
+    })
+    @GetMapping("/{jobId}")
+    public ResponseEntity<BulkScanJobEntity> getBulkScanJob(
+            @Parameter(description = "Identifier of the bulk scan job", required = true)
+            @PathVariable String jobId) {
+        return ResponseEntity.of(this.bulkScanJobService.getJob(jobId));
+    }
+}
@@ -2,27 +2,48 @@ package tech.mayanksoni.safebrowsing.controllers.v1;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.models.BulkScanSummary;
 import tech.mayanksoni.safebrowsing.models.TyposquattingValidationResponse;
 import tech.mayanksoni.safebrowsing.models.dto.DomainTyposquattingValidationRequest;
+import tech.mayanksoni.safebrowsing.services.BulkScanService;
 import tech.mayanksoni.safebrowsing.services.TyposquattingDetectionService;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
 @RestController
 @RequestMapping("/v1/phishproof")
 @RequiredArgsConstructor
 @Tag(name = "PhishProof", description = "API for phishing and typosquatting detection")
 public class PhishProofV1Controller {
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    private static final MediaType NDJSON = MediaType.parseMediaType(NDJSON_MEDIA_TYPE);
     private final TyposquattingDetectionService typosquattingDetectionService;
+    private final BulkScanService bulkScanService;
+    private final SafeBrowsignConfig safeBrowsignConfig;
 
     @Operation(
             summary = "Check domain for typosquatting",
@@ -43,4 +64,80 @@ public class PhishProofV1Controller {
             @RequestBody DomainTyposquattingValidationRequest validationRequest) {
         return ResponseEntity.ok(this.typosquattingDetectionService.checkDomainForTyposquatting(validationRequest));
     }
+
+    @Operation(
+            summary = "Check a batch of domains for typosquatting",
+            description = "Analyzes several domains in one request. Domains sharing a registry suffix, first character and length share one candidate lookup, and verdicts are returned in request order"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Domains successfully analyzed",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = TyposquattingValidationResponse.class)))
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid request parameters, a null entry or more domains than the configured batch maximum"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/check-typosquatting/batch")
+    public ResponseEntity<List<TyposquattingValidationResponse>> checkDomainsForTyposquatting(
+            @Parameter(description = "Domain validation requests containing the domains to check", required = true)
+            @Valid @RequestBody List<@NotNull DomainTyposquattingValidationRequest> validationRequests) {
+        if (validationRequests.size() > safeBrowsignConfig.getTyposquattingBatchMaxSize()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A batch may hold at most " + safeBrowsignConfig.getTyposquattingBatchMaxSize() + " domains");
+        }
+        return ResponseEntity.ok(this.typosquattingDetectionService.checkDomainsForTyposquatting(validationRequests));
+    }
+
+    @Operation(
+            summary = "Stream a bulk scan of domains for typosquatting",
+            description = "Accepts newline-delimited domains and streams back one JSON verdict per line while the upload is still in progress. The last line is a summary object with the scan throughput in domains per second"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Verdicts streamed as newline-delimited JSON, terminated by a summary line",
+                    content = @Content(mediaType = NDJSON_MEDIA_TYPE, schema = @Schema(implementation = BulkScanSummary.class))
+            ),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping(value = "/check-typosquatting/bulk", consumes = {MediaType.TEXT_PLAIN_VALUE, NDJSON_MEDIA_TYPE}, produces = NDJSON_MEDIA_TYPE)
+    public ResponseEntity<ResponseBodyEmitter> scanDomainsForTyposquatting(HttpServletRequest request) throws IOException {
+        ResponseBodyEmitter verdicts = new ResponseBodyEmitter(safeBrowsignConfig.getBulkScanRequestTimeout().toMillis());
+        InputStream domains = request.getInputStream();
+        Thread.ofVirtual().name("bulk-scan-stream").start(() -> {
+            try (OutputStream verdictStream = new EmitterOutputStream(verdicts)) {
+                this.bulkScanService.scan(domains, verdictStream);
+            } catch (IOException | RuntimeException e) {
+                verdicts.completeWithError(e);
+                return;
+            }
+            verdicts.complete();
+        });
+        return ResponseEntity.ok().contentType(NDJSON).body(verdicts);
+    }
+
+    /**
+     * Sends what the scan wrote since its last flush as one part of the response. The scan flushes after every chunk,
+     * so verdicts reach the client while the upload is still in progress.
+     */
+    private static final class EmitterOutputStream extends ByteArrayOutputStream {
+        private final ResponseBodyEmitter emitter;
+
+        private EmitterOutputStream(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            if (size() > 0) {
+                this.emitter.send(toByteArray(), NDJSON);
+                reset();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
 }
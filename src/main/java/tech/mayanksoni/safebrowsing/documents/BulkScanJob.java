@@ -0,0 +1,33 @@
+package tech.mayanksoni.safebrowsing.documents;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import tech.mayanksoni.safebrowsing.models.BulkScanJobStatus;
+
+import java.time.Instant;
+
+@Document
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class BulkScanJob {
+    @Id
+    private String id;
+    private String inputFileName;
+    private String resultFileName;
+    private BulkScanJobStatus status;
+    private Instant submittedOn;
+    private Instant updatedOn;
+    private String owner;
+    private Instant heartbeatOn;
+    private long runningMillis;
+    private long checkpointLine;
+    private long checkpointByteOffset;
+    private int completedParts;
+    private long processedDomains;
+    private long typosquattingDomains;
+    private String failureReason;
+}
@@ -0,0 +1,22 @@
+package tech.mayanksoni.safebrowsing.documents;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class JobLease {
+    @Id
+    private String id;
+    private String owner;
+    private long fencingToken;
+    private Instant acquiredOn;
+    private Instant expiresAt;
+}
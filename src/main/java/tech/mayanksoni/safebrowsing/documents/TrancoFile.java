@@ -3,6 +3,7 @@ package tech.mayanksoni.safebrowsing.documents;
 import lombok.*;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import tech.mayanksoni.safebrowsing.models.IngestionCheckpoint;
 
 import java.time.Instant;
 
@@ -16,10 +17,13 @@ public class TrancoFile {
     @Id
     private String id;
     private String listId;
+    private String domainSetId;
     private Instant downloadedOn;
     private boolean processed;
     private boolean purged;
     private boolean active;
+    private Instant activatedOn;
     private long recordCount;
     private long sizeInBytes;
+    private IngestionCheckpoint ingestionCheckpoint;
 }
@@ -0,0 +1,7 @@
+package tech.mayanksoni.safebrowsing.exceptions;
+
+public class IndexMemoryCapExceeded extends RuntimeException {
+    public IndexMemoryCapExceeded(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package tech.mayanksoni.safebrowsing.exceptions;
+
+public class JobLeaseLost extends RuntimeException {
+    public JobLeaseLost(String message) {
+        super(message);
+    }
+}
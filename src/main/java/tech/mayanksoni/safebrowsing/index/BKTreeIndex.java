@@ -0,0 +1,117 @@
+package tech.mayanksoni.safebrowsing.index;
+
+import tech.mayanksoni.safebrowsing.models.EditDistanceRecordForDomain;
+import tech.mayanksoni.safebrowsing.models.PossibleReferenceDomain;
+import tech.mayanksoni.safebrowsing.models.ReferenceDomainMatchResult;
+import tech.mayanksoni.safebrowsing.utils.BitParallelEditDistance;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Burkhard-Keller trees over the private domains of a Tranco list, one tree per registry suffix.
+ * A search only descends into children whose edge distance d' satisfies |d - d'| <= k, where d is the distance
+ * between the query and the current node (triangle inequality), so most of the tree is never visited.
+ */
+public class BKTreeIndex implements ReferenceDomainMatcher {
+    private final Map<String, Node> rootsByRegistrySuffix;
+
+    private BKTreeIndex(Map<String, Node> rootsByRegistrySuffix) {
+        this.rootsByRegistrySuffix = rootsByRegistrySuffix;
+    }
+
+    public static BKTreeIndex build(Iterable<PossibleReferenceDomain> referenceDomains) {
+        Map<String, Node> rootsByRegistrySuffix = new HashMap<>();
+        for (PossibleReferenceDomain referenceDomain : referenceDomains) {
+            Node root = rootsByRegistrySuffix.get(referenceDomain.registrySuffix());
+            if (root == null) {
+                rootsByRegistrySuffix.put(referenceDomain.registrySuffix(), new Node(referenceDomain));
+            } else {
+                insert(root, referenceDomain);
+            }
+        }
+        return new BKTreeIndex(rootsByRegistrySuffix);
+    }
+
+    private static void insert(Node root, PossibleReferenceDomain referenceDomain) {
+        BitParallelEditDistance compiledReferenceDomain = BitParallelEditDistance.compile(referenceDomain.ownerDomain());
+        Node current = root;
+        while (true) {
+            int distance = compiledReferenceDomain.distance(current.referenceDomain.ownerDomain());
+            if (distance == 0) {
+                return;
+            }
+            Node child = current.getChild(distance);
+            if (child == null) {
+                current.addChild(distance, new Node(referenceDomain));
+                return;
+            }
+            current = child;
+        }
+    }
+
+    @Override
+    public ReferenceDomainMatchResult findMatches(String privateDomain, String registrySuffix, int editDistanceThreshold) {
+        Node root = rootsByRegistrySuffix.get(registrySuffix);
+        if (root == null) {
+            return new ReferenceDomainMatchResult(List.of(), 0);
+        }
+        BitParallelEditDistance compiledPrivateDomain = BitParallelEditDistance.compile(privateDomain);
+        List<EditDistanceRecordForDomain> matches = new ArrayList<>();
+        long visitedNodes = 0;
+        Deque<Node> nodesToVisit = new ArrayDeque<>();
+        nodesToVisit.push(root);
+        while (!nodesToVisit.isEmpty()) {
+            Node node = nodesToVisit.pop();
+            visitedNodes++;
+            int distance = compiledPrivateDomain.distance(node.referenceDomain.ownerDomain());
+            if (distance <= editDistanceThreshold) {
+                matches.add(new EditDistanceRecordForDomain(distance, privateDomain, node.referenceDomain.ownerDomain()));
+            }
+            for (int i = 0; i < node.childCount; i++) {
+                if (Math.abs(node.childDistances[i] - distance) <= editDistanceThreshold) {
+                    nodesToVisit.push(node.children[i]);
+                }
+            }
+        }
+        return new ReferenceDomainMatchResult(matches, visitedNodes);
+    }
+
+    private static final class Node {
+        private final PossibleReferenceDomain referenceDomain;
+        private int[] childDistances;
+        private Node[] children;
+        private int childCount;
+
+        private Node(PossibleReferenceDomain referenceDomain) {
+            this.referenceDomain = referenceDomain;
+        }
+
+        private Node getChild(int distance) {
+            for (int i = 0; i < childCount; i++) {
+                if (childDistances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private void addChild(int distance, Node child) {
+            if (children == null) {
+                childDistances = new int[2];
+                children = new Node[2];
+            } else if (childCount == children.length) {
+                childDistances = Arrays.copyOf(childDistances, childCount * 2);
+                children = Arrays.copyOf(children, childCount * 2);
+            }
+            childDistances[childCount] = distance;
+            children[childCount] = child;
+            childCount++;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package tech.mayanksoni.safebrowsing.index;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import tech.mayanksoni.safebrowsing.models.PossibleReferenceDomain;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Compact membership filter of (privateDomain, registrySuffix) pairs backed by an open-addressing table of 64-bit
+ * fingerprints. At one million domains the probability of a false positive is below 1e-13, and the table takes
+ * 16 bytes per domain instead of a String and a HashMap node. The table is either on the heap or a view of a mapped
+ * {@link ReferenceDomainSnapshot}, in which case it is read from the page cache without being copied.
+ */
+public class ExactMatchFilter {
+    private static final HashFunction FINGERPRINT_FUNCTION = Hashing.murmur3_128();
+    private static final long EMPTY_SLOT = 0L;
+
+    private final LongBuffer fingerprints;
+    private final int mask;
+
+    private ExactMatchFilter(int expectedDomains) {
+        int capacity = Integer.highestOneBit(Math.max(2, expectedDomains) * 2 - 1) << 1;
+        this.fingerprints = LongBuffer.wrap(new long[capacity]);
+        this.mask = capacity - 1;
+    }
+
+    private ExactMatchFilter(LongBuffer fingerprints) {
+        this.fingerprints = fingerprints;
+        this.mask = fingerprints.capacity() - 1;
+    }
+
+    public static ExactMatchFilter build(List<PossibleReferenceDomain> referenceDomains) {
+        ExactMatchFilter exactMatchFilter = new ExactMatchFilter(referenceDomains.size());
+        for (PossibleReferenceDomain referenceDomain : referenceDomains) {
+            exactMatchFilter.add(referenceDomain.ownerDomain(), referenceDomain.registrySuffix());
+        }
+        return exactMatchFilter;
+    }
+
+    /**
+     * Wraps a fingerprint table written by {@link #writeTo(DataOutput)}, starting at the buffer's position.
+     */
+    static ExactMatchFilter map(ByteBuffer snapshotBuffer) {
+        int capacity = snapshotBuffer.getInt();
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalStateException("Invalid exact match table capacity " + capacity);
+        }
+        LongBuffer fingerprints = snapshotBuffer.slice(snapshotBuffer.position(), capacity * Long.BYTES).order(snapshotBuffer.order()).asLongBuffer();
+        snapshotBuffer.position(snapshotBuffer.position() + capacity * Long.BYTES);
+        return new ExactMatchFilter(fingerprints);
+    }
+
+    void writeTo(DataOutput snapshotOutput) throws IOException {
+        snapshotOutput.writeInt(fingerprints.capacity());
+        for (int slot = 0; slot < fingerprints.capacity(); slot++) {
+            snapshotOutput.writeLong(fingerprints.get(slot));
+        }
+    }
+
+    private static long fingerprint(String privateDomain, String registrySuffix) {
+        long fingerprint = FINGERPRINT_FUNCTION.newHasher()
+                .putString(privateDomain, StandardCharsets.UTF_8)
+                .putByte((byte) '.')
+                .putString(registrySuffix, StandardCharsets.UTF_8)
+                .hash()
+                .asLong();
+        return fingerprint == EMPTY_SLOT ? 1L : fingerprint;
+    }
+
+    private void add(String privateDomain, String registrySuffix) {
+        long fingerprint = fingerprint(privateDomain, registrySuffix);
+        int slot = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+        while (fingerprints.get(slot) != EMPTY_SLOT) {
+            if (fingerprints.get(slot) == fingerprint) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        fingerprints.put(slot, fingerprint);
+    }
+
+    public boolean contains(String privateDomain, String registrySuffix) {
+        long fingerprint = fingerprint(privateDomain, registrySuffix);
+        int slot = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+        while (fingerprints.get(slot) != EMPTY_SLOT) {
+            if (fingerprints.get(slot) == fingerprint) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+}
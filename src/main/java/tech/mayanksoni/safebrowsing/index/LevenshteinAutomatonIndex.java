@@ -0,0 +1,288 @@
+package tech.mayanksoni.safebrowsing.index;
+
+import tech.mayanksoni.safebrowsing.models.EditDistanceRecordForDomain;
+import tech.mayanksoni.safebrowsing.models.PossibleReferenceDomain;
+import tech.mayanksoni.safebrowsing.models.ReferenceDomainMatchResult;
+import tech.mayanksoni.safebrowsing.utils.LevenshteinAutomaton;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Tries of the private domains of a Tranco list, one per registry suffix, searched by intersecting them with the
+ * {@link LevenshteinAutomaton} of the domain under check. A subtree is skipped as soon as the automaton dies on its
+ * prefix, and no first-character or length prefilter is needed, so typos in the first character are still found.
+ * The tries share flat node arrays that refer to the domains of a {@link ReferenceDomainTable} by id, so a mapped
+ * {@link ReferenceDomainSnapshot} serves them as they are and a domain is only decoded when it matches.
+ */
+public class LevenshteinAutomatonIndex implements ReferenceDomainMatcher {
+    private final ReferenceDomainTable domainTable;
+    private final Map<String, TrieRoot> rootsByRegistrySuffix;
+    private final Trie trie;
+
+    private LevenshteinAutomatonIndex(ReferenceDomainTable domainTable, Map<String, TrieRoot> rootsByRegistrySuffix, Trie trie) {
+        this.domainTable = domainTable;
+        this.rootsByRegistrySuffix = rootsByRegistrySuffix;
+        this.trie = trie;
+    }
+
+    public static LevenshteinAutomatonIndex build(Iterable<PossibleReferenceDomain> referenceDomains) {
+        List<PossibleReferenceDomain> referenceDomainList = new ArrayList<>();
+        referenceDomains.forEach(referenceDomainList::add);
+        return build(ReferenceDomainTable.build(referenceDomainList));
+    }
+
+    static LevenshteinAutomatonIndex build(ReferenceDomainTable domainTable) {
+        Map<String, TreeMap<String, Integer>> sortedDomainIdsByRegistrySuffix = new HashMap<>();
+        for (int domainId = 0; domainId < domainTable.size(); domainId++) {
+            sortedDomainIdsByRegistrySuffix.computeIfAbsent(domainTable.registrySuffix(domainTable.registrySuffixIdOf(domainId)), s -> new TreeMap<>())
+                    .putIfAbsent(domainTable.ownerDomain(domainId), domainId);
+        }
+        TrieBuilder trieBuilder = new TrieBuilder();
+        Map<String, TrieRoot> rootsByRegistrySuffix = new HashMap<>();
+        sortedDomainIdsByRegistrySuffix.forEach((registrySuffix, sortedDomainIds) -> rootsByRegistrySuffix.put(registrySuffix, trieBuilder.addTrie(sortedDomainIds)));
+        return new LevenshteinAutomatonIndex(domainTable, rootsByRegistrySuffix, trieBuilder.build());
+    }
+
+    /**
+     * Wraps tries written by {@link #writeTo(DataOutput)}, starting at the buffer's position, over the domain table they
+     * were built from. Only the root of each registry suffix is read onto the heap.
+     */
+    static LevenshteinAutomatonIndex map(ByteBuffer snapshotBuffer, ReferenceDomainTable domainTable) {
+        int registrySuffixCount = snapshotBuffer.getInt();
+        Map<String, TrieRoot> rootsByRegistrySuffix = new HashMap<>();
+        for (int i = 0; i < registrySuffixCount; i++) {
+            rootsByRegistrySuffix.put(SnapshotBuffers.readString(snapshotBuffer), new TrieRoot(snapshotBuffer.getInt(), snapshotBuffer.getInt()));
+        }
+        Trie trie = new Trie(SnapshotBuffers.mapChars(snapshotBuffer), SnapshotBuffers.mapInts(snapshotBuffer), SnapshotBuffers.mapInts(snapshotBuffer), SnapshotBuffers.mapInts(snapshotBuffer));
+        if (trie.firstChild.capacity() != trie.labels.capacity() || trie.nextSibling.capacity() != trie.labels.capacity() || trie.domainIds.capacity() != trie.labels.capacity()) {
+            throw new IllegalStateException("Invalid trie of " + trie.labels.capacity() + " nodes");
+        }
+        return new LevenshteinAutomatonIndex(domainTable, rootsByRegistrySuffix, trie);
+    }
+
+    void writeTo(DataOutput snapshotOutput) throws IOException {
+        snapshotOutput.writeInt(rootsByRegistrySuffix.size());
+        for (Map.Entry<String, TrieRoot> trieRoot : rootsByRegistrySuffix.entrySet()) {
+            SnapshotBuffers.writeString(snapshotOutput, trieRoot.getKey());
+            snapshotOutput.writeInt(trieRoot.getValue().node());
+            snapshotOutput.writeInt(trieRoot.getValue().maxDepth());
+        }
+        SnapshotBuffers.writeChars(snapshotOutput, trie.labels);
+        SnapshotBuffers.writeInts(snapshotOutput, trie.firstChild);
+        SnapshotBuffers.writeInts(snapshotOutput, trie.nextSibling);
+        SnapshotBuffers.writeInts(snapshotOutput, trie.domainIds);
+    }
+
+    @Override
+    public ReferenceDomainMatchResult findMatches(String privateDomain, String registrySuffix, int editDistanceThreshold) {
+        TrieRoot trieRoot = rootsByRegistrySuffix.get(registrySuffix);
+        if (trieRoot == null) {
+            return new ReferenceDomainMatchResult(List.of(), 0);
+        }
+        LevenshteinAutomaton automaton = LevenshteinAutomaton.compile(privateDomain, editDistanceThreshold);
+        int[][] statesByDepth = new int[trieRoot.maxDepth() + 1][automaton.getStateSize()];
+        automaton.start(statesByDepth[0]);
+        List<EditDistanceRecordForDomain> matches = new ArrayList<>();
+        long visitedNodes = intersect(trieRoot.node(), 0, automaton, statesByDepth, privateDomain, matches);
+        return new ReferenceDomainMatchResult(matches, visitedNodes);
+    }
+
+    /**
+     * Walks the trie once for all the private domains, stepping every automaton still alive along each edge and
+     * descending while at least one of them is. Similar domains share the nodes near the root, which a walk per domain
+     * would visit once for each of them.
+     */
+    @Override
+    public List<ReferenceDomainMatchResult> findAllMatches(List<String> privateDomains, String registrySuffix, int editDistanceThreshold) {
+        TrieRoot trieRoot = rootsByRegistrySuffix.get(registrySuffix);
+        if (trieRoot == null || privateDomains.size() == 1) {
+            return ReferenceDomainMatcher.super.findAllMatches(privateDomains, registrySuffix, editDistanceThreshold);
+        }
+        SharedWalk sharedWalk = new SharedWalk(privateDomains, editDistanceThreshold, trieRoot.maxDepth());
+        intersectAll(trieRoot.node(), 0, sharedWalk);
+        List<ReferenceDomainMatchResult> matchResults = new ArrayList<>(privateDomains.size());
+        for (int query = 0; query < privateDomains.size(); query++) {
+            matchResults.add(new ReferenceDomainMatchResult(sharedWalk.matches.get(query), sharedWalk.visitedNodes[query]));
+        }
+        return matchResults;
+    }
+
+    private long intersect(int node, int depth, LevenshteinAutomaton automaton, int[][] statesByDepth, String privateDomain, List<EditDistanceRecordForDomain> matches) {
+        long visitedNodes = 1;
+        int[] state = statesByDepth[depth];
+        int domainId = trie.domainIds.get(node);
+        if (domainId != Trie.NONE && automaton.isMatch(state)) {
+            matches.add(new EditDistanceRecordForDomain(automaton.distance(state), privateDomain, domainTable.ownerDomain(domainId)));
+        }
+        for (int child = trie.firstChild.get(node); child != Trie.NONE; child = trie.nextSibling.get(child)) {
+            if (automaton.step(state, trie.labels.get(child), statesByDepth[depth + 1])) {
+                visitedNodes += intersect(child, depth + 1, automaton, statesByDepth, privateDomain, matches);
+            }
+        }
+        return visitedNodes;
+    }
+
+    private void intersectAll(int node, int depth, SharedWalk sharedWalk) {
+        int[][] states = sharedWalk.statesByDepth[depth];
+        boolean[] alive = sharedWalk.aliveByDepth[depth];
+        int domainId = trie.domainIds.get(node);
+        String ownerDomain = null;
+        for (int query = 0; query < alive.length; query++) {
+            if (alive[query]) {
+                sharedWalk.visitedNodes[query]++;
+                if (domainId != Trie.NONE && sharedWalk.automata[query].isMatch(states[query])) {
+                    if (ownerDomain == null) {
+                        ownerDomain = domainTable.ownerDomain(domainId);
+                    }
+                    sharedWalk.matches.get(query).add(new EditDistanceRecordForDomain(sharedWalk.automata[query].distance(states[query]), sharedWalk.privateDomains.get(query), ownerDomain));
+                }
+            }
+        }
+        for (int child = trie.firstChild.get(node); child != Trie.NONE; child = trie.nextSibling.get(child)) {
+            boolean[] aliveAtChild = sharedWalk.aliveByDepth[depth + 1];
+            boolean anyAlive = false;
+            char label = trie.labels.get(child);
+            for (int query = 0; query < alive.length; query++) {
+                aliveAtChild[query] = alive[query] && sharedWalk.automata[query].step(states[query], label, sharedWalk.statesByDepth[depth + 1][query]);
+                anyAlive |= aliveAtChild[query];
+            }
+            if (anyAlive) {
+                intersectAll(child, depth + 1, sharedWalk);
+            }
+        }
+    }
+
+    /**
+     * The automata of a shared walk with their states and liveness per trie depth, and what each of them has found.
+     */
+    private static final class SharedWalk {
+        private final List<String> privateDomains;
+        private final LevenshteinAutomaton[] automata;
+        private final int[][][] statesByDepth;
+        private final boolean[][] aliveByDepth;
+        private final List<List<EditDistanceRecordForDomain>> matches;
+        private final long[] visitedNodes;
+
+        private SharedWalk(List<String> privateDomains, int editDistanceThreshold, int maxDepth) {
+            int queryCount = privateDomains.size();
+            this.privateDomains = privateDomains;
+            this.automata = new LevenshteinAutomaton[queryCount];
+            this.statesByDepth = new int[maxDepth + 1][queryCount][];
+            this.aliveByDepth = new boolean[maxDepth + 1][queryCount];
+            this.matches = new ArrayList<>(queryCount);
+            this.visitedNodes = new long[queryCount];
+            for (int query = 0; query < queryCount; query++) {
+                automata[query] = LevenshteinAutomaton.compile(privateDomains.get(query), editDistanceThreshold);
+                for (int depth = 0; depth <= maxDepth; depth++) {
+                    statesByDepth[depth][query] = new int[automata[query].getStateSize()];
+                }
+                automata[query].start(statesByDepth[0][query]);
+                aliveByDepth[0][query] = true;
+                matches.add(new ArrayList<>());
+            }
+        }
+    }
+
+    /**
+     * The root node of the trie of a registry suffix and the length of its longest domain.
+     */
+    private record TrieRoot(int node, int maxDepth) {
+    }
+
+    /**
+     * Flat trie nodes using first-child/next-sibling links; {@code domainIds[node]} is the id of the domain ending at
+     * that node, or {@link #NONE}.
+     */
+    private static final class Trie {
+        private static final int NONE = -1;
+
+        private final CharBuffer labels;
+        private final IntBuffer firstChild;
+        private final IntBuffer nextSibling;
+        private final IntBuffer domainIds;
+
+        private Trie(CharBuffer labels, IntBuffer firstChild, IntBuffer nextSibling, IntBuffer domainIds) {
+            this.labels = labels;
+            this.firstChild = firstChild;
+            this.nextSibling = nextSibling;
+            this.domainIds = domainIds;
+        }
+    }
+
+    /**
+     * Appends the trie of each registry suffix to growing node arrays, which are trimmed into a {@link Trie} at the end.
+     */
+    private static final class TrieBuilder {
+        private char[] labels = new char[16];
+        private int[] firstChild = new int[16];
+        private int[] nextSibling = new int[16];
+        private int[] lastChild = new int[16];
+        private int[] domainIds = new int[16];
+        private int nodeCount;
+
+        private TrieRoot addTrie(Map<String, Integer> sortedDomainIds) {
+            int root = addNode('\0');
+            int maxDepth = 0;
+            for (Map.Entry<String, Integer> sortedDomainId : sortedDomainIds.entrySet()) {
+                insertSorted(root, sortedDomainId.getKey(), sortedDomainId.getValue());
+                maxDepth = Math.max(maxDepth, sortedDomainId.getKey().length());
+            }
+            return new TrieRoot(root, maxDepth);
+        }
+
+        private Trie build() {
+            return new Trie(CharBuffer.wrap(Arrays.copyOf(labels, nodeCount)), IntBuffer.wrap(Arrays.copyOf(firstChild, nodeCount)),
+                    IntBuffer.wrap(Arrays.copyOf(nextSibling, nodeCount)), IntBuffer.wrap(Arrays.copyOf(domainIds, nodeCount)));
+        }
+
+        private int addNode(char label) {
+            if (nodeCount == labels.length) {
+                int capacity = nodeCount * 2;
+                labels = Arrays.copyOf(labels, capacity);
+                firstChild = Arrays.copyOf(firstChild, capacity);
+                nextSibling = Arrays.copyOf(nextSibling, capacity);
+                lastChild = Arrays.copyOf(lastChild, capacity);
+                domainIds = Arrays.copyOf(domainIds, capacity);
+            }
+            labels[nodeCount] = label;
+            firstChild[nodeCount] = Trie.NONE;
+            nextSibling[nodeCount] = Trie.NONE;
+            lastChild[nodeCount] = Trie.NONE;
+            domainIds[nodeCount] = Trie.NONE;
+            return nodeCount++;
+        }
+
+        /**
+         * Domains arrive in sorted order, so an existing child for {@code c} can only be the last child appended.
+         */
+        private void insertSorted(int root, String domain, int domainId) {
+            int node = root;
+            for (int i = 0; i < domain.length(); i++) {
+                char c = domain.charAt(i);
+                int child = lastChild[node];
+                if (child == Trie.NONE || labels[child] != c) {
+                    int newChild = addNode(c);
+                    if (child == Trie.NONE) {
+                        firstChild[node] = newChild;
+                    } else {
+                        nextSibling[child] = newChild;
+                    }
+                    lastChild[node] = newChild;
+                    child = newChild;
+                }
+                node = child;
+            }
+            domainIds[node] = domainId;
+        }
+    }
+}
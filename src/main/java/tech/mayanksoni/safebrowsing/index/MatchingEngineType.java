@@ -0,0 +1,8 @@
+package tech.mayanksoni.safebrowsing.index;
+
+public enum MatchingEngineType {
+    BUCKET_SCAN,
+    BK_TREE,
+    SYMSPELL,
+    LEVENSHTEIN_AUTOMATON
+}
@@ -0,0 +1,176 @@
+package tech.mayanksoni.safebrowsing.index;
+
+import tech.mayanksoni.safebrowsing.index.ReferenceDomainTable.PhoneticCode;
+import tech.mayanksoni.safebrowsing.models.PhoneticMatchRecordForDomain;
+import tech.mayanksoni.safebrowsing.models.PhoneticModel;
+import tech.mayanksoni.safebrowsing.models.PossibleReferenceDomain;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted indexes from the Soundex, Metaphone and Double Metaphone codes stored with every Tranco domain to the
+ * reference domains carrying that code, keyed per registry suffix. Each index is a sorted array of
+ * (registrySuffix, code) keys, each naming a domain of the {@link ReferenceDomainTable} that carries it, and the
+ * posting lists of domain ids of every key laid end to end, so a mapped {@link ReferenceDomainSnapshot} serves them
+ * as they are. A lookup is three binary searches, comparing codes in place.
+ */
+public class PhoneticIndex {
+    private final ReferenceDomainTable domainTable;
+    private final Postings[] postingsByPhoneticCode;
+
+    private PhoneticIndex(ReferenceDomainTable domainTable, Postings[] postingsByPhoneticCode) {
+        this.domainTable = domainTable;
+        this.postingsByPhoneticCode = postingsByPhoneticCode;
+    }
+
+    public static PhoneticIndex build(List<PossibleReferenceDomain> referenceDomains) {
+        return build(ReferenceDomainTable.build(referenceDomains));
+    }
+
+    static PhoneticIndex build(ReferenceDomainTable domainTable) {
+        Postings[] postingsByPhoneticCode = new Postings[PhoneticCode.values().length];
+        for (PhoneticCode phoneticCode : PhoneticCode.values()) {
+            postingsByPhoneticCode[phoneticCode.ordinal()] = invert(domainTable, phoneticCode);
+        }
+        return new PhoneticIndex(domainTable, postingsByPhoneticCode);
+    }
+
+    private static Postings invert(ReferenceDomainTable domainTable, PhoneticCode phoneticCode) {
+        byte[][] codes = new byte[domainTable.size()][];
+        List<Integer> domainIdsWithCode = new ArrayList<>();
+        for (int domainId = 0; domainId < domainTable.size(); domainId++) {
+            String code = domainTable.phoneticCode(domainId, phoneticCode);
+            if (code != null && !code.isEmpty()) {
+                codes[domainId] = code.getBytes(StandardCharsets.UTF_8);
+                domainIdsWithCode.add(domainId);
+            }
+        }
+        // Stable, so a posting list keeps the domains in table order
+        domainIdsWithCode.sort(Comparator.<Integer>comparingInt(domainTable::registrySuffixIdOf).thenComparing((left, right) -> Arrays.compareUnsigned(codes[left], codes[right])));
+        int[] keyDomainIds = new int[domainIdsWithCode.size()];
+        int[] postingStarts = new int[domainIdsWithCode.size() + 1];
+        int[] postings = new int[domainIdsWithCode.size()];
+        int keyCount = 0;
+        for (int posting = 0; posting < postings.length; posting++) {
+            int domainId = domainIdsWithCode.get(posting);
+            int previousDomainId = posting == 0 ? -1 : postings[posting - 1];
+            if (previousDomainId < 0 || domainTable.registrySuffixIdOf(previousDomainId) != domainTable.registrySuffixIdOf(domainId) || !Arrays.equals(codes[previousDomainId], codes[domainId])) {
+                keyDomainIds[keyCount] = domainId;
+                postingStarts[keyCount] = posting;
+                keyCount++;
+            }
+            postings[posting] = domainId;
+        }
+        postingStarts[keyCount] = postings.length;
+        return new Postings(IntBuffer.wrap(Arrays.copyOf(keyDomainIds, keyCount)), IntBuffer.wrap(Arrays.copyOf(postingStarts, keyCount + 1)), IntBuffer.wrap(postings));
+    }
+
+    /**
+     * Wraps postings written by {@link #writeTo(DataOutput)}, starting at the buffer's position, over the domain table
+     * they were built from.
+     */
+    static PhoneticIndex map(ByteBuffer snapshotBuffer, ReferenceDomainTable domainTable) {
+        Postings[] postingsByPhoneticCode = new Postings[PhoneticCode.values().length];
+        for (PhoneticCode phoneticCode : PhoneticCode.values()) {
+            Postings postings = new Postings(SnapshotBuffers.mapInts(snapshotBuffer), SnapshotBuffers.mapInts(snapshotBuffer), SnapshotBuffers.mapInts(snapshotBuffer));
+            if (postings.postingStarts().capacity() != postings.keyDomainIds().capacity() + 1) {
+                throw new IllegalStateException("Invalid " + phoneticCode + " postings of " + postings.keyDomainIds().capacity() + " keys");
+            }
+            postingsByPhoneticCode[phoneticCode.ordinal()] = postings;
+        }
+        return new PhoneticIndex(domainTable, postingsByPhoneticCode);
+    }
+
+    void writeTo(DataOutput snapshotOutput) throws IOException {
+        for (Postings postings : postingsByPhoneticCode) {
+            SnapshotBuffers.writeInts(snapshotOutput, postings.keyDomainIds());
+            SnapshotBuffers.writeInts(snapshotOutput, postings.postingStarts());
+            SnapshotBuffers.writeInts(snapshotOutput, postings.postings());
+        }
+    }
+
+    /**
+     * Returns the reference domains sharing at least {@code minimumMatchingCodes} of the three phonetic codes with the
+     * domain under check, excluding the domain itself.
+     */
+    public List<PhoneticMatchRecordForDomain> findMatches(String privateDomain, String registrySuffix, PhoneticModel phoneticModel, int minimumMatchingCodes) {
+        int suffixId = domainTable.registrySuffixId(registrySuffix);
+        if (suffixId < 0) {
+            return List.of();
+        }
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+        Map<String, Integer> matchingCodes = new HashMap<>();
+        collect(PhoneticCode.SOUNDEX, suffixId, phoneticModel.soundexCode(), candidates, matchingCodes);
+        collect(PhoneticCode.METAPHONE, suffixId, phoneticModel.metaphoneCode(), candidates, matchingCodes);
+        collect(PhoneticCode.DOUBLE_METAPHONE, suffixId, phoneticModel.doubleMetaphoneCode(), candidates, matchingCodes);
+        List<PhoneticMatchRecordForDomain> matches = new ArrayList<>();
+        candidates.forEach((ownerDomain, domainId) -> {
+            int count = matchingCodes.get(ownerDomain);
+            if (count >= minimumMatchingCodes && !ownerDomain.equals(privateDomain)) {
+                matches.add(new PhoneticMatchRecordForDomain(count, privateDomain, ownerDomain, domainTable.domainRank(domainId)));
+            }
+        });
+        return matches;
+    }
+
+    private void collect(PhoneticCode phoneticCode, int suffixId, String code, Map<String, Integer> candidates, Map<String, Integer> matchingCodes) {
+        if (code == null || code.isEmpty()) {
+            return;
+        }
+        Postings postings = postingsByPhoneticCode[phoneticCode.ordinal()];
+        int key = findKey(postings, phoneticCode, suffixId, code.getBytes(StandardCharsets.UTF_8));
+        if (key < 0) {
+            return;
+        }
+        Set<String> seenOwnerDomains = new HashSet<>();
+        for (int posting = postings.postingStarts().get(key); posting < postings.postingStarts().get(key + 1); posting++) {
+            int domainId = postings.postings().get(posting);
+            String ownerDomain = domainTable.ownerDomain(domainId);
+            if (seenOwnerDomains.add(ownerDomain)) {
+                candidates.putIfAbsent(ownerDomain, domainId);
+                matchingCodes.merge(ownerDomain, 1, Integer::sum);
+            }
+        }
+    }
+
+    private int findKey(Postings postings, PhoneticCode phoneticCode, int suffixId, byte[] code) {
+        int low = 0;
+        int high = postings.keyDomainIds().capacity() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int keyDomainId = postings.keyDomainIds().get(middle);
+            int comparison = Integer.compare(domainTable.registrySuffixIdOf(keyDomainId), suffixId);
+            if (comparison == 0) {
+                comparison = domainTable.comparePhoneticCode(keyDomainId, phoneticCode, code);
+            }
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sorted keys, each the id of a domain carrying the key's registry suffix and code, with the range of
+     * {@code postings} holding the ids of every domain carrying it.
+     */
+    private record Postings(IntBuffer keyDomainIds, IntBuffer postingStarts, IntBuffer postings) {
+    }
+}
@@ -0,0 +1,157 @@
+package tech.mayanksoni.safebrowsing.index;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.exceptions.IndexMemoryCapExceeded;
+import tech.mayanksoni.safebrowsing.models.EditDistanceRecordForDomain;
+import tech.mayanksoni.safebrowsing.models.PossibleReferenceDomain;
+import tech.mayanksoni.safebrowsing.models.ReferenceDomainMatchResult;
+import tech.mayanksoni.safebrowsing.models.TrancoProvidedDomainEntity;
+import tech.mayanksoni.safebrowsing.utils.BitParallelEditDistance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Immutable in-memory view of the domains of a single Tranco list, held in a {@link ReferenceDomainTable} ordered by
+ * (registrySuffix, domainFirstCharacter, domainLength) so candidate retrieval is a binary search over its buckets.
+ * Fuzzy matching is delegated to the {@link ReferenceDomainMatcher} of the configured {@link MatchingEngineType}.
+ */
+@Slf4j
+public class ReferenceDomainIndex implements ReferenceDomainMatcher {
+    @Getter
+    private final String listId;
+    @Getter
+    private final int size;
+    @Getter
+    private final MatchingEngineType matchingEngineType;
+    private final ReferenceDomainTable domainTable;
+    private final ReferenceDomainMatcher matcher;
+    private final ExactMatchFilter exactMatchFilter;
+    private final PhoneticIndex phoneticIndex;
+
+    /**
+     * @param referenceDomains the domains of the table when they are already on the heap, otherwise {@code null}; they
+     * are only decoded from the table for the BK-tree and SymSpell matchers, which keep their own copies on the heap
+     * @param mappedTries the tries of a snapshot, served when the configured engine is the Levenshtein automaton
+     * @param mappedPhoneticIndex the phonetic postings of a snapshot, served when phonetic matching is enabled
+     */
+    private ReferenceDomainIndex(String listId, SafeBrowsignConfig safeBrowsignConfig, ReferenceDomainTable domainTable, List<PossibleReferenceDomain> referenceDomains,
+                                 ExactMatchFilter exactMatchFilter, LevenshteinAutomatonIndex mappedTries, PhoneticIndex mappedPhoneticIndex) {
+        this.listId = listId;
+        this.size = domainTable.size();
+        this.domainTable = domainTable;
+        this.exactMatchFilter = exactMatchFilter;
+        MatchingEngineType selectedMatchingEngine = safeBrowsignConfig.getMatchingEngine();
+        ReferenceDomainMatcher selectedMatcher;
+        try {
+            selectedMatcher = switch (selectedMatchingEngine) {
+                case BUCKET_SCAN -> this::scanBuckets;
+                case BK_TREE -> BKTreeIndex.build(referenceDomains != null ? referenceDomains : domainTable.stream().toList());
+                case SYMSPELL -> SymSpellIndex.build(referenceDomains != null ? referenceDomains : domainTable.stream().toList(),
+                        safeBrowsignConfig.getEditDistanceThreshold(), safeBrowsignConfig.getSymSpellMemoryCapInMb() * 1024 * 1024);
+                case LEVENSHTEIN_AUTOMATON -> mappedTries != null ? mappedTries : LevenshteinAutomatonIndex.build(domainTable);
+            };
+        } catch (IndexMemoryCapExceeded e) {
+            log.warn("Unable to build {} matcher for listId {}, falling back to {}: {}", selectedMatchingEngine, listId, MatchingEngineType.BUCKET_SCAN, e.getMessage());
+            selectedMatchingEngine = MatchingEngineType.BUCKET_SCAN;
+            selectedMatcher = this::scanBuckets;
+        }
+        this.matchingEngineType = selectedMatchingEngine;
+        this.matcher = selectedMatcher;
+        if (!safeBrowsignConfig.isPhoneticMatchingEnabled()) {
+            this.phoneticIndex = null;
+        } else {
+            this.phoneticIndex = mappedPhoneticIndex != null ? mappedPhoneticIndex : PhoneticIndex.build(domainTable);
+        }
+    }
+
+    public static ReferenceDomainIndex build(String listId, SafeBrowsignConfig safeBrowsignConfig, Stream<TrancoProvidedDomainEntity> domains) {
+        Map<String, String> registrySuffixes = new HashMap<>();
+        List<PossibleReferenceDomain> referenceDomains = new ArrayList<>();
+        domains.forEach(domain -> referenceDomains.add(new PossibleReferenceDomain(
+                registrySuffixes.computeIfAbsent(domain.registrySuffix(), s -> s),
+                domain.domain(),
+                domain.domainLength(),
+                domain.domainRank(),
+                domain.ownerDomainSoundexCode(),
+                domain.ownerDomainMetaphoneCode(),
+                domain.ownerDomainDoubleMetaphoneCode()
+        )));
+        return new ReferenceDomainIndex(listId, safeBrowsignConfig, ReferenceDomainTable.build(referenceDomains), referenceDomains, ExactMatchFilter.build(referenceDomains), null, null);
+    }
+
+    /**
+     * Builds the index over the structures mapped from a {@link ReferenceDomainSnapshot}. The tries and phonetic
+     * postings are {@code null} when the snapshot was written without them, in which case they are built on the heap
+     * from the mapped domain table if the configuration needs them.
+     */
+    static ReferenceDomainIndex build(String listId, SafeBrowsignConfig safeBrowsignConfig, ReferenceDomainTable domainTable, ExactMatchFilter exactMatchFilter,
+                                      LevenshteinAutomatonIndex mappedTries, PhoneticIndex mappedPhoneticIndex) {
+        return new ReferenceDomainIndex(listId, safeBrowsignConfig, domainTable, null, exactMatchFilter, mappedTries, mappedPhoneticIndex);
+    }
+
+    public List<PossibleReferenceDomain> getPossibleReferenceDomains(int domainLengthLowerLimit, int domainLengthUpperLimit, char firstCharacter, String registrySuffix) {
+        return domainTable.getPossibleReferenceDomains(domainLengthLowerLimit, domainLengthUpperLimit, firstCharacter, registrySuffix);
+    }
+
+    public boolean containsExactMatch(String privateDomain, String registrySuffix) {
+        return exactMatchFilter.contains(privateDomain, registrySuffix);
+    }
+
+    @Override
+    public ReferenceDomainMatchResult findMatches(String privateDomain, String registrySuffix, int editDistanceThreshold) {
+        return matcher.findMatches(privateDomain, registrySuffix, editDistanceThreshold);
+    }
+
+    @Override
+    public List<ReferenceDomainMatchResult> findAllMatches(List<String> privateDomains, String registrySuffix, int editDistanceThreshold) {
+        return matcher.findAllMatches(privateDomains, registrySuffix, editDistanceThreshold);
+    }
+
+    public Optional<PhoneticIndex> getPhoneticIndex() {
+        return Optional.ofNullable(phoneticIndex);
+    }
+
+    /**
+     * The reference domains grouped by candidate bucket, the order a {@link ReferenceDomainSnapshot} stores them in.
+     */
+    Stream<PossibleReferenceDomain> streamReferenceDomains() {
+        return domainTable.stream();
+    }
+
+    ReferenceDomainTable getDomainTable() {
+        return domainTable;
+    }
+
+    ExactMatchFilter getExactMatchFilter() {
+        return exactMatchFilter;
+    }
+
+    /**
+     * The tries of the Levenshtein automaton engine, when it is the one serving matches.
+     */
+    Optional<LevenshteinAutomatonIndex> getLevenshteinAutomatonIndex() {
+        return matcher instanceof LevenshteinAutomatonIndex levenshteinAutomatonIndex ? Optional.of(levenshteinAutomatonIndex) : Optional.empty();
+    }
+
+    private ReferenceDomainMatchResult scanBuckets(String privateDomain, String registrySuffix, int editDistanceThreshold) {
+        List<PossibleReferenceDomain> candidates = getPossibleReferenceDomains(
+                privateDomain.length() - editDistanceThreshold,
+                privateDomain.length() + editDistanceThreshold,
+                privateDomain.charAt(0),
+                registrySuffix
+        );
+        BitParallelEditDistance compiledPrivateDomain = BitParallelEditDistance.compile(privateDomain);
+        List<EditDistanceRecordForDomain> matches = candidates.parallelStream()
+                .map(candidate -> new EditDistanceRecordForDomain(compiledPrivateDomain.boundedDistance(candidate.ownerDomain(), editDistanceThreshold), privateDomain, candidate.ownerDomain()))
+                .filter(editDistanceRecord -> editDistanceRecord.editDistance() <= editDistanceThreshold)
+                .toList();
+        return new ReferenceDomainMatchResult(matches, candidates.size());
+    }
+}
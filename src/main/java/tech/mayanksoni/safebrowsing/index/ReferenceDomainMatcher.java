@@ -0,0 +1,21 @@
+package tech.mayanksoni.safebrowsing.index;
+
+import tech.mayanksoni.safebrowsing.models.ReferenceDomainMatchResult;
+
+import java.util.List;
+
+/**
+ * Finds the reference domains of a registry suffix that are within an edit distance threshold of a private domain.
+ */
+@FunctionalInterface
+public interface ReferenceDomainMatcher {
+    ReferenceDomainMatchResult findMatches(String privateDomain, String registrySuffix, int editDistanceThreshold);
+
+    /**
+     * Matches several private domains of the same registry suffix, returning one result per domain in input order.
+     * Engines that can share retrieval between similar domains override this; by default each domain is matched alone.
+     */
+    default List<ReferenceDomainMatchResult> findAllMatches(List<String> privateDomains, String registrySuffix, int editDistanceThreshold) {
+        return privateDomains.stream().map(privateDomain -> findMatches(privateDomain, registrySuffix, editDistanceThreshold)).toList();
+    }
+}
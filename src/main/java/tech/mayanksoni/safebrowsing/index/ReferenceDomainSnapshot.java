@@ -0,0 +1,125 @@
+package tech.mayanksoni.safebrowsing.index;
+
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of a {@link ReferenceDomainIndex}, written once per list and opened with {@link FileChannel#map} so
+ * a restart serves the index from the page cache instead of reading the list back from the store. The file holds a
+ * header with the listId, the {@link ReferenceDomainTable} with its bucket offsets, the fingerprint table of the
+ * {@link ExactMatchFilter}, and, when the index had them, the flat tries of the {@link LevenshteinAutomatonIndex} and
+ * the postings of the {@link PhoneticIndex}. These are all served from the mapping as they are; only the registry
+ * suffixes and trie roots, one entry per suffix, are read onto the heap. The BK-tree and SymSpell matchers link domains
+ * through heap objects, so they are still rebuilt from the mapped table when one of them is configured, as are the
+ * tries or postings a snapshot was written without. A CRC32C of everything before it closes the file, so a torn or
+ * corrupted snapshot is rejected and the index is rebuilt instead.
+ * <p>
+ * All values are big-endian; strings are a two-byte length followed by UTF-8 bytes, with a length of -1 for null.
+ */
+public final class ReferenceDomainSnapshot {
+    private static final int MAGIC = 0x53425249;
+    private static final int VERSION = 3;
+    private static final String TEMPORARY_FILE_PREFIX = ".reference-index-";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    private ReferenceDomainSnapshot() {
+    }
+
+    /**
+     * Writes the snapshot to a temporary file of its own next to {@code snapshotFile} and moves it into place, so a
+     * reader never maps a partial file and processes sharing the directory never write to the same file.
+     */
+    public static void write(Path snapshotFile, ReferenceDomainIndex referenceDomainIndex) throws IOException {
+        Optional<LevenshteinAutomatonIndex> tries = referenceDomainIndex.getLevenshteinAutomatonIndex();
+        Optional<PhoneticIndex> phoneticIndex = referenceDomainIndex.getPhoneticIndex();
+        Path temporaryFile = createTemporaryFile(snapshotFile);
+        CRC32C snapshotChecksum = new CRC32C();
+        try (DataOutputStream snapshotOutput = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile), 1 << 16), snapshotChecksum))) {
+            snapshotOutput.writeInt(MAGIC);
+            snapshotOutput.writeInt(VERSION);
+            SnapshotBuffers.writeString(snapshotOutput, referenceDomainIndex.getListId());
+            referenceDomainIndex.getDomainTable().writeTo(snapshotOutput);
+            referenceDomainIndex.getExactMatchFilter().writeTo(snapshotOutput);
+            snapshotOutput.writeBoolean(tries.isPresent());
+            if (tries.isPresent()) {
+                tries.get().writeTo(snapshotOutput);
+            }
+            snapshotOutput.writeBoolean(phoneticIndex.isPresent());
+            if (phoneticIndex.isPresent()) {
+                phoneticIndex.get().writeTo(snapshotOutput);
+            }
+            snapshotOutput.flush();
+            snapshotOutput.writeInt((int) snapshotChecksum.getValue());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaryFile);
+            throw e;
+        }
+        moveIntoPlace(temporaryFile, snapshotFile);
+    }
+
+    /**
+     * Creates an empty temporary file in the directory of {@code snapshotFile}, named so it is never taken for a snapshot.
+     */
+    public static Path createTemporaryFile(Path snapshotFile) throws IOException {
+        return Files.createTempFile(snapshotFile.getParent(), TEMPORARY_FILE_PREFIX, TEMPORARY_FILE_SUFFIX);
+    }
+
+    /**
+     * Atomically replaces {@code snapshotFile} with a file written by {@link #createTemporaryFile}, or removes the
+     * temporary file when the move fails.
+     */
+    public static void moveIntoPlace(Path temporaryFile, Path snapshotFile) throws IOException {
+        try {
+            Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporaryFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Maps the snapshot and serves the index from it with the matching engine currently configured. The mapping stays
+     * valid after the channel is closed and is released once the index is no longer referenced.
+     */
+    public static ReferenceDomainIndex open(Path snapshotFile, SafeBrowsignConfig safeBrowsignConfig) throws IOException {
+        MappedByteBuffer snapshotBuffer;
+        try (FileChannel snapshotChannel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            snapshotBuffer = snapshotChannel.map(FileChannel.MapMode.READ_ONLY, 0, snapshotChannel.size());
+        }
+        if (snapshotBuffer.remaining() < 3 * Integer.BYTES || snapshotBuffer.getInt() != MAGIC) {
+            throw new IOException("Not a reference domain snapshot: " + snapshotFile);
+        }
+        int version = snapshotBuffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported reference domain snapshot version " + version + ": " + snapshotFile);
+        }
+        int checksumPosition = snapshotBuffer.limit() - Integer.BYTES;
+        CRC32C snapshotChecksum = new CRC32C();
+        snapshotChecksum.update(snapshotBuffer.slice(0, checksumPosition));
+        if ((int) snapshotChecksum.getValue() != snapshotBuffer.getInt(checksumPosition)) {
+            throw new IOException("Checksum mismatch in reference domain snapshot: " + snapshotFile);
+        }
+        snapshotBuffer.limit(checksumPosition);
+        String listId = SnapshotBuffers.readString(snapshotBuffer);
+        ReferenceDomainTable domainTable = ReferenceDomainTable.map(snapshotBuffer);
+        ExactMatchFilter exactMatchFilter = ExactMatchFilter.map(snapshotBuffer);
+        LevenshteinAutomatonIndex tries = snapshotBuffer.get() != 0 ? LevenshteinAutomatonIndex.map(snapshotBuffer, domainTable) : null;
+        PhoneticIndex phoneticIndex = snapshotBuffer.get() != 0 ? PhoneticIndex.map(snapshotBuffer, domainTable) : null;
+        if (snapshotBuffer.hasRemaining()) {
+            throw new IOException("Trailing bytes in reference domain snapshot: " + snapshotFile);
+        }
+        return ReferenceDomainIndex.build(listId, safeBrowsignConfig, domainTable, exactMatchFilter, tries, phoneticIndex);
+    }
+}
@@ -0,0 +1,297 @@
+package tech.mayanksoni.safebrowsing.index;
+
+import tech.mayanksoni.safebrowsing.models.PossibleReferenceDomain;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The reference domains of a list as fixed-width records, ordered by candidate bucket
+ * (registrySuffix, domainFirstCharacter, domainLength), with their strings in a shared pool. A domain is addressed by
+ * its position, its domain id, which the trie and phonetic postings refer to, and is only decoded into a
+ * {@link PossibleReferenceDomain} when a lookup returns it. The buffers are either on the heap or views of a mapped
+ * {@link ReferenceDomainSnapshot}; only the dictionary of registry suffixes, a few thousand strings, is decoded onto
+ * the heap when a snapshot is opened.
+ * <p>
+ * A record is the registry suffix id, the domain length, the rank and the pool offsets of the domain and its three
+ * phonetic codes, {@link #NO_STRING} for a missing code. Pool strings are a two-byte length followed by UTF-8 bytes.
+ */
+final class ReferenceDomainTable {
+    private static final int NO_STRING = -1;
+    private static final int RECORD_BYTES = 32;
+    private static final int REGISTRY_SUFFIX_ID = 0;
+    private static final int OWNER_DOMAIN_LENGTH = 4;
+    private static final int DOMAIN_RANK = 8;
+    private static final int OWNER_DOMAIN = 16;
+
+    private final String[] registrySuffixes;
+    private final Map<String, Integer> registrySuffixIds;
+    private final ByteBuffer records;
+    private final ByteBuffer strings;
+    private final LongBuffer bucketKeys;
+    private final IntBuffer bucketStarts;
+
+    private ReferenceDomainTable(String[] registrySuffixes, ByteBuffer records, ByteBuffer strings, LongBuffer bucketKeys, IntBuffer bucketStarts) {
+        this.registrySuffixes = registrySuffixes;
+        this.registrySuffixIds = new HashMap<>();
+        for (int suffixId = 0; suffixId < registrySuffixes.length; suffixId++) {
+            this.registrySuffixIds.put(registrySuffixes[suffixId], suffixId);
+        }
+        this.records = records;
+        this.strings = strings;
+        this.bucketKeys = bucketKeys;
+        this.bucketStarts = bucketStarts;
+    }
+
+    static ReferenceDomainTable build(List<PossibleReferenceDomain> referenceDomains) {
+        Map<String, Integer> registrySuffixIds = new HashMap<>();
+        List<String> registrySuffixes = new ArrayList<>();
+        long[] bucketKeyByDomain = new long[referenceDomains.size()];
+        for (int i = 0; i < referenceDomains.size(); i++) {
+            PossibleReferenceDomain referenceDomain = referenceDomains.get(i);
+            int suffixId = registrySuffixIds.computeIfAbsent(referenceDomain.registrySuffix(), registrySuffix -> {
+                registrySuffixes.add(registrySuffix);
+                return registrySuffixes.size() - 1;
+            });
+            bucketKeyByDomain[i] = bucketKey(suffixId, referenceDomain.ownerDomain().charAt(0), referenceDomain.ownerDomainLength());
+        }
+        // Stable, so a bucket keeps the order the domains were read in
+        Integer[] bucketOrder = IntStream.range(0, referenceDomains.size()).boxed().toArray(Integer[]::new);
+        Arrays.sort(bucketOrder, Comparator.comparingLong(i -> bucketKeyByDomain[i]));
+
+        StringPool stringPool = new StringPool();
+        ByteBuffer records = ByteBuffer.allocate(referenceDomains.size() * RECORD_BYTES);
+        long[] bucketKeys = new long[referenceDomains.size()];
+        int[] bucketStarts = new int[referenceDomains.size() + 1];
+        int bucketCount = 0;
+        for (int domainId = 0; domainId < bucketOrder.length; domainId++) {
+            int i = bucketOrder[domainId];
+            PossibleReferenceDomain referenceDomain = referenceDomains.get(i);
+            int recordOffset = domainId * RECORD_BYTES;
+            records.putInt(recordOffset + REGISTRY_SUFFIX_ID, registrySuffixIds.get(referenceDomain.registrySuffix()));
+            records.putInt(recordOffset + OWNER_DOMAIN_LENGTH, referenceDomain.ownerDomainLength());
+            records.putLong(recordOffset + DOMAIN_RANK, referenceDomain.domainRank());
+            records.putInt(recordOffset + OWNER_DOMAIN, stringPool.add(referenceDomain.ownerDomain()));
+            for (PhoneticCode phoneticCode : PhoneticCode.values()) {
+                records.putInt(recordOffset + phoneticCode.recordOffset, stringPool.add(phoneticCode.of(referenceDomain)));
+            }
+            if (bucketCount == 0 || bucketKeys[bucketCount - 1] != bucketKeyByDomain[i]) {
+                bucketKeys[bucketCount] = bucketKeyByDomain[i];
+                bucketStarts[bucketCount] = domainId;
+                bucketCount++;
+            }
+        }
+        bucketStarts[bucketCount] = referenceDomains.size();
+        return new ReferenceDomainTable(registrySuffixes.toArray(String[]::new), records, ByteBuffer.wrap(stringPool.toByteArray()),
+                LongBuffer.wrap(Arrays.copyOf(bucketKeys, bucketCount)), IntBuffer.wrap(Arrays.copyOf(bucketStarts, bucketCount + 1)));
+    }
+
+    /**
+     * Wraps a table written by {@link #writeTo(DataOutput)}, starting at the buffer's position.
+     */
+    static ReferenceDomainTable map(ByteBuffer snapshotBuffer) {
+        String[] registrySuffixes = new String[snapshotBuffer.getInt()];
+        for (int suffixId = 0; suffixId < registrySuffixes.length; suffixId++) {
+            registrySuffixes[suffixId] = SnapshotBuffers.readString(snapshotBuffer);
+        }
+        ByteBuffer records = SnapshotBuffers.mapBytes(snapshotBuffer);
+        ByteBuffer strings = SnapshotBuffers.mapBytes(snapshotBuffer);
+        LongBuffer bucketKeys = SnapshotBuffers.mapLongs(snapshotBuffer);
+        IntBuffer bucketStarts = SnapshotBuffers.mapInts(snapshotBuffer);
+        if (records.capacity() % RECORD_BYTES != 0 || bucketStarts.capacity() != bucketKeys.capacity() + 1) {
+            throw new IllegalStateException("Invalid reference domain table of " + records.capacity() + " record bytes and " + bucketKeys.capacity() + " buckets");
+        }
+        return new ReferenceDomainTable(registrySuffixes, records, strings, bucketKeys, bucketStarts);
+    }
+
+    void writeTo(DataOutput snapshotOutput) throws IOException {
+        snapshotOutput.writeInt(registrySuffixes.length);
+        for (String registrySuffix : registrySuffixes) {
+            SnapshotBuffers.writeString(snapshotOutput, registrySuffix);
+        }
+        SnapshotBuffers.writeBytes(snapshotOutput, records);
+        SnapshotBuffers.writeBytes(snapshotOutput, strings);
+        SnapshotBuffers.writeLongs(snapshotOutput, bucketKeys);
+        SnapshotBuffers.writeInts(snapshotOutput, bucketStarts);
+    }
+
+    int size() {
+        return records.capacity() / RECORD_BYTES;
+    }
+
+    /**
+     * @return the id of the registry suffix, or -1 when no domain of the list has it
+     */
+    int registrySuffixId(String registrySuffix) {
+        return registrySuffixIds.getOrDefault(registrySuffix, -1);
+    }
+
+    String registrySuffix(int suffixId) {
+        return registrySuffixes[suffixId];
+    }
+
+    int registrySuffixIdOf(int domainId) {
+        return records.getInt(domainId * RECORD_BYTES + REGISTRY_SUFFIX_ID);
+    }
+
+    String ownerDomain(int domainId) {
+        return readString(records.getInt(domainId * RECORD_BYTES + OWNER_DOMAIN));
+    }
+
+    long domainRank(int domainId) {
+        return records.getLong(domainId * RECORD_BYTES + DOMAIN_RANK);
+    }
+
+    String phoneticCode(int domainId, PhoneticCode phoneticCode) {
+        return readString(records.getInt(domainId * RECORD_BYTES + phoneticCode.recordOffset));
+    }
+
+    /**
+     * Compares a phonetic code of a domain with the UTF-8 bytes of a code byte by byte, without decoding it.
+     * A missing code sorts before every code.
+     */
+    int comparePhoneticCode(int domainId, PhoneticCode phoneticCode, byte[] code) {
+        int stringOffset = records.getInt(domainId * RECORD_BYTES + phoneticCode.recordOffset);
+        if (stringOffset == NO_STRING) {
+            return -1;
+        }
+        int length = strings.getShort(stringOffset);
+        int commonLength = Math.min(length, code.length);
+        for (int i = 0; i < commonLength; i++) {
+            int comparison = Byte.compareUnsigned(strings.get(stringOffset + Short.BYTES + i), code[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, code.length);
+    }
+
+    PossibleReferenceDomain get(int domainId) {
+        int recordOffset = domainId * RECORD_BYTES;
+        return new PossibleReferenceDomain(
+                registrySuffixes[records.getInt(recordOffset + REGISTRY_SUFFIX_ID)],
+                readString(records.getInt(recordOffset + OWNER_DOMAIN)),
+                records.getInt(recordOffset + OWNER_DOMAIN_LENGTH),
+                records.getLong(recordOffset + DOMAIN_RANK),
+                phoneticCode(domainId, PhoneticCode.SOUNDEX),
+                phoneticCode(domainId, PhoneticCode.METAPHONE),
+                phoneticCode(domainId, PhoneticCode.DOUBLE_METAPHONE)
+        );
+    }
+
+    /**
+     * The reference domains grouped by candidate bucket, decoded one at a time.
+     */
+    Stream<PossibleReferenceDomain> stream() {
+        return IntStream.range(0, size()).mapToObj(this::get);
+    }
+
+    /**
+     * Decodes the domains of the buckets of one registry suffix and first character whose length is within the limits.
+     * Those buckets are adjacent, so they are found with a single binary search.
+     */
+    List<PossibleReferenceDomain> getPossibleReferenceDomains(int domainLengthLowerLimit, int domainLengthUpperLimit, char firstCharacter, String registrySuffix) {
+        int suffixId = registrySuffixId(registrySuffix);
+        int lowestLength = Math.max(1, domainLengthLowerLimit);
+        if (suffixId < 0 || lowestLength > domainLengthUpperLimit) {
+            return List.of();
+        }
+        long highestKey = bucketKey(suffixId, firstCharacter, domainLengthUpperLimit);
+        List<PossibleReferenceDomain> possibleReferenceDomains = new ArrayList<>();
+        for (int bucket = lowerBound(bucketKey(suffixId, firstCharacter, lowestLength)); bucket < bucketKeys.capacity() && bucketKeys.get(bucket) <= highestKey; bucket++) {
+            for (int domainId = bucketStarts.get(bucket); domainId < bucketStarts.get(bucket + 1); domainId++) {
+                possibleReferenceDomains.add(get(domainId));
+            }
+        }
+        return possibleReferenceDomains;
+    }
+
+    private int lowerBound(long bucketKey) {
+        int low = 0;
+        int high = bucketKeys.capacity();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (bucketKeys.get(middle) < bucketKey) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static long bucketKey(int suffixId, char firstCharacter, int domainLength) {
+        return ((long) suffixId << 32) | ((long) firstCharacter << 16) | Math.min(domainLength, 0xFFFF);
+    }
+
+    private String readString(int stringOffset) {
+        if (stringOffset == NO_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[strings.getShort(stringOffset)];
+        strings.get(stringOffset + Short.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The phonetic codes stored with every domain and where a record holds their pool offsets.
+     */
+    enum PhoneticCode {
+        SOUNDEX(20),
+        METAPHONE(24),
+        DOUBLE_METAPHONE(28);
+
+        private final int recordOffset;
+
+        PhoneticCode(int recordOffset) {
+            this.recordOffset = recordOffset;
+        }
+
+        String of(PossibleReferenceDomain referenceDomain) {
+            return switch (this) {
+                case SOUNDEX -> referenceDomain.soundexCode();
+                case METAPHONE -> referenceDomain.metaphoneCode();
+                case DOUBLE_METAPHONE -> referenceDomain.doubleMetaphoneCode();
+            };
+        }
+    }
+
+    /**
+     * Appends each distinct string once, so the codes shared by many domains take a single entry.
+     */
+    private static final class StringPool {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final Map<String, Integer> offsets = new HashMap<>();
+
+        private int add(String value) {
+            if (value == null) {
+                return NO_STRING;
+            }
+            return offsets.computeIfAbsent(value, v -> {
+                byte[] utf8 = v.getBytes(StandardCharsets.UTF_8);
+                int offset = bytes.size();
+                bytes.write(utf8.length >>> 8);
+                bytes.write(utf8.length);
+                bytes.write(utf8, 0, utf8.length);
+                return offset;
+            });
+        }
+
+        private byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+}
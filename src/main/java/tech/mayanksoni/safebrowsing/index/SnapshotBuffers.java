@@ -0,0 +1,106 @@
+package tech.mayanksoni.safebrowsing.index;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads and writes the sections of a {@link ReferenceDomainSnapshot}. An array section is its element count followed
+ * by the elements; {@code map} methods return a view of the section starting at the buffer's position, without
+ * copying it, and advance the position past it. The same views wrap heap arrays when an index is built in memory.
+ */
+final class SnapshotBuffers {
+    private static final int NULL_STRING = -1;
+    private static final int COPY_CHUNK_BYTES = 1 << 16;
+
+    private SnapshotBuffers() {
+    }
+
+    static void writeInts(DataOutput snapshotOutput, IntBuffer values) throws IOException {
+        snapshotOutput.writeInt(values.capacity());
+        for (int i = 0; i < values.capacity(); i++) {
+            snapshotOutput.writeInt(values.get(i));
+        }
+    }
+
+    static IntBuffer mapInts(ByteBuffer snapshotBuffer) {
+        int count = snapshotBuffer.getInt();
+        return slice(snapshotBuffer, count, Integer.BYTES).asIntBuffer();
+    }
+
+    static void writeLongs(DataOutput snapshotOutput, LongBuffer values) throws IOException {
+        snapshotOutput.writeInt(values.capacity());
+        for (int i = 0; i < values.capacity(); i++) {
+            snapshotOutput.writeLong(values.get(i));
+        }
+    }
+
+    static LongBuffer mapLongs(ByteBuffer snapshotBuffer) {
+        int count = snapshotBuffer.getInt();
+        return slice(snapshotBuffer, count, Long.BYTES).asLongBuffer();
+    }
+
+    static void writeChars(DataOutput snapshotOutput, CharBuffer values) throws IOException {
+        snapshotOutput.writeInt(values.capacity());
+        for (int i = 0; i < values.capacity(); i++) {
+            snapshotOutput.writeChar(values.get(i));
+        }
+    }
+
+    static CharBuffer mapChars(ByteBuffer snapshotBuffer) {
+        int count = snapshotBuffer.getInt();
+        return slice(snapshotBuffer, count, Character.BYTES).asCharBuffer();
+    }
+
+    static void writeBytes(DataOutput snapshotOutput, ByteBuffer values) throws IOException {
+        snapshotOutput.writeInt(values.capacity());
+        byte[] chunk = new byte[Math.min(COPY_CHUNK_BYTES, values.capacity())];
+        for (int offset = 0; offset < values.capacity(); offset += chunk.length) {
+            int length = Math.min(chunk.length, values.capacity() - offset);
+            values.get(offset, chunk, 0, length);
+            snapshotOutput.write(chunk, 0, length);
+        }
+    }
+
+    static ByteBuffer mapBytes(ByteBuffer snapshotBuffer) {
+        int count = snapshotBuffer.getInt();
+        return slice(snapshotBuffer, count, Byte.BYTES);
+    }
+
+    /**
+     * Strings are a two-byte length followed by UTF-8 bytes, with a length of -1 for null.
+     */
+    static void writeString(DataOutput snapshotOutput, String value) throws IOException {
+        if (value == null) {
+            snapshotOutput.writeShort(NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        snapshotOutput.writeShort(bytes.length);
+        snapshotOutput.write(bytes);
+    }
+
+    static String readString(ByteBuffer snapshotBuffer) {
+        short length = snapshotBuffer.getShort();
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        snapshotBuffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer slice(ByteBuffer snapshotBuffer, int count, int elementBytes) {
+        if (count < 0 || (long) count * elementBytes > snapshotBuffer.remaining()) {
+            throw new IllegalStateException("Invalid snapshot section of " + count + " elements at offset " + snapshotBuffer.position());
+        }
+        int length = count * elementBytes;
+        ByteBuffer section = snapshotBuffer.slice(snapshotBuffer.position(), length);
+        snapshotBuffer.position(snapshotBuffer.position() + length);
+        return section;
+    }
+}
@@ -0,0 +1,134 @@
+package tech.mayanksoni.safebrowsing.index;
+
+import tech.mayanksoni.safebrowsing.exceptions.IndexMemoryCapExceeded;
+import tech.mayanksoni.safebrowsing.models.EditDistanceRecordForDomain;
+import tech.mayanksoni.safebrowsing.models.PossibleReferenceDomain;
+import tech.mayanksoni.safebrowsing.models.ReferenceDomainMatchResult;
+import tech.mayanksoni.safebrowsing.utils.EditDistanceUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Symmetric delete index: every private domain is expanded into all strings reachable by deleting up to
+ * {@code maxEditDistance} characters, and each deletion variant maps back to its source domains. Two strings within
+ * distance k always share a deletion variant, so a query only has to look up its own variants and verify the
+ * returned candidates with the real distance.
+ */
+public class SymSpellIndex implements ReferenceDomainMatcher {
+    // Rough per-variant cost of a HashMap entry, the variant String and its postings array on a 64-bit JVM
+    private static final long ESTIMATED_BYTES_PER_VARIANT = 112;
+    private static final long ESTIMATED_BYTES_PER_POSTING = Integer.BYTES;
+
+    private final int maxEditDistance;
+    private final Map<String, SuffixPartition> partitionsByRegistrySuffix;
+
+    private SymSpellIndex(int maxEditDistance, Map<String, SuffixPartition> partitionsByRegistrySuffix) {
+        this.maxEditDistance = maxEditDistance;
+        this.partitionsByRegistrySuffix = partitionsByRegistrySuffix;
+    }
+
+    public static SymSpellIndex build(Iterable<PossibleReferenceDomain> referenceDomains, int maxEditDistance, long memoryCapInBytes) {
+        Map<String, Map<String, Integer>> domainIdsByRegistrySuffix = new HashMap<>();
+        Map<String, Map<String, int[]>> postingsByRegistrySuffix = new HashMap<>();
+        long estimatedBytes = 0;
+        for (PossibleReferenceDomain referenceDomain : referenceDomains) {
+            Map<String, Integer> domainIds = domainIdsByRegistrySuffix.computeIfAbsent(referenceDomain.registrySuffix(), s -> new LinkedHashMap<>());
+            if (domainIds.containsKey(referenceDomain.ownerDomain())) {
+                continue;
+            }
+            int domainId = domainIds.size();
+            domainIds.put(referenceDomain.ownerDomain(), domainId);
+            Map<String, int[]> postings = postingsByRegistrySuffix.computeIfAbsent(referenceDomain.registrySuffix(), s -> new HashMap<>());
+            for (String variant : generateDeletionVariants(referenceDomain.ownerDomain(), maxEditDistance)) {
+                int[] domainIdsForVariant = postings.get(variant);
+                if (domainIdsForVariant == null) {
+                    estimatedBytes += ESTIMATED_BYTES_PER_VARIANT + variant.length();
+                }
+                postings.put(variant, appendPosting(domainIdsForVariant, domainId));
+                estimatedBytes += ESTIMATED_BYTES_PER_POSTING;
+            }
+            if (estimatedBytes > memoryCapInBytes) {
+                throw new IndexMemoryCapExceeded(String.format("SymSpell index exceeded memory cap of %d bytes after %d variants", memoryCapInBytes, postingsByRegistrySuffix.values().stream().mapToLong(Map::size).sum()));
+            }
+        }
+        Map<String, SuffixPartition> partitionsByRegistrySuffix = new HashMap<>();
+        domainIdsByRegistrySuffix.forEach((registrySuffix, domainIds) -> {
+            Map<String, int[]> postings = postingsByRegistrySuffix.get(registrySuffix);
+            postings.replaceAll((variant, domainIdsForVariant) -> Arrays.copyOfRange(domainIdsForVariant, 1, domainIdsForVariant[0] + 1));
+            partitionsByRegistrySuffix.put(registrySuffix, new SuffixPartition(domainIds.keySet().toArray(String[]::new), postings));
+        });
+        return new SymSpellIndex(maxEditDistance, partitionsByRegistrySuffix);
+    }
+
+    /**
+     * Postings are built as {@code [count, id0, id1, ...]} with doubling capacity and trimmed once the build completes.
+     */
+    private static int[] appendPosting(int[] domainIdsForVariant, int domainId) {
+        if (domainIdsForVariant == null) {
+            return new int[]{1, domainId};
+        }
+        int count = domainIdsForVariant[0];
+        if (count + 1 == domainIdsForVariant.length) {
+            domainIdsForVariant = Arrays.copyOf(domainIdsForVariant, domainIdsForVariant.length * 2);
+        }
+        domainIdsForVariant[count + 1] = domainId;
+        domainIdsForVariant[0] = count + 1;
+        return domainIdsForVariant;
+    }
+
+    static Set<String> generateDeletionVariants(String term, int maxDeletions) {
+        Set<String> variants = new HashSet<>();
+        variants.add(term);
+        List<String> frontier = List.of(term);
+        for (int deletions = 1; deletions <= maxDeletions; deletions++) {
+            List<String> nextFrontier = new ArrayList<>();
+            for (String variant : frontier) {
+                for (int i = 0; i < variant.length(); i++) {
+                    String deletion = variant.substring(0, i) + variant.substring(i + 1);
+                    if (variants.add(deletion)) {
+                        nextFrontier.add(deletion);
+                    }
+                }
+            }
+            frontier = nextFrontier;
+        }
+        return variants;
+    }
+
+    @Override
+    public ReferenceDomainMatchResult findMatches(String privateDomain, String registrySuffix, int editDistanceThreshold) {
+        SuffixPartition partition = partitionsByRegistrySuffix.get(registrySuffix);
+        if (partition == null) {
+            return new ReferenceDomainMatchResult(List.of(), 0);
+        }
+        int threshold = Math.min(editDistanceThreshold, maxEditDistance);
+        Set<Integer> candidateIds = new HashSet<>();
+        for (String variant : generateDeletionVariants(privateDomain, threshold)) {
+            int[] domainIdsForVariant = partition.postings().get(variant);
+            if (domainIdsForVariant != null) {
+                for (int domainId : domainIdsForVariant) {
+                    candidateIds.add(domainId);
+                }
+            }
+        }
+        List<EditDistanceRecordForDomain> matches = new ArrayList<>();
+        for (int candidateId : candidateIds) {
+            String candidate = partition.domains()[candidateId];
+            int distance = EditDistanceUtil.computeBoundedLevenshteinDistance(privateDomain, candidate, threshold);
+            if (distance <= threshold) {
+                matches.add(new EditDistanceRecordForDomain(distance, privateDomain, candidate));
+            }
+        }
+        return new ReferenceDomainMatchResult(matches, candidateIds.size());
+    }
+
+    private record SuffixPartition(String[] domains, Map<String, int[]> postings) {
+    }
+}
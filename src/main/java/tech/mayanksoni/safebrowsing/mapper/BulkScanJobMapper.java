@@ -0,0 +1,13 @@
+package tech.mayanksoni.safebrowsing.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+import tech.mayanksoni.safebrowsing.documents.BulkScanJob;
+import tech.mayanksoni.safebrowsing.models.BulkScanJobEntity;
+
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING)
+public interface BulkScanJobMapper {
+    @Mapping(source = "id", target = "jobId")
+    BulkScanJobEntity toBulkScanJobEntity(BulkScanJob sourceBulkScanJob);
+}
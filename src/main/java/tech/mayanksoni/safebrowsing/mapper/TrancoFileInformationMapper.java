@@ -10,5 +10,6 @@ import tech.mayanksoni.safebrowsing.models.TrancoFileEntity;
 public interface TrancoFileInformationMapper {
 
     @Mapping(source = "id", target = "databaseRecordId")
+    @Mapping(target = "domainSetId", expression = "java(sourceTrancoFile.getDomainSetId() != null ? sourceTrancoFile.getDomainSetId() : sourceTrancoFile.getListId())")
     TrancoFileEntity toTrancoFileEntity(TrancoFile sourceTrancoFile);
 }
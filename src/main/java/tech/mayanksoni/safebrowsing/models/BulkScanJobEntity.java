@@ -0,0 +1,19 @@
+package tech.mayanksoni.safebrowsing.models;
+
+public record BulkScanJobEntity(
+        String jobId,
+        String inputFileName,
+        String resultFileName,
+        BulkScanJobStatus status,
+        String submittedOn,
+        String updatedOn,
+        String heartbeatOn,
+        long runningMillis,
+        long checkpointLine,
+        long checkpointByteOffset,
+        int completedParts,
+        long processedDomains,
+        long typosquattingDomains,
+        String failureReason
+) {
+}
@@ -0,0 +1,8 @@
+package tech.mayanksoni.safebrowsing.models;
+
+public enum BulkScanJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
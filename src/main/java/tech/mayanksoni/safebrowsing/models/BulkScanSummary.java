@@ -0,0 +1,19 @@
+package tech.mayanksoni.safebrowsing.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Summary written as the last line of a bulk scan")
+public record BulkScanSummary(
+        @Schema(description = "Number of domains scanned", example = "1000000")
+        long scannedDomains,
+
+        @Schema(description = "Number of domains flagged as potential typosquatting", example = "1532")
+        long typosquattingDomains,
+
+        @Schema(description = "Wall-clock duration of the scan in milliseconds", example = "42000")
+        long elapsedMillis,
+
+        @Schema(description = "Scan throughput in domains per second", example = "23809.5")
+        double domainsPerSecond
+) {
+}
@@ -0,0 +1,13 @@
+package tech.mayanksoni.safebrowsing.models;
+
+/**
+ * Position in a Tranco CSV up to which every row has been committed to the domain store: the last committed line and
+ * rank, the byte offset at which the next row starts, and the number of malformed rows quarantined so far.
+ */
+public record IngestionCheckpoint(
+        long lineNumber,
+        long byteOffset,
+        long domainRank,
+        int quarantinedRows
+) {
+}
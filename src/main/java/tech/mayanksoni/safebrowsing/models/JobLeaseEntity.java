@@ -0,0 +1,12 @@
+package tech.mayanksoni.safebrowsing.models;
+
+/**
+ * A lease held by {@code owner}. The fencing token grows by one every time the lease changes hands, so a node whose
+ * lease expired can tell it has been superseded even if it still believes it holds the lease.
+ */
+public record JobLeaseEntity(
+        String leaseName,
+        String owner,
+        long fencingToken
+) {
+}
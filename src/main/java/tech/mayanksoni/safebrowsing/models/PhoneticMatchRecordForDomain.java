@@ -0,0 +1,9 @@
+package tech.mayanksoni.safebrowsing.models;
+
+public record PhoneticMatchRecordForDomain(
+        int matchingPhoneticCodes,
+        String domainToCheck,
+        String referenceDomain,
+        long referenceDomainRank
+) {
+}
@@ -4,6 +4,9 @@ public record PossibleReferenceDomain(
         String registrySuffix,
         String ownerDomain,
         int ownerDomainLength,
-        String soundexCode
+        long domainRank,
+        String soundexCode,
+        String metaphoneCode,
+        String doubleMetaphoneCode
 ) {
 }
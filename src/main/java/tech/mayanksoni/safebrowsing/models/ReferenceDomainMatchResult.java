@@ -0,0 +1,9 @@
+package tech.mayanksoni.safebrowsing.models;
+
+import java.util.List;
+
+public record ReferenceDomainMatchResult(
+        List<EditDistanceRecordForDomain> matches,
+        long visitedCandidates
+) {
+}
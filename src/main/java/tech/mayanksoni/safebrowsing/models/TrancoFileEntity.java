@@ -3,10 +3,14 @@ package tech.mayanksoni.safebrowsing.models;
 public record TrancoFileEntity(
         String databaseRecordId,
         String listId,
+        String domainSetId,
         String downloadedOn,
         long sizeInBytes,
         boolean processed,
         boolean purged,
-        long recordCount
+        boolean active,
+        String activatedOn,
+        long recordCount,
+        IngestionCheckpoint ingestionCheckpoint
 ) {
 }
@@ -0,0 +1,6 @@
+package tech.mayanksoni.safebrowsing.models;
+
+public enum TrancoIngestionMode {
+    FULL,
+    DELTA
+}
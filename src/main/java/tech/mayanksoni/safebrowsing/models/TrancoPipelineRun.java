@@ -0,0 +1,19 @@
+package tech.mayanksoni.safebrowsing.models;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * @param trigger what started the run, such as {@code startup} or {@code poll}
+ * @param listId  the latest list reported by Tranco, once the metadata poll has completed
+ */
+public record TrancoPipelineRun(
+        String trigger,
+        String listId,
+        TrancoPipelineStatus status,
+        Instant startedOn,
+        Instant finishedOn,
+        Long durationInMs,
+        List<TrancoPipelineStageState> stages
+) {
+}
@@ -0,0 +1,13 @@
+package tech.mayanksoni.safebrowsing.models;
+
+/**
+ * The stages of a Tranco pipeline run, in the order each one triggers the next.
+ */
+public enum TrancoPipelineStage {
+    METADATA_POLL,
+    DOWNLOAD,
+    INGEST,
+    INDEX_BUILD,
+    ACTIVATE,
+    PURGE
+}
@@ -0,0 +1,19 @@
+package tech.mayanksoni.safebrowsing.models;
+
+import java.time.Instant;
+
+/**
+ * @param attempts     how many times the stage ran, counting retries
+ * @param durationInMs the time from the first attempt to the outcome, or so far while the stage is running
+ * @param detail       why the stage was skipped, or the message of its last failure
+ */
+public record TrancoPipelineStageState(
+        TrancoPipelineStage stage,
+        TrancoPipelineStatus status,
+        int attempts,
+        Instant startedOn,
+        Instant finishedOn,
+        Long durationInMs,
+        String detail
+) {
+}
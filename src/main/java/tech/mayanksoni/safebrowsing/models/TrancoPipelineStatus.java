@@ -0,0 +1,9 @@
+package tech.mayanksoni.safebrowsing.models;
+
+public enum TrancoPipelineStatus {
+    PENDING,
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+    SKIPPED
+}
@@ -5,7 +5,11 @@ public record TrancoProvidedDomainEntity(
         long domainRank,
         String domain,
         String listId,
+        String registrySuffix,
         char domainFirstCharacter,
-        int domainLength
+        int domainLength,
+        String ownerDomainSoundexCode,
+        String ownerDomainMetaphoneCode,
+        String ownerDomainDoubleMetaphoneCode
 ) {
 }
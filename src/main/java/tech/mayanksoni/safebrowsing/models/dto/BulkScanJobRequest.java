@@ -0,0 +1,18 @@
+package tech.mayanksoni.safebrowsing.models.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Schema(description = "Request object for submitting a bulk scan job")
+public class BulkScanJobRequest {
+    @Schema(description = "Client chosen job identifier, generated when absent. Resubmitting a failed job resumes it", example = "ct-feed-2025-06-01")
+    private String jobId;
+
+    @Schema(description = "Object store file holding newline-delimited domains to scan", example = "bulk-scan-input/ct-feed-2025-06-01.txt", required = true)
+    private String inputFileName;
+}
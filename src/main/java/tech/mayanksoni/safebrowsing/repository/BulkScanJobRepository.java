@@ -0,0 +1,27 @@
+package tech.mayanksoni.safebrowsing.repository;
+
+import tech.mayanksoni.safebrowsing.models.BulkScanJobEntity;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface BulkScanJobRepository {
+    Optional<BulkScanJobEntity> getJob(String jobId);
+
+    BulkScanJobEntity createJob(String jobId, String inputFileName, String resultFileName);
+
+    List<BulkScanJobEntity> getClaimableJobs(Instant staleHeartbeatBefore);
+
+    Optional<BulkScanJobEntity> claimJob(String jobId, String owner, Instant staleHeartbeatBefore);
+
+    boolean heartbeat(String jobId, String owner);
+
+    void markJobQueued(String jobId);
+
+    boolean saveCheckpoint(String jobId, String owner, long checkpointLine, long checkpointByteOffset, int completedParts, long processedDomains, long typosquattingDomains, long runningMillis);
+
+    boolean markJobCompleted(String jobId, String owner);
+
+    void markJobFailed(String jobId, String owner, String failureReason);
+}
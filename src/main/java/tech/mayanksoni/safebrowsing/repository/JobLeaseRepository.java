@@ -0,0 +1,16 @@
+package tech.mayanksoni.safebrowsing.repository;
+
+import tech.mayanksoni.safebrowsing.models.JobLeaseEntity;
+
+import java.time.Duration;
+import java.util.Optional;
+
+public interface JobLeaseRepository {
+    Optional<JobLeaseEntity> tryAcquire(String leaseName, String owner, Duration leaseDuration);
+
+    boolean renew(JobLeaseEntity lease, Duration leaseDuration);
+
+    boolean isHeld(JobLeaseEntity lease);
+
+    void release(JobLeaseEntity lease);
+}
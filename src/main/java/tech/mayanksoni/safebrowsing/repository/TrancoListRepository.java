@@ -1,5 +1,6 @@
 package tech.mayanksoni.safebrowsing.repository;
 
+import tech.mayanksoni.safebrowsing.models.IngestionCheckpoint;
 import tech.mayanksoni.safebrowsing.models.TrancoFileEntity;
 
 import java.time.Instant;
@@ -16,11 +17,21 @@ public interface TrancoListRepository {
 
     List<TrancoFileEntity> getLatestUnprocessedFiles();
 
-    void updateActiveTrancoList(String updatedActiveTrancoList);
+    Optional<TrancoFileEntity> getActiveTrancoList();
+
+    TrancoFileEntity activateTrancoList(String updatedActiveTrancoList, long recordCount);
 
     void markedListAsPurged(String listId);
 
     Optional<TrancoFileEntity> createTrancoFile(String fileName, String listId, Instant downloadedOn, long contentSize);
 
     Optional<TrancoFileEntity> updateTrancoFile(String fileId, boolean isProcessed, long recordCount);
+
+    void updateTrancoFileSize(String listId, long sizeInBytes);
+
+    void saveIngestionCheckpoint(String listId, IngestionCheckpoint ingestionCheckpoint);
+
+    void clearIngestionCheckpoint(String listId);
+
+    void deleteTrancoFile(String listId);
 }
@@ -8,6 +8,7 @@ import tech.mayanksoni.safebrowsing.models.TrancoProvidedDomainEntity;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TrancoProvidedDomainRepository {
@@ -17,12 +18,30 @@ public interface TrancoProvidedDomainRepository {
 
     void inserDomainsFromDomainFeatures(String listId, List<DomainFeatures> domains);
 
+    void bulkInsertDomains(String listId, List<DomainFeatures> domains);
+
+    void bulkInsertDomainEntities(String listId, List<TrancoProvidedDomainEntity> domains);
+
     void purgeAllDomains();
 
     void purgeDomainsByListId(String listId);
 
-    Optional<TrancoProvidedDomainEntity> getExactMatchDomain(String ownerDomain, String registrySuffix);
+    void purgeDomainsAfterRank(String listId, long domainRank);
+
+    Optional<TrancoProvidedDomainEntity> getExactMatchDomain(String listId, String ownerDomain, String registrySuffix);
+
+    boolean containsDomain(String listId, String ownerDomain, String registrySuffix);
+
+    List<PossibleReferenceDomain> getPossibleReferenceDomainsForTyposquattingValidation(String listId, int domainLengthLowerLimit, int domainLengthUpperLimit, char firstCharacter, String registrySuffix);
+
+    Stream<TrancoProvidedDomainEntity> streamDomainsByListId(String listId);
+
+    Stream<TrancoProvidedDomainEntity> streamDomainsInKeyOrder(String listId);
+
+    void buildRankIndex(String listId);
+
+    void buildDomainIndexes(String listId);
 
-    List<PossibleReferenceDomain> getPossibleReferenceDomainsForTyposquattingValidation(int domainLengthLowerLimit, int domainLengthUpperLimit, char firstCharacter, String registrySuffix);
+    void migrateLegacyDomains();
 
 }
@@ -0,0 +1,135 @@
+package tech.mayanksoni.safebrowsing.repository.mongo;
+
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+import tech.mayanksoni.safebrowsing.documents.BulkScanJob;
+import tech.mayanksoni.safebrowsing.exceptions.ListEntryNotFound;
+import tech.mayanksoni.safebrowsing.mapper.BulkScanJobMapper;
+import tech.mayanksoni.safebrowsing.models.BulkScanJobEntity;
+import tech.mayanksoni.safebrowsing.models.BulkScanJobStatus;
+import tech.mayanksoni.safebrowsing.repository.BulkScanJobRepository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A job is claimed by the node that runs it. The node's heartbeat, refreshed while the job runs and with each
+ * checkpoint, keeps other replicas from resuming it, and every later update of the job is conditional on the claim, so
+ * a node whose job was taken over cannot overwrite the progress of its successor.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class BulkScanJobRepositoryMongoImpl implements BulkScanJobRepository {
+    private final MongoTemplate mongoTemplate;
+    private final BulkScanJobMapper BULK_SCAN_JOB_MAPPER;
+
+    @Override
+    public Optional<BulkScanJobEntity> getJob(String jobId) {
+        return Optional.ofNullable(this.mongoTemplate.findById(jobId, BulkScanJob.class)).map(BULK_SCAN_JOB_MAPPER::toBulkScanJobEntity);
+    }
+
+    @Override
+    public BulkScanJobEntity createJob(String jobId, String inputFileName, String resultFileName) {
+        Instant now = Instant.now();
+        BulkScanJob bulkScanJobToCreate = BulkScanJob.builder()
+                .id(jobId)
+                .inputFileName(inputFileName)
+                .resultFileName(resultFileName)
+                .status(BulkScanJobStatus.QUEUED)
+                .submittedOn(now)
+                .updatedOn(now)
+                .build();
+        return BULK_SCAN_JOB_MAPPER.toBulkScanJobEntity(this.mongoTemplate.insert(bulkScanJobToCreate));
+    }
+
+    @Override
+    public List<BulkScanJobEntity> getClaimableJobs(Instant staleHeartbeatBefore) {
+        return this.mongoTemplate.find(Query.query(claimableJobCriteria(staleHeartbeatBefore)), BulkScanJob.class).stream()
+                .map(BULK_SCAN_JOB_MAPPER::toBulkScanJobEntity).toList();
+    }
+
+    /**
+     * Marks the job running under {@code owner} if it is queued, or running on a node whose last heartbeat is older
+     * than {@code staleHeartbeatBefore}, in one atomic update, so of the replicas trying to resume a job only one gets
+     * it.
+     */
+    @Override
+    public Optional<BulkScanJobEntity> claimJob(String jobId, String owner, Instant staleHeartbeatBefore) {
+        Instant now = Instant.now();
+        Query claimableJobSelectionQuery = Query.query(Criteria.where("id").is(jobId).andOperator(claimableJobCriteria(staleHeartbeatBefore)));
+        Update claimJobUpdate = Update.update("status", BulkScanJobStatus.RUNNING)
+                .set("owner", owner)
+                .set("heartbeatOn", now)
+                .set("updatedOn", now);
+        BulkScanJob claimedJob = this.mongoTemplate.findAndModify(claimableJobSelectionQuery, claimJobUpdate, FindAndModifyOptions.options().returnNew(true), BulkScanJob.class);
+        log.debug("Bulk scan job {} claimed by {}: {}", jobId, owner, claimedJob != null);
+        return Optional.ofNullable(claimedJob).map(BULK_SCAN_JOB_MAPPER::toBulkScanJobEntity);
+    }
+
+    @Override
+    public boolean heartbeat(String jobId, String owner) {
+        return updateClaimedJob(jobId, owner, Update.update("heartbeatOn", Instant.now()));
+    }
+
+    @Override
+    public void markJobQueued(String jobId) {
+        updateJob(jobId, Update.update("status", BulkScanJobStatus.QUEUED).unset("failureReason").unset("owner").unset("heartbeatOn"));
+    }
+
+    @Override
+    public boolean saveCheckpoint(String jobId, String owner, long checkpointLine, long checkpointByteOffset, int completedParts, long processedDomains, long typosquattingDomains, long runningMillis) {
+        return updateClaimedJob(jobId, owner, Update.update("checkpointLine", checkpointLine)
+                .set("checkpointByteOffset", checkpointByteOffset)
+                .set("completedParts", completedParts)
+                .set("processedDomains", processedDomains)
+                .set("typosquattingDomains", typosquattingDomains)
+                .set("runningMillis", runningMillis)
+                .set("heartbeatOn", Instant.now()));
+    }
+
+    @Override
+    public boolean markJobCompleted(String jobId, String owner) {
+        return updateClaimedJob(jobId, owner, Update.update("status", BulkScanJobStatus.COMPLETED));
+    }
+
+    @Override
+    public void markJobFailed(String jobId, String owner, String failureReason) {
+        updateClaimedJob(jobId, owner, Update.update("status", BulkScanJobStatus.FAILED).set("failureReason", failureReason));
+    }
+
+    private static Criteria claimableJobCriteria(Instant staleHeartbeatBefore) {
+        return new Criteria().orOperator(
+                Criteria.where("status").is(BulkScanJobStatus.QUEUED),
+                Criteria.where("status").is(BulkScanJobStatus.RUNNING).orOperator(Criteria.where("heartbeatOn").is(null), Criteria.where("heartbeatOn").lt(staleHeartbeatBefore)));
+    }
+
+    /**
+     * Updates the job only while it is running under {@code owner}.
+     *
+     * @return whether the job is still claimed by {@code owner}
+     */
+    private boolean updateClaimedJob(String jobId, String owner, Update mongoUpdateSpec) {
+        Query claimedJobSelectionQuery = Query.query(Criteria.where("id").is(jobId).and("status").is(BulkScanJobStatus.RUNNING).and("owner").is(owner));
+        UpdateResult mongoUpdateResult = this.mongoTemplate.updateFirst(claimedJobSelectionQuery, mongoUpdateSpec.set("updatedOn", Instant.now()), BulkScanJob.class);
+        log.debug("Updated bulk scan job {} claimed by {}, Update Count: {}", jobId, owner, mongoUpdateResult.getModifiedCount());
+        return mongoUpdateResult.getMatchedCount() == 1;
+    }
+
+    private void updateJob(String jobId, Update mongoUpdateSpec) {
+        Query mongoSelectionQuery = Query.query(Criteria.where("id").is(jobId));
+        UpdateResult mongoUpdateResult = this.mongoTemplate.updateFirst(mongoSelectionQuery, mongoUpdateSpec.set("updatedOn", Instant.now()), BulkScanJob.class);
+        log.debug("Updated bulk scan job {}, Update Count: {}", jobId, mongoUpdateResult.getModifiedCount());
+        if (mongoUpdateResult.getMatchedCount() == 0) {
+            throw new ListEntryNotFound("The bulk scan job could not be located in DB, jobId: " + jobId);
+        }
+    }
+}
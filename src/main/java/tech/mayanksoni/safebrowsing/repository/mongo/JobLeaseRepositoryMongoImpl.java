@@ -0,0 +1,82 @@
+package tech.mayanksoni.safebrowsing.repository.mongo;
+
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+import tech.mayanksoni.safebrowsing.documents.JobLease;
+import tech.mayanksoni.safebrowsing.models.JobLeaseEntity;
+import tech.mayanksoni.safebrowsing.repository.JobLeaseRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * One document per lease, keyed by the lease name. Expiry is compared against the clock of the node making the
+ * request, so lease durations should be long compared to the clock skew between nodes.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class JobLeaseRepositoryMongoImpl implements JobLeaseRepository {
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Takes over the lease if it has expired, or creates it on first use, in one atomic upsert. While another node
+     * holds the lease the selection does not match and the upsert fails on the lease name, which means the lease is
+     * taken.
+     */
+    @Override
+    public Optional<JobLeaseEntity> tryAcquire(String leaseName, String owner, Duration leaseDuration) {
+        Instant now = Instant.now();
+        Query expiredLeaseSelectionQuery = Query.query(Criteria.where("id").is(leaseName).and("expiresAt").lte(now));
+        Update acquireLeaseUpdate = Update.update("owner", owner)
+                .set("acquiredOn", now)
+                .set("expiresAt", now.plus(leaseDuration))
+                .inc("fencingToken", 1);
+        try {
+            JobLease acquiredLease = this.mongoTemplate.findAndModify(expiredLeaseSelectionQuery, acquireLeaseUpdate,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), JobLease.class);
+            return Optional.ofNullable(acquiredLease).map(jobLease -> new JobLeaseEntity(jobLease.getId(), jobLease.getOwner(), jobLease.getFencingToken()));
+        } catch (DuplicateKeyException e) {
+            log.debug("Lease {} is held by another node", leaseName);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean renew(JobLeaseEntity lease, Duration leaseDuration) {
+        Instant now = Instant.now();
+        UpdateResult mongoUpdateResult = this.mongoTemplate.updateFirst(heldLeaseSelectionQuery(lease, now), Update.update("expiresAt", now.plus(leaseDuration)), JobLease.class);
+        return mongoUpdateResult.getMatchedCount() == 1;
+    }
+
+    @Override
+    public boolean isHeld(JobLeaseEntity lease) {
+        return this.mongoTemplate.exists(heldLeaseSelectionQuery(lease, Instant.now()), JobLease.class);
+    }
+
+    /**
+     * Expires the lease straight away, keeping its fencing token so the next holder gets a higher one.
+     */
+    @Override
+    public void release(JobLeaseEntity lease) {
+        Query ownedLeaseSelectionQuery = Query.query(Criteria.where("id").is(lease.leaseName()).and("fencingToken").is(lease.fencingToken()));
+        UpdateResult mongoUpdateResult = this.mongoTemplate.updateFirst(ownedLeaseSelectionQuery, Update.update("expiresAt", Instant.EPOCH), JobLease.class);
+        log.debug("Released lease {} with fencing token {}, Update Count: {}", lease.leaseName(), lease.fencingToken(), mongoUpdateResult.getModifiedCount());
+    }
+
+    private static Query heldLeaseSelectionQuery(JobLeaseEntity lease, Instant now) {
+        return Query.query(Criteria.where("id").is(lease.leaseName())
+                .and("owner").is(lease.owner())
+                .and("fencingToken").is(lease.fencingToken())
+                .and("expiresAt").gt(now));
+    }
+}
@@ -0,0 +1,108 @@
+package tech.mayanksoni.safebrowsing.repository.mongo;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+import tech.mayanksoni.safebrowsing.documents.BulkScanJob;
+import tech.mayanksoni.safebrowsing.documents.TrancoFile;
+
+import java.util.Set;
+
+/**
+ * Declares every index the repositories rely on; creating an index that exists is a no-op. The indexes of the small
+ * tranco file and bulk scan job collections are created at startup. Domain collections are created per list, so their
+ * indexes are created after each bulk load and when a list is activated, and those of collections left by earlier
+ * versions are brought up to date in the background once the application is ready, so startup never waits on an index
+ * build over a full list.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class MongoIndexManager {
+    /**
+     * Serves candidate retrieval: the equality fields first, then the length range, with the domain and rank
+     * appended so the candidate projection is answered from the index alone.
+     */
+    static final String CANDIDATE_INDEX_NAME = "registrySuffix_domainFirstCharacter_domainLength_domain_domainRank";
+    /**
+     * Serves exact-match lookups and the (registrySuffix, domain, domainRank) order delta loads stream a list in.
+     */
+    static final String EXACT_MATCH_INDEX_NAME = "registrySuffix_domain_domainRank";
+    /**
+     * Serves the removal of the domains ranked after the checkpoint a full load resumes from.
+     */
+    static final String RANK_INDEX_NAME = "domainRank";
+    /**
+     * Indexes of earlier versions that the candidate and exact-match indexes above replace.
+     */
+    static final Set<String> OBSOLETE_DOMAIN_INDEX_NAMES = Set.of("registrySuffix_domain", "registrySuffix_domainFirstCharacter_domainLength");
+    private final MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void ensureIndexes() {
+        long startTime = System.nanoTime();
+        IndexOperations trancoFileIndexes = this.mongoTemplate.indexOps(TrancoFile.class);
+        trancoFileIndexes.ensureIndex(new Index().on("listId", Sort.Direction.ASC).named("listId"));
+        trancoFileIndexes.ensureIndex(new Index().on("active", Sort.Direction.ASC).on("activatedOn", Sort.Direction.DESC).named("active_activatedOn"));
+        this.mongoTemplate.indexOps(BulkScanJob.class).ensureIndex(new Index().on("status", Sort.Direction.ASC).named("status"));
+        log.info("Ensured indexes on tranco files and bulk scan jobs in {} ms", (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureExistingDomainIndexes() {
+        Thread.ofPlatform().name("mongo-domain-indexes").daemon().start(() -> {
+            long startTime = System.nanoTime();
+            try {
+                long domainCollections = this.mongoTemplate.getCollectionNames().stream()
+                        .filter(collectionName -> collectionName.startsWith(TrancoDomainRepositoryMongoImpl.DOMAIN_COLLECTION_PREFIX))
+                        .peek(this::ensureDomainIndexes)
+                        .count();
+                log.info("Ensured indexes on {} domain collections in {} ms", domainCollections, (System.nanoTime() - startTime) / 1_000_000);
+            } catch (RuntimeException e) {
+                log.error("Unable to ensure the indexes of existing domain collections, message: {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Creates the rank index of a domain collection. Created on the empty collection before a full load, it costs the
+     * load one integer key per domain.
+     */
+    public void ensureRankIndex(String domainCollectionName) {
+        this.mongoTemplate.indexOps(domainCollectionName).ensureIndex(new Index().on("domainRank", Sort.Direction.ASC).named(RANK_INDEX_NAME));
+    }
+
+    /**
+     * Creates the candidate and exact-match indexes of a domain collection and drops the indexes they replace.
+     */
+    public void ensureDomainIndexes(String domainCollectionName) {
+        IndexOperations domainIndexes = this.mongoTemplate.indexOps(domainCollectionName);
+        domainIndexes.ensureIndex(new Index()
+                .on("registrySuffix", Sort.Direction.ASC)
+                .on("domainFirstCharacter", Sort.Direction.ASC)
+                .on("domainLength", Sort.Direction.ASC)
+                .on("domain", Sort.Direction.ASC)
+                .on("domainRank", Sort.Direction.ASC)
+                .named(CANDIDATE_INDEX_NAME));
+        domainIndexes.ensureIndex(new Index()
+                .on("registrySuffix", Sort.Direction.ASC)
+                .on("domain", Sort.Direction.ASC)
+                .on("domainRank", Sort.Direction.ASC)
+                .named(EXACT_MATCH_INDEX_NAME));
+        domainIndexes.getIndexInfo().stream()
+                .map(IndexInfo::getName)
+                .filter(OBSOLETE_DOMAIN_INDEX_NAMES::contains)
+                .forEach(obsoleteIndexName -> {
+                    domainIndexes.dropIndex(obsoleteIndexName);
+                    log.info("Dropped obsolete index {} on {}", obsoleteIndexName, domainCollectionName);
+                });
+    }
+}
@@ -1,13 +1,24 @@
 package tech.mayanksoni.safebrowsing.repository.mongo;
 
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.Projections;
 import com.mongodb.client.result.DeleteResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Component;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
 import tech.mayanksoni.safebrowsing.documents.TrancoFile;
 import tech.mayanksoni.safebrowsing.documents.TrancoProvidedDomain;
 import tech.mayanksoni.safebrowsing.exceptions.ListEntryNotFound;
@@ -19,17 +30,27 @@ import tech.mayanksoni.safebrowsing.models.TrancoProvidedDomainEntity;
 import tech.mayanksoni.safebrowsing.repository.TrancoProvidedDomainRepository;
 import tech.mayanksoni.safebrowsing.utils.DomainUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.stream.Stream;
 
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class TrancoDomainRepositoryMongoImpl implements TrancoProvidedDomainRepository {
+    private static final BulkWriteOptions UNORDERED_BULK_WRITE = new BulkWriteOptions().ordered(false);
+    static final String DOMAIN_COLLECTION_PREFIX = "trancoProvidedDomain_";
+    /**
+     * Only fields of the candidate index, without {@code _id}, so candidate queries are answered from the index alone.
+     */
+    static final Bson CANDIDATE_PROJECTION = Projections.fields(Projections.include("registrySuffix", "domain", "domainLength", "domainRank"), Projections.excludeId());
+    static final Bson EXACT_MATCH_PROJECTION = Projections.fields(Projections.include("registrySuffix", "domain"), Projections.excludeId());
     private final MongoTemplate mongoTemplate;
     private final TrancoDomainMapper TRANCO_MAPPER;
+    private final SafeBrowsignConfig safeBrowsignConfig;
+    private final MongoIndexManager mongoIndexManager;
 
     @Override
     public int countDomainsByListId(String listId) {
@@ -47,66 +68,224 @@ public class TrancoDomainRepositoryMongoImpl implements TrancoProvidedDomainRepo
         Query listExistSelectionQuery = Query.query(Criteria.where("listId").is(listId));
         boolean listExists = this.mongoTemplate.exists(listExistSelectionQuery, TrancoFile.class);
         if (listExists) {
-            List<TrancoProvidedDomain> domainDocuments = domains.stream().map(feature -> toTrancoProvidedDomain(listId, feature)).toList();
-            this.mongoTemplate.insertAll(domainDocuments);
+            bulkInsertDomains(listId, domains);
         } else {
             throw new ListEntryNotFound("The list entry could not be located in DB");
         }
     }
 
+    /**
+     * Writes the domains as raw BSON documents into the list's own collection in one unordered bulk write with the
+     * bulk-load write concern. The driver assigns ObjectIds client-side, and the caller is responsible for checking
+     * that the list exists.
+     */
+    @Override
+    public void bulkInsertDomains(String listId, List<DomainFeatures> domains) {
+        if (domains.isEmpty()) {
+            return;
+        }
+        List<InsertOneModel<Document>> domainInserts = new ArrayList<>(domains.size());
+        for (DomainFeatures domainFeatures : domains) {
+            domainInserts.add(new InsertOneModel<>(toDomainDocument(listId, domainFeatures)));
+        }
+        BulkWriteResult bulkWriteResult = getBulkLoadCollection(listId).bulkWrite(domainInserts, UNORDERED_BULK_WRITE);
+        log.trace("Bulk inserted {} domains for listId {}", bulkWriteResult.wasAcknowledged() ? bulkWriteResult.getInsertedCount() : domains.size(), listId);
+    }
+
+    /**
+     * Writes domains read from another domain set into the list's collection, keeping their phonetic codes, in one
+     * unordered bulk write with the bulk-load write concern.
+     */
+    @Override
+    public void bulkInsertDomainEntities(String listId, List<TrancoProvidedDomainEntity> domains) {
+        if (domains.isEmpty()) {
+            return;
+        }
+        List<InsertOneModel<Document>> domainInserts = new ArrayList<>(domains.size());
+        for (TrancoProvidedDomainEntity domain : domains) {
+            domainInserts.add(new InsertOneModel<>(toDomainDocument(listId, domain)));
+        }
+        BulkWriteResult bulkWriteResult = getBulkLoadCollection(listId).bulkWrite(domainInserts, UNORDERED_BULK_WRITE);
+        log.trace("Bulk inserted {} retained domains for listId {}", bulkWriteResult.wasAcknowledged() ? bulkWriteResult.getInsertedCount() : domains.size(), listId);
+    }
+
     @Override
     public void purgeAllDomains() {
-        this.mongoTemplate.dropCollection(TrancoProvidedDomainEntity.class);
+        this.mongoTemplate.getCollectionNames().stream()
+                .filter(collectionName -> collectionName.startsWith(DOMAIN_COLLECTION_PREFIX))
+                .forEach(this.mongoTemplate::dropCollection);
+        this.mongoTemplate.dropCollection(TrancoProvidedDomain.class);
     }
 
+    /**
+     * Drops the collection of the list. Domains of lists loaded before lists had collections of their own are
+     * removed from the shared collection.
+     */
     @Override
     public void purgeDomainsByListId(String listId) {
-        Query domainsSelectionUsingListId = Query.query(Criteria.where("listId").is(listId));
-        DeleteResult deleteResult = this.mongoTemplate.remove(domainsSelectionUsingListId, TrancoProvidedDomain.class);
-        log.debug("Removed all domains from listId {}, Delete Count: {}", listId, deleteResult.getDeletedCount());
-    }
-
-    @Override
-    public Optional<TrancoProvidedDomainEntity> getExactMatchDomain(String ownerDomain, String registrySuffix) {
-        Query exactMatchDomainSelectionQuery = Query.query(Criteria.where("domain").is(ownerDomain).and("registrySuffix").is(registrySuffix));
-        return Optional.ofNullable(this.mongoTemplate.findOne(exactMatchDomainSelectionQuery, TrancoProvidedDomain.class)).map(TRANCO_MAPPER::toTrancoProvidedDomainEntity);
-    }
-
-    @Override
-    public List<PossibleReferenceDomain> getPossibleReferenceDomainsForTyposquattingValidation(int domainLengthLowerLimit, int domainLengthUpperLimit, char firstCharacter, String registrySuffix) {
-        Aggregation aggregationPipeline = Aggregation.newAggregation(
-                Aggregation.match(Criteria.where("active").is(true)),
-                Aggregation.lookup("trancoProvidedDomain", "listId", "listId", "domains"),
-                Aggregation.unwind("domains"),
-                Aggregation.match(Criteria.where("domains.domainLength")
-                        .gte(domainLengthLowerLimit)
-                        .lte(domainLengthUpperLimit)
-                        .and("domains.registrySuffix").is(registrySuffix)
-                        .and("domains.domainFirstCharacter").is(firstCharacter)
-                ),
-                Aggregation.project()
-                        .and("domains.registrySuffix").as("registrySuffix")
-                        .and("domains.domainLength").as("ownerDomainLength")
-                        .and("domains.domain").as("ownerDomain")
-        );
-        List<PossibleReferenceDomain> possibleReferenceDomains = this.mongoTemplate.aggregate(aggregationPipeline, TrancoFile.class, PossibleReferenceDomain.class).getMappedResults();
-        log.debug("Found {} possible reference domains", possibleReferenceDomains.size());
+        this.mongoTemplate.dropCollection(domainCollectionName(listId));
+        log.debug("Dropped domain collection of listId {}", listId);
+        if (this.mongoTemplate.collectionExists(TrancoProvidedDomain.class)) {
+            DeleteResult deleteResult = this.mongoTemplate.remove(Query.query(Criteria.where("listId").is(listId)), TrancoProvidedDomain.class);
+            log.debug("Removed shared collection domains of listId {}, Delete Count: {}", listId, deleteResult.getDeletedCount());
+        }
+    }
+
+    /**
+     * Removes the domains along the rank index. The index is ensured first for loads started before it was created
+     * ahead of the load, which pay for one index build instead of a collection scan on every resume.
+     */
+    @Override
+    public void purgeDomainsAfterRank(String listId, long domainRank) {
+        buildRankIndex(listId);
+        Query domainsSelectionAfterRank = Query.query(Criteria.where("domainRank").gt(domainRank));
+        DeleteResult deleteResult = this.mongoTemplate.remove(domainsSelectionAfterRank, TrancoProvidedDomain.class, domainCollectionName(listId));
+        log.debug("Removed domains ranked after {} from listId {}, Delete Count: {}", domainRank, listId, deleteResult.getDeletedCount());
+    }
+
+    @Override
+    public Optional<TrancoProvidedDomainEntity> getExactMatchDomain(String listId, String ownerDomain, String registrySuffix) {
+        Query exactMatchDomainSelectionQuery = Query.query(Criteria.where("registrySuffix").is(registrySuffix).and("domain").is(ownerDomain));
+        return Optional.ofNullable(this.mongoTemplate.findOne(exactMatchDomainSelectionQuery, TrancoProvidedDomain.class, domainCollectionName(listId)))
+                .map(TRANCO_MAPPER::toTrancoProvidedDomainEntity);
+    }
+
+    /**
+     * Covered by the exact-match index: the projection only holds indexed fields, so no document is fetched.
+     */
+    @Override
+    public boolean containsDomain(String listId, String ownerDomain, String registrySuffix) {
+        return this.mongoTemplate.getCollection(domainCollectionName(listId))
+                .find(exactMatchFilter(ownerDomain, registrySuffix))
+                .projection(EXACT_MATCH_PROJECTION)
+                .limit(1)
+                .first() != null;
+    }
+
+    /**
+     * A direct find on the list's collection whose filter and projection are both served by the candidate index, so
+     * the query reads index keys only. Phonetic codes are not part of the index and are left empty; phonetic matching
+     * runs against the in-memory reference domain index.
+     */
+    @Override
+    public List<PossibleReferenceDomain> getPossibleReferenceDomainsForTyposquattingValidation(String listId, int domainLengthLowerLimit, int domainLengthUpperLimit, char firstCharacter, String registrySuffix) {
+        List<PossibleReferenceDomain> possibleReferenceDomains = new ArrayList<>();
+        this.mongoTemplate.getCollection(domainCollectionName(listId))
+                .find(candidateFilter(domainLengthLowerLimit, domainLengthUpperLimit, firstCharacter, registrySuffix))
+                .projection(CANDIDATE_PROJECTION)
+                .forEach(domain -> possibleReferenceDomains.add(new PossibleReferenceDomain(domain.getString("registrySuffix"), domain.getString("domain"),
+                        domain.getInteger("domainLength"), domain.get("domainRank", Number.class).longValue(), null, null, null)));
+        log.debug("Found {} possible reference domains in listId {}", possibleReferenceDomains.size(), listId);
         return possibleReferenceDomains;
     }
 
+    @Override
+    public Stream<TrancoProvidedDomainEntity> streamDomainsByListId(String listId) {
+        Query domainsSelectionUsingListId = new Query();
+        domainsSelectionUsingListId.fields().exclude("id");
+        return this.mongoTemplate.stream(domainsSelectionUsingListId, TrancoProvidedDomain.class, domainCollectionName(listId)).map(TRANCO_MAPPER::toTrancoProvidedDomainEntity);
+    }
+
+    /**
+     * Streams the domains of a list ordered by (registrySuffix, domain, domainRank), walking the domain key index
+     * instead of sorting in memory.
+     */
+    @Override
+    public Stream<TrancoProvidedDomainEntity> streamDomainsInKeyOrder(String listId) {
+        buildDomainIndexes(listId);
+        Query domainsSelectionInKeyOrder = new Query().with(Sort.by("registrySuffix", "domain", "domainRank"));
+        domainsSelectionInKeyOrder.fields().exclude("id");
+        return this.mongoTemplate.stream(domainsSelectionInKeyOrder, TrancoProvidedDomain.class, domainCollectionName(listId)).map(TRANCO_MAPPER::toTrancoProvidedDomainEntity);
+    }
+
+    @Override
+    public void buildRankIndex(String listId) {
+        this.mongoIndexManager.ensureRankIndex(domainCollectionName(listId));
+    }
+
+    /**
+     * Creates the indexes of the list's collection. Called once the bulk load is done, so the load itself does not
+     * maintain them row by row.
+     */
+    @Override
+    public void buildDomainIndexes(String listId) {
+        this.mongoIndexManager.ensureDomainIndexes(domainCollectionName(listId));
+    }
+
+    /**
+     * Moves the domains of lists loaded before lists had collections of their own out of the shared collection, one
+     * list at a time into the list's collection, and drops the shared collection once every list has been moved. A list
+     * whose collection already exists was moved by an earlier, interrupted, run and is skipped.
+     */
+    @Override
+    public void migrateLegacyDomains() {
+        if (!this.mongoTemplate.collectionExists(TrancoProvidedDomain.class)) {
+            return;
+        }
+        MongoCollection<Document> legacyDomains = this.mongoTemplate.getCollection(this.mongoTemplate.getCollectionName(TrancoProvidedDomain.class));
+        for (String listId : legacyDomains.distinct("listId", String.class)) {
+            if (listId == null || this.mongoTemplate.collectionExists(domainCollectionName(listId))) {
+                continue;
+            }
+            long startTime = System.nanoTime();
+            legacyDomains.aggregate(List.of(Aggregates.match(Filters.eq("listId", listId)), Aggregates.out(domainCollectionName(listId))))
+                    .allowDiskUse(true)
+                    .toCollection();
+            buildDomainIndexes(listId);
+            log.info("Moved the domains of listId {} out of the shared domain collection in {} ms", listId, (System.nanoTime() - startTime) / 1_000_000);
+        }
+        this.mongoTemplate.dropCollection(TrancoProvidedDomain.class);
+        log.info("Dropped the shared domain collection");
+    }
+
+    static String domainCollectionName(String listId) {
+        return DOMAIN_COLLECTION_PREFIX + listId;
+    }
+
+    static Bson candidateFilter(int domainLengthLowerLimit, int domainLengthUpperLimit, char firstCharacter, String registrySuffix) {
+        return Filters.and(Filters.eq("registrySuffix", registrySuffix), Filters.eq("domainFirstCharacter", String.valueOf(firstCharacter)),
+                Filters.gte("domainLength", domainLengthLowerLimit), Filters.lte("domainLength", domainLengthUpperLimit));
+    }
+
+    static Bson exactMatchFilter(String ownerDomain, String registrySuffix) {
+        return Filters.and(Filters.eq("registrySuffix", registrySuffix), Filters.eq("domain", ownerDomain));
+    }
+
+    private static Bson domainKeyFilter(TrancoProvidedDomainEntity domain) {
+        return exactMatchFilter(domain.domain(), domain.registrySuffix());
+    }
+
+    private MongoCollection<Document> getBulkLoadCollection(String listId) {
+        return this.mongoTemplate.getCollection(domainCollectionName(listId))
+                .withWriteConcern(WriteConcern.valueOf(safeBrowsignConfig.getBulkLoadWriteConcern()));
+    }
+
+    /**
+     * Field names and types match what the converter writes for {@link TrancoProvidedDomain}; the first character is
+     * stored as a one-character string, as Spring Data stores {@code char}.
+     */
+    private static Document toDomainDocument(String listId, DomainFeatures domainFeatures) {
+        String privateDomain = domainFeatures.getPrivateDomain();
+        return new Document("domainRank", domainFeatures.getDomainRankFromTranco())
+                .append("domain", privateDomain)
+                .append("listId", listId)
+                .append("registrySuffix", domainFeatures.getRegistrySuffix())
+                .append("domainFirstCharacter", String.valueOf(privateDomain.charAt(0)))
+                .append("ownerDomainSoundexCode", domainFeatures.getPhoneticModel().soundexCode())
+                .append("ownerDomainMetaphoneCode", domainFeatures.getPhoneticModel().metaphoneCode())
+                .append("ownerDomainDoubleMetaphoneCode", domainFeatures.getPhoneticModel().doubleMetaphoneCode())
+                .append("domainLength", privateDomain.length());
+    }
 
-    private TrancoProvidedDomain toTrancoProvidedDomain(String listId, DomainFeatures domainFeatures) {
-        return TrancoProvidedDomain.builder()
-                .id(UUID.randomUUID().toString())
-                .domain(domainFeatures.getPrivateDomain())
-                .domainFirstCharacter(domainFeatures.getPrivateDomain().charAt(0))
-                .domainLength(domainFeatures.getPrivateDomain().length())
-                .ownerDomainSoundexCode(domainFeatures.getPhoneticModel().soundexCode())
-                .ownerDomainMetaphoneCode(domainFeatures.getPhoneticModel().metaphoneCode())
-                .ownerDomainDoubleMetaphoneCode(domainFeatures.getPhoneticModel().doubleMetaphoneCode())
-                .domainRank(domainFeatures.getDomainRankFromTranco())
-                .listId(listId)
-                .registrySuffix(domainFeatures.getRegistrySuffix())
-                .build();
+    private static Document toDomainDocument(String listId, TrancoProvidedDomainEntity domain) {
+        return new Document("domainRank", domain.domainRank())
+                .append("domain", domain.domain())
+                .append("listId", listId)
+                .append("registrySuffix", domain.registrySuffix())
+                .append("domainFirstCharacter", String.valueOf(domain.domainFirstCharacter()))
+                .append("ownerDomainSoundexCode", domain.ownerDomainSoundexCode())
+                .append("ownerDomainMetaphoneCode", domain.ownerDomainMetaphoneCode())
+                .append("ownerDomainDoubleMetaphoneCode", domain.ownerDomainDoubleMetaphoneCode())
+                .append("domainLength", domain.domainLength());
     }
 }
@@ -1,8 +1,11 @@
 package tech.mayanksoni.safebrowsing.repository.mongo;
 
+import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.UpdateResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -12,6 +15,7 @@ import tech.mayanksoni.safebrowsing.documents.TrancoFile;
 import tech.mayanksoni.safebrowsing.exceptions.DuplicateRecordException;
 import tech.mayanksoni.safebrowsing.exceptions.ListEntryNotFound;
 import tech.mayanksoni.safebrowsing.mapper.TrancoFileInformationMapper;
+import tech.mayanksoni.safebrowsing.models.IngestionCheckpoint;
 import tech.mayanksoni.safebrowsing.models.TrancoFileEntity;
 import tech.mayanksoni.safebrowsing.repository.TrancoListRepository;
 
@@ -44,7 +48,7 @@ public class TrancoListRepositoryMongoImpl implements TrancoListRepository {
 
     @Override
     public List<TrancoFileEntity> getAllTrancoListsReadyToDelete() {
-        Query processedAndReadyToDelete = Query.query(Criteria.where("processed").is(true).and("active").is(false));
+        Query processedAndReadyToDelete = Query.query(Criteria.where("processed").is(true).and("active").is(false).and("purged").is(false));
         return this.mongoTemplate.find(processedAndReadyToDelete, TrancoFile.class).stream().map(TRANCO_FILE_MAPPER::toTrancoFileEntity).toList();
     }
 
@@ -60,18 +64,37 @@ public class TrancoListRepositoryMongoImpl implements TrancoListRepository {
     }
 
     @Override
-    public void updateActiveTrancoList(String updatedActiveTrancoList) {
-        Optional<TrancoFile> trancoListToBeUpdatedAsActive = Optional.ofNullable(getTrancoFileDocumentByListId(updatedActiveTrancoList));
-        trancoListToBeUpdatedAsActive.ifPresentOrElse(trancoFile -> {
-            deactivateAllTrancoLists();
-            Update mongoUpdateSpec = Update.update("active", true);
-            Query mongoSelectionQuery = Query.query(Criteria.where("listId").is(updatedActiveTrancoList));
-            UpdateResult mongoUpdateResult = this.mongoTemplate.updateFirst(mongoSelectionQuery, mongoUpdateSpec, TrancoFile.class);
-            log.debug("Updated active tranco list to {}, Update Count: {}", updatedActiveTrancoList, mongoUpdateResult.getModifiedCount());
-        }, () -> {
-            throw new ListEntryNotFound("The list could not be located in DB, listId: " + updatedActiveTrancoList + " or the list is not yet processed");
-        });
+    public Optional<TrancoFileEntity> getActiveTrancoList() {
+        Query activeListSelectionQuery = Query.query(Criteria.where("active").is(true)).with(Sort.by(Sort.Direction.DESC, "activatedOn"));
+        return Optional.ofNullable(this.mongoTemplate.findOne(activeListSelectionQuery, TrancoFile.class)).map(TRANCO_FILE_MAPPER::toTrancoFileEntity);
+    }
 
+    /**
+     * Activates the list with a single-document update that flags it processed and active and stamps its activation
+     * time, so readers, which pick the most recently activated active list, switch over atomically, and the list is
+     * never processed without being active, which would let the purge stage drop it. Older lists are deactivated after
+     * the switch. Returns the activated list with the stamped activation time.
+     */
+    @Override
+    public TrancoFileEntity activateTrancoList(String updatedActiveTrancoList, long recordCount) {
+        TrancoFile trancoFile = Optional.ofNullable(getTrancoFileDocumentByListId(updatedActiveTrancoList))
+                .orElseThrow(() -> new ListEntryNotFound("The list could not be located in DB, listId: " + updatedActiveTrancoList + " or the list is not yet processed"));
+        Update mongoUpdateSpec = Update.update("active", true)
+            .set("activatedOn", Instant.now())
+            .set("processed", true)
+            .set("recordCount", recordCount)
+            .unset("ingestionCheckpoint");
+        if (trancoFile.getDomainSetId() == null) {
+            mongoUpdateSpec.set("domainSetId", updatedActiveTrancoList);
+        }
+        Query mongoSelectionQuery = Query.query(Criteria.where("listId").is(updatedActiveTrancoList));
+        TrancoFile activatedTrancoFile = this.mongoTemplate.findAndModify(mongoSelectionQuery, mongoUpdateSpec, FindAndModifyOptions.options().returnNew(true), TrancoFile.class);
+        if (activatedTrancoFile == null) {
+            throw new ListEntryNotFound("The list could not be located in DB, listId: " + updatedActiveTrancoList + " or the list is not yet processed");
+        }
+        log.debug("Updated active tranco list to {}, activated on {}", updatedActiveTrancoList, activatedTrancoFile.getActivatedOn());
+        deactivateOtherTrancoLists(updatedActiveTrancoList);
+        return TRANCO_FILE_MAPPER.toTrancoFileEntity(activatedTrancoFile);
     }
 
     @Override
@@ -85,10 +108,11 @@ public class TrancoListRepositoryMongoImpl implements TrancoListRepository {
         }
     }
 
-    private void deactivateAllTrancoLists() {
+    private void deactivateOtherTrancoLists(String activeTrancoList) {
         Update mongoUpdateSpec = Update.update("active", false);
-        UpdateResult mongoUpdateResult = this.mongoTemplate.updateMulti(new Query(), mongoUpdateSpec, TrancoFile.class);
-        log.debug("Deactivated all tranco lists, Update Count: {}", mongoUpdateResult.getModifiedCount());
+        Query mongoSelectionQuery = Query.query(Criteria.where("active").is(true).and("listId").ne(activeTrancoList));
+        UpdateResult mongoUpdateResult = this.mongoTemplate.updateMulti(mongoSelectionQuery, mongoUpdateSpec, TrancoFile.class);
+        log.debug("Deactivated previously active tranco lists, Update Count: {}", mongoUpdateResult.getModifiedCount());
     }
 
     @Override
@@ -98,6 +122,7 @@ public class TrancoListRepositoryMongoImpl implements TrancoListRepository {
                     .sizeInBytes(contentSize)
                     .downloadedOn(downloadedOn)
                     .listId(listId)
+                    .domainSetId(listId)
                     .id(UUID.randomUUID().toString())
                     .build();
             if (getCountOfFileRecordsForListId(listId) > 0) {
@@ -113,12 +138,43 @@ public class TrancoListRepositoryMongoImpl implements TrancoListRepository {
     @Override
     public Optional<TrancoFileEntity> updateTrancoFile(String listId, boolean isProcessed, long recordCount) {
         Update mongoUpdateQuery = Update.update("processed", isProcessed).set("recordCount", recordCount);
+        if (isProcessed) {
+            mongoUpdateQuery.unset("ingestionCheckpoint");
+        }
         Query mongoSelectionQuery = Query.query(Criteria.where("listId").is(listId));
         UpdateResult mongoUpdateResult = this.mongoTemplate.updateMulti(mongoSelectionQuery, mongoUpdateQuery, TrancoFile.class);
         log.debug("Updated {} records for listId {}", mongoUpdateResult.getModifiedCount(), listId);
         return getFileInformation(listId);
     }
 
+    @Override
+    public void updateTrancoFileSize(String listId, long sizeInBytes) {
+        Query mongoSelectionQuery = Query.query(Criteria.where("listId").is(listId));
+        UpdateResult mongoUpdateResult = this.mongoTemplate.updateFirst(mongoSelectionQuery, Update.update("sizeInBytes", sizeInBytes), TrancoFile.class);
+        log.debug("Updated size of listId {} to {} bytes, Update Count: {}", listId, sizeInBytes, mongoUpdateResult.getModifiedCount());
+    }
+
+    @Override
+    public void saveIngestionCheckpoint(String listId, IngestionCheckpoint ingestionCheckpoint) {
+        Query mongoSelectionQuery = Query.query(Criteria.where("listId").is(listId));
+        UpdateResult mongoUpdateResult = this.mongoTemplate.updateFirst(mongoSelectionQuery, Update.update("ingestionCheckpoint", ingestionCheckpoint), TrancoFile.class);
+        log.trace("Saved ingestion checkpoint {} for listId {}, Update Count: {}", ingestionCheckpoint, listId, mongoUpdateResult.getModifiedCount());
+    }
+
+    @Override
+    public void clearIngestionCheckpoint(String listId) {
+        Query mongoSelectionQuery = Query.query(Criteria.where("listId").is(listId));
+        UpdateResult mongoUpdateResult = this.mongoTemplate.updateFirst(mongoSelectionQuery, new Update().unset("ingestionCheckpoint"), TrancoFile.class);
+        log.debug("Cleared ingestion checkpoint for listId {}, Update Count: {}", listId, mongoUpdateResult.getModifiedCount());
+    }
+
+    @Override
+    public void deleteTrancoFile(String listId) {
+        Query mongoSelectionQuery = Query.query(Criteria.where("listId").is(listId));
+        DeleteResult deleteResult = this.mongoTemplate.remove(mongoSelectionQuery, TrancoFile.class);
+        log.debug("Deleted tranco file record for listId {}, Delete Count: {}", listId, deleteResult.getDeletedCount());
+    }
+
     private List<TrancoFile> fetchUnprocessedTrancoFiles() {
         Query mongoSelectionQuery = Query.query(Criteria.where("processed").is(false));
         return this.mongoTemplate.find(mongoSelectionQuery, TrancoFile.class).stream()
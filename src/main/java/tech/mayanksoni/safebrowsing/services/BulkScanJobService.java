@@ -0,0 +1,347 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import io.minio.errors.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.exceptions.JobLeaseLost;
+import tech.mayanksoni.safebrowsing.exceptions.ListEntryNotFound;
+import tech.mayanksoni.safebrowsing.models.BulkScanJobEntity;
+import tech.mayanksoni.safebrowsing.models.BulkScanJobStatus;
+import tech.mayanksoni.safebrowsing.models.BulkScanSummary;
+import tech.mayanksoni.safebrowsing.models.dto.BulkScanJobRequest;
+import tech.mayanksoni.safebrowsing.models.dto.DomainTyposquattingValidationRequest;
+import tech.mayanksoni.safebrowsing.repository.BulkScanJobRepository;
+import tech.mayanksoni.safebrowsing.utils.BoundedChunkPipe;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs bulk scans of domain files stored in the object store on a fixed pool of workers. Verdicts are written in
+ * parts of {@code bulkScanJobPartSize} domains; every uploaded part is a checkpoint, so a job interrupted by a restart
+ * resumes with a ranged read from the byte offset of the line after its last part. Once the input is exhausted the
+ * parts are streamed into a single results file terminated by a summary line, and deleted.
+ * <p>
+ * A node claims a job before running it and sends heartbeats while it runs. Queued jobs, and running jobs whose node
+ * stopped sending heartbeats, are picked up at startup and then once per heartbeat timeout; the claim lets only one
+ * replica run each of them. A node that loses its claim stops the job without touching its state.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class BulkScanJobService {
+    private static final String RESULT_FILE_NAME_FORMAT = "bulk-scan-results/%s.ndjson";
+    private static final String RESULT_PART_PREFIX_FORMAT = "bulk-scan-results/%s/";
+    private static final String RESULT_PART_FILE_NAME_FORMAT = RESULT_PART_PREFIX_FORMAT + "part-%05d.ndjson";
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+    private static final int MERGE_PIPE_CHUNKS = 16;
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+    private final MinioService minioService;
+    private final BulkScanJobRepository bulkScanJobRepository;
+    private final TyposquattingDetectionService typosquattingDetectionService;
+    private final BulkScanService bulkScanService;
+    private final SafeBrowsignConfig safeBrowsignConfig;
+    private final String owner = Optional.ofNullable(System.getenv("HOSTNAME")).orElse("node") + "-" + UUID.randomUUID();
+    private final Set<String> scheduledJobIds = ConcurrentHashMap.newKeySet();
+    private ExecutorService jobWorkers;
+    private ScheduledExecutorService jobHeartbeats;
+
+    @PostConstruct
+    public void startJobWorkers() {
+        this.jobWorkers = Executors.newFixedThreadPool(safeBrowsignConfig.getBulkScanJobWorkers(), Thread.ofPlatform().name("bulk-scan-job-", 0).factory());
+        this.jobHeartbeats = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("bulk-scan-job-heartbeat").daemon().factory());
+    }
+
+    @PreDestroy
+    public void stopJobWorkers() {
+        this.jobWorkers.shutdownNow();
+        this.jobHeartbeats.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${safe-browsing.bulk-scan-job-heartbeat-timeout:PT2M}", fixedDelayString = "${safe-browsing.bulk-scan-job-heartbeat-timeout:PT2M}")
+    public void resumeUnfinishedJobs() {
+        List<BulkScanJobEntity> claimableJobs = this.bulkScanJobRepository.getClaimableJobs(staleHeartbeatBefore());
+        claimableJobs.stream().filter(job -> !this.scheduledJobIds.contains(job.jobId())).forEach(job -> {
+            log.info("Resuming bulk scan job {} from line {}", job.jobId(), job.checkpointLine());
+            scheduleJob(job.jobId());
+        });
+    }
+
+    /**
+     * Creates and schedules a job. Submitting an existing job id returns that job, and resubmitting a failed job
+     * schedules it again from its last checkpoint.
+     */
+    public BulkScanJobEntity submitJob(BulkScanJobRequest jobRequest) {
+        String jobId = jobRequest.getJobId() != null ? jobRequest.getJobId() : UUID.randomUUID().toString();
+        BulkScanJobEntity existingJob = this.bulkScanJobRepository.getJob(jobId).orElse(null);
+        if (existingJob != null) {
+            if (existingJob.status() == BulkScanJobStatus.FAILED) {
+                this.bulkScanJobRepository.markJobQueued(jobId);
+                scheduleJob(jobId);
+            }
+            return getJob(jobId).orElseThrow();
+        }
+        if (!isInputFilePresent(jobRequest.getInputFileName())) {
+            throw new ListEntryNotFound("The bulk scan input file could not be located in object store, fileName: " + jobRequest.getInputFileName());
+        }
+        BulkScanJobEntity createdJob = this.bulkScanJobRepository.createJob(jobId, jobRequest.getInputFileName(), String.format(RESULT_FILE_NAME_FORMAT, jobId));
+        scheduleJob(jobId);
+        return createdJob;
+    }
+
+    public Optional<BulkScanJobEntity> getJob(String jobId) {
+        return this.bulkScanJobRepository.getJob(jobId);
+    }
+
+    private void scheduleJob(String jobId) {
+        this.scheduledJobIds.add(jobId);
+        this.jobWorkers.submit(() -> {
+            try {
+                runJob(jobId);
+            } finally {
+                this.scheduledJobIds.remove(jobId);
+            }
+        });
+    }
+
+    private void runJob(String jobId) {
+        Optional<BulkScanJobEntity> claimedJob = this.bulkScanJobRepository.claimJob(jobId, owner, staleHeartbeatBefore());
+        if (claimedJob.isEmpty()) {
+            log.debug("Bulk scan job {} is finished or running on another node, skipping it", jobId);
+            return;
+        }
+        BulkScanJobEntity job = claimedJob.get();
+        long runStartTime = System.nanoTime();
+        long heartbeatPeriodMillis = Math.max(1, safeBrowsignConfig.getBulkScanJobHeartbeatTimeout().toMillis() / 3);
+        ScheduledFuture<?> jobHeartbeat = this.jobHeartbeats.scheduleAtFixedRate(() -> heartbeat(jobId), heartbeatPeriodMillis, heartbeatPeriodMillis, TimeUnit.MILLISECONDS);
+        int partSize = safeBrowsignConfig.getBulkScanJobPartSize();
+        try (InputLineReader inputReader = openInput(job)) {
+            long lineNumber = inputReader.getStartLineNumber();
+            while (lineNumber < job.checkpointLine() && inputReader.readLine() != null) {
+                lineNumber++;
+            }
+            int completedParts = job.completedParts();
+            long processedDomains = job.processedDomains();
+            long typosquattingDomains = job.typosquattingDomains();
+            List<DomainTyposquattingValidationRequest> partDomains = new ArrayList<>(partSize);
+            String line;
+            while ((line = inputReader.readLine()) != null) {
+                lineNumber++;
+                String domain = line.strip();
+                if (!domain.isEmpty()) {
+                    partDomains.add(DomainTyposquattingValidationRequest.builder().domain(domain).build());
+                }
+                if (partDomains.size() == partSize) {
+                    typosquattingDomains += uploadPart(jobId, completedParts++, partDomains);
+                    processedDomains += partDomains.size();
+                    saveCheckpoint(jobId, lineNumber, inputReader.getByteOffset(), completedParts, processedDomains, typosquattingDomains, runningMillis(job, runStartTime));
+                    log.debug("Bulk scan job {} checkpointed at line {} after {} domains", jobId, lineNumber, processedDomains);
+                    partDomains.clear();
+                }
+            }
+            if (!partDomains.isEmpty()) {
+                typosquattingDomains += uploadPart(jobId, completedParts++, partDomains);
+                processedDomains += partDomains.size();
+                saveCheckpoint(jobId, lineNumber, inputReader.getByteOffset(), completedParts, processedDomains, typosquattingDomains, runningMillis(job, runStartTime));
+            }
+            long elapsedMillis = Math.max(1, runningMillis(job, runStartTime));
+            BulkScanSummary summary = new BulkScanSummary(processedDomains, typosquattingDomains, elapsedMillis, processedDomains * 1000.0 / elapsedMillis);
+            mergeParts(jobId, job.resultFileName(), completedParts, summary);
+            if (!this.bulkScanJobRepository.markJobCompleted(jobId, owner)) {
+                throw claimLost(jobId);
+            }
+            log.info("Completed bulk scan job {}: {} domains, {} flagged, results in {}", jobId, processedDomains, typosquattingDomains, job.resultFileName());
+            deleteParts(jobId);
+        } catch (JobLeaseLost e) {
+            log.warn("Stopping bulk scan job {}, message: {}", jobId, e.getMessage());
+        } catch (Exception e) {
+            log.error("Bulk scan job {} failed, message: {}", jobId, e.getMessage(), e);
+            this.bulkScanJobRepository.markJobFailed(jobId, owner, e.getMessage());
+        } finally {
+            jobHeartbeat.cancel(false);
+        }
+    }
+
+    /**
+     * Time spent running the job on this and earlier runs, leaving out the time it waited in the queue or for a node.
+     */
+    private static long runningMillis(BulkScanJobEntity job, long runStartTime) {
+        return job.runningMillis() + (System.nanoTime() - runStartTime) / 1_000_000;
+    }
+
+    private Instant staleHeartbeatBefore() {
+        return Instant.now().minus(safeBrowsignConfig.getBulkScanJobHeartbeatTimeout());
+    }
+
+    /**
+     * Opens the input at the byte offset of the checkpoint with a ranged read. Jobs checkpointed before byte offsets
+     * were recorded start from the beginning and skip the lines before their checkpoint.
+     */
+    private InputLineReader openInput(BulkScanJobEntity job) throws ServerException, InsufficientDataException, ErrorResponseException, IOException, NoSuchAlgorithmException, InvalidKeyException, InvalidResponseException, XmlParserException, InternalException {
+        if (job.checkpointByteOffset() > 0) {
+            return new InputLineReader(minioService.downloadFileAsStream(job.inputFileName(), job.checkpointByteOffset()), job.checkpointByteOffset(), job.checkpointLine());
+        }
+        return new InputLineReader(minioService.downloadFileAsStream(job.inputFileName()), 0, 0);
+    }
+
+    private void saveCheckpoint(String jobId, long checkpointLine, long checkpointByteOffset, int completedParts, long processedDomains, long typosquattingDomains, long runningMillis) {
+        if (!this.bulkScanJobRepository.saveCheckpoint(jobId, owner, checkpointLine, checkpointByteOffset, completedParts, processedDomains, typosquattingDomains, runningMillis)) {
+            throw claimLost(jobId);
+        }
+    }
+
+    private void heartbeat(String jobId) {
+        try {
+            if (!this.bulkScanJobRepository.heartbeat(jobId, owner)) {
+                log.warn("Unable to send the heartbeat of bulk scan job {}, it was taken over by another node", jobId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to send the heartbeat of bulk scan job {}, message: {}", jobId, e.getMessage());
+        }
+    }
+
+    private JobLeaseLost claimLost(String jobId) {
+        return new JobLeaseLost("Bulk scan job " + jobId + " is no longer claimed by " + owner);
+    }
+
+    /**
+     * Deletes the part files once they are merged. A failure leaves them behind without failing the completed job.
+     */
+    private void deleteParts(String jobId) {
+        try {
+            for (String partFileName : minioService.listFileNames(String.format(RESULT_PART_PREFIX_FORMAT, jobId))) {
+                minioService.deleteFile(partFileName);
+            }
+        } catch (Exception e) {
+            log.warn("Unable to delete the result parts of bulk scan job {}, message: {}", jobId, e.getMessage());
+        }
+    }
+
+    private long uploadPart(String jobId, int partNumber, List<DomainTyposquattingValidationRequest> partDomains) throws ServerException, InsufficientDataException, ErrorResponseException, IOException, NoSuchAlgorithmException, InvalidKeyException, InvalidResponseException, XmlParserException, InternalException {
+        ByteArrayOutputStream partContent = new ByteArrayOutputStream(partDomains.size() * 128);
+        long typosquattingDomains = this.bulkScanService.writeVerdicts(this.typosquattingDetectionService.checkDomainsForTyposquatting(partDomains), partContent);
+        minioService.uploadFile(String.format(RESULT_PART_FILE_NAME_FORMAT, jobId, partNumber), new ByteArrayInputStream(partContent.toByteArray()));
+        return typosquattingDomains;
+    }
+
+    /**
+     * Concatenates the part files into the results file through a pipe, so the merged file is never held in memory.
+     * A part that cannot be read fails the pipe rather than ending it, so the upload aborts instead of committing a
+     * truncated results file.
+     */
+    private void mergeParts(String jobId, String resultFileName, int partCount, BulkScanSummary summary) throws ServerException, InsufficientDataException, ErrorResponseException, IOException, NoSuchAlgorithmException, InvalidKeyException, InvalidResponseException, XmlParserException, InternalException, InterruptedException {
+        BoundedChunkPipe mergedResults = new BoundedChunkPipe(MERGE_PIPE_CHUNKS);
+        AtomicReference<Exception> mergeFailure = new AtomicReference<>();
+        Thread partWriter = Thread.ofVirtual().name("bulk-scan-merge-" + jobId).start(() -> {
+            try {
+                OutputStream sink = mergedResults.getOutputStream();
+                for (int partNumber = 0; partNumber < partCount; partNumber++) {
+                    try (InputStream partInputStream = minioService.downloadFileAsStream(String.format(RESULT_PART_FILE_NAME_FORMAT, jobId, partNumber))) {
+                        partInputStream.transferTo(sink);
+                    }
+                }
+                this.bulkScanService.writeSummary(summary, sink);
+                mergedResults.close();
+            } catch (Exception e) {
+                mergeFailure.set(e);
+                mergedResults.fail(e);
+            }
+        });
+        try {
+            minioService.uploadStream(resultFileName, mergedResults.getInputStream(), NDJSON_CONTENT_TYPE);
+        } catch (Exception e) {
+            mergedResults.fail(e);
+            partWriter.join();
+            if (mergeFailure.get() != null) {
+                throw new IOException("Unable to merge result parts for bulk scan job " + jobId, mergeFailure.get());
+            }
+            throw e;
+        }
+        partWriter.join();
+    }
+
+    /**
+     * Reads the lines of the input from its raw bytes, keeping the byte offset at which the next line starts so a
+     * checkpoint can resume the input with a ranged read instead of reading it again up to the checkpoint.
+     */
+    private static final class InputLineReader implements Closeable {
+        private final InputStream inputStream;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        private final long startLineNumber;
+        private long byteOffset;
+
+        private InputLineReader(InputStream inputStream, long byteOffset, long startLineNumber) {
+            this.inputStream = new BufferedInputStream(inputStream, INPUT_BUFFER_SIZE);
+            this.byteOffset = byteOffset;
+            this.startLineNumber = startLineNumber;
+        }
+
+        private String readLine() throws IOException {
+            line.reset();
+            int nextByte;
+            while ((nextByte = inputStream.read()) != -1) {
+                byteOffset++;
+                if (nextByte == '\n') {
+                    return line.toString(StandardCharsets.UTF_8);
+                }
+                line.write(nextByte);
+            }
+            return line.size() > 0 ? line.toString(StandardCharsets.UTF_8) : null;
+        }
+
+        /**
+         * The number of input lines before the byte offset the reader was opened at.
+         */
+        private long getStartLineNumber() {
+            return startLineNumber;
+        }
+
+        private long getByteOffset() {
+            return byteOffset;
+        }
+
+        @Override
+        public void close() throws IOException {
+            inputStream.close();
+        }
+    }
+
+    private boolean isInputFilePresent(String inputFileName) {
+        try {
+            return inputFileName != null && minioService.isFilePresent(inputFileName);
+        } catch (ServerException | InsufficientDataException | ErrorResponseException | IOException |
+                 NoSuchAlgorithmException | InvalidKeyException | InvalidResponseException | XmlParserException |
+                 InternalException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.models.BulkScanSummary;
+import tech.mayanksoni.safebrowsing.models.TyposquattingValidationResponse;
+import tech.mayanksoni.safebrowsing.models.dto.DomainTyposquattingValidationRequest;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Scans newline-delimited domains and writes one JSON verdict per line, followed by a {@code summary} line.
+ * A reader thread cuts the input into chunks and hands them over through a bounded queue while the calling thread
+ * checks and writes the previous chunk, so memory stays at a few chunks and a slow client throttles the upload.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class BulkScanService {
+    private static final List<DomainTyposquattingValidationRequest> END_OF_INPUT = List.of();
+    private static final byte NEWLINE = '\n';
+
+    private final TyposquattingDetectionService typosquattingDetectionService;
+    private final SafeBrowsignConfig safeBrowsignConfig;
+    private final ObjectMapper objectMapper;
+
+    public BulkScanSummary scan(InputStream domains, OutputStream verdicts) throws IOException {
+        long startTime = System.nanoTime();
+        BlockingQueue<List<DomainTyposquattingValidationRequest>> chunks = new ArrayBlockingQueue<>(safeBrowsignConfig.getBulkScanChunksInFlight());
+        AtomicReference<IOException> readFailure = new AtomicReference<>();
+        Thread reader = Thread.ofVirtual().name("bulk-scan-reader").start(() -> readChunks(domains, chunks, readFailure));
+        long scannedDomains = 0;
+        long typosquattingDomains = 0;
+        OutputStream bufferedVerdicts = new BufferedOutputStream(verdicts);
+        try {
+            List<DomainTyposquattingValidationRequest> chunk;
+            while ((chunk = chunks.take()) != END_OF_INPUT) {
+                typosquattingDomains += writeVerdicts(this.typosquattingDetectionService.checkDomainsForTyposquatting(chunk), bufferedVerdicts);
+                bufferedVerdicts.flush();
+                scannedDomains += chunk.size();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Bulk scan interrupted", e);
+        } finally {
+            reader.interrupt();
+        }
+        if (readFailure.get() != null) {
+            throw readFailure.get();
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startTime) / 1_000_000);
+        BulkScanSummary summary = new BulkScanSummary(scannedDomains, typosquattingDomains, elapsedMillis, scannedDomains * 1000.0 / elapsedMillis);
+        writeSummary(summary, bufferedVerdicts);
+        bufferedVerdicts.flush();
+        log.info("Bulk scan of {} domains flagged {} in {} ms ({} domains/s)", scannedDomains, typosquattingDomains, elapsedMillis, Math.round(summary.domainsPerSecond()));
+        return summary;
+    }
+
+    /**
+     * Writes one JSON line per verdict and returns how many of them were flagged as typosquatting.
+     */
+    public long writeVerdicts(List<TyposquattingValidationResponse> verdicts, OutputStream outputStream) throws IOException {
+        long typosquattingDomains = 0;
+        for (TyposquattingValidationResponse verdict : verdicts) {
+            outputStream.write(this.objectMapper.writeValueAsBytes(verdict));
+            outputStream.write(NEWLINE);
+            if (verdict.isTyposquatting()) {
+                typosquattingDomains++;
+            }
+        }
+        return typosquattingDomains;
+    }
+
+    public void writeSummary(BulkScanSummary summary, OutputStream outputStream) throws IOException {
+        outputStream.write(this.objectMapper.writeValueAsBytes(Map.of("summary", summary)));
+        outputStream.write(NEWLINE);
+    }
+
+    private void readChunks(InputStream domains, BlockingQueue<List<DomainTyposquattingValidationRequest>> chunks, AtomicReference<IOException> readFailure) {
+        int chunkSize = safeBrowsignConfig.getBulkScanChunkSize();
+        BufferedReader domainReader = new BufferedReader(new InputStreamReader(domains, StandardCharsets.UTF_8));
+        try {
+            List<DomainTyposquattingValidationRequest> chunk = new ArrayList<>(chunkSize);
+            String line;
+            while ((line = domainReader.readLine()) != null) {
+                String domain = line.strip();
+                if (domain.isEmpty()) {
+                    continue;
+                }
+                chunk.add(DomainTyposquattingValidationRequest.builder().domain(domain).build());
+                if (chunk.size() == chunkSize) {
+                    chunks.put(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                chunks.put(chunk);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Failed to read bulk scan input", e);
+            readFailure.set(e instanceof UncheckedIOException unchecked ? unchecked.getCause() : (IOException) e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            chunks.put(END_OF_INPUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
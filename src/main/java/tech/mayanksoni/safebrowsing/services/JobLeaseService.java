@@ -0,0 +1,109 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.exceptions.JobLeaseLost;
+import tech.mayanksoni.safebrowsing.models.JobLeaseEntity;
+import tech.mayanksoni.safebrowsing.repository.JobLeaseRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs jobs that must run on one node at a time under a lease stored in the database. A node that finds the lease
+ * held skips the job. The holder renews the lease every third of its duration while the job runs, and the job checks
+ * its fencing token before writes that must not come from a superseded holder, such as each batch of domains it loads
+ * and the activation of a list, so a node that stalled past its lease stops instead of racing the node that took over.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class JobLeaseService {
+    private final JobLeaseRepository jobLeaseRepository;
+    private final SafeBrowsignConfig safeBrowsignConfig;
+    private final String owner = Optional.ofNullable(System.getenv("HOSTNAME")).orElse("node") + "-" + UUID.randomUUID();
+    private final ThreadLocal<JobLeaseEntity> currentLease = new ThreadLocal<>();
+    private ScheduledExecutorService leaseRenewals;
+
+    @PostConstruct
+    public void startLeaseRenewals() {
+        this.leaseRenewals = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("job-lease-renewal").daemon().factory());
+    }
+
+    /**
+     * Runs the job if the lease could be acquired and releases the lease afterwards.
+     *
+     * @return whether the job ran on this node
+     */
+    public boolean runExclusively(String leaseName, Runnable job) {
+        Duration leaseDuration = safeBrowsignConfig.getJobLeaseDuration();
+        Optional<JobLeaseEntity> acquiredLease = this.jobLeaseRepository.tryAcquire(leaseName, owner, leaseDuration);
+        if (acquiredLease.isEmpty()) {
+            log.info("Lease {} is held by another node, skipping the job on this node", leaseName);
+            return false;
+        }
+        JobLeaseEntity lease = acquiredLease.get();
+        log.info("Acquired lease {} with fencing token {} as {}", leaseName, lease.fencingToken(), owner);
+        long renewalPeriodMillis = Math.max(1, leaseDuration.toMillis() / 3);
+        ScheduledFuture<?> leaseRenewal = this.leaseRenewals.scheduleAtFixedRate(() -> renew(lease, leaseDuration), renewalPeriodMillis, renewalPeriodMillis, TimeUnit.MILLISECONDS);
+        this.currentLease.set(lease);
+        try {
+            job.run();
+            return true;
+        } finally {
+            this.currentLease.remove();
+            leaseRenewal.cancel(false);
+            this.jobLeaseRepository.release(lease);
+            log.info("Released lease {} with fencing token {}", leaseName, lease.fencingToken());
+        }
+    }
+
+    /**
+     * When called from a job run by {@link #runExclusively}, verifies that its lease has neither expired nor passed to
+     * another node; outside such a job there is nothing to check.
+     *
+     * @throws JobLeaseLost if the job's fencing token is no longer current
+     */
+    public void checkFencingToken() {
+        checkFencingToken(this.currentLease.get());
+    }
+
+    /**
+     * Captures the lease of the job running on the calling thread for the threads the job hands its writes to, which
+     * do not see it. Running the returned check on any thread behaves like {@link #checkFencingToken()} in the job.
+     */
+    public Runnable fencingTokenCheck() {
+        JobLeaseEntity lease = this.currentLease.get();
+        return () -> checkFencingToken(lease);
+    }
+
+    private void checkFencingToken(JobLeaseEntity lease) {
+        if (lease != null && !this.jobLeaseRepository.isHeld(lease)) {
+            throw new JobLeaseLost("Lease " + lease.leaseName() + " with fencing token " + lease.fencingToken() + " is no longer held by " + owner);
+        }
+    }
+
+    private void renew(JobLeaseEntity lease, Duration leaseDuration) {
+        try {
+            if (!this.jobLeaseRepository.renew(lease, leaseDuration)) {
+                log.warn("Unable to renew lease {} with fencing token {}, it expired or was taken over", lease.leaseName(), lease.fencingToken());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to renew lease {} with fencing token {}, message: {}", lease.leaseName(), lease.fencingToken(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stopLeaseRenewals() {
+        this.leaseRenewals.shutdownNow();
+    }
+}
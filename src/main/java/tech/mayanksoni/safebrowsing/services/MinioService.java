@@ -16,11 +16,14 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class MinioService {
+    private static final long STREAMING_UPLOAD_PART_SIZE = 10L * 1024 * 1024;
     private final MinioClient minioClient;
     private final SafeBrowsignConfig safeBrowsignConfig;
     private String bucketName;
@@ -45,11 +48,39 @@ public class MinioService {
 
     }
 
-    public BufferedReader downloadFile(String fileName) throws ServerException, InsufficientDataException, ErrorResponseException, IOException, NoSuchAlgorithmException, InvalidKeyException, InvalidResponseException, XmlParserException, InternalException {
-        InputStream fis = this.minioClient.getObject(GetObjectArgs.builder()
+    /**
+     * Uploads a stream whose length is not known up front, such as a file being assembled while it is written, as a
+     * multipart upload of {@link #STREAMING_UPLOAD_PART_SIZE} parts.
+     */
+    public void uploadStream(String fileName, InputStream inputStream, String contentType) throws ServerException, InsufficientDataException, ErrorResponseException, IOException, NoSuchAlgorithmException, InvalidKeyException, InvalidResponseException, XmlParserException, InternalException {
+        this.minioClient.putObject(PutObjectArgs.builder()
+                .bucket(bucketName)
+                .object(fileName)
+                .stream(inputStream, -1, STREAMING_UPLOAD_PART_SIZE)
+                .contentType(contentType)
+                .build());
+    }
+
+    public InputStream downloadFileAsStream(String fileName) throws ServerException, InsufficientDataException, ErrorResponseException, IOException, NoSuchAlgorithmException, InvalidKeyException, InvalidResponseException, XmlParserException, InternalException {
+        return this.minioClient.getObject(GetObjectArgs.builder()
+                .bucket(bucketName)
+                .object(fileName)
+                .build());
+    }
+
+    /**
+     * Reads the object from {@code offset} to its end with a ranged read.
+     */
+    public InputStream downloadFileAsStream(String fileName, long offset) throws ServerException, InsufficientDataException, ErrorResponseException, IOException, NoSuchAlgorithmException, InvalidKeyException, InvalidResponseException, XmlParserException, InternalException {
+        return this.minioClient.getObject(GetObjectArgs.builder()
                 .bucket(bucketName)
                 .object(fileName)
+                .offset(offset)
                 .build());
+    }
+
+    public BufferedReader downloadFile(String fileName) throws ServerException, InsufficientDataException, ErrorResponseException, IOException, NoSuchAlgorithmException, InvalidKeyException, InvalidResponseException, XmlParserException, InternalException {
+        InputStream fis = downloadFileAsStream(fileName);
         return new BufferedReader(new InputStreamReader(fis, StandardCharsets.UTF_8));
     }
 
@@ -60,6 +91,21 @@ public class MinioService {
                 .build());
     }
 
+    public List<String> listFileNames(String prefix) throws ServerException, InsufficientDataException, ErrorResponseException, IOException, NoSuchAlgorithmException, InvalidKeyException, InvalidResponseException, XmlParserException, InternalException {
+        List<String> fileNames = new ArrayList<>();
+        for (Result<Item> object : this.minioClient.listObjects(ListObjectsArgs.builder().bucket(bucketName).prefix(prefix).build())) {
+            fileNames.add(object.get().objectName());
+        }
+        return fileNames;
+    }
+
+    public void deleteFile(String fileName) throws ServerException, InsufficientDataException, ErrorResponseException, IOException, NoSuchAlgorithmException, InvalidKeyException, InvalidResponseException, XmlParserException, InternalException {
+        this.minioClient.removeObject(RemoveObjectArgs.builder()
+                .bucket(bucketName)
+                .object(fileName)
+                .build());
+    }
+
     public boolean isFilePresent(String fileName) throws ServerException, InsufficientDataException, ErrorResponseException, IOException, NoSuchAlgorithmException, InvalidKeyException, InvalidResponseException, XmlParserException, InternalException {
         Iterable<Result<Item>> objects = this.minioClient.listObjects(ListObjectsArgs.builder().bucket(bucketName).build());
         for (Result<Item> object : objects) {
@@ -0,0 +1,175 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.index.ReferenceDomainIndex;
+import tech.mayanksoni.safebrowsing.models.TrancoFileEntity;
+import tech.mayanksoni.safebrowsing.models.TrancoProvidedDomainEntity;
+import tech.mayanksoni.safebrowsing.repository.TrancoListRepository;
+import tech.mayanksoni.safebrowsing.repository.TrancoProvidedDomainRepository;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReferenceDomainIndexService {
+    private final TrancoProvidedDomainRepository trancoProvidedDomainRepository;
+    private final TrancoListRepository trancoListRepository;
+    private final SafeBrowsignConfig safeBrowsignConfig;
+    private final ReferenceDomainSnapshotStore referenceDomainSnapshotStore;
+    private final ReferenceIndexArtifactService referenceIndexArtifactService;
+    private final AtomicReference<ReferenceDomainIndex> activeIndex = new AtomicReference<>();
+    private final AtomicReference<String> activeDomainSetId = new AtomicReference<>();
+    private final AtomicBoolean warmUpFinished = new AtomicBoolean();
+    private final AtomicBoolean activeListMissing = new AtomicBoolean();
+    /**
+     * Activation time of the list whose index is served, guarded by the service's lock.
+     */
+    private Instant servedActivatedOn = Instant.EPOCH;
+
+    /**
+     * Starts loading the index of the active list on a thread of its own, so startup is not held up by it. Domains
+     * still in the shared collection of earlier versions are first moved into the collections of their lists, which the
+     * index is loaded from. Until the index is loaded requests are answered from the store, and the
+     * {@code referenceIndex} health indicator keeps the node out of the readiness group.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpIndex() {
+        Thread.ofPlatform().name("reference-index-warm-up").daemon().start(() -> {
+            try {
+                this.trancoProvidedDomainRepository.migrateLegacyDomains();
+                loadIndexForActiveList();
+            } catch (RuntimeException e) {
+                log.error("Unable to load the reference domain index at startup, retrying on the next refresh, message: {}", e.getMessage(), e);
+            } finally {
+                this.warmUpFinished.set(true);
+            }
+        });
+    }
+
+    /**
+     * Loads the index of the active list when it is not the one being served: from the local snapshot, from the index
+     * artifact published by the node that ingested the list, or, failing both, from the store. Runs at startup and then
+     * periodically, which is how replicas that do not ingest a list pick it up once it becomes active. The index being
+     * served stays in place until its replacement is loaded, so a failed load leaves the last known good list serving.
+     * A list activated before the one being served is not loaded, so a stale read of the active list cannot roll the
+     * node back to an older index, while an operator rollback, which activates the older list again and so stamps a
+     * newer activation time, is followed. Loads and activations hold the same lock.
+     */
+    @Scheduled(initialDelayString = "${safe-browsing.index-refresh-interval:PT1M}", fixedDelayString = "${safe-browsing.index-refresh-interval:PT1M}")
+    public synchronized void loadIndexForActiveList() {
+        this.trancoListRepository.getActiveTrancoList().ifPresentOrElse(activeList -> {
+            this.activeListMissing.set(false);
+            String listId = activeList.listId();
+            if (getActiveIndex().map(ReferenceDomainIndex::getListId).filter(listId::equals).isPresent()) {
+                return;
+            }
+            Instant activatedOn = activatedOn(activeList);
+            if (activatedOn.isBefore(this.servedActivatedOn)) {
+                log.warn("Active list {} activated on {} predates the served list {} activated on {}, keeping the served index", listId, activatedOn, getActiveIndex().map(ReferenceDomainIndex::getListId).orElse(null), this.servedActivatedOn);
+                return;
+            }
+            String domainSetId = activeList.domainSetId() != null ? activeList.domainSetId() : listId;
+            this.referenceDomainSnapshotStore.open(listId)
+                    .or(() -> this.referenceIndexArtifactService.fetch(listId))
+                    .ifPresentOrElse(referenceDomainIndex -> {
+                        serve(referenceDomainIndex, domainSetId, activatedOn);
+                        log.info("Activated prebuilt {} reference domain index for listId {} with {} domains", referenceDomainIndex.getMatchingEngineType(), listId, referenceDomainIndex.getSize());
+                    }, () -> loadIndexForList(listId));
+        }, () -> {
+            this.activeListMissing.set(true);
+            log.info("No active tranco list found, reference domain index not loaded");
+        });
+    }
+
+    public synchronized ReferenceDomainIndex loadIndexForList(String listId) {
+        Optional<TrancoFileEntity> trancoList = this.trancoListRepository.getFileInformation(listId);
+        String domainSetId = trancoList.map(TrancoFileEntity::domainSetId).orElse(listId);
+        ReferenceDomainIndex referenceDomainIndex = buildIndex(listId, domainSetId);
+        serve(referenceDomainIndex, domainSetId, trancoList.map(ReferenceDomainIndexService::activatedOn).orElse(Instant.EPOCH));
+        return referenceDomainIndex;
+    }
+
+    /**
+     * Builds the index of a domain set from the store and writes its snapshot, without serving it yet.
+     */
+    public ReferenceDomainIndex buildIndex(String listId, String domainSetId) {
+        long startTime = System.nanoTime();
+        ReferenceDomainIndex referenceDomainIndex;
+        try (Stream<TrancoProvidedDomainEntity> domains = this.trancoProvidedDomainRepository.streamDomainsByListId(domainSetId)) {
+            referenceDomainIndex = ReferenceDomainIndex.build(listId, this.safeBrowsignConfig, domains);
+        }
+        log.info("Built {} reference domain index for listId {} with {} domains in {} ms", referenceDomainIndex.getMatchingEngineType(), listId, referenceDomainIndex.getSize(), (System.nanoTime() - startTime) / 1_000_000);
+        this.referenceDomainSnapshotStore.save(referenceDomainIndex);
+        return referenceDomainIndex;
+    }
+
+    /**
+     * Swaps in an index that was built by the caller, such as the one produced while applying a list delta, for the list
+     * just activated, whose domain set and activation time are recorded with it. Its snapshot is written unless
+     * {@link #buildIndex} already did.
+     */
+    public synchronized void activateIndex(ReferenceDomainIndex referenceDomainIndex, TrancoFileEntity activatedList) {
+        serve(referenceDomainIndex, activatedList.domainSetId() != null ? activatedList.domainSetId() : activatedList.listId(), activatedOn(activatedList));
+        log.info("Activated {} reference domain index for listId {} with {} domains", referenceDomainIndex.getMatchingEngineType(), referenceDomainIndex.getListId(), referenceDomainIndex.getSize());
+        if (this.referenceDomainSnapshotStore.findSnapshot(referenceDomainIndex.getListId()).isEmpty()) {
+            this.referenceDomainSnapshotStore.save(referenceDomainIndex);
+        }
+    }
+
+    /**
+     * Whether the startup load of the index has run, whatever its outcome.
+     */
+    public boolean isWarmUpFinished() {
+        return this.warmUpFinished.get();
+    }
+
+    /**
+     * Whether the last load of the index found no active list, as on a node that starts before any list was ingested.
+     */
+    public boolean isActiveListMissing() {
+        return this.activeListMissing.get();
+    }
+
+    private void serve(ReferenceDomainIndex referenceDomainIndex, String domainSetId, Instant activatedOn) {
+        this.activeIndex.set(referenceDomainIndex);
+        this.activeDomainSetId.set(domainSetId);
+        this.servedActivatedOn = activatedOn;
+    }
+
+    /**
+     * Lists activated by earlier versions carry no activation time and count as the oldest.
+     */
+    private static Instant activatedOn(TrancoFileEntity trancoList) {
+        return trancoList.activatedOn() != null ? Instant.parse(trancoList.activatedOn()) : Instant.EPOCH;
+    }
+
+    public Optional<ReferenceDomainIndex> getActiveIndex() {
+        return Optional.ofNullable(this.activeIndex.get());
+    }
+
+    /**
+     * The domain set of the active list, which names the collection store queries run against. It is cached when an
+     * index is loaded or activated, and resolved from the active list once otherwise, so store queries do not look up
+     * the active list per request.
+     */
+    public Optional<String> getActiveDomainSetId() {
+        String domainSetId = this.activeDomainSetId.get();
+        if (domainSetId != null) {
+            return Optional.of(domainSetId);
+        }
+        Optional<String> activeDomainSetId = this.trancoListRepository.getActiveTrancoList().map(trancoFileEntity -> trancoFileEntity.domainSetId() != null ? trancoFileEntity.domainSetId() : trancoFileEntity.listId());
+        activeDomainSetId.ifPresent(resolvedDomainSetId -> this.activeDomainSetId.compareAndSet(null, resolvedDomainSetId));
+        return activeDomainSetId;
+    }
+}
@@ -0,0 +1,131 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.index.ReferenceDomainIndex;
+import tech.mayanksoni.safebrowsing.index.ReferenceDomainSnapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * Keeps the {@link ReferenceDomainSnapshot} of the active list in the configured snapshot directory. Snapshots are a
+ * startup shortcut only: when the directory is not configured, or a snapshot is missing, unreadable or fails its
+ * checksum, the index is loaded from the store as before.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ReferenceDomainSnapshotStore {
+    private static final String SNAPSHOT_FILE_PREFIX = "reference-index-";
+    private static final String SNAPSHOT_FILE_SUFFIX = ".bin";
+    private final SafeBrowsignConfig safeBrowsignConfig;
+
+    public Optional<ReferenceDomainIndex> open(String listId) {
+        Optional<Path> snapshotFile = findSnapshot(listId);
+        if (snapshotFile.isEmpty()) {
+            return Optional.empty();
+        }
+        long startTime = System.nanoTime();
+        try {
+            ReferenceDomainIndex referenceDomainIndex = ReferenceDomainSnapshot.open(snapshotFile.get(), safeBrowsignConfig);
+            log.info("Opened reference domain snapshot for listId {} with {} domains in {} ms", listId, referenceDomainIndex.getSize(), (System.nanoTime() - startTime) / 1_000_000);
+            return Optional.of(referenceDomainIndex);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Discarding unreadable reference domain snapshot {}: {}", snapshotFile.get(), e.getMessage());
+            deleteQuietly(snapshotFile.get());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores a snapshot fetched from elsewhere, such as an index artifact, and opens it. Without a snapshot directory
+     * the snapshot is kept in a temporary file for as long as it takes to map it.
+     */
+    public Optional<ReferenceDomainIndex> install(String listId, InputStream snapshotInputStream) throws IOException {
+        Optional<Path> snapshotFile = getSnapshotFile(listId);
+        if (snapshotFile.isEmpty()) {
+            Path temporaryFile = Files.createTempFile(SNAPSHOT_FILE_PREFIX, SNAPSHOT_FILE_SUFFIX);
+            try {
+                Files.copy(snapshotInputStream, temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+                return Optional.of(ReferenceDomainSnapshot.open(temporaryFile, safeBrowsignConfig));
+            } finally {
+                deleteQuietly(temporaryFile);
+            }
+        }
+        Files.createDirectories(snapshotFile.get().getParent());
+        Path temporaryFile = ReferenceDomainSnapshot.createTemporaryFile(snapshotFile.get());
+        try {
+            Files.copy(snapshotInputStream, temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            deleteQuietly(temporaryFile);
+            throw e;
+        }
+        ReferenceDomainSnapshot.moveIntoPlace(temporaryFile, snapshotFile.get());
+        Optional<ReferenceDomainIndex> referenceDomainIndex = open(listId);
+        referenceDomainIndex.ifPresent(installedIndex -> deleteOtherSnapshots(snapshotFile.get()));
+        return referenceDomainIndex;
+    }
+
+    /**
+     * Returns the snapshot file of the list when one has been written.
+     */
+    public Optional<Path> findSnapshot(String listId) {
+        return getSnapshotFile(listId).filter(Files::isRegularFile);
+    }
+
+    /**
+     * Writes the snapshot of the index and removes the snapshots of other lists.
+     */
+    public void save(ReferenceDomainIndex referenceDomainIndex) {
+        Optional<Path> snapshotFile = getSnapshotFile(referenceDomainIndex.getListId());
+        if (snapshotFile.isEmpty()) {
+            return;
+        }
+        long startTime = System.nanoTime();
+        try {
+            Files.createDirectories(snapshotFile.get().getParent());
+            ReferenceDomainSnapshot.write(snapshotFile.get(), referenceDomainIndex);
+            log.info("Wrote reference domain snapshot for listId {} ({} bytes) in {} ms", referenceDomainIndex.getListId(), Files.size(snapshotFile.get()), (System.nanoTime() - startTime) / 1_000_000);
+        } catch (IOException e) {
+            log.warn("Unable to write reference domain snapshot for listId {}: {}", referenceDomainIndex.getListId(), e.getMessage());
+            return;
+        }
+        deleteOtherSnapshots(snapshotFile.get());
+    }
+
+    private void deleteOtherSnapshots(Path snapshotFile) {
+        try (DirectoryStream<Path> snapshotFiles = Files.newDirectoryStream(snapshotFile.getParent(), SNAPSHOT_FILE_PREFIX + "*" + SNAPSHOT_FILE_SUFFIX)) {
+            snapshotFiles.forEach(existingSnapshotFile -> {
+                if (!existingSnapshotFile.equals(snapshotFile)) {
+                    deleteQuietly(existingSnapshotFile);
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Unable to remove previous reference domain snapshots: {}", e.getMessage());
+        }
+    }
+
+    private Optional<Path> getSnapshotFile(String listId) {
+        String snapshotDirectory = safeBrowsignConfig.getIndexSnapshotDirectory();
+        if (snapshotDirectory == null || snapshotDirectory.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.of(Path.of(snapshotDirectory, SNAPSHOT_FILE_PREFIX + listId + SNAPSHOT_FILE_SUFFIX));
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Unable to delete {}: {}", file, e.getMessage());
+        }
+    }
+}
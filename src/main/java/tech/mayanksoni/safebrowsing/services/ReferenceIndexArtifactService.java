@@ -0,0 +1,111 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import io.minio.errors.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import tech.mayanksoni.safebrowsing.index.ReferenceDomainIndex;
+import tech.mayanksoni.safebrowsing.index.ReferenceDomainSnapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+
+/**
+ * Shares the {@link ReferenceDomainSnapshot} of a list through the object store, next to the list itself, so only the
+ * node that ingests a list builds its index and every other replica loads it with one object fetch. Artifacts are an
+ * optimisation: failing to publish, fetch or delete one is logged and the index is loaded from the store instead. Only
+ * the artifact of the active list is kept.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReferenceIndexArtifactService {
+    private static final String INDEX_ARTIFACT_FILE_NAME_PREFIX = "tranco-index-";
+    private static final String INDEX_ARTIFACT_FILE_NAME_SUFFIX = ".bin";
+    private static final String INDEX_ARTIFACT_FILE_NAME_FORMAT = INDEX_ARTIFACT_FILE_NAME_PREFIX + "%s" + INDEX_ARTIFACT_FILE_NAME_SUFFIX;
+    private static final String INDEX_ARTIFACT_CONTENT_TYPE = "application/octet-stream";
+    private final MinioService minioService;
+    private final ReferenceDomainSnapshotStore referenceDomainSnapshotStore;
+
+    /**
+     * Uploads the snapshot of the index, reusing the local snapshot when one was written for the list.
+     */
+    public void publish(ReferenceDomainIndex referenceDomainIndex) {
+        String listId = referenceDomainIndex.getListId();
+        String fileName = String.format(INDEX_ARTIFACT_FILE_NAME_FORMAT, listId);
+        long startTime = System.nanoTime();
+        Optional<Path> localSnapshot = this.referenceDomainSnapshotStore.findSnapshot(listId);
+        Path snapshotFile = null;
+        try {
+            snapshotFile = localSnapshot.isPresent() ? localSnapshot.get() : Files.createTempFile("tranco-index-", ".bin");
+            if (localSnapshot.isEmpty()) {
+                ReferenceDomainSnapshot.write(snapshotFile, referenceDomainIndex);
+            }
+            try (InputStream snapshotInputStream = Files.newInputStream(snapshotFile)) {
+                this.minioService.uploadStream(fileName, snapshotInputStream, INDEX_ARTIFACT_CONTENT_TYPE);
+            }
+            log.info("Published index artifact {} for listId {} in {} ms", fileName, listId, (System.nanoTime() - startTime) / 1_000_000);
+        } catch (ServerException | InsufficientDataException | ErrorResponseException | IOException |
+                 NoSuchAlgorithmException | InvalidKeyException | InvalidResponseException |
+                 XmlParserException | InternalException e) {
+            log.warn("Unable to publish index artifact {} for listId {}, message: {}", fileName, listId, e.getMessage());
+        } finally {
+            if (localSnapshot.isEmpty() && snapshotFile != null) {
+                try {
+                    Files.deleteIfExists(snapshotFile);
+                } catch (IOException e) {
+                    log.warn("Unable to delete {}: {}", snapshotFile, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Downloads and opens the index artifact of the list, if the node that ingested it has published one.
+     */
+    public Optional<ReferenceDomainIndex> fetch(String listId) {
+        String fileName = String.format(INDEX_ARTIFACT_FILE_NAME_FORMAT, listId);
+        long startTime = System.nanoTime();
+        try {
+            if (!this.minioService.isFilePresent(fileName)) {
+                log.debug("No index artifact {} for listId {}", fileName, listId);
+                return Optional.empty();
+            }
+            Optional<ReferenceDomainIndex> referenceDomainIndex;
+            try (InputStream artifactInputStream = this.minioService.downloadFileAsStream(fileName)) {
+                referenceDomainIndex = this.referenceDomainSnapshotStore.install(listId, artifactInputStream);
+            }
+            referenceDomainIndex.ifPresent(fetchedIndex -> log.info("Loaded index artifact {} with {} domains in {} ms", fileName, fetchedIndex.getSize(), (System.nanoTime() - startTime) / 1_000_000));
+            return referenceDomainIndex;
+        } catch (ServerException | InsufficientDataException | ErrorResponseException | IOException |
+                 NoSuchAlgorithmException | InvalidKeyException | InvalidResponseException |
+                 XmlParserException | InternalException | RuntimeException e) {
+            log.warn("Unable to load index artifact {} for listId {}, message: {}", fileName, listId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Deletes the artifacts of every list but {@code listId}, once it is the active list and no replica needs them.
+     */
+    public void deleteArtifactsExcept(String listId) {
+        String retainedFileName = String.format(INDEX_ARTIFACT_FILE_NAME_FORMAT, listId);
+        try {
+            for (String fileName : this.minioService.listFileNames(INDEX_ARTIFACT_FILE_NAME_PREFIX)) {
+                if (fileName.endsWith(INDEX_ARTIFACT_FILE_NAME_SUFFIX) && !fileName.equals(retainedFileName)) {
+                    this.minioService.deleteFile(fileName);
+                    log.info("Deleted index artifact {}", fileName);
+                }
+            }
+        } catch (ServerException | InsufficientDataException | ErrorResponseException | IOException |
+                 NoSuchAlgorithmException | InvalidKeyException | InvalidResponseException |
+                 XmlParserException | InternalException e) {
+            log.warn("Unable to delete the index artifacts of lists other than {}, message: {}", listId, e.getMessage());
+        }
+    }
+}
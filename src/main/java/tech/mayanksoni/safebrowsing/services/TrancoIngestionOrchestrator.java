@@ -0,0 +1,278 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tech.mayanksoni.safebrowsing.index.ReferenceDomainIndex;
+import tech.mayanksoni.safebrowsing.models.TrancoDailyFileMetadata;
+import tech.mayanksoni.safebrowsing.models.TrancoFileEntity;
+import tech.mayanksoni.safebrowsing.models.TrancoPipelineRun;
+import tech.mayanksoni.safebrowsing.models.TrancoPipelineStage;
+import tech.mayanksoni.safebrowsing.models.TrancoPipelineStageState;
+import tech.mayanksoni.safebrowsing.models.TrancoPipelineStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Runs the Tranco pipeline as a chain of stages: metadata poll, download, ingest, index build, activate and purge. Each
+ * stage starts as soon as the one before it completes, retries on its own (the metadata poll through its own
+ * {@code dateShiftRetry}), and records its status, attempts and duration for the {@code ingestion} actuator endpoint.
+ * A run starts once the application is ready and then on every poll, so a list goes live as soon as Tranco publishes
+ * it; runs that find nothing new end after the metadata poll and the purge. Runs execute one at a time on their own
+ * thread, under the {@value #TRANCO_JOBS_LEASE} lease, so only one replica downloads and ingests a list; the others
+ * pick up its index once it is activated.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@EnableScheduling
+public class TrancoIngestionOrchestrator {
+    static final String TRANCO_JOBS_LEASE = "tranco-jobs";
+    private static final String STAGE_RETRY_CONFIGURATION = "trancoPipelineStage";
+    private static final int RECENT_RUNS_KEPT = 10;
+    /**
+     * The metadata poll already retries with {@code dateShiftRetry}, stepping back a day on each attempt, so the stage
+     * itself runs it once.
+     */
+    private static final Retry METADATA_POLL_RETRY = Retry.of(STAGE_RETRY_CONFIGURATION + "-" + TrancoPipelineStage.METADATA_POLL.name(),
+            RetryConfig.custom().maxAttempts(1).build());
+    private final TrustedDomainDataService trustedDomainDataService;
+    private final TrancoListLoader trancoListLoader;
+    private final JobLeaseService jobLeaseService;
+    private final RetryRegistry retryRegistry;
+    private final ExecutorService pipelineExecutor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("tranco-pipeline").daemon().factory());
+    private final AtomicBoolean runQueued = new AtomicBoolean();
+    private final AtomicReference<RunTracker> currentRun = new AtomicReference<>();
+    private final Deque<TrancoPipelineRun> recentRuns = new ConcurrentLinkedDeque<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void runAfterStartup() {
+        triggerPipeline("startup");
+    }
+
+    @Scheduled(initialDelayString = "${safe-browsing.tranco-poll-interval:PT30M}", fixedDelayString = "${safe-browsing.tranco-poll-interval:PT30M}")
+    public void pollForNewList() {
+        triggerPipeline("poll");
+    }
+
+    /**
+     * Queues a run on the pipeline thread unless one is already waiting there, so triggers that arrive while a run is
+     * in progress collapse into a single follow-up run.
+     */
+    public void triggerPipeline(String trigger) {
+        if (this.runQueued.compareAndSet(false, true)) {
+            this.pipelineExecutor.execute(() -> {
+                this.runQueued.set(false);
+                runPipeline(trigger);
+            });
+        } else {
+            log.debug("A Tranco pipeline run is already queued, ignoring trigger {}", trigger);
+        }
+    }
+
+    /**
+     * Runs the pipeline on the calling thread. Failures are recorded on the stage that failed and logged, not thrown.
+     */
+    public synchronized TrancoPipelineRun runPipeline(String trigger) {
+        RunTracker run = new RunTracker(trigger);
+        this.currentRun.set(run);
+        try {
+            if (!this.jobLeaseService.runExclusively(TRANCO_JOBS_LEASE, () -> executeStages(run))) {
+                run.skipPending("Lease " + TRANCO_JOBS_LEASE + " is held by another node");
+            }
+        } catch (RuntimeException e) {
+            log.error("Tranco pipeline run triggered by {} failed, message: {}", trigger, e.getMessage(), e);
+        } finally {
+            run.finish();
+            this.currentRun.set(null);
+        }
+        TrancoPipelineRun completedRun = run.snapshot();
+        this.recentRuns.addFirst(completedRun);
+        while (this.recentRuns.size() > RECENT_RUNS_KEPT) {
+            this.recentRuns.pollLast();
+        }
+        log.info("Tranco pipeline run triggered by {} finished as {} in {} ms", trigger, completedRun.status(), completedRun.durationInMs());
+        return completedRun;
+    }
+
+    /**
+     * The run in progress, if any, followed by the most recent completed runs.
+     */
+    public List<TrancoPipelineRun> getPipelineRuns() {
+        List<TrancoPipelineRun> pipelineRuns = new ArrayList<>(RECENT_RUNS_KEPT + 1);
+        Optional.ofNullable(this.currentRun.get()).map(RunTracker::snapshot).ifPresent(pipelineRuns::add);
+        pipelineRuns.addAll(this.recentRuns);
+        return pipelineRuns;
+    }
+
+    private void executeStages(RunTracker run) {
+        TrancoDailyFileMetadata latestDailyFileMetadata = runStage(run, TrancoPipelineStage.METADATA_POLL, METADATA_POLL_RETRY, this.trustedDomainDataService::fetchLatestListMetadata);
+        String latestListId = latestDailyFileMetadata.getListId();
+        run.setListId(latestListId);
+        Optional<TrancoListLoader.LoadedTrancoList> downloadedList = Optional.empty();
+        if (this.trustedDomainDataService.isListInObjectStore(latestListId)) {
+            run.skip(TrancoPipelineStage.DOWNLOAD, "listId " + latestListId + " is already in the object store");
+        } else {
+            downloadedList = runStage(run, TrancoPipelineStage.DOWNLOAD, () -> this.trustedDomainDataService.downloadList(latestListId));
+        }
+        Optional<TrancoFileEntity> unprocessedList = downloadedList.isPresent() ? Optional.empty() : this.trustedDomainDataService.findUnprocessedList();
+        if (downloadedList.isPresent()) {
+            run.complete(TrancoPipelineStage.INGEST, "Ingested while downloading");
+        } else if (unprocessedList.isEmpty()) {
+            run.skip(TrancoPipelineStage.INGEST, "No unprocessed list");
+            run.skip(TrancoPipelineStage.INDEX_BUILD, "No unprocessed list");
+            run.skip(TrancoPipelineStage.ACTIVATE, "No unprocessed list");
+        }
+        if (downloadedList.isPresent() || unprocessedList.isPresent()) {
+            TrancoListLoader.LoadedTrancoList loadedTrancoList = downloadedList.isPresent()
+                    ? downloadedList.get()
+                    : runStage(run, TrancoPipelineStage.INGEST, () -> this.trustedDomainDataService.ingestList(unprocessedList.get()));
+            ReferenceDomainIndex referenceDomainIndex = runStage(run, TrancoPipelineStage.INDEX_BUILD, () -> this.trancoListLoader.buildIndex(loadedTrancoList));
+            runStage(run, TrancoPipelineStage.ACTIVATE, () -> {
+                this.trancoListLoader.activate(loadedTrancoList, referenceDomainIndex);
+                return null;
+            });
+            log.info("listId {} is live with {} records", loadedTrancoList.listId(), loadedTrancoList.recordCount());
+        }
+        runStage(run, TrancoPipelineStage.PURGE, () -> {
+            this.trustedDomainDataService.deleteExpiredTrancoListFiles();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the stage with the retry configured as {@value #STAGE_RETRY_CONFIGURATION}, or the default retry when that
+     * is not configured, and rethrows the last failure once its attempts are exhausted, which ends the run.
+     */
+    private <T> T runStage(RunTracker run, TrancoPipelineStage stage, Supplier<T> stageTask) {
+        RetryConfig stageRetryConfig = this.retryRegistry.getConfiguration(STAGE_RETRY_CONFIGURATION).orElseGet(this.retryRegistry::getDefaultConfig);
+        return runStage(run, stage, this.retryRegistry.retry(STAGE_RETRY_CONFIGURATION + "-" + stage.name(), stageRetryConfig), stageTask);
+    }
+
+    private <T> T runStage(RunTracker run, TrancoPipelineStage stage, Retry stageRetry, Supplier<T> stageTask) {
+        run.start(stage);
+        try {
+            T result = Retry.decorateSupplier(stageRetry, () -> {
+                run.attempt(stage);
+                return stageTask.get();
+            }).get();
+            run.complete(stage, null);
+            return result;
+        } catch (RuntimeException e) {
+            run.fail(stage, e);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void stopPipeline() {
+        this.pipelineExecutor.shutdownNow();
+    }
+
+    /**
+     * The state of one run, updated by the pipeline thread and read by the actuator endpoint.
+     */
+    private static final class RunTracker {
+        private final String trigger;
+        private final Instant startedOn = Instant.now();
+        private final Map<TrancoPipelineStage, TrancoPipelineStageState> stageStates = new EnumMap<>(TrancoPipelineStage.class);
+        private String listId;
+        private Instant finishedOn;
+
+        private RunTracker(String trigger) {
+            this.trigger = trigger;
+            for (TrancoPipelineStage stage : TrancoPipelineStage.values()) {
+                this.stageStates.put(stage, new TrancoPipelineStageState(stage, TrancoPipelineStatus.PENDING, 0, null, null, null, null));
+            }
+        }
+
+        private synchronized void setListId(String listId) {
+            this.listId = listId;
+        }
+
+        private synchronized void start(TrancoPipelineStage stage) {
+            this.stageStates.put(stage, new TrancoPipelineStageState(stage, TrancoPipelineStatus.RUNNING, 0, Instant.now(), null, null, null));
+        }
+
+        private synchronized void attempt(TrancoPipelineStage stage) {
+            TrancoPipelineStageState state = this.stageStates.get(stage);
+            this.stageStates.put(stage, new TrancoPipelineStageState(stage, TrancoPipelineStatus.RUNNING, state.attempts() + 1, state.startedOn(), null, null, state.detail()));
+        }
+
+        private synchronized void complete(TrancoPipelineStage stage, String detail) {
+            finishStage(stage, TrancoPipelineStatus.SUCCEEDED, detail);
+        }
+
+        private synchronized void fail(TrancoPipelineStage stage, Exception e) {
+            finishStage(stage, TrancoPipelineStatus.FAILED, e.getMessage());
+        }
+
+        private synchronized void skip(TrancoPipelineStage stage, String reason) {
+            finishStage(stage, TrancoPipelineStatus.SKIPPED, reason);
+        }
+
+        private synchronized void skipPending(String reason) {
+            this.stageStates.values().stream()
+                    .filter(state -> state.status() == TrancoPipelineStatus.PENDING)
+                    .map(TrancoPipelineStageState::stage)
+                    .toList()
+                    .forEach(stage -> skip(stage, reason));
+        }
+
+        private synchronized void finish() {
+            this.finishedOn = Instant.now();
+        }
+
+        private void finishStage(TrancoPipelineStage stage, TrancoPipelineStatus status, String detail) {
+            TrancoPipelineStageState state = this.stageStates.get(stage);
+            Instant now = Instant.now();
+            Instant stageStartedOn = state.startedOn() != null ? state.startedOn() : now;
+            this.stageStates.put(stage, new TrancoPipelineStageState(stage, status, state.attempts(), stageStartedOn, now, Duration.between(stageStartedOn, now).toMillis(), detail));
+        }
+
+        private synchronized TrancoPipelineRun snapshot() {
+            Instant now = Instant.now();
+            List<TrancoPipelineStageState> stages = this.stageStates.values().stream()
+                    .map(state -> state.status() == TrancoPipelineStatus.RUNNING
+                            ? new TrancoPipelineStageState(state.stage(), state.status(), state.attempts(), state.startedOn(), null, Duration.between(state.startedOn(), now).toMillis(), state.detail())
+                            : state)
+                    .toList();
+            return new TrancoPipelineRun(this.trigger, this.listId, status(stages), this.startedOn, this.finishedOn,
+                    Duration.between(this.startedOn, this.finishedOn != null ? this.finishedOn : now).toMillis(), stages);
+        }
+
+        private TrancoPipelineStatus status(List<TrancoPipelineStageState> stages) {
+            if (stages.stream().anyMatch(state -> state.status() == TrancoPipelineStatus.FAILED)) {
+                return TrancoPipelineStatus.FAILED;
+            }
+            if (this.finishedOn == null) {
+                return TrancoPipelineStatus.RUNNING;
+            }
+            if (stages.stream().allMatch(state -> state.status() == TrancoPipelineStatus.SKIPPED)) {
+                return TrancoPipelineStatus.SKIPPED;
+            }
+            return stages.stream().anyMatch(state -> state.status() == TrancoPipelineStatus.PENDING) ? TrancoPipelineStatus.FAILED : TrancoPipelineStatus.SUCCEEDED;
+        }
+    }
+}
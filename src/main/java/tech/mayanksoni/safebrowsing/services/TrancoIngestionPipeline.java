@@ -0,0 +1,327 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.exceptions.ListEntryNotFound;
+import tech.mayanksoni.safebrowsing.exceptions.MalformedCSVRecord;
+import tech.mayanksoni.safebrowsing.models.DomainFeatures;
+import tech.mayanksoni.safebrowsing.models.IngestionCheckpoint;
+import tech.mayanksoni.safebrowsing.models.TrancoCSVFileRecord;
+import tech.mayanksoni.safebrowsing.repository.TrancoListRepository;
+import tech.mayanksoni.safebrowsing.repository.TrancoProvidedDomainRepository;
+import tech.mayanksoni.safebrowsing.utils.DomainUtils;
+import tech.mayanksoni.safebrowsing.utils.TrancoCsvParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Loads a Tranco CSV into the domain repository in three stages: the calling thread parses rows from the raw bytes
+ * into batches, a pool of extraction workers computes the domain features (including the three phonetic encodings), and a
+ * set of writers inserts the batches concurrently as unordered bulk writes. Stages are connected by bounded queues, so
+ * a slow stage throttles the ones before it, and the first failure in any stage stops the others. The list is checked
+ * for existence once per load rather than once per batch.
+ * <p>
+ * Each batch carries the {@link IngestionCheckpoint} of its last row. Writers finish batches out of order, so the
+ * checkpoint saved on the list only advances over the leading run of written batches, and a load can resume from it.
+ * The rank index is created on the empty collection before a load from the start of the file, so a resumed load
+ * removes the domains ranked after its checkpoint along that index.
+ * Malformed rows are quarantined through the {@link TrancoQuarantineService} instead of failing the load.
+ * <p>
+ * Writers check the fencing token of the job's lease before every batch, so a node whose lease has passed to another
+ * stops writing within one batch instead of at the next stage boundary.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class TrancoIngestionPipeline {
+    private static final long QUEUE_POLL_INTERVAL_MILLIS = 100;
+    private static final IngestionBatch<?> END_OF_STAGE = new IngestionBatch<>(-1, List.of(), null);
+    private static final IngestionCheckpoint START_OF_FILE = new IngestionCheckpoint(0, 0, 0, 0);
+    private final TrancoProvidedDomainRepository trancoProvidedDomainRepository;
+    private final TrancoListRepository trancoListRepository;
+    private final TrancoQuarantineService trancoQuarantineService;
+    private final JobLeaseService jobLeaseService;
+    private final SafeBrowsignConfig safeBrowsignConfig;
+
+    public IngestionResult ingest(String listId, InputStream trancoFileInputStream) throws IOException {
+        return ingest(listId, trancoFileInputStream, null);
+    }
+
+    /**
+     * Ingests the list, resuming after {@code resumeFrom} when it is not {@code null}. The stream must then start at
+     * the checkpoint's byte offset, and domains ranked after the checkpoint must already have been removed.
+     */
+    public IngestionResult ingest(String listId, InputStream trancoFileInputStream, IngestionCheckpoint resumeFrom) throws IOException {
+        if (this.trancoListRepository.getFileInformation(listId).isEmpty()) {
+            throw new ListEntryNotFound("The list entry could not be located in DB");
+        }
+        long startTime = System.nanoTime();
+        IngestionCheckpoint startCheckpoint = resumeFrom != null ? resumeFrom : START_OF_FILE;
+        if (resumeFrom == null) {
+            this.trancoProvidedDomainRepository.buildRankIndex(listId);
+        }
+        this.trancoQuarantineService.discardQuarantinedRowsFrom(listId, startCheckpoint.quarantinedRows());
+        List<String> quarantinedRows = new CopyOnWriteArrayList<>(startCheckpoint.quarantinedRows() > 0
+                ? this.trancoQuarantineService.loadQuarantinedRows(listId, startCheckpoint.quarantinedRows())
+                : List.of());
+        CheckpointTracker checkpointTracker = new CheckpointTracker(listId, quarantinedRows);
+        Runnable fencingTokenCheck = this.jobLeaseService.fencingTokenCheck();
+        int extractionWorkers = safeBrowsignConfig.getIngestionExtractionWorkers() > 0 ? safeBrowsignConfig.getIngestionExtractionWorkers() : Runtime.getRuntime().availableProcessors();
+        int writerWorkers = Math.max(1, safeBrowsignConfig.getIngestionWriterWorkers());
+        BlockingQueue<IngestionBatch<TrancoCSVFileRecord>> recordBatches = new ArrayBlockingQueue<>(safeBrowsignConfig.getIngestionQueueCapacity());
+        BlockingQueue<IngestionBatch<DomainFeatures>> featureBatches = new ArrayBlockingQueue<>(safeBrowsignConfig.getIngestionQueueCapacity());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicLong insertedDomains = new AtomicLong();
+        long recordCount;
+        int batchCount;
+        try (ExecutorService extractionPool = Executors.newFixedThreadPool(extractionWorkers, Thread.ofPlatform().name("tranco-extract-", 0).factory());
+             ExecutorService writerPool = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("tranco-write-", 0).factory())) {
+            List<Future<?>> extractionTasks = new ArrayList<>(extractionWorkers);
+            for (int i = 0; i < extractionWorkers; i++) {
+                extractionTasks.add(extractionPool.submit(() -> runStage(failure, () -> extractFeatures(recordBatches, featureBatches, failure))));
+            }
+            List<Future<?>> writerTasks = new ArrayList<>(writerWorkers);
+            for (int i = 0; i < writerWorkers; i++) {
+                writerTasks.add(writerPool.submit(() -> runStage(failure, () -> writeDomains(listId, featureBatches, insertedDomains, checkpointTracker, fencingTokenCheck, failure))));
+            }
+            long[] readCounters = runStage(failure, () -> readRecords(listId, trancoFileInputStream, startCheckpoint, quarantinedRows, recordBatches, failure));
+            recordCount = readCounters == null ? startCheckpoint.lineNumber() : readCounters[0];
+            batchCount = readCounters == null ? 0 : (int) readCounters[1];
+            signalEndOfStage(recordBatches, extractionWorkers, failure);
+            awaitStage(extractionTasks);
+            signalEndOfStage(featureBatches, writerWorkers, failure);
+            awaitStage(writerTasks);
+        }
+        Throwable stageFailure = failure.get();
+        if (stageFailure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        } else if (stageFailure instanceof IOException ioException) {
+            throw ioException;
+        } else if (stageFailure != null) {
+            throw new IllegalStateException("Tranco ingestion failed for listId " + listId, stageFailure);
+        }
+        long readRecords = recordCount - startCheckpoint.lineNumber();
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startTime) / 1_000_000);
+        log.info("Ingested {} of {} records for listId {} from line {} in {} batches with {} extraction workers and {} writers in {} ms ({} records/s), {} rows quarantined",
+                insertedDomains.get(), readRecords, listId, startCheckpoint.lineNumber() + 1, batchCount, extractionWorkers, writerWorkers, elapsedMillis, readRecords * 1000 / elapsedMillis, quarantinedRows.size());
+        return new IngestionResult(recordCount, insertedDomains.get(), batchCount);
+    }
+
+    private long[] readRecords(String listId, InputStream trancoFileInputStream, IngestionCheckpoint startCheckpoint, List<String> quarantinedRows,
+                               BlockingQueue<IngestionBatch<TrancoCSVFileRecord>> recordBatches, AtomicReference<Throwable> failure) throws IOException, InterruptedException {
+        int batchSize = safeBrowsignConfig.getIngestionBatchSize();
+        TrancoCsvParser trancoCsvParser = new TrancoCsvParser(trancoFileInputStream, startCheckpoint.byteOffset(), startCheckpoint.lineNumber());
+        List<TrancoCSVFileRecord> fileRecordsBatch = new ArrayList<>(batchSize);
+        long lastRank = startCheckpoint.domainRank();
+        long batchCount = 0;
+        while (true) {
+            try {
+                if (!trancoCsvParser.next()) {
+                    break;
+                }
+            } catch (MalformedCSVRecord e) {
+                log.warn("Quarantining row of listId {}: {}", listId, e.getMessage());
+                quarantinedRows.add(e.getMessage());
+                continue;
+            }
+            lastRank = trancoCsvParser.getRank();
+            fileRecordsBatch.add(new TrancoCSVFileRecord(lastRank, trancoCsvParser.getDomain()));
+            if (fileRecordsBatch.size() >= batchSize) {
+                if (!offer(recordBatches, new IngestionBatch<>(batchCount++, fileRecordsBatch, checkpointAfter(trancoCsvParser, lastRank, quarantinedRows)), failure)) {
+                    return null;
+                }
+                fileRecordsBatch = new ArrayList<>(batchSize);
+            }
+        }
+        // The last batch may be empty; it still carries the final checkpoint and any trailing quarantined rows.
+        offer(recordBatches, new IngestionBatch<>(batchCount++, fileRecordsBatch, checkpointAfter(trancoCsvParser, lastRank, quarantinedRows)), failure);
+        return new long[]{trancoCsvParser.getLineNumber(), batchCount};
+    }
+
+    private static IngestionCheckpoint checkpointAfter(TrancoCsvParser trancoCsvParser, long lastRank, List<String> quarantinedRows) {
+        return new IngestionCheckpoint(trancoCsvParser.getLineNumber(), trancoCsvParser.getNextRowByteOffset(), lastRank, quarantinedRows.size());
+    }
+
+    private Void extractFeatures(BlockingQueue<IngestionBatch<TrancoCSVFileRecord>> recordBatches, BlockingQueue<IngestionBatch<DomainFeatures>> featureBatches, AtomicReference<Throwable> failure) throws InterruptedException {
+        IngestionBatch<TrancoCSVFileRecord> recordBatch;
+        while ((recordBatch = poll(recordBatches, failure)) != null) {
+            List<DomainFeatures> featureBatch = recordBatch.items().stream().map(DomainUtils::extractDomainFeatures).filter(Objects::nonNull).toList();
+            if (!offer(featureBatches, new IngestionBatch<>(recordBatch.sequence(), featureBatch, recordBatch.checkpoint()), failure)) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private Void writeDomains(String listId, BlockingQueue<IngestionBatch<DomainFeatures>> featureBatches, AtomicLong insertedDomains, CheckpointTracker checkpointTracker,
+                              Runnable fencingTokenCheck, AtomicReference<Throwable> failure) throws InterruptedException {
+        IngestionBatch<DomainFeatures> featureBatch;
+        while ((featureBatch = poll(featureBatches, failure)) != null) {
+            fencingTokenCheck.run();
+            if (!featureBatch.items().isEmpty()) {
+                this.trancoProvidedDomainRepository.bulkInsertDomains(listId, featureBatch.items());
+                log.debug("Inserted batch of {} domains into DB, total inserted: {}", featureBatch.items().size(), insertedDomains.addAndGet(featureBatch.items().size()));
+            }
+            checkpointTracker.batchWritten(featureBatch.sequence(), featureBatch.checkpoint());
+        }
+        return null;
+    }
+
+    /**
+     * Takes the next batch, returning {@code null} at the end of the stage or once another stage has failed.
+     */
+    private static <T> IngestionBatch<T> poll(BlockingQueue<IngestionBatch<T>> queue, AtomicReference<Throwable> failure) throws InterruptedException {
+        while (failure.get() == null) {
+            IngestionBatch<T> batch = queue.poll(QUEUE_POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            if (batch == END_OF_STAGE) {
+                return null;
+            } else if (batch != null) {
+                return batch;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hands a batch to the next stage, returning {@code false} if another stage failed while waiting for space.
+     */
+    private static <T> boolean offer(BlockingQueue<IngestionBatch<T>> queue, IngestionBatch<T> batch, AtomicReference<Throwable> failure) throws InterruptedException {
+        while (failure.get() == null) {
+            if (queue.offer(batch, QUEUE_POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void signalEndOfStage(BlockingQueue<IngestionBatch<T>> queue, int consumers, AtomicReference<Throwable> failure) {
+        try {
+            for (int i = 0; i < consumers; i++) {
+                if (!offer(queue, (IngestionBatch<T>) END_OF_STAGE, failure)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private static void awaitStage(List<Future<?>> stageTasks) {
+        for (Future<?> stageTask : stageTasks) {
+            try {
+                stageTask.get();
+            } catch (Exception e) {
+                // Stage failures are recorded by runStage; this only waits for the workers to finish.
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private static <T> T runStage(AtomicReference<Throwable> failure, StageTask<T> stageTask) {
+        try {
+            return stageTask.run();
+        } catch (Throwable e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            failure.compareAndSet(null, e);
+            return null;
+        }
+    }
+
+    /**
+     * Saves the checkpoint of the last batch in the leading run of written batches. Quarantined rows up to that
+     * checkpoint are stored first, as a part holding only the rows since the previous checkpoint, so a saved checkpoint
+     * never refers to rows missing from the quarantine. Writers only hold the bookkeeping lock; one of them at a time
+     * stores the latest committed checkpoint outside it, and writers arriving meanwhile leave their checkpoint to it
+     * instead of waiting on the upload.
+     */
+    private final class CheckpointTracker {
+        private final String listId;
+        private final List<String> quarantinedRows;
+        private final Map<Long, IngestionCheckpoint> writtenBatches = new HashMap<>();
+        private final ReentrantLock storeLock = new ReentrantLock();
+        private long nextSequence;
+        private IngestionCheckpoint pendingCheckpoint;
+        private int storedQuarantinedRows;
+
+        private CheckpointTracker(String listId, List<String> quarantinedRows) {
+            this.listId = listId;
+            this.quarantinedRows = quarantinedRows;
+            this.storedQuarantinedRows = quarantinedRows.size();
+        }
+
+        private void batchWritten(long sequence, IngestionCheckpoint checkpoint) {
+            synchronized (this) {
+                writtenBatches.put(sequence, checkpoint);
+                IngestionCheckpoint nextCheckpoint;
+                while ((nextCheckpoint = writtenBatches.remove(nextSequence)) != null) {
+                    pendingCheckpoint = nextCheckpoint;
+                    nextSequence++;
+                }
+            }
+            // Rechecked after the lock is released, so a checkpoint left by a writer that found it held is not lost.
+            while (hasPendingCheckpoint() && storeLock.tryLock()) {
+                try {
+                    IngestionCheckpoint committedCheckpoint;
+                    while ((committedCheckpoint = takePendingCheckpoint()) != null) {
+                        store(committedCheckpoint);
+                    }
+                } finally {
+                    storeLock.unlock();
+                }
+            }
+        }
+
+        private synchronized boolean hasPendingCheckpoint() {
+            return pendingCheckpoint != null;
+        }
+
+        private synchronized IngestionCheckpoint takePendingCheckpoint() {
+            IngestionCheckpoint committedCheckpoint = pendingCheckpoint;
+            pendingCheckpoint = null;
+            return committedCheckpoint;
+        }
+
+        private void store(IngestionCheckpoint committedCheckpoint) {
+            if (committedCheckpoint.quarantinedRows() > storedQuarantinedRows) {
+                trancoQuarantineService.appendQuarantinedRows(listId, storedQuarantinedRows, List.copyOf(quarantinedRows.subList(storedQuarantinedRows, committedCheckpoint.quarantinedRows())));
+                storedQuarantinedRows = committedCheckpoint.quarantinedRows();
+            }
+            trancoListRepository.saveIngestionCheckpoint(listId, committedCheckpoint);
+        }
+    }
+
+    private record IngestionBatch<T>(long sequence, List<T> items, IngestionCheckpoint checkpoint) {
+    }
+
+    @FunctionalInterface
+    private interface StageTask<T> {
+        T run() throws Exception;
+    }
+
+    public record IngestionResult(long recordCount, long insertedDomains, int batchCount) {
+    }
+}
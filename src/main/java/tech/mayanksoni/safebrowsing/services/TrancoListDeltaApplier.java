@@ -0,0 +1,230 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.exceptions.JobLeaseLost;
+import tech.mayanksoni.safebrowsing.exceptions.MalformedCSVRecord;
+import tech.mayanksoni.safebrowsing.index.ReferenceDomainIndex;
+import tech.mayanksoni.safebrowsing.models.DomainFeatures;
+import tech.mayanksoni.safebrowsing.models.TrancoCSVFileRecord;
+import tech.mayanksoni.safebrowsing.models.TrancoProvidedDomainEntity;
+import tech.mayanksoni.safebrowsing.repository.TrancoProvidedDomainRepository;
+import tech.mayanksoni.safebrowsing.utils.DomainUtils;
+import tech.mayanksoni.safebrowsing.utils.TrancoCsvParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Applies a new Tranco list as a diff against the domain set of the active list instead of reloading it. The new list
+ * is sorted by (registrySuffix, domain) in memory, the active set is streamed in the same order along its key index,
+ * and one merge pass writes only its output into the new list's own collection: retained domains, with their new rank
+ * and without re-encoding them, as the merge passes them, then the inserted ones. Deleted domains are skipped, and
+ * the collection is indexed once, after the merge, instead of being copied, indexed and then edited. The active set is
+ * never written to: the new list only replaces it when it is activated, and a delta that fails drops the new
+ * collection. The fencing token of the job's lease is checked before every batch written; a delta stopped by a lost
+ * lease leaves the collection to the node that took over. The reference domain index for the new list is built from
+ * the merged entries rather than read back from the store.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class TrancoListDeltaApplier {
+    private static final Comparator<DomainFeatures> INCOMING_DOMAIN_ORDER = Comparator.comparing(DomainFeatures::getRegistrySuffix)
+            .thenComparing(DomainFeatures::getPrivateDomain)
+            .thenComparingLong(DomainFeatures::getDomainRankFromTranco);
+    private final TrancoProvidedDomainRepository trancoProvidedDomainRepository;
+    private final TrancoQuarantineService trancoQuarantineService;
+    private final JobLeaseService jobLeaseService;
+    private final SafeBrowsignConfig safeBrowsignConfig;
+
+    /**
+     * Builds the domain set of {@code listId} from the active domain set {@code sourceDomainSetId} and the list read
+     * from {@code trancoFileInputStream}.
+     */
+    public DeltaResult apply(String listId, String sourceDomainSetId, InputStream trancoFileInputStream) throws IOException {
+        try {
+            return applyMerge(listId, sourceDomainSetId, trancoFileInputStream);
+        } catch (JobLeaseLost e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Discarding the domain set of listId {} after a failed delta on domain set {}: {}", listId, sourceDomainSetId, e.getMessage());
+            this.trancoProvidedDomainRepository.purgeDomainsByListId(listId);
+            throw e;
+        }
+    }
+
+    private DeltaResult applyMerge(String listId, String sourceDomainSetId, InputStream trancoFileInputStream) throws IOException {
+        long startTime = System.nanoTime();
+        IncomingDomains incoming = readIncomingDomains(listId, trancoFileInputStream);
+        List<DomainFeatures> incomingDomains = incoming.domains();
+        this.jobLeaseService.checkFencingToken();
+        this.trancoProvidedDomainRepository.purgeDomainsByListId(listId);
+
+        int batchSize = Math.max(1, safeBrowsignConfig.getIngestionBatchSize());
+        List<DomainFeatures> insertedDomains = new ArrayList<>();
+        List<TrancoProvidedDomainEntity> retainedBatch = new ArrayList<>(batchSize);
+        List<TrancoProvidedDomainEntity> indexEntries = new ArrayList<>(incomingDomains.size());
+        int deletedDomains = 0;
+        int rerankedDomains = 0;
+        try (Stream<TrancoProvidedDomainEntity> currentDomainStream = this.trancoProvidedDomainRepository.streamDomainsInKeyOrder(sourceDomainSetId)) {
+            Iterator<TrancoProvidedDomainEntity> currentDomains = currentDomainStream.iterator();
+            TrancoProvidedDomainEntity current = nextUniqueKey(currentDomains, null);
+            int incomingIndex = 0;
+            while (incomingIndex < incomingDomains.size() || current != null) {
+                DomainFeatures incomingDomain = incomingIndex < incomingDomains.size() ? incomingDomains.get(incomingIndex) : null;
+                int comparison = incomingDomain == null ? 1 : current == null ? -1 : compareKeys(incomingDomain, current);
+                if (comparison < 0) {
+                    insertedDomains.add(incomingDomain);
+                    incomingIndex++;
+                } else if (comparison > 0) {
+                    deletedDomains++;
+                    current = nextUniqueKey(currentDomains, current);
+                } else {
+                    if (current.domainRank() != incomingDomain.getDomainRankFromTranco()) {
+                        rerankedDomains++;
+                    }
+                    TrancoProvidedDomainEntity retained = retain(listId, current, incomingDomain.getDomainRankFromTranco());
+                    indexEntries.add(retained);
+                    retainedBatch.add(retained);
+                    if (retainedBatch.size() >= batchSize) {
+                        writeRetainedDomains(listId, retainedBatch);
+                    }
+                    incomingIndex++;
+                    current = nextUniqueKey(currentDomains, current);
+                }
+            }
+        }
+        writeRetainedDomains(listId, retainedBatch);
+
+        insertedDomains.parallelStream().forEach(domainFeatures -> domainFeatures.setPhoneticModel(DomainUtils.encodePhoneticModel(domainFeatures.getPrivateDomain())));
+        writeInsertedDomains(listId, insertedDomains, batchSize);
+        insertedDomains.forEach(domainFeatures -> indexEntries.add(toEntity(listId, domainFeatures)));
+        ReferenceDomainIndex referenceDomainIndex = ReferenceDomainIndex.build(listId, this.safeBrowsignConfig, indexEntries.stream());
+        log.info("Applied listId {} as a delta on domain set {}: {} retained, {} inserted, {} deleted, {} re-ranked in {} ms",
+                listId, sourceDomainSetId, indexEntries.size() - insertedDomains.size(), insertedDomains.size(), deletedDomains, rerankedDomains, (System.nanoTime() - startTime) / 1_000_000);
+        return new DeltaResult(incoming.recordCount(), insertedDomains.size(), deletedDomains, rerankedDomains, referenceDomainIndex);
+    }
+
+    /**
+     * Streams the rows of the list, quarantining malformed rows before anything is written, and extracts the domain
+     * identities one batch of rows at a time, so only the extracted domains are held, sorted and unique by key.
+     */
+    private IncomingDomains readIncomingDomains(String listId, InputStream trancoFileInputStream) throws IOException {
+        TrancoCsvParser trancoCsvParser = new TrancoCsvParser(trancoFileInputStream);
+        int batchSize = Math.max(1, safeBrowsignConfig.getIngestionBatchSize());
+        List<TrancoCSVFileRecord> csvRecordsBatch = new ArrayList<>(batchSize);
+        List<DomainFeatures> incomingDomains = new ArrayList<>();
+        List<String> quarantinedRows = new ArrayList<>();
+        long recordCount = 0;
+        while (true) {
+            try {
+                if (!trancoCsvParser.next()) {
+                    break;
+                }
+            } catch (MalformedCSVRecord e) {
+                log.warn("Quarantining row of listId {}: {}", listId, e.getMessage());
+                quarantinedRows.add(e.getMessage());
+                continue;
+            }
+            csvRecordsBatch.add(new TrancoCSVFileRecord(trancoCsvParser.getRank(), trancoCsvParser.getDomain()));
+            recordCount++;
+            if (csvRecordsBatch.size() >= batchSize) {
+                incomingDomains.addAll(extractDomainIdentities(csvRecordsBatch));
+                csvRecordsBatch.clear();
+            }
+        }
+        incomingDomains.addAll(extractDomainIdentities(csvRecordsBatch));
+        if (!quarantinedRows.isEmpty()) {
+            this.trancoQuarantineService.saveQuarantinedRows(listId, quarantinedRows);
+        }
+        DomainFeatures[] sortedDomains = incomingDomains.toArray(DomainFeatures[]::new);
+        Arrays.parallelSort(sortedDomains, INCOMING_DOMAIN_ORDER);
+        return new IncomingDomains(recordCount, uniqueByKey(Arrays.asList(sortedDomains)));
+    }
+
+    private static List<DomainFeatures> extractDomainIdentities(List<TrancoCSVFileRecord> csvRecords) {
+        return csvRecords.parallelStream()
+                .map(DomainUtils::extractDomainIdentity)
+                .filter(Objects::nonNull)
+                .filter(domainFeatures -> domainFeatures.getPrivateDomain() != null)
+                .toList();
+    }
+
+    private void writeRetainedDomains(String listId, List<TrancoProvidedDomainEntity> retainedBatch) {
+        if (retainedBatch.isEmpty()) {
+            return;
+        }
+        this.jobLeaseService.checkFencingToken();
+        this.trancoProvidedDomainRepository.bulkInsertDomainEntities(listId, retainedBatch);
+        retainedBatch.clear();
+    }
+
+    private void writeInsertedDomains(String listId, List<DomainFeatures> insertedDomains, int batchSize) {
+        for (int from = 0; from < insertedDomains.size(); from += batchSize) {
+            this.jobLeaseService.checkFencingToken();
+            this.trancoProvidedDomainRepository.bulkInsertDomains(listId, insertedDomains.subList(from, Math.min(insertedDomains.size(), from + batchSize)));
+        }
+    }
+
+    /**
+     * Keeps the first, best ranked, entry of each (registrySuffix, domain) key of a sorted list.
+     */
+    private static List<DomainFeatures> uniqueByKey(List<DomainFeatures> sortedDomains) {
+        List<DomainFeatures> uniqueDomains = new ArrayList<>(sortedDomains.size());
+        DomainFeatures previous = null;
+        for (DomainFeatures domainFeatures : sortedDomains) {
+            if (previous == null || !previous.getRegistrySuffix().equals(domainFeatures.getRegistrySuffix()) || !previous.getPrivateDomain().equals(domainFeatures.getPrivateDomain())) {
+                uniqueDomains.add(domainFeatures);
+                previous = domainFeatures;
+            }
+        }
+        return uniqueDomains;
+    }
+
+    /**
+     * Advances past the remaining documents sharing the key of {@code previous}, so the new domain set holds each key
+     * once.
+     */
+    private static TrancoProvidedDomainEntity nextUniqueKey(Iterator<TrancoProvidedDomainEntity> currentDomains, TrancoProvidedDomainEntity previous) {
+        while (currentDomains.hasNext()) {
+            TrancoProvidedDomainEntity current = currentDomains.next();
+            if (previous == null || !previous.registrySuffix().equals(current.registrySuffix()) || !previous.domain().equals(current.domain())) {
+                return current;
+            }
+        }
+        return null;
+    }
+
+    private static int compareKeys(DomainFeatures incoming, TrancoProvidedDomainEntity current) {
+        int registrySuffixComparison = incoming.getRegistrySuffix().compareTo(current.registrySuffix());
+        return registrySuffixComparison != 0 ? registrySuffixComparison : incoming.getPrivateDomain().compareTo(current.domain());
+    }
+
+    private static TrancoProvidedDomainEntity retain(String listId, TrancoProvidedDomainEntity domain, long domainRank) {
+        return new TrancoProvidedDomainEntity(null, domainRank, domain.domain(), listId, domain.registrySuffix(),
+                domain.domainFirstCharacter(), domain.domainLength(), domain.ownerDomainSoundexCode(), domain.ownerDomainMetaphoneCode(), domain.ownerDomainDoubleMetaphoneCode());
+    }
+
+    private static TrancoProvidedDomainEntity toEntity(String listId, DomainFeatures domainFeatures) {
+        String privateDomain = domainFeatures.getPrivateDomain();
+        return new TrancoProvidedDomainEntity(null, domainFeatures.getDomainRankFromTranco(), privateDomain, listId, domainFeatures.getRegistrySuffix(),
+                privateDomain.charAt(0), privateDomain.length(), domainFeatures.getPhoneticModel().soundexCode(),
+                domainFeatures.getPhoneticModel().metaphoneCode(), domainFeatures.getPhoneticModel().doubleMetaphoneCode());
+    }
+
+    private record IncomingDomains(long recordCount, List<DomainFeatures> domains) {
+    }
+
+    public record DeltaResult(long recordCount, int insertedDomains, int deletedDomains, int rerankedDomains, ReferenceDomainIndex referenceDomainIndex) {
+    }
+}
@@ -0,0 +1,105 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.exceptions.ListEntryNotFound;
+import tech.mayanksoni.safebrowsing.index.ReferenceDomainIndex;
+import tech.mayanksoni.safebrowsing.models.IngestionCheckpoint;
+import tech.mayanksoni.safebrowsing.models.TrancoFileEntity;
+import tech.mayanksoni.safebrowsing.models.TrancoIngestionMode;
+import tech.mayanksoni.safebrowsing.repository.TrancoListRepository;
+import tech.mayanksoni.safebrowsing.repository.TrancoProvidedDomainRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Loads a downloaded Tranco list into the domain store, builds its index and makes it the active list. Every list gets
+ * a domain set in a collection of its own. In {@link TrancoIngestionMode#DELTA} mode a list that follows an active one
+ * is built by merging it with the active list's domain set, so the active set is never modified; the first list, and
+ * every list in {@link TrancoIngestionMode#FULL} mode, is bulk loaded. Either way the collection is indexed once it is
+ * written. Only full ingestion is checkpointed; a delta is recomputed from scratch when it is retried.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class TrancoListLoader {
+    private final TrancoIngestionPipeline trancoIngestionPipeline;
+    private final TrancoListDeltaApplier trancoListDeltaApplier;
+    private final TrancoListRepository trancoListRepository;
+    private final TrancoProvidedDomainRepository trancoProvidedDomainRepository;
+    private final ReferenceDomainIndexService referenceDomainIndexService;
+    private final ReferenceIndexArtifactService referenceIndexArtifactService;
+    private final JobLeaseService jobLeaseService;
+    private final SafeBrowsignConfig safeBrowsignConfig;
+
+    public LoadedTrancoList load(String listId, InputStream trancoFileInputStream) throws IOException {
+        return load(listId, trancoFileInputStream, null);
+    }
+
+    /**
+     * Loads the list, resuming an interrupted full ingestion from {@code resumeFrom} when it is not {@code null}.
+     */
+    public LoadedTrancoList load(String listId, InputStream trancoFileInputStream, IngestionCheckpoint resumeFrom) throws IOException {
+        Optional<TrancoFileEntity> activeList = safeBrowsignConfig.getIngestionMode() == TrancoIngestionMode.DELTA && resumeFrom == null
+                ? this.trancoListRepository.getActiveTrancoList().filter(trancoFileEntity -> !trancoFileEntity.listId().equals(listId))
+                : Optional.empty();
+        if (activeList.isPresent()) {
+            if (this.trancoListRepository.getFileInformation(listId).isEmpty()) {
+                throw new ListEntryNotFound("The list entry could not be located in DB");
+            }
+            String activeDomainSetId = activeList.get().domainSetId() != null ? activeList.get().domainSetId() : activeList.get().listId();
+            TrancoListDeltaApplier.DeltaResult deltaResult = this.trancoListDeltaApplier.apply(listId, activeDomainSetId, trancoFileInputStream);
+            return new LoadedTrancoList(listId, listId, activeList.get().listId(), deltaResult.recordCount(), deltaResult.referenceDomainIndex());
+        }
+        TrancoIngestionPipeline.IngestionResult ingestionResult = this.trancoIngestionPipeline.ingest(listId, trancoFileInputStream, resumeFrom);
+        log.debug("Completed inserting {} batches into DB, total Records processed: {}", ingestionResult.batchCount(), ingestionResult.recordCount());
+        long indexStartTime = System.nanoTime();
+        this.trancoProvidedDomainRepository.buildDomainIndexes(listId);
+        log.info("Built domain indexes for listId {} in {} ms", listId, (System.nanoTime() - indexStartTime) / 1_000_000);
+        return new LoadedTrancoList(listId, listId, null, ingestionResult.recordCount(), null);
+    }
+
+    /**
+     * Builds the index of the loaded list, or takes the one built while applying a delta, and publishes it as an
+     * artifact. The artifact is published before the list is flagged active, so replicas that see the new active list
+     * find its artifact instead of rebuilding the index from the store.
+     */
+    public ReferenceDomainIndex buildIndex(LoadedTrancoList loadedTrancoList) {
+        ReferenceDomainIndex referenceDomainIndex = loadedTrancoList.replacedListId() != null
+                ? loadedTrancoList.referenceDomainIndex()
+                : this.referenceDomainIndexService.buildIndex(loadedTrancoList.listId(), loadedTrancoList.domainSetId());
+        this.referenceIndexArtifactService.publish(referenceDomainIndex);
+        return referenceDomainIndex;
+    }
+
+    /**
+     * Marks the list processed and active and serves its index. The domain set of the list it replaced is left to the
+     * purge stage, like that of any inactive list. Activation is refused once the lease of the job loading the list has
+     * been lost, so a superseded node cannot replace the list activated by its successor. The domain set's indexes are
+     * built first, and the list is flagged processed and active in one update, so a failure before it leaves the list
+     * unprocessed, to be retried, instead of processed but inactive, which the purge stage would drop. The list is
+     * flagged active before its index is served, so an index refresh running in between already sees the new list
+     * instead of reinstalling the index of the previous one. Index artifacts of other lists are deleted once the list
+     * is live.
+     */
+    public void activate(LoadedTrancoList loadedTrancoList, ReferenceDomainIndex referenceDomainIndex) {
+        this.jobLeaseService.checkFencingToken();
+        String listId = loadedTrancoList.listId();
+        this.trancoProvidedDomainRepository.buildDomainIndexes(loadedTrancoList.domainSetId());
+        this.jobLeaseService.checkFencingToken();
+        TrancoFileEntity activatedList = this.trancoListRepository.activateTrancoList(listId, loadedTrancoList.recordCount());
+        this.referenceDomainIndexService.activateIndex(referenceDomainIndex, activatedList);
+        this.referenceIndexArtifactService.deleteArtifactsExcept(listId);
+    }
+
+    /**
+     * @param replacedListId the previously active list when the list was applied as a delta, otherwise {@code null}
+     * @param referenceDomainIndex the index built while applying a delta, otherwise {@code null}
+     */
+    public record LoadedTrancoList(String listId, String domainSetId, String replacedListId, long recordCount, ReferenceDomainIndex referenceDomainIndex) {
+    }
+}
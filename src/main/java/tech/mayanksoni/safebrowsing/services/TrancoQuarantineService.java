@@ -0,0 +1,103 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import io.minio.errors.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the malformed rows of a Tranco list, one description per line, in quarantine parts next to the list in the
+ * object store, so a bad row is reported instead of abandoning the load. Each part holds the rows quarantined since the
+ * previous one and is named after the index of its first row, so a checkpoint only uploads its new rows and the parts
+ * read back in order.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TrancoQuarantineService {
+    private static final String LEGACY_QUARANTINE_FILE_NAME_FORMAT = "tranco-quarantine-%s.txt";
+    private static final String QUARANTINE_PART_PREFIX_FORMAT = "tranco-quarantine-%s/";
+    private static final String QUARANTINE_PART_FILE_NAME_FORMAT = QUARANTINE_PART_PREFIX_FORMAT + "rows-%010d.txt";
+    private static final String QUARANTINE_FILE_CONTENT_TYPE = "text/plain";
+    private final MinioService minioService;
+
+    /**
+     * Replaces the quarantined rows of the list with the given rows.
+     */
+    public void saveQuarantinedRows(String listId, List<String> quarantinedRows) {
+        discardQuarantinedRowsFrom(listId, 0);
+        appendQuarantinedRows(listId, 0, quarantinedRows);
+    }
+
+    /**
+     * Stores {@code quarantinedRows} as the part starting at row {@code firstRow}.
+     */
+    public void appendQuarantinedRows(String listId, int firstRow, List<String> quarantinedRows) {
+        if (quarantinedRows.isEmpty()) {
+            return;
+        }
+        String fileName = String.format(QUARANTINE_PART_FILE_NAME_FORMAT, listId, firstRow);
+        byte[] content = String.join("\n", quarantinedRows).concat("\n").getBytes(StandardCharsets.UTF_8);
+        try {
+            this.minioService.uploadStream(fileName, new ByteArrayInputStream(content), QUARANTINE_FILE_CONTENT_TYPE);
+            log.debug("Stored {} quarantined rows of listId {} from row {} in {}", quarantinedRows.size(), listId, firstRow, fileName);
+        } catch (ServerException | InsufficientDataException | ErrorResponseException | IOException |
+                 NoSuchAlgorithmException | InvalidKeyException | InvalidResponseException |
+                 XmlParserException | InternalException e) {
+            throw new IllegalStateException("Unable to store quarantined rows of listId " + listId, e);
+        }
+    }
+
+    /**
+     * Deletes the parts starting at or after row {@code firstRow}, left by a load that got further than the
+     * checkpoint it is resumed from, or by an earlier load when the list is ingested from scratch.
+     */
+    public void discardQuarantinedRowsFrom(String listId, int firstRow) {
+        try {
+            for (String partFileName : this.minioService.listFileNames(String.format(QUARANTINE_PART_PREFIX_FORMAT, listId))) {
+                if (partFileName.compareTo(String.format(QUARANTINE_PART_FILE_NAME_FORMAT, listId, firstRow)) >= 0) {
+                    this.minioService.deleteFile(partFileName);
+                }
+            }
+        } catch (ServerException | InsufficientDataException | ErrorResponseException | IOException |
+                 NoSuchAlgorithmException | InvalidKeyException | InvalidResponseException |
+                 XmlParserException | InternalException e) {
+            throw new IllegalStateException("Unable to discard quarantined rows of listId " + listId, e);
+        }
+    }
+
+    /**
+     * Returns the first {@code rowCount} quarantined rows of the list, or fewer if fewer were stored. Lists whose rows
+     * were stored before quarantine parts existed are read from their single quarantine file.
+     */
+    public List<String> loadQuarantinedRows(String listId, int rowCount) {
+        try {
+            List<String> partFileNames = this.minioService.listFileNames(String.format(QUARANTINE_PART_PREFIX_FORMAT, listId)).stream().sorted().toList();
+            List<String> quarantinedRows = new ArrayList<>();
+            for (String fileName : partFileNames.isEmpty() ? List.of(String.format(LEGACY_QUARANTINE_FILE_NAME_FORMAT, listId)) : partFileNames) {
+                if (quarantinedRows.size() >= rowCount) {
+                    break;
+                }
+                try (BufferedReader quarantineReader = this.minioService.downloadFile(fileName)) {
+                    quarantineReader.lines().limit(rowCount - quarantinedRows.size()).forEach(quarantinedRows::add);
+                }
+            }
+            return quarantinedRows;
+        } catch (ErrorResponseException e) {
+            log.warn("Quarantined rows of listId {} could not be read, message: {}", listId, e.getMessage());
+            return List.of();
+        } catch (ServerException | InsufficientDataException | IOException | NoSuchAlgorithmException |
+                 InvalidKeyException | InvalidResponseException | XmlParserException | InternalException e) {
+            throw new IllegalStateException("Unable to read quarantined rows of listId " + listId, e);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import tech.mayanksoni.safebrowsing.clients.TrancoStreamingClient;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.repository.TrancoListRepository;
+import tech.mayanksoni.safebrowsing.repository.TrancoProvidedDomainRepository;
+import tech.mayanksoni.safebrowsing.utils.BoundedChunkPipe;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Downloads a Tranco list once and tees the HTTP body, chunk by chunk, into an unknown-length multipart upload to the
+ * object store and into the ingestion pipeline. Bounded pipes keep memory constant and let the slower consumer pace
+ * the download. If ingestion fails the upload still completes, leaving the list unprocessed for the object store
+ * ingestion stage; if the upload fails nothing of the list is kept.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TrancoStreamingIngestionService {
+    private static final String TRANCO_FILE_NAME_FORMAT = "tranco-full-%s.csv";
+    private static final String TRANCO_FILE_CONTENT_TYPE = "text/csv";
+    private static final int TEE_CHUNK_SIZE = 64 * 1024;
+    private final TrancoStreamingClient trancoStreamingClient;
+    private final MinioService minioService;
+    private final TrancoListLoader trancoListLoader;
+    private final TrancoListRepository trancoListRepository;
+    private final TrancoProvidedDomainRepository trancoProvidedDomainRepository;
+    private final SafeBrowsignConfig safeBrowsignConfig;
+
+    /**
+     * @return the loaded list, ready to be indexed and activated, or empty when ingestion failed and only the upload
+     * completed
+     */
+    public Optional<TrancoListLoader.LoadedTrancoList> downloadAndLoad(String listId) {
+        String fileName = String.format(TRANCO_FILE_NAME_FORMAT, listId);
+        long startTime = System.nanoTime();
+        this.trancoListRepository.createTrancoFile(listId, listId, Instant.now(), 0);
+        this.trancoProvidedDomainRepository.purgeDomainsByListId(listId);
+        this.trancoListRepository.clearIngestionCheckpoint(listId);
+        BoundedChunkPipe uploadPipe = new BoundedChunkPipe(safeBrowsignConfig.getStreamingDownloadChunksInFlight());
+        BoundedChunkPipe ingestionPipe = new BoundedChunkPipe(safeBrowsignConfig.getStreamingDownloadChunksInFlight());
+        long sizeInBytes = 0;
+        RuntimeException downloadFailure = null;
+        Future<?> upload;
+        Future<TrancoListLoader.LoadedTrancoList> ingestion;
+        try (ExecutorService consumers = Executors.newVirtualThreadPerTaskExecutor()) {
+            upload = consumers.submit(() -> {
+                try {
+                    minioService.uploadStream(fileName, uploadPipe.getInputStream(), TRANCO_FILE_CONTENT_TYPE);
+                    return null;
+                } catch (Exception e) {
+                    uploadPipe.fail(e);
+                    throw e;
+                }
+            });
+            ingestion = consumers.submit(() -> {
+                try {
+                    return trancoListLoader.load(listId, ingestionPipe.getInputStream());
+                } catch (Exception e) {
+                    ingestionPipe.fail(e);
+                    throw e;
+                }
+            });
+            try {
+                sizeInBytes = this.trancoStreamingClient.streamTrancoTop1MList(listId, body -> tee(body, uploadPipe, ingestionPipe));
+            } catch (RuntimeException e) {
+                uploadPipe.fail(e);
+                ingestionPipe.fail(e);
+                downloadFailure = e;
+            }
+        }
+        if (downloadFailure != null) {
+            discardList(listId);
+            throw downloadFailure;
+        }
+        awaitUpload(listId, upload);
+        this.trancoListRepository.updateTrancoFileSize(listId, sizeInBytes);
+        log.info("Streamed {} bytes of listId {} to object store file {} in {} ms", sizeInBytes, listId, fileName, (System.nanoTime() - startTime) / 1_000_000);
+        try {
+            TrancoListLoader.LoadedTrancoList loadedTrancoList = ingestion.get();
+            log.info("listId {} is loaded with {} records {} ms after the download started", listId, loadedTrancoList.recordCount(), (System.nanoTime() - startTime) / 1_000_000);
+            return Optional.of(loadedTrancoList);
+        } catch (ExecutionException e) {
+            log.error("Streaming ingestion of listId {} failed, leaving it for the object store ingestion, message: {}", listId, e.getCause().getMessage(), e.getCause());
+            this.trancoProvidedDomainRepository.purgeDomainsByListId(listId);
+            this.trancoListRepository.clearIngestionCheckpoint(listId);
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while ingesting listId " + listId, e);
+        }
+    }
+
+    /**
+     * Copies the body into both pipes. A failed ingestion consumer is dropped so the upload can finish; any other
+     * failure is rethrown.
+     */
+    private long tee(InputStream body, BoundedChunkPipe uploadPipe, BoundedChunkPipe ingestionPipe) throws IOException {
+        byte[] chunk = new byte[TEE_CHUNK_SIZE];
+        boolean ingesting = true;
+        long sizeInBytes = 0;
+        int read;
+        while ((read = body.read(chunk)) != -1) {
+            uploadPipe.write(chunk, 0, read);
+            if (ingesting) {
+                try {
+                    ingestionPipe.write(chunk, 0, read);
+                } catch (IOException e) {
+                    log.warn("Ingestion stopped consuming the Tranco download, continuing upload only, message: {}", e.getMessage());
+                    ingesting = false;
+                }
+            }
+            sizeInBytes += read;
+        }
+        uploadPipe.close();
+        if (ingesting) {
+            try {
+                ingestionPipe.close();
+            } catch (IOException e) {
+                log.warn("Ingestion stopped consuming the Tranco download before its end, message: {}", e.getMessage());
+            }
+        }
+        return sizeInBytes;
+    }
+
+    private void awaitUpload(String listId, Future<?> upload) {
+        try {
+            upload.get();
+        } catch (ExecutionException e) {
+            discardList(listId);
+            throw new IllegalStateException("Unable to upload listId " + listId + " to object store", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            discardList(listId);
+            throw new IllegalStateException("Interrupted while uploading listId " + listId, e);
+        }
+    }
+
+    private void discardList(String listId) {
+        this.trancoProvidedDomainRepository.purgeDomainsByListId(listId);
+        this.trancoListRepository.deleteTrancoFile(listId);
+    }
+}
@@ -1,72 +1,308 @@
 package tech.mayanksoni.safebrowsing.services;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.index.MatchingEngineType;
+import tech.mayanksoni.safebrowsing.index.PhoneticIndex;
+import tech.mayanksoni.safebrowsing.index.ReferenceDomainIndex;
 import tech.mayanksoni.safebrowsing.models.DomainFeatures;
 import tech.mayanksoni.safebrowsing.models.EditDistanceRecordForDomain;
+import tech.mayanksoni.safebrowsing.models.PhoneticMatchRecordForDomain;
 import tech.mayanksoni.safebrowsing.models.PossibleReferenceDomain;
+import tech.mayanksoni.safebrowsing.models.ReferenceDomainMatchResult;
 import tech.mayanksoni.safebrowsing.models.TyposquattingValidationResponse;
 import tech.mayanksoni.safebrowsing.models.dto.DomainTyposquattingValidationRequest;
 import tech.mayanksoni.safebrowsing.repository.TrancoProvidedDomainRepository;
+import tech.mayanksoni.safebrowsing.utils.BitParallelEditDistance;
 import tech.mayanksoni.safebrowsing.utils.DomainUtils;
-import tech.mayanksoni.safebrowsing.utils.EditDistanceUtil;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class TyposquattingDetectionService {
+    private static final String MONGO_AGGREGATION_ENGINE = "MONGO_AGGREGATION";
+    private static final List<String> DETECTION_STAGES = List.of("exact-match", "edit-distance", "phonetic");
     private final TrancoProvidedDomainRepository trancoProvidedDomainRepository;
+    private final ReferenceDomainIndexService referenceDomainIndexService;
     private final SafeBrowsignConfig safeBrowsignConfig;
+    private final TyposquattingVerdictCache typosquattingVerdictCache;
+    private final Map<String, Timer> detectionStageTimers = new HashMap<>();
+    private final Map<String, DistributionSummary> visitedCandidatesByEngine = new HashMap<>();
 
-    private static EditDistanceRecordForDomain computeEditDistance(String domainUnderTest, String referenceDomain) {
+    /**
+     * Registers the stage timers and the visited candidate summaries once, so checks only record into them.
+     */
+    public TyposquattingDetectionService(TrancoProvidedDomainRepository trancoProvidedDomainRepository, ReferenceDomainIndexService referenceDomainIndexService,
+                                         SafeBrowsignConfig safeBrowsignConfig, MeterRegistry meterRegistry, TyposquattingVerdictCache typosquattingVerdictCache) {
+        this.trancoProvidedDomainRepository = trancoProvidedDomainRepository;
+        this.referenceDomainIndexService = referenceDomainIndexService;
+        this.safeBrowsignConfig = safeBrowsignConfig;
+        this.typosquattingVerdictCache = typosquattingVerdictCache;
+        DETECTION_STAGES.forEach(stage -> this.detectionStageTimers.put(stage, Timer.builder("safebrowsing.detection.stage")
+                .description("Time spent in each stage of a typosquatting check")
+                .tag("stage", stage)
+                .register(meterRegistry)));
+        Stream.concat(Arrays.stream(MatchingEngineType.values()).map(MatchingEngineType::name), Stream.of(MONGO_AGGREGATION_ENGINE))
+                .forEach(matchingEngine -> this.visitedCandidatesByEngine.put(matchingEngine, DistributionSummary.builder("safebrowsing.matching.visited.candidates")
+                        .description("Number of reference domains compared against the domain under check")
+                        .tag("engine", matchingEngine)
+                        .register(meterRegistry)));
+    }
+
+    private static EditDistanceRecordForDomain computeEditDistance(BitParallelEditDistance compiledDomainUnderTest, String referenceDomain, int editDistanceThreshold) {
         return new EditDistanceRecordForDomain(
-                EditDistanceUtil.computeLevenshteinDistance(domainUnderTest, referenceDomain),
-                domainUnderTest,
+                compiledDomainUnderTest.boundedDistance(referenceDomain, editDistanceThreshold),
+                compiledDomainUnderTest.getPattern(),
                 referenceDomain
         );
     }
 
     public TyposquattingValidationResponse checkDomainForTyposquatting(DomainTyposquattingValidationRequest validationRequest) {
-        List<EditDistanceRecordForDomain> editDistanceLessThanThreshold = computeEditDistances(validationRequest);
-        boolean isExactMatchPresent = editDistanceLessThanThreshold.stream().anyMatch(s -> s.editDistance() == 0);
-        log.info("is Domain an Exact Match: {}", isExactMatchPresent);
-        if (!isExactMatchPresent && !editDistanceLessThanThreshold.isEmpty()) {
-            EditDistanceRecordForDomain closestMatchingDomainEditDistanceRecord = editDistanceLessThanThreshold.stream().min(Comparator.comparingInt(EditDistanceRecordForDomain::editDistance)).get();
-            log.info("Closest matching domain edit distance record: {}", closestMatchingDomainEditDistanceRecord);
-            return new TyposquattingValidationResponse(
-                    true,
-                    closestMatchingDomainEditDistanceRecord.referenceDomain(),
-                    validationRequest.getDomain(),
-                    safeBrowsignConfig.isPhoneticMatchingEnabled()
-            );
+        if (validationRequest.getDomain() == null) {
+            return detectTyposquatting(validationRequest);
         }
+        String activeListId = this.referenceDomainIndexService.getActiveIndex().map(ReferenceDomainIndex::getListId).orElse("");
+        TyposquattingValidationResponse verdict = this.typosquattingVerdictCache.get(activeListId, validationRequest.getDomain(), () -> detectTyposquatting(validationRequest));
         return new TyposquattingValidationResponse(
-                false,
-                null,
+                verdict.isTyposquatting(),
+                verdict.matchedReferenceDomain(),
                 validationRequest.getDomain(),
-                safeBrowsignConfig.isPhoneticMatchingEnabled()
+                verdict.phoneticMatchEnabled()
         );
     }
 
+    private TyposquattingValidationResponse detectTyposquatting(DomainTyposquattingValidationRequest validationRequest) {
+        Optional<DomainFeatures> domainFeaturesForDomainToValidate = extractDomainFeatures(validationRequest);
+        if (domainFeaturesForDomainToValidate.isEmpty()) {
+            return buildValidationResponse(validationRequest, null);
+        }
+        if (timeStage("exact-match", () -> isExactMatch(domainFeaturesForDomainToValidate.get()))) {
+            log.debug("is Domain an Exact Match: {}", true);
+            return buildValidationResponse(validationRequest, null);
+        }
+        List<EditDistanceRecordForDomain> editDistanceLessThanThreshold = timeStage("edit-distance", () -> computeEditDistances(domainFeaturesForDomainToValidate.get()));
+        return decideVerdict(validationRequest, domainFeaturesForDomainToValidate.get(), editDistanceLessThanThreshold);
+    }
+
+    /**
+     * Checks a batch of domains, returning verdicts in input order. Domains are grouped by registry suffix, first
+     * character and length window, and each group retrieves its candidates once: the bucket scan and the store fetch the
+     * buckets of the whole window in one lookup, and the other engines match the group in one call, which the Levenshtein
+     * automaton answers with a single trie walk. Groups are matched in parallel.
+     */
+    public List<TyposquattingValidationResponse> checkDomainsForTyposquatting(List<DomainTyposquattingValidationRequest> validationRequests) {
+        Optional<ReferenceDomainIndex> activeIndex = this.referenceDomainIndexService.getActiveIndex();
+        String activeListId = activeIndex.map(ReferenceDomainIndex::getListId).orElse("");
+        TyposquattingValidationResponse[] verdicts = new TyposquattingValidationResponse[validationRequests.size()];
+        DomainFeatures[] domainFeaturesByPosition = new DomainFeatures[validationRequests.size()];
+        Map<CandidateBucketKey, List<Integer>> pendingPositionsByBucket = new HashMap<>();
+        for (int position = 0; position < validationRequests.size(); position++) {
+            DomainTyposquattingValidationRequest validationRequest = validationRequests.get(position);
+            if (validationRequest.getDomain() != null) {
+                verdicts[position] = this.typosquattingVerdictCache.getIfPresent(activeListId, validationRequest.getDomain());
+                if (verdicts[position] != null) {
+                    continue;
+                }
+            }
+            Optional<DomainFeatures> domainFeaturesForDomainToValidate = extractDomainFeatures(validationRequest);
+            if (domainFeaturesForDomainToValidate.isEmpty()) {
+                verdicts[position] = buildValidationResponse(validationRequest, null);
+            } else if (isExactMatch(domainFeaturesForDomainToValidate.get())) {
+                verdicts[position] = buildValidationResponse(validationRequest, null);
+                this.typosquattingVerdictCache.put(activeListId, validationRequest.getDomain(), verdicts[position]);
+            } else {
+                DomainFeatures domainFeatures = domainFeaturesForDomainToValidate.get();
+                domainFeaturesByPosition[position] = domainFeatures;
+                pendingPositionsByBucket.computeIfAbsent(candidateBucketKey(domainFeatures), k -> new ArrayList<>()).add(position);
+            }
+        }
+        log.debug("Batch of {} domains has {} candidate buckets to match", validationRequests.size(), pendingPositionsByBucket.size());
+        pendingPositionsByBucket.entrySet().parallelStream().forEach(pendingBucket -> {
+            List<Integer> positions = pendingBucket.getValue();
+            List<String> privateDomains = positions.stream().map(position -> domainFeaturesByPosition[position].getPrivateDomain()).toList();
+            List<List<EditDistanceRecordForDomain>> editDistancesByDomain = matchCandidateBucket(activeIndex, pendingBucket.getKey(), privateDomains);
+            IntStream.range(0, positions.size()).parallel().forEach(bucketPosition -> {
+                int position = positions.get(bucketPosition);
+                DomainTyposquattingValidationRequest validationRequest = validationRequests.get(position);
+                verdicts[position] = decideVerdict(validationRequest, domainFeaturesByPosition[position], editDistancesByDomain.get(bucketPosition));
+                this.typosquattingVerdictCache.put(activeListId, validationRequest.getDomain(), verdicts[position]);
+            });
+        });
+        List<TyposquattingValidationResponse> orderedVerdicts = new ArrayList<>(verdicts.length);
+        for (int position = 0; position < verdicts.length; position++) {
+            TyposquattingValidationResponse verdict = verdicts[position];
+            orderedVerdicts.add(new TyposquattingValidationResponse(
+                    verdict.isTyposquatting(),
+                    verdict.matchedReferenceDomain(),
+                    validationRequests.get(position).getDomain(),
+                    verdict.phoneticMatchEnabled()
+            ));
+        }
+        return orderedVerdicts;
+    }
+
+    /**
+     * Matches the private domains of one candidate bucket, returning their edit distance records in input order.
+     */
+    private List<List<EditDistanceRecordForDomain>> matchCandidateBucket(Optional<ReferenceDomainIndex> activeIndex, CandidateBucketKey candidateBucketKey, List<String> privateDomains) {
+        int editDistanceThreshold = safeBrowsignConfig.getEditDistanceThreshold();
+        if (activeIndex.isPresent() && activeIndex.get().getMatchingEngineType() != MatchingEngineType.BUCKET_SCAN) {
+            String matchingEngine = activeIndex.get().getMatchingEngineType().name();
+            return activeIndex.get().findAllMatches(privateDomains, candidateBucketKey.registrySuffix(), editDistanceThreshold).stream()
+                    .map(matchResult -> {
+                        recordVisitedCandidates(matchingEngine, matchResult.visitedCandidates());
+                        return matchResult.matches().stream().sorted(Comparator.comparingInt(EditDistanceRecordForDomain::editDistance)).toList();
+                    })
+                    .toList();
+        }
+        String matchingEngine = activeIndex.isPresent() ? MatchingEngineType.BUCKET_SCAN.name() : MONGO_AGGREGATION_ENGINE;
+        int shortestLengthInWindow = candidateBucketKey.lengthWindow() * (editDistanceThreshold + 1);
+        List<PossibleReferenceDomain> sharedCandidates = fetchCandidates(activeIndex, candidateBucketKey.registrySuffix(), candidateBucketKey.firstCharacter(),
+                shortestLengthInWindow - editDistanceThreshold, shortestLengthInWindow + 2 * editDistanceThreshold);
+        return privateDomains.stream().map(privateDomain -> matchAgainstCandidates(matchingEngine, privateDomain, sharedCandidates)).toList();
+    }
+
+    /**
+     * Buckets domains by registry suffix, first character and a window of {@code editDistanceThreshold + 1} lengths,
+     * so the candidates of a bucket are the lengths of its window widened by the threshold on either side.
+     */
+    private CandidateBucketKey candidateBucketKey(DomainFeatures domainFeatures) {
+        String privateDomain = domainFeatures.getPrivateDomain();
+        return new CandidateBucketKey(domainFeatures.getRegistrySuffix(), privateDomain.charAt(0), privateDomain.length() / (safeBrowsignConfig.getEditDistanceThreshold() + 1));
+    }
+
+    private TyposquattingValidationResponse decideVerdict(DomainTyposquattingValidationRequest validationRequest, DomainFeatures domainFeaturesForDomainToValidate, List<EditDistanceRecordForDomain> editDistanceLessThanThreshold) {
+        boolean isExactMatchPresent = editDistanceLessThanThreshold.stream().anyMatch(s -> s.editDistance() == 0);
+        log.debug("is Domain an Exact Match: {}", isExactMatchPresent);
+        if (isExactMatchPresent) {
+            return buildValidationResponse(validationRequest, null);
+        }
+        if (!editDistanceLessThanThreshold.isEmpty()) {
+            EditDistanceRecordForDomain closestMatchingDomainEditDistanceRecord = editDistanceLessThanThreshold.stream().min(Comparator.comparingInt(EditDistanceRecordForDomain::editDistance)).get();
+            log.debug("Closest matching domain edit distance record: {}", closestMatchingDomainEditDistanceRecord);
+            return buildValidationResponse(validationRequest, closestMatchingDomainEditDistanceRecord.referenceDomain());
+        }
+        if (safeBrowsignConfig.isPhoneticMatchingEnabled()) {
+            Optional<PhoneticMatchRecordForDomain> closestPhoneticMatch = timeStage("phonetic", () -> findClosestPhoneticMatch(domainFeaturesForDomainToValidate));
+            if (closestPhoneticMatch.isPresent()) {
+                log.debug("Closest matching domain phonetic record: {}", closestPhoneticMatch.get());
+                return buildValidationResponse(validationRequest, closestPhoneticMatch.get().referenceDomain());
+            }
+        }
+        return buildValidationResponse(validationRequest, null);
+    }
+
     public List<EditDistanceRecordForDomain> computeEditDistances(DomainTyposquattingValidationRequest validationRequest) {
+        return extractDomainFeatures(validationRequest).map(this::computeEditDistances).orElse(List.of());
+    }
+
+    private List<EditDistanceRecordForDomain> computeEditDistances(DomainFeatures domainFeaturesForDomainToValidate) {
+        Optional<ReferenceDomainIndex> activeIndex = this.referenceDomainIndexService.getActiveIndex();
+        if (activeIndex.isPresent()) {
+            ReferenceDomainMatchResult matchResult = activeIndex.get().findMatches(domainFeaturesForDomainToValidate.getPrivateDomain(), domainFeaturesForDomainToValidate.getRegistrySuffix(), safeBrowsignConfig.getEditDistanceThreshold());
+            recordVisitedCandidates(activeIndex.get().getMatchingEngineType().name(), matchResult.visitedCandidates());
+            return matchResult.matches().stream().sorted(Comparator.comparingInt(EditDistanceRecordForDomain::editDistance)).toList();
+        }
+        String privateDomain = domainFeaturesForDomainToValidate.getPrivateDomain();
+        int editDistanceThreshold = safeBrowsignConfig.getEditDistanceThreshold();
+        return matchAgainstCandidates(MONGO_AGGREGATION_ENGINE, privateDomain, fetchCandidates(activeIndex, domainFeaturesForDomainToValidate.getRegistrySuffix(), privateDomain.charAt(0),
+                privateDomain.length() - editDistanceThreshold, privateDomain.length() + editDistanceThreshold));
+    }
+
+    private List<PossibleReferenceDomain> fetchCandidates(Optional<ReferenceDomainIndex> activeIndex, String registrySuffix, char firstCharacter, int domainLengthLowerLimit, int domainLengthUpperLimit) {
+        return activeIndex
+                .map(index -> index.getPossibleReferenceDomains(domainLengthLowerLimit, domainLengthUpperLimit, firstCharacter, registrySuffix))
+                .orElseGet(() -> this.referenceDomainIndexService.getActiveDomainSetId()
+                        .map(domainSetId -> this.trancoProvidedDomainRepository.getPossibleReferenceDomainsForTyposquattingValidation(domainSetId, domainLengthLowerLimit, domainLengthUpperLimit, firstCharacter, registrySuffix))
+                        .orElse(List.of()));
+    }
+
+    private List<EditDistanceRecordForDomain> matchAgainstCandidates(String matchingEngine, String privateDomain, List<PossibleReferenceDomain> possibleDomainMatches) {
+        recordVisitedCandidates(matchingEngine, possibleDomainMatches.size());
+        BitParallelEditDistance compiledPrivateDomain = BitParallelEditDistance.compile(privateDomain);
+        int editDistanceThreshold = safeBrowsignConfig.getEditDistanceThreshold();
+        return possibleDomainMatches.parallelStream().map(s -> computeEditDistance(compiledPrivateDomain, s.ownerDomain(), editDistanceThreshold)).filter(s -> s.editDistance() <= editDistanceThreshold).sorted(Comparator.comparingInt(EditDistanceRecordForDomain::editDistance)).toList();
+    }
+
+    private boolean isExactMatch(DomainFeatures domainFeaturesForDomainToValidate) {
+        String privateDomain = domainFeaturesForDomainToValidate.getPrivateDomain();
+        String registrySuffix = domainFeaturesForDomainToValidate.getRegistrySuffix();
+        return this.referenceDomainIndexService.getActiveIndex()
+                .map(index -> index.containsExactMatch(privateDomain, registrySuffix))
+                .orElseGet(() -> this.referenceDomainIndexService.getActiveDomainSetId()
+                        .map(domainSetId -> this.trancoProvidedDomainRepository.containsDomain(domainSetId, privateDomain, registrySuffix))
+                        .orElse(false));
+    }
+
+    private Optional<PhoneticMatchRecordForDomain> findClosestPhoneticMatch(DomainFeatures domainFeaturesForDomainToValidate) {
+        Optional<PhoneticIndex> phoneticIndex = this.referenceDomainIndexService.getActiveIndex().flatMap(ReferenceDomainIndex::getPhoneticIndex);
+        if (phoneticIndex.isEmpty()) {
+            log.debug("Phonetic index is not loaded, skipping phonetic matching for {}", domainFeaturesForDomainToValidate.getOriginalDomain());
+            return Optional.empty();
+        }
+        return phoneticIndex.get().findMatches(
+                        domainFeaturesForDomainToValidate.getPrivateDomain(),
+                        domainFeaturesForDomainToValidate.getRegistrySuffix(),
+                        domainFeaturesForDomainToValidate.getPhoneticModel(),
+                        safeBrowsignConfig.getPhoneticMinimumMatchingCodes()
+                ).stream()
+                .min(Comparator.comparingInt(PhoneticMatchRecordForDomain::matchingPhoneticCodes).reversed()
+                        .thenComparingLong(PhoneticMatchRecordForDomain::referenceDomainRank));
+    }
+
+    private Optional<DomainFeatures> extractDomainFeatures(DomainTyposquattingValidationRequest validationRequest) {
         try {
             DomainFeatures domainFeaturesForDomainToValidate = DomainUtils.extractDomainFeatures(validationRequest.getDomain(), 0);
             Objects.requireNonNull(domainFeaturesForDomainToValidate);
-            int domainLengthLowerLimit = domainFeaturesForDomainToValidate.getPrivateDomain().length() - safeBrowsignConfig.getEditDistanceThreshold();
-            int domainLengthUpperLimit = domainFeaturesForDomainToValidate.getPrivateDomain().length() + safeBrowsignConfig.getEditDistanceThreshold();
-            char firstCharacter = domainFeaturesForDomainToValidate.getPrivateDomain().charAt(0);
-            String registrySuffix = domainFeaturesForDomainToValidate.getRegistrySuffix();
-            List<PossibleReferenceDomain> possibleDomainMatches = this.trancoProvidedDomainRepository.getPossibleReferenceDomainsForTyposquattingValidation(domainLengthLowerLimit, domainLengthUpperLimit, firstCharacter, registrySuffix);
-            return possibleDomainMatches.parallelStream().map(s -> computeEditDistance(domainFeaturesForDomainToValidate.getPrivateDomain(), s.ownerDomain())).filter(s -> s.editDistance() <= safeBrowsignConfig.getEditDistanceThreshold()).sorted(Comparator.comparingInt(EditDistanceRecordForDomain::editDistance)).toList();
+            Objects.requireNonNull(domainFeaturesForDomainToValidate.getPrivateDomain());
+            return Optional.of(domainFeaturesForDomainToValidate);
         } catch (NullPointerException e) {
             log.error("Invalid domain name {}", validationRequest.getDomain(), e);
-            return List.of();
+            return Optional.empty();
+        }
+    }
+
+    private TyposquattingValidationResponse buildValidationResponse(DomainTyposquattingValidationRequest validationRequest, String matchedReferenceDomain) {
+        return new TyposquattingValidationResponse(
+                matchedReferenceDomain != null,
+                matchedReferenceDomain,
+                validationRequest.getDomain(),
+                safeBrowsignConfig.isPhoneticMatchingEnabled()
+        );
+    }
+
+    private <T> T timeStage(String stage, Supplier<T> stageExecution) {
+        long startTime = System.nanoTime();
+        try {
+            return stageExecution.get();
+        } finally {
+            long elapsedNanos = System.nanoTime() - startTime;
+            this.detectionStageTimers.get(stage).record(elapsedNanos, TimeUnit.NANOSECONDS);
+            log.debug("Typosquatting detection stage {} completed in {} us", stage, elapsedNanos / 1_000);
         }
     }
+
+    private void recordVisitedCandidates(String matchingEngine, long visitedCandidates) {
+        this.visitedCandidatesByEngine.get(matchingEngine).record(visitedCandidates);
+        log.debug("Matching engine {} visited {} reference domains", matchingEngine, visitedCandidates);
+    }
+
+    private record CandidateBucketKey(String registrySuffix, char firstCharacter, int lengthWindow) {
+    }
 }
@@ -0,0 +1,55 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.models.TyposquattingValidationResponse;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Bounded W-TinyLFU cache of typosquatting verdicts. Keys combine the active list id with the normalized domain, so
+ * activating a new list makes every previous entry unreachable and it ages out through eviction.
+ */
+@Component
+@Slf4j
+public class TyposquattingVerdictCache {
+    private static final String CACHE_NAME = "typosquattingVerdicts";
+    private final Cache<String, TyposquattingValidationResponse> verdicts;
+
+    public TyposquattingVerdictCache(SafeBrowsignConfig safeBrowsignConfig, MeterRegistry meterRegistry) {
+        this.verdicts = Caffeine.newBuilder()
+                .maximumSize(safeBrowsignConfig.getVerdictCacheMaximumSize())
+                .expireAfterWrite(safeBrowsignConfig.getVerdictCacheTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, this.verdicts, CACHE_NAME);
+        log.info("Initialized {} cache with maximum size {} and ttl {}", CACHE_NAME, safeBrowsignConfig.getVerdictCacheMaximumSize(), safeBrowsignConfig.getVerdictCacheTtl());
+    }
+
+    public static String normalizeDomain(String domain) {
+        String normalizedDomain = domain.trim().toLowerCase(Locale.ROOT);
+        return normalizedDomain.endsWith(".") ? normalizedDomain.substring(0, normalizedDomain.length() - 1) : normalizedDomain;
+    }
+
+    public TyposquattingValidationResponse getIfPresent(String listId, String domain) {
+        return this.verdicts.getIfPresent(cacheKey(listId, domain));
+    }
+
+    public void put(String listId, String domain, TyposquattingValidationResponse verdict) {
+        this.verdicts.put(cacheKey(listId, domain), verdict);
+    }
+
+    private static String cacheKey(String listId, String domain) {
+        return listId + "|" + normalizeDomain(domain);
+    }
+
+    public TyposquattingValidationResponse get(String listId, String domain, Supplier<TyposquattingValidationResponse> verdictSupplier) {
+        return this.verdicts.get(cacheKey(listId, domain), key -> verdictSupplier.get());
+    }
+}
@@ -0,0 +1,94 @@
+package tech.mayanksoni.safebrowsing.utils;
+
+/**
+ * Myers/Hyyro bit-vector Levenshtein distance. The pattern's per-character bitmasks are computed once by
+ * {@link #compile(String)} and each comparison then costs O(n) word operations for a text of length n.
+ * Patterns longer than 64 characters and non-ASCII input fall back to {@link EditDistanceUtil#computeLevenshteinDistance}.
+ * <p>
+ * {@link #boundedDistance(String, int)} picks the kernel for threshold-bounded scans: the banded, early-exit
+ * {@link EditDistanceUtil#computeBoundedLevenshteinDistance} for thresholds up to {@value #BOUNDED_KERNEL_MAX_THRESHOLD},
+ * where it rejects most candidates after a couple of rows, and for input the bit vectors cannot hold; the bit vectors
+ * otherwise, whose cost does not grow with the threshold.
+ */
+public final class BitParallelEditDistance {
+    private static final int MAX_PATTERN_LENGTH = Long.SIZE;
+    private static final int ASCII_RANGE = 128;
+    static final int BOUNDED_KERNEL_MAX_THRESHOLD = 1;
+
+    private final String pattern;
+    private final long[] peq;
+    private final long lastBit;
+
+    private BitParallelEditDistance(String pattern, long[] peq) {
+        this.pattern = pattern;
+        this.peq = peq;
+        this.lastBit = pattern.isEmpty() ? 0 : 1L << (pattern.length() - 1);
+    }
+
+    public static BitParallelEditDistance compile(String pattern) {
+        if (pattern.length() > MAX_PATTERN_LENGTH || !isAscii(pattern)) {
+            return new BitParallelEditDistance(pattern, null);
+        }
+        long[] peq = new long[ASCII_RANGE];
+        for (int i = 0; i < pattern.length(); i++) {
+            peq[pattern.charAt(i)] |= 1L << i;
+        }
+        return new BitParallelEditDistance(pattern, peq);
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= ASCII_RANGE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * The distance to {@code text} when it is at most {@code threshold}, and {@code threshold + 1} otherwise.
+     */
+    public int boundedDistance(String text, int threshold) {
+        if (Math.abs(pattern.length() - text.length()) > threshold) {
+            return threshold + 1;
+        }
+        if (threshold <= BOUNDED_KERNEL_MAX_THRESHOLD || peq == null || !isAscii(text)) {
+            return EditDistanceUtil.computeBoundedLevenshteinDistance(pattern, text, threshold);
+        }
+        return Math.min(distance(text), threshold + 1);
+    }
+
+    public int distance(String text) {
+        if (peq == null || !isAscii(text)) {
+            return EditDistanceUtil.computeLevenshteinDistance(pattern, text);
+        }
+        int m = pattern.length();
+        if (m == 0) {
+            return text.length();
+        }
+        long pv = -1L;
+        long mv = 0L;
+        int score = m;
+        for (int j = 0; j < text.length(); j++) {
+            long eq = peq[text.charAt(j)];
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+            if ((ph & lastBit) != 0) {
+                score++;
+            } else if ((mh & lastBit) != 0) {
+                score--;
+            }
+            ph = (ph << 1) | 1L;
+            mh = mh << 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+        }
+        return score;
+    }
+}
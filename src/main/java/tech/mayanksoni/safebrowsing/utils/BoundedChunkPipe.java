@@ -0,0 +1,149 @@
+package tech.mayanksoni.safebrowsing.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-producer, single-consumer byte pipe holding at most {@code capacityInChunks} chunks. The writer blocks when
+ * the reader falls behind. Either side can {@link #fail(Throwable)} the pipe, after which the other side gets an
+ * {@link IOException} instead of blocking forever or seeing a clean end of stream. Unlike
+ * {@link java.io.PipedInputStream}, neither side is tied to the thread that first used it.
+ */
+public final class BoundedChunkPipe {
+    private static final byte[] END_OF_STREAM = new byte[0];
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final BlockingQueue<byte[]> chunks;
+    private final InputStream inputStream = new ChunkInputStream();
+    private final OutputStream outputStream = new ChunkOutputStream();
+    private volatile Throwable failure;
+
+    public BoundedChunkPipe(int capacityInChunks) {
+        this.chunks = new ArrayBlockingQueue<>(Math.max(1, capacityInChunks));
+    }
+
+    public InputStream getInputStream() {
+        return inputStream;
+    }
+
+    /**
+     * Writer side as an {@link OutputStream}. Closing it does not end the stream; the writer calls {@link #close()}
+     * once everything is written, or {@link #fail(Throwable)}, so the reader never mistakes a failure for an end.
+     */
+    public OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (length > 0) {
+            put(Arrays.copyOfRange(bytes, offset, offset + length));
+        }
+    }
+
+    /**
+     * Signals a clean end of stream to the reader.
+     */
+    public void close() throws IOException {
+        put(END_OF_STREAM);
+    }
+
+    public void fail(Throwable cause) {
+        if (this.failure == null) {
+            this.failure = cause;
+        }
+    }
+
+    public boolean isFailed() {
+        return this.failure != null;
+    }
+
+    private void put(byte[] chunk) throws IOException {
+        try {
+            while (!chunks.offer(chunk, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                throwIfFailed();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing to pipe");
+        }
+        throwIfFailed();
+    }
+
+    private void throwIfFailed() throws IOException {
+        Throwable cause = this.failure;
+        if (cause != null) {
+            throw cause instanceof IOException ioException ? ioException : new IOException("Pipe failed", cause);
+        }
+    }
+
+    private final class ChunkOutputStream extends OutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            put(new byte[]{(byte) b});
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            BoundedChunkPipe.this.write(bytes, offset, length);
+        }
+    }
+
+    private final class ChunkInputStream extends InputStream {
+        private byte[] currentChunk = END_OF_STREAM;
+        private int position;
+        private boolean ended;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (!ended && position == currentChunk.length) {
+                currentChunk = take();
+                position = 0;
+                ended = currentChunk == END_OF_STREAM;
+            }
+            if (ended) {
+                return -1;
+            }
+            int read = Math.min(length, currentChunk.length - position);
+            System.arraycopy(currentChunk, position, bytes, offset, read);
+            position += read;
+            return read;
+        }
+
+        private byte[] take() throws IOException {
+            try {
+                while (true) {
+                    throwIfFailed();
+                    byte[] chunk = chunks.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (chunk != null) {
+                        return chunk;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading from pipe");
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!ended) {
+                fail(new IOException("Pipe reader closed before end of stream"));
+            }
+        }
+    }
+}
@@ -11,6 +11,28 @@ import java.util.Objects;
 @Slf4j
 public class DomainUtils {
     public static DomainFeatures extractDomainFeatures(String domainName, long domainRankFromTranco) {
+        return extractDomainFeatures(domainName, domainRankFromTranco, true);
+    }
+
+    public static DomainFeatures extractDomainFeatures(TrancoCSVFileRecord csvFileRecord) {
+        return extractDomainFeatures(csvFileRecord.domain(), csvFileRecord.rank());
+    }
+
+    /**
+     * Extracts the features of a domain without its phonetic model, for callers that only need to identify the
+     * domain and encode it later, if at all.
+     */
+    public static DomainFeatures extractDomainIdentity(TrancoCSVFileRecord csvFileRecord) {
+        return extractDomainFeatures(csvFileRecord.domain(), csvFileRecord.rank(), false);
+    }
+
+    public static PhoneticModel encodePhoneticModel(String ownerDomain) {
+        return new PhoneticModel(PhoneticUtils.encodeSoundex(ownerDomain),
+                PhoneticUtils.encodeMetaphone(ownerDomain),
+                PhoneticUtils.encodeDoubleMetaphone(ownerDomain));
+    }
+
+    private static DomainFeatures extractDomainFeatures(String domainName, long domainRankFromTranco, boolean withPhoneticModel) {
         try {
             InternetDomainName idn = InternetDomainName.from(domainName.toLowerCase().trim());
             String registrySuffix = Objects.requireNonNull(idn.registrySuffix().toString());
@@ -19,11 +41,7 @@ public class DomainUtils {
                 return DomainFeatures.builder()
                         .domainLength(idn.topDomainUnderRegistrySuffix().toString().length())
                         .originalDomain(domainName)
-                        .phoneticModel(
-                                new PhoneticModel(PhoneticUtils.encodeSoundex(ownerDomain),
-                                        PhoneticUtils.encodeMetaphone(ownerDomain),
-                                        PhoneticUtils.encodeDoubleMetaphone(ownerDomain))
-                        )
+                        .phoneticModel(withPhoneticModel ? encodePhoneticModel(ownerDomain) : null)
                         .domainRankFromTranco(domainRankFromTranco)
                         .idn(idn)
                         .privateDomain(ownerDomain)
@@ -37,10 +55,6 @@ public class DomainUtils {
         return null;
     }
 
-    public static DomainFeatures extractDomainFeatures(TrancoCSVFileRecord csvFileRecord) {
-        return extractDomainFeatures(csvFileRecord.domain(), csvFileRecord.rank());
-    }
-
     private static String extractPrivateDomainFromTopDomainUnderRegistrySuffix(InternetDomainName topDomainUnderRegistrySuffix) {
         String registrySuffix = topDomainUnderRegistrySuffix.registrySuffix().toString();
         int lastIndex = topDomainUnderRegistrySuffix.toString().lastIndexOf("." + registrySuffix);
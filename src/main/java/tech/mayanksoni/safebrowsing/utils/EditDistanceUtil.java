@@ -1,6 +1,9 @@
 package tech.mayanksoni.safebrowsing.utils;
 
 public class EditDistanceUtil {
+    private static final int MAX_LABEL_LENGTH = 63;
+    private static final ThreadLocal<int[]> BOUNDED_DISTANCE_ROWS = ThreadLocal.withInitial(() -> new int[2 * (MAX_LABEL_LENGTH + 2)]);
+
     public static int computeLevenshteinDistance(String s1, String s2) {
         int m = s1.length(), n = s2.length();
 
@@ -32,4 +35,62 @@ public class EditDistanceUtil {
         }
         return prev[m];
     }
+
+    /**
+     * Levenshtein distance capped at {@code threshold}: returns the exact distance when it is at most
+     * {@code threshold} and {@code threshold + 1} otherwise. Only the diagonal band of width 2k+1 is computed,
+     * the computation stops as soon as a whole row exceeds the threshold, and the two rows live in a per-thread scratch
+     * buffer sized to the longest DNS label, so no arrays are allocated per call for domain labels.
+     */
+    public static int computeBoundedLevenshteinDistance(String s1, String s2, int threshold) {
+        int m = s1.length(), n = s2.length();
+        int outOfBand = threshold + 1;
+        if (Math.abs(m - n) > threshold) {
+            return outOfBand;
+        }
+
+        //Ensure s1 smaller for smaller rows
+        if (m > n) {
+            String temp = s1;
+            s1 = s2;
+            s2 = temp;
+            m = s1.length();
+            n = s2.length();
+        }
+
+        //Both rows share one buffer; prev and curr are the offsets of the rows inside it
+        int rowLength = m + 2;
+        int[] rows = m <= MAX_LABEL_LENGTH ? BOUNDED_DISTANCE_ROWS.get() : new int[2 * rowLength];
+        int prev = 0;
+        int curr = rowLength;
+
+        for (int i = 0; i <= m; i++) rows[prev + i] = i <= threshold ? i : outOfBand;
+
+        for (int j = 1; j <= n; j++) {
+            int lowerBound = Math.max(1, j - threshold);
+            int upperBound = Math.min(m, j + threshold);
+            rows[curr] = j <= threshold ? j : outOfBand;
+            rows[curr + lowerBound - 1] = lowerBound == 1 ? rows[curr] : outOfBand;
+            int rowMinimum = rows[curr + lowerBound - 1];
+            char c2 = s2.charAt(j - 1);
+            for (int i = lowerBound; i <= upperBound; i++) {
+                int insert = rows[curr + i - 1] + 1;
+                int delete = rows[prev + i] + 1;
+                int replace = rows[prev + i - 1] + (s1.charAt(i - 1) == c2 ? 0 : 1);
+                int distance = Math.min(outOfBand, Math.min(insert, Math.min(delete, replace)));
+                rows[curr + i] = distance;
+                rowMinimum = Math.min(rowMinimum, distance);
+            }
+            if (upperBound < m) {
+                rows[curr + upperBound + 1] = outOfBand;
+            }
+            if (rowMinimum > threshold) {
+                return outOfBand;
+            }
+            int temp = prev;
+            prev = curr;
+            curr = temp;
+        }
+        return rows[prev + m];
+    }
 }
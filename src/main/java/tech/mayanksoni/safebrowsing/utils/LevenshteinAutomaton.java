@@ -0,0 +1,56 @@
+package tech.mayanksoni.safebrowsing.utils;
+
+/**
+ * Levenshtein automaton accepting every string within {@code maxEdits} of a word. A state is the row of the
+ * edit-distance matrix for the characters consumed so far, with values capped at {@code maxEdits + 1}; the automaton
+ * is dead once every entry of the row exceeds {@code maxEdits}, which lets a trie walk prune whole subtrees.
+ */
+public final class LevenshteinAutomaton {
+    private final String word;
+    private final int maxEdits;
+
+    private LevenshteinAutomaton(String word, int maxEdits) {
+        this.word = word;
+        this.maxEdits = maxEdits;
+    }
+
+    public static LevenshteinAutomaton compile(String word, int maxEdits) {
+        return new LevenshteinAutomaton(word, maxEdits);
+    }
+
+    public int getStateSize() {
+        return word.length() + 1;
+    }
+
+    public void start(int[] state) {
+        for (int i = 0; i <= word.length(); i++) {
+            state[i] = Math.min(i, maxEdits + 1);
+        }
+    }
+
+    /**
+     * Consumes {@code c} from {@code state} into {@code nextState} and returns whether the automaton is still alive.
+     */
+    public boolean step(int[] state, char c, int[] nextState) {
+        int deadValue = maxEdits + 1;
+        nextState[0] = Math.min(state[0] + 1, deadValue);
+        int minimum = nextState[0];
+        for (int i = 1; i <= word.length(); i++) {
+            int replace = state[i - 1] + (word.charAt(i - 1) == c ? 0 : 1);
+            int delete = state[i] + 1;
+            int insert = nextState[i - 1] + 1;
+            int value = Math.min(deadValue, Math.min(replace, Math.min(delete, insert)));
+            nextState[i] = value;
+            minimum = Math.min(minimum, value);
+        }
+        return minimum <= maxEdits;
+    }
+
+    public boolean isMatch(int[] state) {
+        return state[word.length()] <= maxEdits;
+    }
+
+    public int distance(int[] state) {
+        return state[word.length()];
+    }
+}
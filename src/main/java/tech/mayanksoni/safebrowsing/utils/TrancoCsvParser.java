@@ -0,0 +1,185 @@
+package tech.mayanksoni.safebrowsing.utils;
+
+import tech.mayanksoni.safebrowsing.exceptions.MalformedCSVRecord;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Cursor over the {@code rank,domain} rows of a Tranco CSV that works on the raw bytes of the stream. Rows are found
+ * by scanning for the comma and newline, the rank is parsed from its digits, and the domain is exposed as a slice of
+ * the read buffer, so advancing to the next row allocates nothing. The slice is only valid until the next call to
+ * {@link #next()}. Malformed rows raise {@link MalformedCSVRecord} with their line number and byte offset; the cursor
+ * has already moved past such a row, so parsing can continue with the next one. A parser can start on a row boundary
+ * in the middle of a file, in which case line numbers and byte offsets stay relative to the start of the file.
+ */
+public final class TrancoCsvParser {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final long MAX_RANK_BEFORE_LAST_DIGIT = (Long.MAX_VALUE - 9) / 10;
+
+    private final InputStream inputStream;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private long bufferStartOffset;
+    private boolean endOfStream;
+
+    private long lineNumber;
+    private long rowByteOffset;
+    private long rank;
+    private int domainOffset;
+    private int domainLength;
+
+    public TrancoCsvParser(InputStream inputStream) {
+        this(inputStream, DEFAULT_BUFFER_SIZE);
+    }
+
+    public TrancoCsvParser(InputStream inputStream, int bufferSize) {
+        this(inputStream, bufferSize, 0, 0);
+    }
+
+    /**
+     * @param startByteOffset the byte offset in the file of the first row in the stream
+     * @param startLineNumber the number of lines in the file before that row
+     */
+    public TrancoCsvParser(InputStream inputStream, long startByteOffset, long startLineNumber) {
+        this(inputStream, DEFAULT_BUFFER_SIZE, startByteOffset, startLineNumber);
+    }
+
+    private TrancoCsvParser(InputStream inputStream, int bufferSize, long startByteOffset, long startLineNumber) {
+        this.inputStream = inputStream;
+        this.buffer = new byte[Math.max(16, bufferSize)];
+        this.bufferStartOffset = startByteOffset;
+        this.lineNumber = startLineNumber;
+    }
+
+    /**
+     * Advances to the next row, returning {@code false} once the stream is exhausted.
+     */
+    public boolean next() throws IOException {
+        int lineEnd = findLineEnd();
+        if (lineEnd < 0) {
+            return false;
+        }
+        int rowStart = position;
+        int nextRowStart = lineEnd < limit ? lineEnd + 1 : lineEnd;
+        int rowEnd = lineEnd > rowStart && buffer[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+        lineNumber++;
+        rowByteOffset = bufferStartOffset + rowStart;
+        position = nextRowStart;
+        parseRow(rowStart, rowEnd);
+        return true;
+    }
+
+    private void parseRow(int rowStart, int rowEnd) {
+        long parsedRank = 0;
+        int i = rowStart;
+        while (i < rowEnd && buffer[i] != ',') {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9 || parsedRank > MAX_RANK_BEFORE_LAST_DIGIT) {
+                throw malformedRow("invalid rank", rowStart, rowEnd);
+            }
+            parsedRank = parsedRank * 10 + digit;
+            i++;
+        }
+        if (i == rowStart || i == rowEnd) {
+            throw malformedRow(i == rowStart ? "missing rank" : "missing domain", rowStart, rowEnd);
+        }
+        int domainStart = i + 1;
+        for (int j = domainStart; j < rowEnd; j++) {
+            if (buffer[j] == ',') {
+                throw malformedRow("unexpected column", rowStart, rowEnd);
+            }
+        }
+        if (domainStart == rowEnd) {
+            throw malformedRow("missing domain", rowStart, rowEnd);
+        }
+        this.rank = parsedRank;
+        this.domainOffset = domainStart;
+        this.domainLength = rowEnd - domainStart;
+    }
+
+    /**
+     * Returns the index of the newline ending the row at {@code position}, or {@code limit} for a final row without
+     * one, refilling and growing the buffer as needed. Returns -1 when no bytes are left.
+     */
+    private int findLineEnd() throws IOException {
+        int scanFrom = position;
+        while (true) {
+            for (int i = scanFrom; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    return i;
+                }
+            }
+            if (endOfStream) {
+                return position < limit ? limit : -1;
+            }
+            scanFrom = limit - position;
+            fill();
+        }
+    }
+
+    private void fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            bufferStartOffset += position;
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int read = inputStream.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfStream = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private MalformedCSVRecord malformedRow(String reason, int rowStart, int rowEnd) {
+        return new MalformedCSVRecord(String.format("Malformed CSV record at line %d, byte offset %d (%s), line: %s",
+                lineNumber, rowByteOffset, reason, new String(buffer, rowStart, rowEnd - rowStart, StandardCharsets.UTF_8)));
+    }
+
+    public long getRank() {
+        return rank;
+    }
+
+    public byte[] getDomainBuffer() {
+        return buffer;
+    }
+
+    public int getDomainOffset() {
+        return domainOffset;
+    }
+
+    public int getDomainLength() {
+        return domainLength;
+    }
+
+    /**
+     * Copies the domain slice into a string. Tranco domains are ASCII (internationalized names are punycode), which
+     * the Latin-1 decoder turns into a compact string without a decoding pass.
+     */
+    public String getDomain() {
+        return new String(buffer, domainOffset, domainLength, StandardCharsets.ISO_8859_1);
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public long getRowByteOffset() {
+        return rowByteOffset;
+    }
+
+    /**
+     * Returns the byte offset in the file at which the row after the current one starts.
+     */
+    public long getNextRowByteOffset() {
+        return bufferStartOffset + position;
+    }
+}
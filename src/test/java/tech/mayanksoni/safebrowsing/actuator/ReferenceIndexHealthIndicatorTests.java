@@ -0,0 +1,87 @@
+package tech.mayanksoni.safebrowsing.actuator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.cucumber.MockMinioService;
+import tech.mayanksoni.safebrowsing.models.TrancoFileEntity;
+import tech.mayanksoni.safebrowsing.models.TrancoProvidedDomainEntity;
+import tech.mayanksoni.safebrowsing.repository.TrancoListRepository;
+import tech.mayanksoni.safebrowsing.repository.TrancoProvidedDomainRepository;
+import tech.mayanksoni.safebrowsing.services.ReferenceDomainIndexService;
+import tech.mayanksoni.safebrowsing.services.ReferenceDomainSnapshotStore;
+import tech.mayanksoni.safebrowsing.services.ReferenceIndexArtifactService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReferenceIndexHealthIndicatorTests {
+    private static final String LIST_ID = "warm-up-list";
+
+    private final CountDownLatch storeReleased = new CountDownLatch(1);
+    private TrancoListRepository trancoListRepository;
+    private ReferenceDomainIndexService referenceDomainIndexService;
+    private ReferenceIndexHealthIndicator referenceIndexHealthIndicator;
+
+    @BeforeEach
+    void setUp() {
+        TrancoProvidedDomainRepository trancoProvidedDomainRepository = mock(TrancoProvidedDomainRepository.class);
+        trancoListRepository = mock(TrancoListRepository.class);
+        when(trancoListRepository.getActiveTrancoList()).thenReturn(Optional.of(new TrancoFileEntity("id", LIST_ID, LIST_ID, null, 0, true, false, true, null, 100, null)));
+        when(trancoProvidedDomainRepository.streamDomainsByListId(LIST_ID)).thenAnswer(invocation -> {
+            assertTrue(storeReleased.await(5, TimeUnit.SECONDS));
+            return IntStream.rangeClosed(1, 100)
+                    .mapToObj(rank -> new TrancoProvidedDomainEntity(null, rank, "domain" + rank, LIST_ID, "com", 'd', ("domain" + rank).length(), null, null, null));
+        });
+        SafeBrowsignConfig safeBrowsignConfig = SafeBrowsignConfig.builder().build();
+        ReferenceDomainSnapshotStore referenceDomainSnapshotStore = new ReferenceDomainSnapshotStore(safeBrowsignConfig);
+        referenceDomainIndexService = new ReferenceDomainIndexService(trancoProvidedDomainRepository, trancoListRepository, safeBrowsignConfig,
+                referenceDomainSnapshotStore, new ReferenceIndexArtifactService(new MockMinioService(), referenceDomainSnapshotStore));
+        referenceIndexHealthIndicator = new ReferenceIndexHealthIndicator(referenceDomainIndexService);
+    }
+
+    @Test
+    void warmUpDoesNotBlockAndReadinessWaitsForTheIndex() throws InterruptedException {
+        referenceDomainIndexService.warmUpIndex();
+
+        assertEquals(Optional.of(LIST_ID), referenceDomainIndexService.getActiveDomainSetId());
+        assertEquals(ReferenceIndexHealthIndicator.WARMING_UP, referenceIndexHealthIndicator.health().getStatus());
+
+        storeReleased.countDown();
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(5));
+        while (referenceDomainIndexService.getActiveIndex().isEmpty() && Instant.now().isBefore(deadline)) {
+            Thread.sleep(10);
+        }
+        Health health = referenceIndexHealthIndicator.health();
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(LIST_ID, health.getDetails().get("listId"));
+        assertEquals(100, health.getDetails().get("domains"));
+    }
+
+    @Test
+    void reportsUpOnceWarmUpFindsNoActiveList() throws InterruptedException {
+        when(trancoListRepository.getActiveTrancoList()).thenReturn(Optional.empty());
+
+        referenceDomainIndexService.warmUpIndex();
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(5));
+        while (!referenceDomainIndexService.isWarmUpFinished() && Instant.now().isBefore(deadline)) {
+            Thread.sleep(10);
+        }
+
+        Health health = referenceIndexHealthIndicator.health();
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals("No Tranco list is active yet", health.getDetails().get("reason"));
+    }
+}
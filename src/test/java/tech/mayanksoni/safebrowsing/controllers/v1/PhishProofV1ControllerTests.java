@@ -0,0 +1,121 @@
+package tech.mayanksoni.safebrowsing.controllers.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.models.TyposquattingValidationResponse;
+import tech.mayanksoni.safebrowsing.models.dto.DomainTyposquattingValidationRequest;
+import tech.mayanksoni.safebrowsing.services.BulkScanService;
+import tech.mayanksoni.safebrowsing.services.TyposquattingDetectionService;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PhishProofV1ControllerTests {
+    private static final Duration BULK_SCAN_REQUEST_TIMEOUT = Duration.ofMinutes(7);
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private TyposquattingDetectionService typosquattingDetectionService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        typosquattingDetectionService = mock(TyposquattingDetectionService.class);
+        when(typosquattingDetectionService.checkDomainsForTyposquatting(anyList())).thenAnswer(invocation -> invocation.<List<DomainTyposquattingValidationRequest>>getArgument(0).stream()
+                .map(request -> new TyposquattingValidationResponse(request.getDomain().startsWith("g00"), null, request.getDomain(), false))
+                .toList());
+        SafeBrowsignConfig safeBrowsignConfig = SafeBrowsignConfig.builder().bulkScanChunkSize(2).bulkScanRequestTimeout(BULK_SCAN_REQUEST_TIMEOUT).typosquattingBatchMaxSize(3).build();
+        BulkScanService bulkScanService = new BulkScanService(typosquattingDetectionService, safeBrowsignConfig, objectMapper);
+        mockMvc = MockMvcBuilders.standaloneSetup(new PhishProofV1Controller(typosquattingDetectionService, bulkScanService, safeBrowsignConfig)).build();
+    }
+
+    @Test
+    void streamsOneVerdictPerDomainAndASummaryLine() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(post("/v1/phishproof/check-typosquatting/bulk").contentType(MediaType.TEXT_PLAIN).content("g00gle.com\nexample.com\n\namazon.com\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(NDJSON));
+        List<String> lines = mvcResult.getResponse().getContentAsString().lines().toList();
+        assertEquals(4, lines.size());
+        assertEquals(List.of("g00gle.com", "example.com", "amazon.com"), lines.subList(0, 3).stream().map(line -> readTree(line).get("domainUnderCheck").asText()).toList());
+        JsonNode summary = readTree(lines.getLast()).get("summary");
+        assertEquals(3, summary.get("scannedDomains").asLong());
+        assertEquals(1, summary.get("typosquattingDomains").asLong());
+    }
+
+    @Test
+    void appliesTheBulkScanTimeoutToTheStreamingRequest() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(post("/v1/phishproof/check-typosquatting/bulk").contentType(MediaType.TEXT_PLAIN).content("example.com\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertEquals(BULK_SCAN_REQUEST_TIMEOUT.toMillis(), mvcResult.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isOk());
+    }
+
+    @Test
+    void returnsBatchVerdictsInRequestOrder() throws Exception {
+        mockMvc.perform(post("/v1/phishproof/check-typosquatting/batch").contentType(MediaType.APPLICATION_JSON).content(batch("g00gle.com", "example.com", "amazon.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].domainUnderCheck").value(contains("g00gle.com", "example.com", "amazon.com")));
+    }
+
+    @Test
+    void rejectsABatchWithANullEntry() throws Exception {
+        mockMvc.perform(post("/v1/phishproof/check-typosquatting/batch").contentType(MediaType.APPLICATION_JSON).content(batch("example.com", null)))
+                .andExpect(status().isBadRequest());
+
+        verify(typosquattingDetectionService, never()).checkDomainsForTyposquatting(anyList());
+    }
+
+    @Test
+    void rejectsABatchLargerThanTheConfiguredMaximum() throws Exception {
+        mockMvc.perform(post("/v1/phishproof/check-typosquatting/batch").contentType(MediaType.APPLICATION_JSON).content(batch("a.com", "b.com", "c.com", "d.com")))
+                .andExpect(status().isBadRequest());
+
+        verify(typosquattingDetectionService, never()).checkDomainsForTyposquatting(anyList());
+    }
+
+    /**
+     * Builds a batch request body, writing a {@code null} entry for every {@code null} domain.
+     */
+    private static String batch(String... domains) {
+        return Arrays.stream(domains)
+                .map(domain -> domain == null ? "null" : "{\"domain\":\"" + domain + "\"}")
+                .collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private JsonNode readTree(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package tech.mayanksoni.safebrowsing.cucumber;
+
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.springframework.beans.factory.annotation.Autowired;
+import tech.mayanksoni.safebrowsing.models.BulkScanJobEntity;
+import tech.mayanksoni.safebrowsing.models.BulkScanJobStatus;
+import tech.mayanksoni.safebrowsing.models.dto.BulkScanJobRequest;
+import tech.mayanksoni.safebrowsing.services.BulkScanJobService;
+import tech.mayanksoni.safebrowsing.services.MinioService;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@io.cucumber.spring.ScenarioScope
+public class BulkScanJobStepDefinitions {
+    private static final long JOB_COMPLETION_TIMEOUT_MILLIS = 30_000;
+
+    @Autowired
+    private MinioService minioService;
+    @Autowired
+    private BulkScanJobService bulkScanJobService;
+
+    @Given("a domain file {string} with {int} domains exists in MinIO")
+    public void aDomainFileExistsInMinIO(String fileName, int domainCount) throws Exception {
+        String domains = IntStream.rangeClosed(1, domainCount).mapToObj(i -> "examp1e" + i + ".com").collect(Collectors.joining("\n"));
+        minioService.uploadFile(fileName, new ByteArrayInputStream(domains.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @When("a bulk scan job {string} is submitted for {string}")
+    public void aBulkScanJobIsSubmitted(String jobId, String fileName) {
+        bulkScanJobService.submitJob(BulkScanJobRequest.builder().jobId(jobId).inputFileName(fileName).build());
+    }
+
+    @Then("the bulk scan job {string} should complete with {int} processed domains")
+    public void theBulkScanJobShouldComplete(String jobId, int processedDomains) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + JOB_COMPLETION_TIMEOUT_MILLIS;
+        BulkScanJobEntity job = bulkScanJobService.getJob(jobId).orElseThrow();
+        while (job.status() != BulkScanJobStatus.COMPLETED && job.status() != BulkScanJobStatus.FAILED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+            job = bulkScanJobService.getJob(jobId).orElseThrow();
+        }
+        assertEquals(BulkScanJobStatus.COMPLETED, job.status(), "Bulk scan job did not complete: " + job.failureReason());
+        assertEquals(processedDomains, job.processedDomains());
+    }
+
+    @Then("the results file for {string} should contain {int} verdicts and a summary line")
+    public void theResultsFileShouldContainVerdicts(String jobId, int verdictCount) throws Exception {
+        BulkScanJobEntity job = bulkScanJobService.getJob(jobId).orElseThrow();
+        assertTrue(minioService.isFilePresent(job.resultFileName()));
+        try (BufferedReader resultReader = minioService.downloadFile(job.resultFileName())) {
+            List<String> lines = resultReader.lines().toList();
+            assertEquals(verdictCount + 1, lines.size());
+            assertTrue(lines.getLast().startsWith("{\"summary\""));
+        }
+    }
+}
@@ -7,15 +7,17 @@ import tech.mayanksoni.safebrowsing.services.MinioService;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 @Primary
 public class MockMinioService extends MinioService {
 
     private static final String TEST_CSV_CONTENT = "1,example.com\n2,example.org\n3,example.net";
-    private final Map<String, String> fileContents = new HashMap<>();
+    private final Map<String, byte[]> fileContents = new ConcurrentHashMap<>();
 
     public MockMinioService() {
         super(null, null); // Pass null for required dependencies
@@ -24,19 +26,40 @@ public class MockMinioService extends MinioService {
     @Override
     public void uploadFile(String fileName, java.io.InputStream inputStream) {
         try {
-            // Read the input stream and store it in the map
-            byte[] bytes = inputStream.readAllBytes();
-            fileContents.put(fileName, new String(bytes));
+            // Read the input stream and store it in the map as is, so binary files round-trip
+            fileContents.put(fileName, inputStream.readAllBytes());
         } catch (IOException e) {
             throw new RuntimeException("Error reading input stream", e);
         }
     }
 
+    @Override
+    public void uploadStream(String fileName, java.io.InputStream inputStream, String contentType) {
+        uploadFile(fileName, inputStream);
+    }
+
     @Override
     public BufferedReader downloadFile(String fileName) {
         // Return the file content from the map, or a default test content if not found
-        String content = fileContents.getOrDefault(fileName, TEST_CSV_CONTENT);
-        return new BufferedReader(new StringReader(content));
+        byte[] content = fileContents.getOrDefault(fileName, TEST_CSV_CONTENT.getBytes(StandardCharsets.UTF_8));
+        return new BufferedReader(new StringReader(new String(content, StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public java.io.InputStream downloadFileAsStream(String fileName) {
+        byte[] content = fileContents.getOrDefault(fileName, TEST_CSV_CONTENT.getBytes(StandardCharsets.UTF_8));
+        return new java.io.ByteArrayInputStream(content);
+    }
+
+    @Override
+    public java.io.InputStream downloadFileAsStream(String fileName, long offset) {
+        java.io.InputStream inputStream = downloadFileAsStream(fileName);
+        try {
+            inputStream.skipNBytes(offset);
+        } catch (IOException e) {
+            throw new RuntimeException("Error skipping to offset " + offset, e);
+        }
+        return inputStream;
     }
 
     @Override
@@ -44,6 +67,16 @@ public class MockMinioService extends MinioService {
         return fileContents.containsKey(fileName);
     }
 
+    @Override
+    public List<String> listFileNames(String prefix) {
+        return fileContents.keySet().stream().filter(fileName -> fileName.startsWith(prefix)).sorted().toList();
+    }
+
+    @Override
+    public void deleteFile(String fileName) {
+        fileContents.remove(fileName);
+    }
+
     // Override initMinioService to do nothing
     @Override
     public void initMinioService() {
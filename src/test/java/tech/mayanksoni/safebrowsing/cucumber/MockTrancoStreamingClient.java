@@ -0,0 +1,30 @@
+package tech.mayanksoni.safebrowsing.cucumber;
+
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import tech.mayanksoni.safebrowsing.clients.TrancoStreamingClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+@Component
+@Primary
+public class MockTrancoStreamingClient extends TrancoStreamingClient {
+
+    private static final String TEST_CSV_CONTENT = "1,example.com\n2,example.org\n3,example.net";
+
+    public MockTrancoStreamingClient() {
+        super(null); // No HTTP calls are made
+    }
+
+    @Override
+    public <T> T streamTrancoTop1MList(String listId, BodyConsumer<T> bodyConsumer) {
+        try {
+            return bodyConsumer.consume(new ByteArrayInputStream(TEST_CSV_CONTENT.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
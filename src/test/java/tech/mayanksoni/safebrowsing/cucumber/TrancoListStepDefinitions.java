@@ -42,7 +42,7 @@ public class TrancoListStepDefinitions {
     @Autowired
     private TrancoHttpClient trancoHttpClient;
     @Autowired
-    private tech.mayanksoni.safebrowsing.services.TrustedDomainDataService trustedDomainDataService;
+    private tech.mayanksoni.safebrowsing.services.TrancoIngestionOrchestrator trancoIngestionOrchestrator;
     private Resource testResource;
     private TrancoDailyFileMetadata testMetadata;
 
@@ -69,18 +69,11 @@ public class TrancoListStepDefinitions {
     }
 
     @When("the system downloads the Tranco list")
-    public void theSystemDownloadsTheTrancoList() throws Exception {
+    public void theSystemDownloadsTheTrancoList() {
         // Since we're using MockMinioService and MockTrancoHttpClient,
         // we don't need to mock their behavior here.
-        // Instead, we'll trigger the PostConstruct method of TrustedDomainDataService
-        // by calling a method on it via reflection (since the methods are private)
-
-        // Call the private postConstructTasks method via reflection
-        java.lang.reflect.Method method =
-                tech.mayanksoni.safebrowsing.services.TrustedDomainDataService.class
-                        .getDeclaredMethod("postConstructTasks");
-        method.setAccessible(true);
-        method.invoke(trustedDomainDataService);
+        // Instead, we'll run the Tranco pipeline directly, which polls the metadata and downloads the list
+        trancoIngestionOrchestrator.runPipeline("test");
     }
 
     @Then("the list should be stored in MinIO")
@@ -117,13 +110,9 @@ public class TrancoListStepDefinitions {
     }
 
     @When("the system processes the Tranco list")
-    public void theSystemProcessesTheTrancoList() throws Exception {
-        // Call the private downloadFromObjectStoreAndUploadToDB method via reflection
-        java.lang.reflect.Method method =
-                tech.mayanksoni.safebrowsing.services.TrustedDomainDataService.class
-                        .getDeclaredMethod("downloadFromObjectStoreAndUploadToDB");
-        method.setAccessible(true);
-        method.invoke(trustedDomainDataService);
+    public void theSystemProcessesTheTrancoList() {
+        // The list is already in MinIO, so the pipeline skips the download and ingests it from the object store
+        trancoIngestionOrchestrator.runPipeline("test");
     }
 
     @Then("the list metadata should be updated with processed status as true")
@@ -0,0 +1,22 @@
+package tech.mayanksoni.safebrowsing.index;
+
+import org.junit.jupiter.api.Test;
+import tech.mayanksoni.safebrowsing.models.ReferenceDomainMatchResult;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static tech.mayanksoni.safebrowsing.index.ReferenceDomainMatcherContractTests.randomLabel;
+import static tech.mayanksoni.safebrowsing.index.ReferenceDomainMatcherContractTests.referenceDomains;
+
+class BKTreeIndexTests {
+    @Test
+    void skipsSubtreesOutsideTheTriangleInequalityBound() {
+        Random random = new Random(20240602L);
+        String[] ownerDomains = IntStream.range(0, 5_000).mapToObj(i -> randomLabel(random)).distinct().toArray(String[]::new);
+        ReferenceDomainMatchResult matchResult = BKTreeIndex.build(referenceDomains("com", ownerDomains)).findMatches("google", "com", 1);
+
+        assertTrue(matchResult.visitedCandidates() < ownerDomains.length, matchResult.visitedCandidates() + " of " + ownerDomains.length);
+    }
+}
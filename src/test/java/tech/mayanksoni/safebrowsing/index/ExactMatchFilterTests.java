@@ -0,0 +1,68 @@
+package tech.mayanksoni.safebrowsing.index;
+
+import org.junit.jupiter.api.Test;
+import tech.mayanksoni.safebrowsing.models.PossibleReferenceDomain;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static tech.mayanksoni.safebrowsing.index.ReferenceDomainMatcherContractTests.referenceDomains;
+
+class ExactMatchFilterTests {
+    @Test
+    void containsEveryDomainOfTheListUnderItsOwnSuffixOnly() {
+        ExactMatchFilter exactMatchFilter = ExactMatchFilter.build(referenceDomains("com", "google", "amazon"));
+
+        assertTrue(exactMatchFilter.contains("google", "com"));
+        assertTrue(exactMatchFilter.contains("amazon", "com"));
+        assertFalse(exactMatchFilter.contains("google", "org"));
+        assertFalse(exactMatchFilter.contains("gogle", "com"));
+    }
+
+    @Test
+    void keepsTheSuffixBoundaryInTheFingerprint() {
+        ExactMatchFilter exactMatchFilter = ExactMatchFilter.build(referenceDomains("co.uk", "example"));
+
+        assertTrue(exactMatchFilter.contains("example", "co.uk"));
+        assertFalse(exactMatchFilter.contains("example.co", "uk"));
+    }
+
+    @Test
+    void resolvesSlotCollisionsByProbing() {
+        String[] ownerDomains = IntStream.range(0, 50_000).mapToObj(i -> "domain" + i).toArray(String[]::new);
+        ExactMatchFilter exactMatchFilter = ExactMatchFilter.build(referenceDomains("com", ownerDomains));
+
+        assertTrue(IntStream.range(0, 50_000).allMatch(i -> exactMatchFilter.contains("domain" + i, "com")));
+        assertEquals(0, IntStream.range(50_000, 100_000).filter(i -> exactMatchFilter.contains("domain" + i, "com")).count());
+    }
+
+    @Test
+    void ignoresDuplicateDomains() {
+        List<PossibleReferenceDomain> duplicatedDomains = referenceDomains("com", "google", "google", "google");
+        ExactMatchFilter exactMatchFilter = ExactMatchFilter.build(duplicatedDomains);
+
+        assertTrue(exactMatchFilter.contains("google", "com"));
+    }
+
+    @Test
+    void answersTheSameFromAMappedTable() throws IOException {
+        ExactMatchFilter heapFilter = ExactMatchFilter.build(referenceDomains("com", "google", "amazon"));
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        try (DataOutputStream tableOutput = new DataOutputStream(table)) {
+            heapFilter.writeTo(tableOutput);
+        }
+
+        ExactMatchFilter mappedFilter = ExactMatchFilter.map(ByteBuffer.wrap(table.toByteArray()));
+
+        assertTrue(mappedFilter.contains("google", "com"));
+        assertTrue(mappedFilter.contains("amazon", "com"));
+        assertFalse(mappedFilter.contains("apple", "com"));
+    }
+}
@@ -0,0 +1,67 @@
+package tech.mayanksoni.safebrowsing.index;
+
+import org.junit.jupiter.api.Test;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.models.ReferenceDomainMatchResult;
+import tech.mayanksoni.safebrowsing.models.TrancoProvidedDomainEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static tech.mayanksoni.safebrowsing.index.ReferenceDomainMatcherContractTests.REFERENCE_DOMAINS;
+import static tech.mayanksoni.safebrowsing.index.ReferenceDomainMatcherContractTests.distancesByReferenceDomain;
+import static tech.mayanksoni.safebrowsing.index.ReferenceDomainMatcherContractTests.randomLabel;
+import static tech.mayanksoni.safebrowsing.index.ReferenceDomainMatcherContractTests.referenceDomains;
+
+class LevenshteinAutomatonIndexTests {
+    @Test
+    void findsFirstCharacterTyposThatTheBucketPrefilterMisses() {
+        assertEquals(Map.of("amazon", 1), distancesByReferenceDomain(LevenshteinAutomatonIndex.build(REFERENCE_DOMAINS).findMatches("xamazon", "com", 1)));
+        assertTrue(index(MatchingEngineType.BUCKET_SCAN).findMatches("foogle", "com", 1).matches().isEmpty());
+    }
+
+    @Test
+    void prunesSubtreesOnceTheAutomatonDies() {
+        Random random = new Random(20240606L);
+        String[] ownerDomains = IntStream.range(0, 5_000).mapToObj(i -> randomLabel(random)).distinct().toArray(String[]::new);
+        ReferenceDomainMatchResult matchResult = LevenshteinAutomatonIndex.build(referenceDomains("com", ownerDomains)).findMatches("google", "com", 1);
+
+        assertTrue(matchResult.visitedCandidates() < ownerDomains.length);
+    }
+
+    @Test
+    void aSharedWalkFindsWhatAWalkPerDomainFinds() {
+        Random random = new Random(20240608L);
+        String[] ownerDomains = IntStream.range(0, 2_000).mapToObj(i -> randomLabel(random)).distinct().toArray(String[]::new);
+        LevenshteinAutomatonIndex randomIndex = LevenshteinAutomatonIndex.build(referenceDomains("com", ownerDomains));
+        List<String> queries = IntStream.range(0, 50).mapToObj(i -> randomLabel(random)).toList();
+
+        List<ReferenceDomainMatchResult> sharedMatchResults = randomIndex.findAllMatches(queries, "com", 2);
+
+        assertEquals(queries.size(), sharedMatchResults.size());
+        for (int query = 0; query < queries.size(); query++) {
+            ReferenceDomainMatchResult soloMatchResult = randomIndex.findMatches(queries.get(query), "com", 2);
+            assertEquals(distancesByReferenceDomain(soloMatchResult), distancesByReferenceDomain(sharedMatchResults.get(query)), queries.get(query));
+            assertEquals(soloMatchResult.visitedCandidates(), sharedMatchResults.get(query).visitedCandidates(), queries.get(query));
+        }
+    }
+
+    @Test
+    void isTheDefaultMatchingEngine() {
+        assertEquals(MatchingEngineType.LEVENSHTEIN_AUTOMATON, index(null).getMatchingEngineType());
+        assertEquals(Map.of("google", 1), distancesByReferenceDomain(index(null).findMatches("foogle", "com", 1)));
+    }
+
+    private static ReferenceDomainIndex index(MatchingEngineType matchingEngine) {
+        SafeBrowsignConfig safeBrowsignConfig = matchingEngine == null
+                ? SafeBrowsignConfig.builder().build()
+                : SafeBrowsignConfig.builder().matchingEngine(matchingEngine).build();
+        return ReferenceDomainIndex.build("list", safeBrowsignConfig, REFERENCE_DOMAINS.stream()
+                .map(domain -> new TrancoProvidedDomainEntity(null, domain.domainRank(), domain.ownerDomain(), "list", domain.registrySuffix(),
+                        domain.ownerDomain().charAt(0), domain.ownerDomainLength(), null, null, null)));
+    }
+}
@@ -0,0 +1,65 @@
+package tech.mayanksoni.safebrowsing.index;
+
+import org.junit.jupiter.api.Test;
+import tech.mayanksoni.safebrowsing.models.PhoneticMatchRecordForDomain;
+import tech.mayanksoni.safebrowsing.models.PhoneticModel;
+import tech.mayanksoni.safebrowsing.models.PossibleReferenceDomain;
+import tech.mayanksoni.safebrowsing.utils.DomainUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PhoneticIndexTests {
+    private static final PhoneticIndex PHONETIC_INDEX = PhoneticIndex.build(List.of(
+            referenceDomain("com", "facebook", 3),
+            referenceDomain("com", "google", 1),
+            referenceDomain("com", "amazon", 2),
+            referenceDomain("net", "facebook", 40)
+    ));
+
+    private static PossibleReferenceDomain referenceDomain(String registrySuffix, String ownerDomain, long rank) {
+        PhoneticModel phoneticModel = DomainUtils.encodePhoneticModel(ownerDomain);
+        return new PossibleReferenceDomain(registrySuffix, ownerDomain, ownerDomain.length(), rank, phoneticModel.soundexCode(), phoneticModel.metaphoneCode(), phoneticModel.doubleMetaphoneCode());
+    }
+
+    private static Map<String, Integer> matchingCodesByReferenceDomain(String privateDomain, String registrySuffix, int minimumMatchingCodes) {
+        return PHONETIC_INDEX.findMatches(privateDomain, registrySuffix, DomainUtils.encodePhoneticModel(privateDomain), minimumMatchingCodes).stream()
+                .collect(Collectors.toMap(PhoneticMatchRecordForDomain::referenceDomain, PhoneticMatchRecordForDomain::matchingPhoneticCodes));
+    }
+
+    @Test
+    void countsTheCodesADomainSharesWithEachReferenceDomain() {
+        assertEquals(Map.of("google", 3), matchingCodesByReferenceDomain("guugle", "com", 2));
+        assertEquals(Map.of("facebook", 2), matchingCodesByReferenceDomain("phasebook", "com", 2));
+    }
+
+    @Test
+    void dropsMatchesBelowTheMinimumNumberOfCodes() {
+        assertTrue(matchingCodesByReferenceDomain("phasebook", "com", 3).isEmpty());
+    }
+
+    @Test
+    void onlyLooksUpTheRegistrySuffixOfTheQuery() {
+        List<PhoneticMatchRecordForDomain> matches = PHONETIC_INDEX.findMatches("phasebook", "net", DomainUtils.encodePhoneticModel("phasebook"), 2);
+
+        assertEquals(1, matches.size());
+        assertEquals(40, matches.getFirst().referenceDomainRank());
+        assertTrue(matchingCodesByReferenceDomain("guugle", "org", 1).isEmpty());
+    }
+
+    @Test
+    void neverMatchesTheDomainItself() {
+        assertTrue(matchingCodesByReferenceDomain("google", "com", 1).isEmpty());
+    }
+
+    @Test
+    void skipsReferenceDomainsWithoutPhoneticCodes() {
+        PhoneticIndex withoutCodes = PhoneticIndex.build(List.of(new PossibleReferenceDomain("com", "google", 6, 1, null, null, null)));
+
+        assertTrue(withoutCodes.findMatches("guugle", "com", DomainUtils.encodePhoneticModel("guugle"), 1).isEmpty());
+    }
+}
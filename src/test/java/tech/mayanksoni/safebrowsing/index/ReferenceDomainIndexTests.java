@@ -0,0 +1,62 @@
+package tech.mayanksoni.safebrowsing.index;
+
+import org.junit.jupiter.api.Test;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.models.PossibleReferenceDomain;
+import tech.mayanksoni.safebrowsing.models.ReferenceDomainMatchResult;
+import tech.mayanksoni.safebrowsing.models.TrancoProvidedDomainEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static tech.mayanksoni.safebrowsing.index.ReferenceDomainMatcherContractTests.distancesByReferenceDomain;
+
+class ReferenceDomainIndexTests {
+    private static final ReferenceDomainIndex BUCKET_SCAN_INDEX = index(SafeBrowsignConfig.builder().matchingEngine(MatchingEngineType.BUCKET_SCAN).build(),
+            "google.com", "goggle.com", "googleapis.com", "gle.com", "amazon.com", "google.org");
+
+    static ReferenceDomainIndex index(SafeBrowsignConfig safeBrowsignConfig, String... domains) {
+        return ReferenceDomainIndex.build("list", safeBrowsignConfig, Stream.of(domains).map(ReferenceDomainIndexTests::entity));
+    }
+
+    static TrancoProvidedDomainEntity entity(String domain) {
+        String ownerDomain = domain.substring(0, domain.indexOf('.'));
+        String registrySuffix = domain.substring(domain.indexOf('.') + 1);
+        return new TrancoProvidedDomainEntity(null, 1, ownerDomain, "list", registrySuffix, ownerDomain.charAt(0), ownerDomain.length(), null, null, null);
+    }
+
+    @Test
+    void retrievesOnlyTheBucketsOfTheSuffixFirstCharacterAndLengthWindow() {
+        List<String> candidates = BUCKET_SCAN_INDEX.getPossibleReferenceDomains(5, 7, 'g', "com").stream().map(PossibleReferenceDomain::ownerDomain).sorted().toList();
+
+        assertEquals(List.of("goggle", "google"), candidates);
+        assertTrue(BUCKET_SCAN_INDEX.getPossibleReferenceDomains(5, 7, 'g', "net").isEmpty());
+    }
+
+    @Test
+    void bucketScanComparesTheDomainAgainstItsCandidateWindowOnly() {
+        ReferenceDomainMatchResult matchResult = BUCKET_SCAN_INDEX.findMatches("gogle", "com", 1);
+
+        assertEquals(Map.of("google", 1, "goggle", 1), distancesByReferenceDomain(matchResult));
+        assertEquals(2, matchResult.visitedCandidates());
+    }
+
+    @Test
+    void answersExactMatchesPerRegistrySuffix() {
+        assertTrue(BUCKET_SCAN_INDEX.containsExactMatch("google", "org"));
+        assertFalse(BUCKET_SCAN_INDEX.containsExactMatch("amazon", "org"));
+        assertEquals(6, BUCKET_SCAN_INDEX.getSize());
+    }
+
+    @Test
+    void fallsBackToTheBucketScanWhenTheMatcherExceedsItsMemoryCap() {
+        ReferenceDomainIndex cappedIndex = index(SafeBrowsignConfig.builder().matchingEngine(MatchingEngineType.SYMSPELL).symSpellMemoryCapInMb(0).build(), "google.com", "amazon.com");
+
+        assertEquals(MatchingEngineType.BUCKET_SCAN, cappedIndex.getMatchingEngineType());
+        assertEquals(Map.of("google", 1), distancesByReferenceDomain(cappedIndex.findMatches("gogle", "com", 1)));
+    }
+}
@@ -0,0 +1,114 @@
+package tech.mayanksoni.safebrowsing.index;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import tech.mayanksoni.safebrowsing.models.EditDistanceRecordForDomain;
+import tech.mayanksoni.safebrowsing.models.PossibleReferenceDomain;
+import tech.mayanksoni.safebrowsing.models.ReferenceDomainMatchResult;
+import tech.mayanksoni.safebrowsing.utils.EditDistanceUtil;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Behaviour every fuzzy {@link ReferenceDomainMatcher} shares. The bucket scan is left out because its first-character
+ * and length prefilter deliberately misses some of these matches; it is covered by {@link ReferenceDomainIndexTests}.
+ */
+class ReferenceDomainMatcherContractTests {
+    static final List<PossibleReferenceDomain> REFERENCE_DOMAINS = referenceDomains("com", "google", "facebook", "amazon", "apple", "github", "gitlab");
+
+    static List<PossibleReferenceDomain> referenceDomains(String registrySuffix, String... ownerDomains) {
+        return IntStream.range(0, ownerDomains.length)
+                .mapToObj(rank -> new PossibleReferenceDomain(registrySuffix, ownerDomains[rank], ownerDomains[rank].length(), rank + 1, null, null, null))
+                .toList();
+    }
+
+    static Map<String, Integer> distancesByReferenceDomain(ReferenceDomainMatchResult matchResult) {
+        return matchResult.matches().stream().collect(Collectors.toMap(EditDistanceRecordForDomain::referenceDomain, EditDistanceRecordForDomain::editDistance));
+    }
+
+    static String randomLabel(Random random) {
+        int length = 3 + random.nextInt(6);
+        StringBuilder label = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            label.append("abcdeo0".charAt(random.nextInt(7)));
+        }
+        return label.toString();
+    }
+
+    private static ReferenceDomainMatcher build(MatchingEngineType matchingEngine, List<PossibleReferenceDomain> referenceDomains) {
+        return switch (matchingEngine) {
+            case BK_TREE -> BKTreeIndex.build(referenceDomains);
+            case SYMSPELL -> SymSpellIndex.build(referenceDomains, 2, Long.MAX_VALUE);
+            case LEVENSHTEIN_AUTOMATON -> LevenshteinAutomatonIndex.build(referenceDomains);
+            case BUCKET_SCAN -> throw new IllegalArgumentException("The bucket scan is not a standalone matcher");
+        };
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = MatchingEngineType.class, names = {"BK_TREE", "SYMSPELL", "LEVENSHTEIN_AUTOMATON"})
+    void findsDeletionsInsertionsAndSubstitutions(MatchingEngineType matchingEngine) {
+        ReferenceDomainMatcher matcher = build(matchingEngine, REFERENCE_DOMAINS);
+
+        assertEquals(Map.of("google", 1), distancesByReferenceDomain(matcher.findMatches("gogle", "com", 1)));
+        assertEquals(Map.of("google", 1), distancesByReferenceDomain(matcher.findMatches("gooogle", "com", 1)));
+        assertEquals(Map.of("amazon", 1), distancesByReferenceDomain(matcher.findMatches("amaz0n", "com", 1)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = MatchingEngineType.class, names = {"BK_TREE", "SYMSPELL", "LEVENSHTEIN_AUTOMATON"})
+    void findsTranspositionsAsTwoEdits(MatchingEngineType matchingEngine) {
+        ReferenceDomainMatcher matcher = build(matchingEngine, REFERENCE_DOMAINS);
+
+        assertEquals(Map.of("facebook", 2), distancesByReferenceDomain(matcher.findMatches("faecbook", "com", 2)));
+        assertTrue(matcher.findMatches("faecbook", "com", 1).matches().isEmpty());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = MatchingEngineType.class, names = {"BK_TREE", "SYMSPELL", "LEVENSHTEIN_AUTOMATON"})
+    void findsFirstCharacterEdits(MatchingEngineType matchingEngine) {
+        ReferenceDomainMatcher matcher = build(matchingEngine, REFERENCE_DOMAINS);
+
+        assertEquals(Map.of("google", 1), distancesByReferenceDomain(matcher.findMatches("foogle", "com", 1)));
+        assertEquals(Map.of("apple", 1), distancesByReferenceDomain(matcher.findMatches("pple", "com", 1)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = MatchingEngineType.class, names = {"BK_TREE", "SYMSPELL", "LEVENSHTEIN_AUTOMATON"})
+    void includesMatchesAtTheThresholdAndExcludesThoseBeyondIt(MatchingEngineType matchingEngine) {
+        ReferenceDomainMatcher matcher = build(matchingEngine, REFERENCE_DOMAINS);
+
+        assertEquals(Map.of("github", 2, "gitlab", 0), distancesByReferenceDomain(matcher.findMatches("gitlab", "com", 2)));
+        assertEquals(Map.of("gitlab", 0), distancesByReferenceDomain(matcher.findMatches("gitlab", "com", 1)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = MatchingEngineType.class, names = {"BK_TREE", "SYMSPELL", "LEVENSHTEIN_AUTOMATON"})
+    void onlySearchesTheRegistrySuffixOfTheQuery(MatchingEngineType matchingEngine) {
+        ReferenceDomainMatcher matcher = build(matchingEngine, REFERENCE_DOMAINS);
+
+        assertTrue(matcher.findMatches("google", "org", 2).matches().isEmpty());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = MatchingEngineType.class, names = {"BK_TREE", "SYMSPELL", "LEVENSHTEIN_AUTOMATON"})
+    void matchesBruteForceOnRandomDomains(MatchingEngineType matchingEngine) {
+        Random random = new Random(20240602L);
+        String[] ownerDomains = IntStream.range(0, 2_000).mapToObj(i -> randomLabel(random)).distinct().toArray(String[]::new);
+        ReferenceDomainMatcher randomMatcher = build(matchingEngine, referenceDomains("com", ownerDomains));
+        for (int i = 0; i < 200; i++) {
+            String query = randomLabel(random);
+            Set<String> expected = Set.of(ownerDomains).stream()
+                    .filter(ownerDomain -> EditDistanceUtil.computeLevenshteinDistance(query, ownerDomain) <= 2)
+                    .collect(Collectors.toSet());
+            assertEquals(expected, distancesByReferenceDomain(randomMatcher.findMatches(query, "com", 2)).keySet(), query);
+        }
+    }
+}
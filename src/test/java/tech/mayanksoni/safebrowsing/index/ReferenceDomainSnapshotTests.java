@@ -0,0 +1,132 @@
+package tech.mayanksoni.safebrowsing.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.models.EditDistanceRecordForDomain;
+import tech.mayanksoni.safebrowsing.models.PhoneticMatchRecordForDomain;
+import tech.mayanksoni.safebrowsing.models.PhoneticModel;
+import tech.mayanksoni.safebrowsing.models.PossibleReferenceDomain;
+import tech.mayanksoni.safebrowsing.models.ReferenceDomainMatchResult;
+import tech.mayanksoni.safebrowsing.models.TrancoProvidedDomainEntity;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReferenceDomainSnapshotTests {
+    private static final SafeBrowsignConfig SAFE_BROWSING_CONFIG = SafeBrowsignConfig.builder().build();
+
+    @TempDir
+    private Path snapshotDirectory;
+
+    @Test
+    void reopensTheIndexFromTheMappedSnapshot() throws IOException {
+        ReferenceDomainIndex referenceDomainIndex = index(500);
+        Path snapshotFile = snapshotDirectory.resolve("reference-index-snapshot-list.bin");
+
+        ReferenceDomainSnapshot.write(snapshotFile, referenceDomainIndex);
+        ReferenceDomainIndex reopenedIndex = ReferenceDomainSnapshot.open(snapshotFile, SAFE_BROWSING_CONFIG);
+
+        assertEquals("snapshot-list", reopenedIndex.getListId());
+        assertEquals(500, reopenedIndex.getSize());
+        assertEquals(sorted(referenceDomainIndex.streamReferenceDomains().toList()), sorted(reopenedIndex.streamReferenceDomains().toList()));
+        assertTrue(reopenedIndex.containsExactMatch("domain42", "co.uk"));
+        assertFalse(reopenedIndex.containsExactMatch("domain42", "com"));
+        assertEquals(referenceDomainIndex.getPossibleReferenceDomains(6, 9, 'd', "com").size(), reopenedIndex.getPossibleReferenceDomains(6, 9, 'd', "com").size());
+        try (Stream<Path> snapshotDirectoryFiles = Files.list(snapshotDirectory)) {
+            assertEquals(List.of(snapshotFile), snapshotDirectoryFiles.toList());
+        }
+    }
+
+    @Test
+    void servesTheTriesAndPhoneticPostingsFromTheMappedSnapshot() throws IOException {
+        SafeBrowsignConfig phoneticConfig = SafeBrowsignConfig.builder().phoneticMatchingEnabled(true).build();
+        ReferenceDomainIndex referenceDomainIndex = index(500, phoneticConfig);
+        Path snapshotFile = snapshotDirectory.resolve("reference-index-snapshot-list.bin");
+
+        ReferenceDomainSnapshot.write(snapshotFile, referenceDomainIndex);
+        ReferenceDomainIndex reopenedIndex = ReferenceDomainSnapshot.open(snapshotFile, phoneticConfig);
+
+        assertEquals(MatchingEngineType.LEVENSHTEIN_AUTOMATON, reopenedIndex.getMatchingEngineType());
+        assertEquals(matchedDomains(referenceDomainIndex.findMatches("domain4", "com", 1)), matchedDomains(reopenedIndex.findMatches("domain4", "com", 1)));
+        assertEquals(List.of("domain42", "domain45", "domain48"), matchedDomains(reopenedIndex.findMatches("domain4x", "co.uk", 1)));
+        PhoneticModel phoneticModel = new PhoneticModel("D550", "TMN", "TMN");
+        assertEquals(phoneticMatches(referenceDomainIndex, phoneticModel), phoneticMatches(reopenedIndex, phoneticModel));
+        assertEquals(167, phoneticMatches(reopenedIndex, phoneticModel).size());
+    }
+
+    @Test
+    void buildsTheConfiguredMatcherFromTheMappedTableWhenTheSnapshotHasNoTries() throws IOException {
+        Path snapshotFile = snapshotDirectory.resolve("reference-index-snapshot-list.bin");
+        ReferenceDomainSnapshot.write(snapshotFile, index(500, SafeBrowsignConfig.builder().matchingEngine(MatchingEngineType.BK_TREE).build()));
+
+        ReferenceDomainIndex reopenedIndex = ReferenceDomainSnapshot.open(snapshotFile, SAFE_BROWSING_CONFIG);
+
+        assertEquals(MatchingEngineType.LEVENSHTEIN_AUTOMATON, reopenedIndex.getMatchingEngineType());
+        assertTrue(matchedDomains(reopenedIndex.findMatches("domain4", "com", 1)).contains("domain40"));
+        assertTrue(reopenedIndex.getPhoneticIndex().isEmpty());
+    }
+
+    @Test
+    void rejectsSnapshotsThatFailTheirChecksum() throws IOException {
+        Path snapshotFile = snapshotDirectory.resolve("reference-index-snapshot-list.bin");
+        ReferenceDomainSnapshot.write(snapshotFile, index(100));
+        byte[] snapshotBytes = Files.readAllBytes(snapshotFile);
+        snapshotBytes[snapshotBytes.length / 2] ^= 0x01;
+        Files.write(snapshotFile, snapshotBytes);
+
+        IOException exception = assertThrows(IOException.class, () -> ReferenceDomainSnapshot.open(snapshotFile, SAFE_BROWSING_CONFIG));
+        assertTrue(exception.getMessage().startsWith("Checksum mismatch"));
+    }
+
+    @Test
+    void rejectsTruncatedSnapshots() throws IOException {
+        Path snapshotFile = snapshotDirectory.resolve("reference-index-snapshot-list.bin");
+        ReferenceDomainSnapshot.write(snapshotFile, index(100));
+        byte[] snapshotBytes = Files.readAllBytes(snapshotFile);
+        Files.write(snapshotFile, Arrays.copyOf(snapshotBytes, snapshotBytes.length - 100));
+
+        assertThrows(IOException.class, () -> ReferenceDomainSnapshot.open(snapshotFile, SAFE_BROWSING_CONFIG));
+    }
+
+    @Test
+    void rejectsFilesThatAreNotSnapshots() throws IOException {
+        Path snapshotFile = Files.writeString(snapshotDirectory.resolve("reference-index-other.bin"), "1,google.com\n");
+
+        assertThrows(IOException.class, () -> ReferenceDomainSnapshot.open(snapshotFile, SAFE_BROWSING_CONFIG));
+    }
+
+    private static ReferenceDomainIndex index(int domains) {
+        return index(domains, SAFE_BROWSING_CONFIG);
+    }
+
+    private static ReferenceDomainIndex index(int domains, SafeBrowsignConfig safeBrowsignConfig) {
+        return ReferenceDomainIndex.build("snapshot-list", safeBrowsignConfig, IntStream.rangeClosed(1, domains)
+                .mapToObj(rank -> new TrancoProvidedDomainEntity(null, rank, "domain" + rank, "snapshot-list", rank % 3 == 0 ? "co.uk" : "com",
+                        'd', ("domain" + rank).length(), rank % 2 == 0 ? "D550" : null, "TMN", "TMN")));
+    }
+
+    private static List<String> matchedDomains(ReferenceDomainMatchResult matchResult) {
+        return matchResult.matches().stream().map(EditDistanceRecordForDomain::referenceDomain).sorted().toList();
+    }
+
+    private static List<String> phoneticMatches(ReferenceDomainIndex referenceDomainIndex, PhoneticModel phoneticModel) {
+        return referenceDomainIndex.getPhoneticIndex().orElseThrow().findMatches("domain", "com", phoneticModel, 3).stream()
+                .map(PhoneticMatchRecordForDomain::referenceDomain).sorted().toList();
+    }
+
+    private static List<PossibleReferenceDomain> sorted(List<PossibleReferenceDomain> referenceDomains) {
+        return referenceDomains.stream().sorted(Comparator.comparingLong(PossibleReferenceDomain::domainRank)).toList();
+    }
+}
@@ -0,0 +1,31 @@
+package tech.mayanksoni.safebrowsing.index;
+
+import org.junit.jupiter.api.Test;
+import tech.mayanksoni.safebrowsing.exceptions.IndexMemoryCapExceeded;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static tech.mayanksoni.safebrowsing.index.ReferenceDomainMatcherContractTests.REFERENCE_DOMAINS;
+
+class SymSpellIndexTests {
+    @Test
+    void generatesEveryDeletionVariantUpToTheMaximum() {
+        assertEquals(Set.of("abc", "bc", "ac", "ab"), SymSpellIndex.generateDeletionVariants("abc", 1));
+        assertEquals(Set.of("abc", "bc", "ac", "ab", "a", "b", "c"), SymSpellIndex.generateDeletionVariants("abc", 2));
+    }
+
+    @Test
+    void capsTheThresholdAtTheIndexedEditDistance() {
+        SymSpellIndex singleEditIndex = SymSpellIndex.build(REFERENCE_DOMAINS, 1, Long.MAX_VALUE);
+
+        assertTrue(singleEditIndex.findMatches("faecbook", "com", 2).matches().isEmpty());
+    }
+
+    @Test
+    void refusesToGrowPastTheMemoryCap() {
+        assertThrows(IndexMemoryCapExceeded.class, () -> SymSpellIndex.build(REFERENCE_DOMAINS, 2, 1_024));
+    }
+}
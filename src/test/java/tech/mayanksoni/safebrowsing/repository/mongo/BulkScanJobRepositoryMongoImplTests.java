@@ -0,0 +1,107 @@
+package tech.mayanksoni.safebrowsing.repository.mongo;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import tech.mayanksoni.safebrowsing.documents.BulkScanJob;
+import tech.mayanksoni.safebrowsing.mapper.BulkScanJobMapperImpl;
+import tech.mayanksoni.safebrowsing.models.BulkScanJobEntity;
+import tech.mayanksoni.safebrowsing.models.BulkScanJobStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Testcontainers
+class BulkScanJobRepositoryMongoImplTests {
+    private static final String JOB_ID = "claimed-job";
+    private static final Duration HEARTBEAT_TIMEOUT = Duration.ofMinutes(2);
+
+    @Container
+    private static final MongoDBContainer MONGO_DB_CONTAINER = new MongoDBContainer(DockerImageName.parse("mongo:7.0.14"));
+    private static MongoClient mongoClient;
+    private static MongoTemplate mongoTemplate;
+    private static BulkScanJobRepositoryMongoImpl repository;
+
+    @BeforeAll
+    static void setUp() {
+        mongoClient = MongoClients.create(MONGO_DB_CONTAINER.getConnectionString());
+        mongoTemplate = new MongoTemplate(mongoClient, "bulk-scan-jobs");
+        repository = new BulkScanJobRepositoryMongoImpl(mongoTemplate, new BulkScanJobMapperImpl());
+    }
+
+    @BeforeEach
+    void createJob() {
+        mongoTemplate.dropCollection(BulkScanJob.class);
+        repository.createJob(JOB_ID, "input.txt", "bulk-scan-results/" + JOB_ID + ".ndjson");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        mongoClient.close();
+    }
+
+    @Test
+    void onlyOneReplicaClaimsAQueuedJob() throws Exception {
+        List<Callable<Boolean>> replicas = IntStream.range(0, 8)
+                .<Callable<Boolean>>mapToObj(replica -> () -> repository.claimJob(JOB_ID, "replica-" + replica, staleHeartbeatBefore()).isPresent())
+                .toList();
+        long claims;
+        try (ExecutorService replicaThreads = Executors.newFixedThreadPool(replicas.size())) {
+            claims = replicaThreads.invokeAll(replicas).stream().filter(BulkScanJobRepositoryMongoImplTests::claimed).count();
+        }
+
+        assertEquals(1, claims);
+        assertTrue(repository.getClaimableJobs(staleHeartbeatBefore()).isEmpty());
+    }
+
+    @Test
+    void anotherReplicaTakesOverOnceTheHeartbeatIsStale() {
+        assertTrue(repository.claimJob(JOB_ID, "replica-a", staleHeartbeatBefore()).isPresent());
+        assertTrue(repository.saveCheckpoint(JOB_ID, "replica-a", 10, 120, 1, 10, 0, 500));
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(JOB_ID)), Update.update("heartbeatOn", Instant.now().minus(HEARTBEAT_TIMEOUT.multipliedBy(2))), BulkScanJob.class);
+
+        assertEquals(List.of(JOB_ID), repository.getClaimableJobs(staleHeartbeatBefore()).stream().map(BulkScanJobEntity::jobId).toList());
+        Optional<Long> resumedFrom = repository.claimJob(JOB_ID, "replica-b", staleHeartbeatBefore()).map(BulkScanJobEntity::checkpointLine);
+        assertEquals(Optional.of(10L), resumedFrom);
+        assertFalse(repository.heartbeat(JOB_ID, "replica-a"));
+        assertFalse(repository.saveCheckpoint(JOB_ID, "replica-a", 20, 240, 2, 20, 0, 900));
+        assertFalse(repository.markJobCompleted(JOB_ID, "replica-a"));
+        assertTrue(repository.markJobCompleted(JOB_ID, "replica-b"));
+        assertEquals(BulkScanJobStatus.COMPLETED, repository.getJob(JOB_ID).orElseThrow().status());
+        assertTrue(repository.claimJob(JOB_ID, "replica-c", staleHeartbeatBefore()).isEmpty());
+    }
+
+    private static Instant staleHeartbeatBefore() {
+        return Instant.now().minus(HEARTBEAT_TIMEOUT);
+    }
+
+    private static boolean claimed(Future<Boolean> claim) {
+        try {
+            return claim.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
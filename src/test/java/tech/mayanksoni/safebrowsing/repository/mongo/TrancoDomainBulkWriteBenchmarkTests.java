@@ -0,0 +1,113 @@
+package tech.mayanksoni.safebrowsing.repository.mongo;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.documents.TrancoFile;
+import tech.mayanksoni.safebrowsing.documents.TrancoProvidedDomain;
+import tech.mayanksoni.safebrowsing.mapper.TrancoDomainMapperImpl;
+import tech.mayanksoni.safebrowsing.models.DomainFeatures;
+import tech.mayanksoni.safebrowsing.models.PhoneticModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the POJO {@code insertAll} write path with the unordered raw-BSON bulk writer at one million rows.
+ * Run with {@code ./gradlew test -Pbenchmark --tests '*BulkWriteBenchmarkTests'}.
+ */
+@Slf4j
+@Testcontainers
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TrancoDomainBulkWriteBenchmarkTests {
+    private static final int ROWS = 1_000_000;
+    private static final int BATCH_SIZE = 10_000;
+    private static final String LIST_ID = "benchmark-list";
+
+    @Container
+    private static final MongoDBContainer MONGO_DB_CONTAINER = new MongoDBContainer(DockerImageName.parse("mongo:7.0.14"));
+    private static MongoClient mongoClient;
+    private static MongoTemplate mongoTemplate;
+    private static List<List<DomainFeatures>> batches;
+
+    @BeforeAll
+    static void setUp() {
+        mongoClient = MongoClients.create(MONGO_DB_CONTAINER.getConnectionString());
+        mongoTemplate = new MongoTemplate(mongoClient, "benchmark");
+        mongoTemplate.save(TrancoFile.builder().id(LIST_ID).listId(LIST_ID).build());
+        batches = new ArrayList<>();
+        for (int start = 1; start <= ROWS; start += BATCH_SIZE) {
+            List<DomainFeatures> batch = new ArrayList<>(BATCH_SIZE);
+            for (int rank = start; rank < start + BATCH_SIZE && rank <= ROWS; rank++) {
+                String privateDomain = "domain" + rank;
+                batch.add(DomainFeatures.builder()
+                        .domainRankFromTranco(rank)
+                        .privateDomain(privateDomain)
+                        .registrySuffix("com")
+                        .phoneticModel(new PhoneticModel("D550", "TMN", "TMN"))
+                        .build());
+            }
+            batches.add(batch);
+        }
+    }
+
+    @AfterAll
+    static void tearDown() {
+        mongoClient.close();
+    }
+
+    @Test
+    void compareInsertAllWithUnorderedBulkWrite() {
+        mongoTemplate.dropCollection(TrancoProvidedDomain.class);
+        long insertAllMillis = time(() -> batches.forEach(TrancoDomainBulkWriteBenchmarkTests::insertAllWithExistenceCheck));
+        assertEquals(ROWS, mongoTemplate.estimatedCount(TrancoProvidedDomain.class));
+
+        mongoTemplate.dropCollection(TrancoDomainRepositoryMongoImpl.domainCollectionName(LIST_ID));
+        TrancoDomainRepositoryMongoImpl repository = new TrancoDomainRepositoryMongoImpl(mongoTemplate, new TrancoDomainMapperImpl(), SafeBrowsignConfig.builder().build(), new MongoIndexManager(mongoTemplate));
+        long bulkWriteMillis = time(() -> batches.forEach(batch -> repository.bulkInsertDomains(LIST_ID, batch)));
+        assertEquals(ROWS, mongoTemplate.estimatedCount(TrancoDomainRepositoryMongoImpl.domainCollectionName(LIST_ID)));
+
+        log.info("Inserted {} rows: insertAll {} ms ({} rows/s), unordered bulk write {} ms ({} rows/s)",
+                ROWS, insertAllMillis, ROWS * 1000L / insertAllMillis, bulkWriteMillis, ROWS * 1000L / bulkWriteMillis);
+    }
+
+    /**
+     * The write path before the bulk writer: an existence check per batch, a UUID per document and {@code insertAll}.
+     */
+    private static void insertAllWithExistenceCheck(List<DomainFeatures> batch) {
+        mongoTemplate.exists(Query.query(Criteria.where("listId").is(LIST_ID)), TrancoFile.class);
+        mongoTemplate.insertAll(batch.stream().map(domainFeatures -> TrancoProvidedDomain.builder()
+                .id(UUID.randomUUID().toString())
+                .domain(domainFeatures.getPrivateDomain())
+                .domainFirstCharacter(domainFeatures.getPrivateDomain().charAt(0))
+                .domainLength(domainFeatures.getPrivateDomain().length())
+                .ownerDomainSoundexCode(domainFeatures.getPhoneticModel().soundexCode())
+                .ownerDomainMetaphoneCode(domainFeatures.getPhoneticModel().metaphoneCode())
+                .ownerDomainDoubleMetaphoneCode(domainFeatures.getPhoneticModel().doubleMetaphoneCode())
+                .domainRank(domainFeatures.getDomainRankFromTranco())
+                .listId(LIST_ID)
+                .registrySuffix(domainFeatures.getRegistrySuffix())
+                .build()).toList());
+    }
+
+    private static long time(Runnable benchmarkedWrites) {
+        long startTime = System.nanoTime();
+        benchmarkedWrites.run();
+        return Math.max(1, (System.nanoTime() - startTime) / 1_000_000);
+    }
+}
@@ -0,0 +1,122 @@
+package tech.mayanksoni.safebrowsing.repository.mongo;
+
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.mapper.TrancoDomainMapperImpl;
+import tech.mayanksoni.safebrowsing.models.DomainFeatures;
+import tech.mayanksoni.safebrowsing.models.PhoneticModel;
+import tech.mayanksoni.safebrowsing.models.PossibleReferenceDomain;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Asserts the query plans of the store lookups on the typosquatting path, so a change to the managed indexes or to
+ * the queries that stops them from being covered fails here instead of showing up as latency.
+ */
+@Testcontainers
+class TrancoDomainQueryPlanTests {
+    private static final String LIST_ID = "query-plan-list";
+
+    @Container
+    private static final MongoDBContainer MONGO_DB_CONTAINER = new MongoDBContainer(DockerImageName.parse("mongo:7.0.14"));
+    private static MongoClient mongoClient;
+    private static MongoTemplate mongoTemplate;
+    private static TrancoDomainRepositoryMongoImpl repository;
+
+    @BeforeAll
+    static void setUp() {
+        mongoClient = MongoClients.create(MONGO_DB_CONTAINER.getConnectionString());
+        mongoTemplate = new MongoTemplate(mongoClient, "query-plan");
+        repository = new TrancoDomainRepositoryMongoImpl(mongoTemplate, new TrancoDomainMapperImpl(), SafeBrowsignConfig.builder().build(), new MongoIndexManager(mongoTemplate));
+        repository.bulkInsertDomains(LIST_ID, IntStream.rangeClosed(1, 2_000)
+                .mapToObj(rank -> DomainFeatures.builder()
+                        .domainRankFromTranco(rank)
+                        .privateDomain((char) ('a' + rank % 26) + "domain" + rank)
+                        .registrySuffix(rank % 2 == 0 ? "com" : "org")
+                        .phoneticModel(new PhoneticModel("A355", "ATMN", "ATMN"))
+                        .build())
+                .toList());
+        repository.buildDomainIndexes(LIST_ID);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        mongoClient.close();
+    }
+
+    @Test
+    void candidateQueryIsCoveredByTheCandidateIndex() {
+        FindIterable<Document> candidateQuery = domainCollection()
+                .find(TrancoDomainRepositoryMongoImpl.candidateFilter(9, 12, 'c', "com"))
+                .projection(TrancoDomainRepositoryMongoImpl.CANDIDATE_PROJECTION);
+
+        assertCoveredBy(MongoIndexManager.CANDIDATE_INDEX_NAME, candidateQuery.explain(ExplainVerbosity.EXECUTION_STATS));
+        List<PossibleReferenceDomain> candidates = repository.getPossibleReferenceDomainsForTyposquattingValidation(LIST_ID, 9, 12, 'c', "com");
+        assertFalse(candidates.isEmpty());
+        assertTrue(candidates.stream().allMatch(candidate -> candidate.ownerDomain().startsWith("c") && candidate.registrySuffix().equals("com")));
+    }
+
+    @Test
+    void exactMatchQueryIsCoveredByTheExactMatchIndex() {
+        FindIterable<Document> exactMatchQuery = domainCollection()
+                .find(TrancoDomainRepositoryMongoImpl.exactMatchFilter("cdomain28", "com"))
+                .projection(TrancoDomainRepositoryMongoImpl.EXACT_MATCH_PROJECTION)
+                .limit(1);
+
+        assertCoveredBy(MongoIndexManager.EXACT_MATCH_INDEX_NAME, exactMatchQuery.explain(ExplainVerbosity.EXECUTION_STATS));
+        assertTrue(repository.containsDomain(LIST_ID, "cdomain28", "com"));
+        assertFalse(repository.containsDomain(LIST_ID, "cdomain28", "org"));
+    }
+
+    @Test
+    void dropsTheIndexesTheManagedIndexesReplace() {
+        String legacyCollectionName = TrancoDomainRepositoryMongoImpl.domainCollectionName("legacy-index-list");
+        IndexOperations legacyIndexes = mongoTemplate.indexOps(legacyCollectionName);
+        legacyIndexes.ensureIndex(new Index().on("registrySuffix", Sort.Direction.ASC).on("domain", Sort.Direction.ASC).named("registrySuffix_domain"));
+
+        new MongoIndexManager(mongoTemplate).ensureDomainIndexes(legacyCollectionName);
+
+        List<String> indexNames = legacyIndexes.getIndexInfo().stream().map(IndexInfo::getName).toList();
+        assertTrue(indexNames.containsAll(List.of(MongoIndexManager.CANDIDATE_INDEX_NAME, MongoIndexManager.EXACT_MATCH_INDEX_NAME)), indexNames::toString);
+        assertFalse(indexNames.contains("registrySuffix_domain"), indexNames::toString);
+    }
+
+    private static MongoCollection<Document> domainCollection() {
+        return mongoTemplate.getCollection(TrancoDomainRepositoryMongoImpl.domainCollectionName(LIST_ID));
+    }
+
+    /**
+     * A covered plan scans the named index and never fetches a document: the winning plan has no FETCH or COLLSCAN
+     * stage and execution examined no documents.
+     */
+    private static void assertCoveredBy(String indexName, Document explainOutput) {
+        String winningPlan = explainOutput.get("queryPlanner", Document.class).get("winningPlan", Document.class).toJson();
+        assertTrue(winningPlan.contains("IXSCAN"), winningPlan);
+        assertTrue(winningPlan.contains(indexName), winningPlan);
+        assertFalse(winningPlan.contains("FETCH"), winningPlan);
+        assertFalse(winningPlan.contains("COLLSCAN"), winningPlan);
+        assertEquals(0, explainOutput.get("executionStats", Document.class).get("totalDocsExamined", Number.class).intValue());
+    }
+}
@@ -0,0 +1,141 @@
+package tech.mayanksoni.safebrowsing.repository.mongo;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.model.Filters;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.documents.TrancoProvidedDomain;
+import tech.mayanksoni.safebrowsing.mapper.TrancoDomainMapperImpl;
+import tech.mayanksoni.safebrowsing.models.DomainFeatures;
+import tech.mayanksoni.safebrowsing.models.PhoneticModel;
+import tech.mayanksoni.safebrowsing.models.TrancoProvidedDomainEntity;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Testcontainers
+class TrancoDomainRepositoryMongoImplTests {
+    @Container
+    private static final MongoDBContainer MONGO_DB_CONTAINER = new MongoDBContainer(DockerImageName.parse("mongo:7.0.14"));
+    private static MongoClient mongoClient;
+    private static MongoTemplate mongoTemplate;
+    private static TrancoDomainRepositoryMongoImpl repository;
+
+    @BeforeAll
+    static void setUp() {
+        mongoClient = MongoClients.create(MONGO_DB_CONTAINER.getConnectionString());
+        mongoTemplate = new MongoTemplate(mongoClient, "domain-repository");
+        repository = new TrancoDomainRepositoryMongoImpl(mongoTemplate, new TrancoDomainMapperImpl(), SafeBrowsignConfig.builder().build(), new MongoIndexManager(mongoTemplate));
+    }
+
+    @BeforeEach
+    void dropCollections() {
+        mongoTemplate.getDb().drop();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        mongoClient.close();
+    }
+
+    @Test
+    void writesDomainsStreamedFromTheActiveSetUnderTheNewListId() {
+        repository.bulkInsertDomains("active-list", domains("active", 50));
+
+        List<TrancoProvidedDomainEntity> retainedDomains;
+        try (Stream<TrancoProvidedDomainEntity> activeDomains = repository.streamDomainsInKeyOrder("active-list")) {
+            retainedDomains = activeDomains.limit(10).toList();
+        }
+        repository.bulkInsertDomainEntities("next-list", retainedDomains);
+
+        assertEquals(10L, countDomains("next-list"));
+        assertEquals(50L, countDomains("active-list"));
+        try (Stream<TrancoProvidedDomainEntity> writtenDomains = repository.streamDomainsByListId("next-list")) {
+            assertTrue(writtenDomains.allMatch(domain -> domain.listId().equals("next-list") && domain.ownerDomainMetaphoneCode().equals("ATMN")));
+        }
+        assertTrue(repository.containsDomain("next-list", retainedDomains.getFirst().domain(), "com"));
+    }
+
+    @Test
+    void purgesTheDomainsRankedAfterACheckpointAlongTheRankIndex() {
+        repository.buildRankIndex("loading-list");
+        repository.bulkInsertDomains("loading-list", domains("loading", 50));
+
+        repository.purgeDomainsAfterRank("loading-list", 10);
+
+        assertEquals(10L, countDomains("loading-list"));
+        String purgePlan = mongoTemplate.getCollection(TrancoDomainRepositoryMongoImpl.domainCollectionName("loading-list"))
+                .find(Filters.gt("domainRank", 10L)).explain().toJson();
+        assertTrue(purgePlan.contains(MongoIndexManager.RANK_INDEX_NAME) && purgePlan.contains("IXSCAN"), purgePlan);
+    }
+
+    @Test
+    void movesTheLegacySharedCollectionIntoOneCollectionPerList() {
+        mongoTemplate.insert(legacyDomains("legacy-a", 30), TrancoProvidedDomain.class);
+        mongoTemplate.insert(legacyDomains("legacy-b", 20), TrancoProvidedDomain.class);
+
+        repository.migrateLegacyDomains();
+
+        assertFalse(mongoTemplate.collectionExists(TrancoProvidedDomain.class));
+        assertEquals(30L, countDomains("legacy-a"));
+        assertEquals(20L, countDomains("legacy-b"));
+        assertTrue(repository.containsDomain("legacy-a", "legacy-a7", "com"));
+        List<String> indexNames = mongoTemplate.indexOps(TrancoDomainRepositoryMongoImpl.domainCollectionName("legacy-b")).getIndexInfo().stream().map(IndexInfo::getName).toList();
+        assertTrue(indexNames.contains(MongoIndexManager.EXACT_MATCH_INDEX_NAME), indexNames.toString());
+    }
+
+    @Test
+    void skipsListsAnInterruptedMigrationAlreadyMoved() {
+        mongoTemplate.insert(legacyDomains("legacy-a", 30), TrancoProvidedDomain.class);
+        repository.bulkInsertDomains("legacy-a", domains("legacy-a", 5));
+
+        repository.migrateLegacyDomains();
+        repository.migrateLegacyDomains();
+
+        assertFalse(mongoTemplate.collectionExists(TrancoProvidedDomain.class));
+        assertEquals(5L, countDomains("legacy-a"));
+    }
+
+    private static long countDomains(String listId) {
+        return mongoTemplate.getCollection(TrancoDomainRepositoryMongoImpl.domainCollectionName(listId)).countDocuments();
+    }
+
+    private static List<DomainFeatures> domains(String prefix, int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(rank -> DomainFeatures.builder()
+                        .domainRankFromTranco(rank)
+                        .privateDomain(prefix + rank)
+                        .registrySuffix("com")
+                        .phoneticModel(new PhoneticModel("A355", "ATMN", "ATMN"))
+                        .build())
+                .toList();
+    }
+
+    private static List<TrancoProvidedDomain> legacyDomains(String listId, int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(rank -> TrancoProvidedDomain.builder()
+                        .domainRank(rank)
+                        .domain(listId + rank)
+                        .listId(listId)
+                        .registrySuffix("com")
+                        .domainFirstCharacter('l')
+                        .domainLength((listId + rank).length())
+                        .build())
+                .toList();
+    }
+}
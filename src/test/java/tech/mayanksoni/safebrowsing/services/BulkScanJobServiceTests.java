@@ -0,0 +1,162 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.cucumber.MockMinioService;
+import tech.mayanksoni.safebrowsing.models.BulkScanJobEntity;
+import tech.mayanksoni.safebrowsing.models.BulkScanJobStatus;
+import tech.mayanksoni.safebrowsing.models.TyposquattingValidationResponse;
+import tech.mayanksoni.safebrowsing.models.dto.DomainTyposquattingValidationRequest;
+import tech.mayanksoni.safebrowsing.repository.BulkScanJobRepository;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkScanJobServiceTests {
+    private static final String JOB_ID = "bulk-job";
+    private static final String INPUT_FILE_NAME = "bulk-input.txt";
+    private static final String RESULT_FILE_NAME = "bulk-scan-results/" + JOB_ID + ".ndjson";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MockMinioService minioService;
+    private BulkScanJobRepository bulkScanJobRepository;
+    private BulkScanJobService bulkScanJobService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        minioService = spy(new MockMinioService());
+        minioService.uploadFile(INPUT_FILE_NAME, new ByteArrayInputStream("alpha.com\nbravo.com\ncharlie.com\ndelta.com\necho.com\n".getBytes(StandardCharsets.UTF_8)));
+        bulkScanJobRepository = mock(BulkScanJobRepository.class);
+        TyposquattingDetectionService typosquattingDetectionService = mock(TyposquattingDetectionService.class);
+        when(typosquattingDetectionService.checkDomainsForTyposquatting(anyList())).thenAnswer(invocation -> invocation.<List<DomainTyposquattingValidationRequest>>getArgument(0).stream()
+                .map(request -> new TyposquattingValidationResponse(false, null, request.getDomain(), false))
+                .toList());
+        SafeBrowsignConfig safeBrowsignConfig = SafeBrowsignConfig.builder().bulkScanJobPartSize(2).bulkScanJobWorkers(1).bulkScanJobHeartbeatTimeout(Duration.ofMinutes(1)).build();
+        bulkScanJobService = new BulkScanJobService(minioService, bulkScanJobRepository, typosquattingDetectionService,
+                new BulkScanService(typosquattingDetectionService, safeBrowsignConfig, objectMapper), safeBrowsignConfig);
+        bulkScanJobService.startJobWorkers();
+        when(bulkScanJobRepository.getClaimableJobs(any())).thenReturn(List.of(job(BulkScanJobStatus.RUNNING)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkScanJobService.stopJobWorkers();
+    }
+
+    @Test
+    void leavesAJobClaimedByAnotherNodeAlone() {
+        when(bulkScanJobRepository.claimJob(eq(JOB_ID), anyString(), any())).thenReturn(Optional.empty());
+
+        bulkScanJobService.resumeUnfinishedJobs();
+
+        verify(bulkScanJobRepository, timeout(5000)).claimJob(eq(JOB_ID), anyString(), any());
+        verify(bulkScanJobRepository, after(300).never()).saveCheckpoint(anyString(), anyString(), anyLong(), anyLong(), anyInt(), anyLong(), anyLong(), anyLong());
+        assertTrue(minioService.listFileNames("bulk-scan-results/").isEmpty());
+    }
+
+    @Test
+    void deletesThePartsOnceMergedAndTimesOnlyTheRun() throws Exception {
+        when(bulkScanJobRepository.claimJob(eq(JOB_ID), anyString(), any())).thenReturn(Optional.of(job(BulkScanJobStatus.RUNNING)));
+        when(bulkScanJobRepository.saveCheckpoint(eq(JOB_ID), anyString(), anyLong(), anyLong(), anyInt(), anyLong(), anyLong(), anyLong())).thenReturn(true);
+        when(bulkScanJobRepository.markJobCompleted(eq(JOB_ID), anyString())).thenReturn(true);
+
+        bulkScanJobService.resumeUnfinishedJobs();
+
+        verify(bulkScanJobRepository, timeout(5000)).markJobCompleted(eq(JOB_ID), anyString());
+        Instant deadline = Instant.now().plusSeconds(5);
+        while (!minioService.listFileNames("bulk-scan-results/" + JOB_ID + "/").isEmpty() && Instant.now().isBefore(deadline)) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of(RESULT_FILE_NAME), minioService.listFileNames("bulk-scan-results/"));
+        try (BufferedReader resultReader = minioService.downloadFile(RESULT_FILE_NAME)) {
+            List<String> lines = resultReader.lines().toList();
+            assertEquals(6, lines.size());
+            JsonNode summary = objectMapper.readTree(lines.getLast()).get("summary");
+            assertEquals(5, summary.get("scannedDomains").asLong());
+            long elapsedMillis = summary.get("elapsedMillis").asLong();
+            assertTrue(elapsedMillis >= 1_000 && elapsedMillis < 60_000, "elapsedMillis " + elapsedMillis);
+        }
+    }
+
+    @Test
+    void stopsWithoutFailingTheJobOnceTheClaimIsLost() {
+        when(bulkScanJobRepository.claimJob(eq(JOB_ID), anyString(), any())).thenReturn(Optional.of(job(BulkScanJobStatus.RUNNING)));
+        when(bulkScanJobRepository.saveCheckpoint(eq(JOB_ID), anyString(), anyLong(), anyLong(), anyInt(), anyLong(), anyLong(), anyLong())).thenReturn(false);
+
+        bulkScanJobService.resumeUnfinishedJobs();
+
+        verify(bulkScanJobRepository, timeout(5000)).saveCheckpoint(eq(JOB_ID), anyString(), anyLong(), anyLong(), anyInt(), anyLong(), anyLong(), anyLong());
+        verify(bulkScanJobRepository, after(300).never()).markJobFailed(anyString(), anyString(), any());
+        verify(bulkScanJobRepository, never()).markJobCompleted(anyString(), anyString());
+    }
+
+    @Test
+    void resumesFromTheByteOffsetOfTheCheckpoint() throws Exception {
+        minioService.uploadFile("bulk-scan-results/" + JOB_ID + "/part-00000.ndjson", new ByteArrayInputStream("{}\n{}\n".getBytes(StandardCharsets.UTF_8)));
+        BulkScanJobEntity checkpointedJob = new BulkScanJobEntity(JOB_ID, INPUT_FILE_NAME, RESULT_FILE_NAME, BulkScanJobStatus.RUNNING, null, null, null, 1_000, 2, 20, 1, 2, 0, null);
+        when(bulkScanJobRepository.claimJob(eq(JOB_ID), anyString(), any())).thenReturn(Optional.of(checkpointedJob));
+        when(bulkScanJobRepository.saveCheckpoint(eq(JOB_ID), anyString(), anyLong(), anyLong(), anyInt(), anyLong(), anyLong(), anyLong())).thenReturn(true);
+        when(bulkScanJobRepository.markJobCompleted(eq(JOB_ID), anyString())).thenReturn(true);
+
+        bulkScanJobService.resumeUnfinishedJobs();
+
+        verify(bulkScanJobRepository, timeout(5000)).markJobCompleted(eq(JOB_ID), anyString());
+        verify(minioService).downloadFileAsStream(INPUT_FILE_NAME, 20);
+        verify(bulkScanJobRepository).saveCheckpoint(eq(JOB_ID), anyString(), eq(4L), eq(42L), eq(2), eq(4L), eq(0L), anyLong());
+        verify(bulkScanJobRepository).saveCheckpoint(eq(JOB_ID), anyString(), eq(5L), eq(51L), eq(3), eq(5L), eq(0L), anyLong());
+        try (BufferedReader resultReader = minioService.downloadFile(RESULT_FILE_NAME)) {
+            assertEquals(6, resultReader.lines().count());
+        }
+    }
+
+    @Test
+    void abortsTheResultUploadWhenAPartCannotBeMerged() throws Exception {
+        when(bulkScanJobRepository.claimJob(eq(JOB_ID), anyString(), any())).thenReturn(Optional.of(job(BulkScanJobStatus.RUNNING)));
+        when(bulkScanJobRepository.saveCheckpoint(eq(JOB_ID), anyString(), anyLong(), anyLong(), anyInt(), anyLong(), anyLong(), anyLong())).thenReturn(true);
+        doThrow(new UncheckedIOException(new IOException("part unavailable"))).when(minioService).downloadFileAsStream("bulk-scan-results/" + JOB_ID + "/part-00001.ndjson");
+
+        bulkScanJobService.resumeUnfinishedJobs();
+
+        verify(bulkScanJobRepository, timeout(5000)).markJobFailed(eq(JOB_ID), anyString(), any());
+        verify(bulkScanJobRepository, never()).markJobCompleted(anyString(), anyString());
+        assertFalse(minioService.isFilePresent(RESULT_FILE_NAME));
+        assertEquals(3, minioService.listFileNames("bulk-scan-results/" + JOB_ID + "/").size());
+    }
+
+    /**
+     * A job submitted a day ago that already ran for a second before it was interrupted.
+     */
+    private static BulkScanJobEntity job(BulkScanJobStatus status) {
+        Instant submittedOn = Instant.now().minus(Duration.ofDays(1));
+        return new BulkScanJobEntity(JOB_ID, INPUT_FILE_NAME, RESULT_FILE_NAME, status, submittedOn.toString(), submittedOn.toString(), null, 1_000, 0, 0, 0, 0, 0, null);
+    }
+}
@@ -0,0 +1,110 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.exceptions.JobLeaseLost;
+import tech.mayanksoni.safebrowsing.models.JobLeaseEntity;
+import tech.mayanksoni.safebrowsing.repository.JobLeaseRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JobLeaseServiceTests {
+    private static final String LEASE_NAME = "tranco-jobs";
+    private static final JobLeaseEntity LEASE = new JobLeaseEntity(LEASE_NAME, "node-a", 7);
+
+    private JobLeaseRepository jobLeaseRepository;
+    private JobLeaseService jobLeaseService;
+
+    @BeforeEach
+    void setUp() {
+        jobLeaseRepository = mock(JobLeaseRepository.class);
+        jobLeaseService = new JobLeaseService(jobLeaseRepository, SafeBrowsignConfig.builder().jobLeaseDuration(Duration.ofMillis(300)).build());
+        jobLeaseService.startLeaseRenewals();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobLeaseService.stopLeaseRenewals();
+    }
+
+    @Test
+    void runsTheJobUnderTheLeaseAndReleasesIt() {
+        when(jobLeaseRepository.tryAcquire(eq(LEASE_NAME), anyString(), any())).thenReturn(Optional.of(LEASE));
+        when(jobLeaseRepository.isHeld(LEASE)).thenReturn(true);
+        when(jobLeaseRepository.renew(eq(LEASE), any())).thenReturn(true);
+
+        boolean ran = jobLeaseService.runExclusively(LEASE_NAME, () -> {
+            jobLeaseService.checkFencingToken();
+            verify(jobLeaseRepository, timeout(1000).atLeastOnce()).renew(eq(LEASE), any());
+        });
+
+        assertTrue(ran);
+        verify(jobLeaseRepository).release(LEASE);
+    }
+
+    @Test
+    void skipsTheJobWhileAnotherNodeHoldsTheLease() {
+        when(jobLeaseRepository.tryAcquire(eq(LEASE_NAME), anyString(), any())).thenReturn(Optional.empty());
+        AtomicBoolean jobRan = new AtomicBoolean();
+
+        assertFalse(jobLeaseService.runExclusively(LEASE_NAME, () -> jobRan.set(true)));
+        assertFalse(jobRan.get());
+        verify(jobLeaseRepository, never()).release(any());
+    }
+
+    @Test
+    void stopsTheJobOnceTheFencingTokenIsSuperseded() {
+        when(jobLeaseRepository.tryAcquire(eq(LEASE_NAME), anyString(), any())).thenReturn(Optional.of(LEASE));
+        when(jobLeaseRepository.isHeld(LEASE)).thenReturn(false);
+        AtomicBoolean activated = new AtomicBoolean();
+
+        assertThrows(JobLeaseLost.class, () -> jobLeaseService.runExclusively(LEASE_NAME, () -> {
+            jobLeaseService.checkFencingToken();
+            activated.set(true);
+        }));
+
+        assertFalse(activated.get());
+        verify(jobLeaseRepository).release(LEASE);
+    }
+
+    @Test
+    void capturedFencingCheckStopsWritersOnOtherThreads() {
+        when(jobLeaseRepository.tryAcquire(eq(LEASE_NAME), anyString(), any())).thenReturn(Optional.of(LEASE));
+        when(jobLeaseRepository.isHeld(LEASE)).thenReturn(false);
+        AtomicReference<Runnable> fencingTokenCheck = new AtomicReference<>();
+        jobLeaseService.runExclusively(LEASE_NAME, () -> fencingTokenCheck.set(jobLeaseService.fencingTokenCheck()));
+
+        try (ExecutorService writer = Executors.newSingleThreadExecutor()) {
+            ExecutionException writerFailure = assertThrows(ExecutionException.class, () -> writer.submit(fencingTokenCheck.get()).get());
+            assertInstanceOf(JobLeaseLost.class, writerFailure.getCause());
+        }
+    }
+
+    @Test
+    void fencingCheckOutsideALeasedJobDoesNothing() {
+        jobLeaseService.checkFencingToken();
+
+        verify(jobLeaseRepository, never()).isHeld(any());
+    }
+}
@@ -0,0 +1,90 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.cucumber.MockMinioService;
+import tech.mayanksoni.safebrowsing.index.ReferenceDomainIndex;
+import tech.mayanksoni.safebrowsing.models.TrancoFileEntity;
+import tech.mayanksoni.safebrowsing.models.TrancoProvidedDomainEntity;
+import tech.mayanksoni.safebrowsing.repository.TrancoListRepository;
+import tech.mayanksoni.safebrowsing.repository.TrancoProvidedDomainRepository;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReferenceDomainIndexServiceTests {
+    private TrancoProvidedDomainRepository trancoProvidedDomainRepository;
+    private TrancoListRepository trancoListRepository;
+    private ReferenceDomainIndexService referenceDomainIndexService;
+
+    @BeforeEach
+    void setUp() {
+        trancoProvidedDomainRepository = mock(TrancoProvidedDomainRepository.class);
+        trancoListRepository = mock(TrancoListRepository.class);
+        SafeBrowsignConfig safeBrowsignConfig = SafeBrowsignConfig.builder().build();
+        ReferenceDomainSnapshotStore referenceDomainSnapshotStore = new ReferenceDomainSnapshotStore(safeBrowsignConfig);
+        referenceDomainIndexService = new ReferenceDomainIndexService(trancoProvidedDomainRepository, trancoListRepository, safeBrowsignConfig,
+                referenceDomainSnapshotStore, new ReferenceIndexArtifactService(new MockMinioService(), referenceDomainSnapshotStore));
+    }
+
+    private void activateList(String listId, String activatedOn, String... ownerDomains) {
+        TrancoFileEntity activeList = new TrancoFileEntity(listId, listId, listId, null, 0, true, false, true, activatedOn, ownerDomains.length, null);
+        when(trancoListRepository.getActiveTrancoList()).thenReturn(Optional.of(activeList));
+        when(trancoListRepository.getFileInformation(listId)).thenReturn(Optional.of(activeList));
+        when(trancoProvidedDomainRepository.streamDomainsByListId(listId)).thenAnswer(invocation -> Stream.of(ownerDomains)
+                .map(ownerDomain -> new TrancoProvidedDomainEntity(null, 1, ownerDomain, listId, "com", ownerDomain.charAt(0), ownerDomain.length(), null, null, null)));
+    }
+
+    @Test
+    void rebuildsTheExactMatchFilterWhenANewListIsActivated() {
+        activateList("list-a", "2026-01-01T00:00:00Z", "google", "amazon");
+        referenceDomainIndexService.loadIndexForActiveList();
+        assertTrue(referenceDomainIndexService.getActiveIndex().orElseThrow().containsExactMatch("google", "com"));
+
+        activateList("list-b", "2026-01-02T00:00:00Z", "amazon", "github");
+        referenceDomainIndexService.loadIndexForActiveList();
+
+        ReferenceDomainIndex activeIndex = referenceDomainIndexService.getActiveIndex().orElseThrow();
+        assertEquals("list-b", activeIndex.getListId());
+        assertFalse(activeIndex.containsExactMatch("google", "com"));
+        assertTrue(activeIndex.containsExactMatch("github", "com"));
+        assertEquals(Optional.of("list-b"), referenceDomainIndexService.getActiveDomainSetId());
+    }
+
+    @Test
+    void followsAnOperatorRollbackToAListItServedBefore() {
+        activateList("list-a", "2026-01-01T00:00:00Z", "google", "amazon");
+        referenceDomainIndexService.loadIndexForActiveList();
+        activateList("list-b", "2026-01-02T00:00:00Z", "amazon", "github");
+        referenceDomainIndexService.loadIndexForActiveList();
+
+        activateList("list-a", "2026-01-03T00:00:00Z", "google", "amazon");
+        referenceDomainIndexService.loadIndexForActiveList();
+
+        ReferenceDomainIndex activeIndex = referenceDomainIndexService.getActiveIndex().orElseThrow();
+        assertEquals("list-a", activeIndex.getListId());
+        assertTrue(activeIndex.containsExactMatch("google", "com"));
+        assertEquals(Optional.of("list-a"), referenceDomainIndexService.getActiveDomainSetId());
+    }
+
+    @Test
+    void ignoresAStaleReadOfTheListItReplaced() {
+        activateList("list-a", "2026-01-01T00:00:00Z", "google", "amazon");
+        referenceDomainIndexService.loadIndexForActiveList();
+        activateList("list-b", "2026-01-02T00:00:00Z", "amazon", "github");
+        referenceDomainIndexService.loadIndexForActiveList();
+
+        activateList("list-a", "2026-01-01T00:00:00Z", "google", "amazon");
+        referenceDomainIndexService.loadIndexForActiveList();
+
+        assertEquals("list-b", referenceDomainIndexService.getActiveIndex().orElseThrow().getListId());
+        assertEquals(Optional.of("list-b"), referenceDomainIndexService.getActiveDomainSetId());
+    }
+}
@@ -0,0 +1,113 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.cucumber.MockMinioService;
+import tech.mayanksoni.safebrowsing.index.ReferenceDomainIndex;
+import tech.mayanksoni.safebrowsing.models.TrancoFileEntity;
+import tech.mayanksoni.safebrowsing.models.TrancoProvidedDomainEntity;
+import tech.mayanksoni.safebrowsing.repository.TrancoListRepository;
+import tech.mayanksoni.safebrowsing.repository.TrancoProvidedDomainRepository;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReferenceIndexArtifactServiceTests {
+    private static final String LIST_ID = "artifact-list";
+
+    @TempDir
+    private Path ingestingNodeDirectory;
+    @TempDir
+    private Path replicaDirectory;
+    private MockMinioService minioService;
+    private TrancoProvidedDomainRepository trancoProvidedDomainRepository;
+    private SafeBrowsignConfig replicaConfig;
+    private ReferenceDomainIndexService replicaIndexService;
+
+    @BeforeEach
+    void setUp() {
+        minioService = new MockMinioService();
+        trancoProvidedDomainRepository = mock(TrancoProvidedDomainRepository.class);
+        TrancoListRepository trancoListRepository = mock(TrancoListRepository.class);
+        when(trancoListRepository.getActiveTrancoList()).thenReturn(Optional.of(new TrancoFileEntity("id", LIST_ID, "domain-set", null, 0, true, false, true, "2026-01-01T00:00:00Z", 100, null)));
+        when(trancoListRepository.getFileInformation(LIST_ID)).thenReturn(Optional.of(new TrancoFileEntity("id", LIST_ID, "domain-set", null, 0, true, false, true, "2026-01-01T00:00:00Z", 100, null)));
+        replicaConfig = SafeBrowsignConfig.builder().indexSnapshotDirectory(replicaDirectory.toString()).build();
+        ReferenceDomainSnapshotStore replicaSnapshotStore = new ReferenceDomainSnapshotStore(replicaConfig);
+        replicaIndexService = new ReferenceDomainIndexService(trancoProvidedDomainRepository, trancoListRepository, replicaConfig,
+                replicaSnapshotStore, new ReferenceIndexArtifactService(minioService, replicaSnapshotStore));
+    }
+
+    @Test
+    void replicaLoadsThePublishedArtifactInsteadOfTheStore() {
+        SafeBrowsignConfig ingestingNodeConfig = SafeBrowsignConfig.builder().indexSnapshotDirectory(ingestingNodeDirectory.toString()).build();
+        ReferenceDomainIndex ingestedIndex = ReferenceDomainIndex.build(LIST_ID, ingestingNodeConfig, domains());
+        new ReferenceIndexArtifactService(minioService, new ReferenceDomainSnapshotStore(ingestingNodeConfig)).publish(ingestedIndex);
+
+        replicaIndexService.loadIndexForActiveList();
+
+        ReferenceDomainIndex replicaIndex = replicaIndexService.getActiveIndex().orElseThrow();
+        assertEquals(LIST_ID, replicaIndex.getListId());
+        assertEquals(ingestedIndex.getSize(), replicaIndex.getSize());
+        assertTrue(replicaIndex.containsExactMatch("domain7", "com"));
+        assertEquals(Optional.of("domain-set"), replicaIndexService.getActiveDomainSetId());
+        assertTrue(Files.exists(replicaDirectory.resolve("reference-index-" + LIST_ID + ".bin")));
+        verify(trancoProvidedDomainRepository, never()).streamDomainsByListId(anyString());
+    }
+
+    @Test
+    void replicaFallsBackToTheStoreWithoutAnArtifact() {
+        when(trancoProvidedDomainRepository.streamDomainsByListId("domain-set")).thenReturn(domains());
+
+        replicaIndexService.loadIndexForActiveList();
+
+        assertEquals(100, replicaIndexService.getActiveIndex().orElseThrow().getSize());
+        verify(trancoProvidedDomainRepository).streamDomainsByListId("domain-set");
+    }
+
+    @Test
+    void keepsServingTheNewerIndexWhenTheActiveListReadLagsBehind() {
+        when(trancoProvidedDomainRepository.streamDomainsByListId("domain-set")).thenReturn(domains());
+        replicaIndexService.loadIndexForActiveList();
+        ReferenceDomainIndex newerIndex = ReferenceDomainIndex.build("newer-list", replicaConfig, domains());
+
+        replicaIndexService.activateIndex(newerIndex, new TrancoFileEntity("newer-id", "newer-list", "newer-list", null, 0, true, false, true, "2026-01-02T00:00:00Z", 100, null));
+        replicaIndexService.loadIndexForActiveList();
+
+        assertEquals("newer-list", replicaIndexService.getActiveIndex().orElseThrow().getListId());
+        assertEquals(Optional.of("newer-list"), replicaIndexService.getActiveDomainSetId());
+        assertTrue(Files.exists(replicaDirectory.resolve("reference-index-newer-list.bin")));
+        verify(trancoProvidedDomainRepository).streamDomainsByListId("domain-set");
+    }
+
+    @Test
+    void deletesTheArtifactsOfEveryOtherList() {
+        minioService.uploadStream("tranco-index-old-list.bin", new ByteArrayInputStream(new byte[]{1}), "application/octet-stream");
+        minioService.uploadStream("tranco-index-" + LIST_ID + ".bin", new ByteArrayInputStream(new byte[]{2}), "application/octet-stream");
+        minioService.uploadStream("tranco-full-old-list.csv", new ByteArrayInputStream(new byte[]{3}), "text/csv");
+
+        new ReferenceIndexArtifactService(minioService, new ReferenceDomainSnapshotStore(replicaConfig)).deleteArtifactsExcept(LIST_ID);
+
+        assertEquals(List.of("tranco-index-" + LIST_ID + ".bin"), minioService.listFileNames("tranco-index-"));
+        assertTrue(minioService.isFilePresent("tranco-full-old-list.csv"));
+    }
+
+    private static Stream<TrancoProvidedDomainEntity> domains() {
+        return IntStream.rangeClosed(1, 100)
+                .mapToObj(rank -> new TrancoProvidedDomainEntity(null, rank, "domain" + rank, "domain-set", "com", 'd', ("domain" + rank).length(), null, null, null));
+    }
+}
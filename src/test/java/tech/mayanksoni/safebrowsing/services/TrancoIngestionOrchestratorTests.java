@@ -0,0 +1,157 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.index.ReferenceDomainIndex;
+import tech.mayanksoni.safebrowsing.models.TrancoDailyFileMetadata;
+import tech.mayanksoni.safebrowsing.models.TrancoFileEntity;
+import tech.mayanksoni.safebrowsing.models.TrancoPipelineRun;
+import tech.mayanksoni.safebrowsing.models.TrancoPipelineStage;
+import tech.mayanksoni.safebrowsing.models.TrancoPipelineStageState;
+import tech.mayanksoni.safebrowsing.models.TrancoPipelineStatus;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TrancoIngestionOrchestratorTests {
+    private static final String LIST_ID = "latest-list";
+    private static final TrancoListLoader.LoadedTrancoList LOADED_LIST = new TrancoListLoader.LoadedTrancoList(LIST_ID, LIST_ID, null, 3, null);
+    private static final ReferenceDomainIndex INDEX = ReferenceDomainIndex.build(LIST_ID, SafeBrowsignConfig.builder().build(), Stream.empty());
+
+    private TrustedDomainDataService trustedDomainDataService;
+    private TrancoListLoader trancoListLoader;
+    private JobLeaseService jobLeaseService;
+    private TrancoIngestionOrchestrator trancoIngestionOrchestrator;
+
+    @BeforeEach
+    void setUp() {
+        trustedDomainDataService = mock(TrustedDomainDataService.class);
+        trancoListLoader = mock(TrancoListLoader.class);
+        jobLeaseService = mock(JobLeaseService.class);
+        when(jobLeaseService.runExclusively(anyString(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return true;
+        });
+        TrancoDailyFileMetadata latestDailyFileMetadata = new TrancoDailyFileMetadata();
+        latestDailyFileMetadata.setListId(LIST_ID);
+        when(trustedDomainDataService.fetchLatestListMetadata()).thenReturn(latestDailyFileMetadata);
+        RetryRegistry retryRegistry = RetryRegistry.of(RetryConfig.custom().maxAttempts(2).waitDuration(Duration.ofMillis(1)).build());
+        trancoIngestionOrchestrator = new TrancoIngestionOrchestrator(trustedDomainDataService, trancoListLoader, jobLeaseService, retryRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        trancoIngestionOrchestrator.stopPipeline();
+    }
+
+    @Test
+    void chainsEveryStageForANewList() {
+        when(trustedDomainDataService.isListInObjectStore(LIST_ID)).thenReturn(false);
+        when(trustedDomainDataService.downloadList(LIST_ID)).thenReturn(Optional.of(LOADED_LIST));
+        when(trancoListLoader.buildIndex(LOADED_LIST)).thenReturn(INDEX);
+
+        TrancoPipelineRun pipelineRun = trancoIngestionOrchestrator.runPipeline("test");
+
+        assertEquals(TrancoPipelineStatus.SUCCEEDED, pipelineRun.status());
+        assertEquals(LIST_ID, pipelineRun.listId());
+        assertTrue(pipelineRun.stages().stream().allMatch(state -> state.status() == TrancoPipelineStatus.SUCCEEDED));
+        assertEquals(0, stage(pipelineRun, TrancoPipelineStage.INGEST).attempts());
+        verify(trustedDomainDataService, never()).ingestList(any());
+        verify(trancoListLoader).activate(LOADED_LIST, INDEX);
+        verify(trustedDomainDataService).deleteExpiredTrancoListFiles();
+        assertEquals(List.of(pipelineRun), trancoIngestionOrchestrator.getPipelineRuns());
+    }
+
+    @Test
+    void ingestsFromTheObjectStoreWhenIngestionFailedDuringTheDownloadAndRetriesTheFailedStage() {
+        TrancoFileEntity unprocessedList = new TrancoFileEntity("id", LIST_ID, LIST_ID, null, 0, false, false, false, null, 0, null);
+        when(trustedDomainDataService.isListInObjectStore(LIST_ID)).thenReturn(false);
+        when(trustedDomainDataService.downloadList(LIST_ID)).thenReturn(Optional.empty());
+        when(trustedDomainDataService.findUnprocessedList()).thenReturn(Optional.of(unprocessedList));
+        when(trustedDomainDataService.ingestList(unprocessedList)).thenThrow(new IllegalStateException("object store unavailable")).thenReturn(LOADED_LIST);
+        when(trancoListLoader.buildIndex(LOADED_LIST)).thenReturn(INDEX);
+
+        TrancoPipelineRun pipelineRun = trancoIngestionOrchestrator.runPipeline("test");
+
+        assertEquals(TrancoPipelineStatus.SUCCEEDED, pipelineRun.status());
+        assertEquals(TrancoPipelineStatus.SUCCEEDED, stage(pipelineRun, TrancoPipelineStage.INGEST).status());
+        assertEquals(2, stage(pipelineRun, TrancoPipelineStage.INGEST).attempts());
+        verify(trancoListLoader).activate(LOADED_LIST, INDEX);
+    }
+
+    @Test
+    void stopsTheChainOnceAStageExhaustsItsRetries() {
+        when(trustedDomainDataService.isListInObjectStore(LIST_ID)).thenReturn(false);
+        when(trustedDomainDataService.downloadList(LIST_ID)).thenReturn(Optional.of(LOADED_LIST));
+        when(trancoListLoader.buildIndex(LOADED_LIST)).thenThrow(new IllegalStateException("out of memory budget"));
+
+        TrancoPipelineRun pipelineRun = trancoIngestionOrchestrator.runPipeline("test");
+
+        assertEquals(TrancoPipelineStatus.FAILED, pipelineRun.status());
+        TrancoPipelineStageState indexBuild = stage(pipelineRun, TrancoPipelineStage.INDEX_BUILD);
+        assertEquals(TrancoPipelineStatus.FAILED, indexBuild.status());
+        assertEquals(2, indexBuild.attempts());
+        assertEquals("out of memory budget", indexBuild.detail());
+        assertEquals(TrancoPipelineStatus.PENDING, stage(pipelineRun, TrancoPipelineStage.ACTIVATE).status());
+        assertEquals(TrancoPipelineStatus.PENDING, stage(pipelineRun, TrancoPipelineStage.PURGE).status());
+        verify(trancoListLoader, never()).activate(any(), any());
+        verify(trustedDomainDataService, never()).deleteExpiredTrancoListFiles();
+    }
+
+    @Test
+    void leavesMetadataRetriesToTheDateShiftRetry() {
+        when(trustedDomainDataService.fetchLatestListMetadata()).thenThrow(new IllegalStateException("no list published in the last 10 days"));
+
+        TrancoPipelineRun pipelineRun = trancoIngestionOrchestrator.runPipeline("test");
+
+        assertEquals(TrancoPipelineStatus.FAILED, pipelineRun.status());
+        assertEquals(1, stage(pipelineRun, TrancoPipelineStage.METADATA_POLL).attempts());
+        verify(trustedDomainDataService).fetchLatestListMetadata();
+        verify(trustedDomainDataService, never()).downloadList(anyString());
+    }
+
+    @Test
+    void onlyPurgesWhenTheLatestListIsAlreadyLive() {
+        when(trustedDomainDataService.isListInObjectStore(LIST_ID)).thenReturn(true);
+        when(trustedDomainDataService.findUnprocessedList()).thenReturn(Optional.empty());
+
+        TrancoPipelineRun pipelineRun = trancoIngestionOrchestrator.runPipeline("test");
+
+        assertEquals(TrancoPipelineStatus.SUCCEEDED, pipelineRun.status());
+        for (TrancoPipelineStage skippedStage : List.of(TrancoPipelineStage.DOWNLOAD, TrancoPipelineStage.INGEST, TrancoPipelineStage.INDEX_BUILD, TrancoPipelineStage.ACTIVATE)) {
+            assertEquals(TrancoPipelineStatus.SKIPPED, stage(pipelineRun, skippedStage).status());
+        }
+        assertEquals(TrancoPipelineStatus.SUCCEEDED, stage(pipelineRun, TrancoPipelineStage.PURGE).status());
+        verify(trustedDomainDataService, never()).downloadList(anyString());
+        verify(trustedDomainDataService).deleteExpiredTrancoListFiles();
+    }
+
+    @Test
+    void skipsEveryStageWhileAnotherNodeHoldsTheLease() {
+        when(jobLeaseService.runExclusively(anyString(), any())).thenReturn(false);
+
+        TrancoPipelineRun pipelineRun = trancoIngestionOrchestrator.runPipeline("test");
+
+        assertEquals(TrancoPipelineStatus.SKIPPED, pipelineRun.status());
+        verify(trustedDomainDataService, never()).fetchLatestListMetadata();
+    }
+
+    private static TrancoPipelineStageState stage(TrancoPipelineRun pipelineRun, TrancoPipelineStage stage) {
+        return pipelineRun.stages().stream().filter(state -> state.stage() == stage).findFirst().orElseThrow();
+    }
+}
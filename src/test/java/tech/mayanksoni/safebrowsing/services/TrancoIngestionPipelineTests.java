@@ -0,0 +1,146 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.cucumber.MockMinioService;
+import tech.mayanksoni.safebrowsing.exceptions.JobLeaseLost;
+import tech.mayanksoni.safebrowsing.models.DomainFeatures;
+import tech.mayanksoni.safebrowsing.models.IngestionCheckpoint;
+import tech.mayanksoni.safebrowsing.models.JobLeaseEntity;
+import tech.mayanksoni.safebrowsing.models.TrancoFileEntity;
+import tech.mayanksoni.safebrowsing.repository.JobLeaseRepository;
+import tech.mayanksoni.safebrowsing.repository.TrancoListRepository;
+import tech.mayanksoni.safebrowsing.repository.TrancoProvidedDomainRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TrancoIngestionPipelineTests {
+    private static final String LIST_ID = "pipeline-list";
+    private static final int ROW_COUNT = 25;
+
+    private String trancoListContent;
+    private MockMinioService minioService;
+    private TrancoQuarantineService trancoQuarantineService;
+    private TrancoProvidedDomainRepository trancoProvidedDomainRepository;
+    private TrancoListRepository trancoListRepository;
+    private JobLeaseRepository jobLeaseRepository;
+    private JobLeaseService jobLeaseService;
+    private ConcurrentLinkedQueue<Long> insertedRanks;
+    private TrancoIngestionPipeline trancoIngestionPipeline;
+
+    @BeforeEach
+    void setUp() {
+        trancoListContent = IntStream.rangeClosed(1, ROW_COUNT)
+                .mapToObj(rank -> rank == 7 ? "x7,malformed.com" : rank + ",domain" + rank + ".com")
+                .collect(Collectors.joining("\n", "", "\n"));
+        minioService = new MockMinioService();
+        trancoListRepository = mock(TrancoListRepository.class);
+        when(trancoListRepository.getFileInformation(anyString())).thenReturn(Optional.of(new TrancoFileEntity("id", LIST_ID, LIST_ID, null, 0, false, false, false, null, 0, null)));
+        trancoProvidedDomainRepository = mock(TrancoProvidedDomainRepository.class);
+        insertedRanks = new ConcurrentLinkedQueue<>();
+        doAnswer(invocation -> insertedRanks.addAll(invocation.<List<DomainFeatures>>getArgument(1).stream().map(DomainFeatures::getDomainRankFromTranco).toList()))
+                .when(trancoProvidedDomainRepository).bulkInsertDomains(anyString(), anyList());
+        SafeBrowsignConfig safeBrowsignConfig = SafeBrowsignConfig.builder().ingestionBatchSize(4).ingestionExtractionWorkers(2).ingestionWriterWorkers(3).build();
+        jobLeaseRepository = mock(JobLeaseRepository.class);
+        jobLeaseService = new JobLeaseService(jobLeaseRepository, safeBrowsignConfig);
+        jobLeaseService.startLeaseRenewals();
+        trancoQuarantineService = new TrancoQuarantineService(minioService);
+        trancoIngestionPipeline = new TrancoIngestionPipeline(trancoProvidedDomainRepository, trancoListRepository, trancoQuarantineService, jobLeaseService, safeBrowsignConfig);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobLeaseService.stopLeaseRenewals();
+    }
+
+    @Test
+    void quarantinesMalformedRowsAndCheckpointsTheWholeFile() throws Exception {
+        TrancoIngestionPipeline.IngestionResult ingestionResult = trancoIngestionPipeline.ingest(LIST_ID, new ByteArrayInputStream(trancoListContent.getBytes(StandardCharsets.US_ASCII)));
+
+        assertEquals(ROW_COUNT, ingestionResult.recordCount());
+        assertEquals(ROW_COUNT - 1, insertedRanks.size());
+        List<String> quarantinedRows = trancoQuarantineService.loadQuarantinedRows(LIST_ID, ROW_COUNT);
+        assertEquals(1, quarantinedRows.size());
+        assertTrue(quarantinedRows.getFirst().contains("line 7"), quarantinedRows.getFirst());
+        verify(trancoProvidedDomainRepository).buildRankIndex(LIST_ID);
+        ArgumentCaptor<IngestionCheckpoint> checkpoints = ArgumentCaptor.forClass(IngestionCheckpoint.class);
+        verify(trancoListRepository, atLeastOnce()).saveIngestionCheckpoint(eq(LIST_ID), checkpoints.capture());
+        assertEquals(new IngestionCheckpoint(ROW_COUNT, trancoListContent.length(), ROW_COUNT, 1), checkpoints.getValue());
+        List<Long> savedLines = checkpoints.getAllValues().stream().map(IngestionCheckpoint::lineNumber).toList();
+        assertEquals(savedLines.stream().sorted().toList(), savedLines);
+    }
+
+    @Test
+    void resumesFromCheckpoint() throws Exception {
+        int resumeOffset = trancoListContent.indexOf("11,domain11.com");
+        IngestionCheckpoint checkpoint = new IngestionCheckpoint(10, resumeOffset, 10, 0);
+
+        TrancoIngestionPipeline.IngestionResult ingestionResult = trancoIngestionPipeline.ingest(LIST_ID,
+                new ByteArrayInputStream(trancoListContent.substring(resumeOffset).getBytes(StandardCharsets.US_ASCII)), checkpoint);
+
+        assertEquals(ROW_COUNT, ingestionResult.recordCount());
+        assertEquals(LongStream.rangeClosed(11, ROW_COUNT).boxed().toList(), insertedRanks.stream().sorted().toList());
+        verify(trancoProvidedDomainRepository, never()).buildRankIndex(anyString());
+    }
+
+    @Test
+    void appendsOnlyTheRowsQuarantinedAfterTheCheckpoint() throws Exception {
+        String listContent = trancoListContent.replace("20,domain20.com", "x20,malformed.com");
+        int resumeOffset = listContent.indexOf("11,domain11.com");
+        trancoQuarantineService.appendQuarantinedRows(LIST_ID, 0, List.of("row seven"));
+        trancoQuarantineService.appendQuarantinedRows(LIST_ID, 1, List.of("left by an interrupted load"));
+
+        trancoIngestionPipeline.ingest(LIST_ID, new ByteArrayInputStream(listContent.substring(resumeOffset).getBytes(StandardCharsets.US_ASCII)), new IngestionCheckpoint(10, resumeOffset, 10, 1));
+
+        List<String> quarantinedRows = trancoQuarantineService.loadQuarantinedRows(LIST_ID, ROW_COUNT);
+        assertEquals(2, quarantinedRows.size());
+        assertEquals("row seven", quarantinedRows.getFirst());
+        assertTrue(quarantinedRows.getLast().contains("line 20"), quarantinedRows.getLast());
+        assertEquals(2, minioService.listFileNames("tranco-quarantine-" + LIST_ID + "/").size());
+        verify(trancoListRepository).saveIngestionCheckpoint(LIST_ID, new IngestionCheckpoint(ROW_COUNT, listContent.length(), ROW_COUNT, 2));
+    }
+
+    @Test
+    void stopsWritingOnceTheLeaseIsTakenOverMidIngestion() {
+        JobLeaseEntity lease = new JobLeaseEntity("tranco-jobs", "node-a", 7);
+        when(jobLeaseRepository.tryAcquire(eq("tranco-jobs"), anyString(), any())).thenReturn(Optional.of(lease));
+        when(jobLeaseRepository.isHeld(lease)).thenReturn(true, true, false);
+
+        assertThrows(JobLeaseLost.class, () -> jobLeaseService.runExclusively("tranco-jobs", () -> {
+            try {
+                trancoIngestionPipeline.ingest(LIST_ID, new ByteArrayInputStream(trancoListContent.getBytes(StandardCharsets.US_ASCII)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+
+        assertTrue(insertedRanks.size() <= 8, insertedRanks.toString());
+        verify(trancoListRepository, never()).saveIngestionCheckpoint(eq(LIST_ID), eq(new IngestionCheckpoint(ROW_COUNT, trancoListContent.length(), ROW_COUNT, 1)));
+    }
+}
@@ -0,0 +1,129 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.exceptions.JobLeaseLost;
+import tech.mayanksoni.safebrowsing.models.DomainFeatures;
+import tech.mayanksoni.safebrowsing.models.TrancoProvidedDomainEntity;
+import tech.mayanksoni.safebrowsing.repository.TrancoProvidedDomainRepository;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TrancoListDeltaApplierTests {
+    private static final String DOMAIN_SET_ID = "previous-list";
+    private static final String LIST_ID = "next-list";
+
+    @Test
+    void writesOnlyTheMergeOutputIntoTheNewDomainSet() throws Exception {
+        TrancoProvidedDomainRepository trancoProvidedDomainRepository = mock(TrancoProvidedDomainRepository.class);
+        when(trancoProvidedDomainRepository.streamDomainsInKeyOrder(DOMAIN_SET_ID)).thenReturn(Stream.of(
+                storedDomain("alpha", "com", 1),
+                storedDomain("bravo", "com", 2),
+                storedDomain("charlie", "com", 3),
+                storedDomain("charlie", "com", 9),
+                storedDomain("delta", "org", 4)
+        ));
+        List<DomainFeatures> insertedDomains = new ArrayList<>();
+        List<TrancoProvidedDomainEntity> retainedDomains = new ArrayList<>();
+        doAnswer(invocation -> insertedDomains.addAll(invocation.getArgument(1)))
+                .when(trancoProvidedDomainRepository).bulkInsertDomains(eq(LIST_ID), anyList());
+        doAnswer(invocation -> retainedDomains.addAll(invocation.getArgument(1)))
+                .when(trancoProvidedDomainRepository).bulkInsertDomainEntities(eq(LIST_ID), anyList());
+        TrancoListDeltaApplier trancoListDeltaApplier = new TrancoListDeltaApplier(trancoProvidedDomainRepository, mock(TrancoQuarantineService.class), mock(JobLeaseService.class), SafeBrowsignConfig.builder().build());
+        String newList = "1,alpha.com\n2,charlie.com\n3,bravo.com\n4,echo.com\n5,alpha.com\n";
+
+        TrancoListDeltaApplier.DeltaResult deltaResult = trancoListDeltaApplier.apply(LIST_ID, DOMAIN_SET_ID, new ByteArrayInputStream(newList.getBytes(StandardCharsets.US_ASCII)));
+
+        assertEquals(5, deltaResult.recordCount());
+        assertEquals(List.of("echo"), insertedDomains.stream().map(DomainFeatures::getPrivateDomain).toList());
+        assertNotNull(insertedDomains.getFirst().getPhoneticModel());
+        assertEquals(List.of("alpha:1", "bravo:3", "charlie:2"), retainedDomains.stream().map(domain -> domain.domain() + ":" + domain.domainRank()).toList());
+        assertTrue(retainedDomains.stream().allMatch(domain -> domain.listId().equals(LIST_ID) && domain.ownerDomainSoundexCode().equals("S")));
+        assertEquals(1, deltaResult.deletedDomains());
+        assertEquals(2, deltaResult.rerankedDomains());
+        assertEquals(LIST_ID, deltaResult.referenceDomainIndex().getListId());
+        assertEquals(4, deltaResult.referenceDomainIndex().getSize());
+        assertTrue(deltaResult.referenceDomainIndex().containsExactMatch("echo", "com"));
+        assertFalse(deltaResult.referenceDomainIndex().containsExactMatch("delta", "org"));
+        InOrder dropThenMerge = inOrder(trancoProvidedDomainRepository);
+        dropThenMerge.verify(trancoProvidedDomainRepository).purgeDomainsByListId(LIST_ID);
+        dropThenMerge.verify(trancoProvidedDomainRepository).streamDomainsInKeyOrder(DOMAIN_SET_ID);
+        verify(trancoProvidedDomainRepository, never()).bulkInsertDomains(eq(DOMAIN_SET_ID), anyList());
+        verify(trancoProvidedDomainRepository, never()).bulkInsertDomainEntities(eq(DOMAIN_SET_ID), anyList());
+        verify(trancoProvidedDomainRepository, never()).purgeDomainsByListId(DOMAIN_SET_ID);
+    }
+
+    @Test
+    void discardsTheNewDomainSetWhenTheDeltaFailsAndLeavesTheActiveSetAlone() {
+        TrancoProvidedDomainRepository trancoProvidedDomainRepository = mock(TrancoProvidedDomainRepository.class);
+        when(trancoProvidedDomainRepository.streamDomainsInKeyOrder(DOMAIN_SET_ID)).thenReturn(Stream.of(storedDomain("alpha", "com", 1)));
+        doThrow(new IllegalStateException("write concern timeout")).when(trancoProvidedDomainRepository).bulkInsertDomains(eq(LIST_ID), anyList());
+        TrancoListDeltaApplier trancoListDeltaApplier = new TrancoListDeltaApplier(trancoProvidedDomainRepository, mock(TrancoQuarantineService.class), mock(JobLeaseService.class), SafeBrowsignConfig.builder().build());
+
+        assertThrows(IllegalStateException.class, () -> trancoListDeltaApplier.apply(LIST_ID, DOMAIN_SET_ID, new ByteArrayInputStream("1,alpha.com\n2,bravo.com\n".getBytes(StandardCharsets.US_ASCII))));
+
+        verify(trancoProvidedDomainRepository, times(2)).purgeDomainsByListId(LIST_ID);
+        verify(trancoProvidedDomainRepository, never()).purgeDomainsByListId(DOMAIN_SET_ID);
+        verify(trancoProvidedDomainRepository, never()).bulkInsertDomains(eq(DOMAIN_SET_ID), anyList());
+        verify(trancoProvidedDomainRepository, never()).bulkInsertDomainEntities(eq(DOMAIN_SET_ID), anyList());
+    }
+
+    @Test
+    void stopsWritingTheNewDomainSetOnceTheLeaseIsTakenOver() {
+        TrancoProvidedDomainRepository trancoProvidedDomainRepository = mock(TrancoProvidedDomainRepository.class);
+        when(trancoProvidedDomainRepository.streamDomainsInKeyOrder(DOMAIN_SET_ID)).thenReturn(Stream.of(storedDomain("alpha", "com", 1)));
+        JobLeaseService jobLeaseService = mock(JobLeaseService.class);
+        doNothing().doThrow(new JobLeaseLost("Lease tranco-jobs with fencing token 7 is no longer held")).when(jobLeaseService).checkFencingToken();
+        TrancoListDeltaApplier trancoListDeltaApplier = new TrancoListDeltaApplier(trancoProvidedDomainRepository, mock(TrancoQuarantineService.class), jobLeaseService, SafeBrowsignConfig.builder().build());
+
+        assertThrows(JobLeaseLost.class, () -> trancoListDeltaApplier.apply(LIST_ID, DOMAIN_SET_ID, new ByteArrayInputStream("1,alpha.com\n2,bravo.com\n".getBytes(StandardCharsets.US_ASCII))));
+
+        verify(trancoProvidedDomainRepository, never()).bulkInsertDomainEntities(anyString(), anyList());
+        verify(trancoProvidedDomainRepository, never()).bulkInsertDomains(anyString(), anyList());
+        verify(trancoProvidedDomainRepository).purgeDomainsByListId(anyString());
+    }
+
+    @Test
+    void readsTheListInBatchesOfTheIngestionBatchSize() throws Exception {
+        TrancoProvidedDomainRepository trancoProvidedDomainRepository = mock(TrancoProvidedDomainRepository.class);
+        when(trancoProvidedDomainRepository.streamDomainsInKeyOrder(DOMAIN_SET_ID)).thenReturn(Stream.empty());
+        TrancoListDeltaApplier trancoListDeltaApplier = new TrancoListDeltaApplier(trancoProvidedDomainRepository, mock(TrancoQuarantineService.class), mock(JobLeaseService.class),
+                SafeBrowsignConfig.builder().ingestionBatchSize(3).build());
+        String newList = IntStream.rangeClosed(1, 10).mapToObj(rank -> rank + ",domain" + rank + ".com").collect(Collectors.joining("\n", "", "\n"));
+
+        TrancoListDeltaApplier.DeltaResult deltaResult = trancoListDeltaApplier.apply(LIST_ID, DOMAIN_SET_ID, new ByteArrayInputStream(newList.getBytes(StandardCharsets.US_ASCII)));
+
+        assertEquals(10, deltaResult.recordCount());
+        assertEquals(10, deltaResult.insertedDomains());
+        assertEquals(10, deltaResult.referenceDomainIndex().getSize());
+    }
+
+    private static TrancoProvidedDomainEntity storedDomain(String domain, String registrySuffix, long domainRank) {
+        return new TrancoProvidedDomainEntity(null, domainRank, domain, DOMAIN_SET_ID, registrySuffix, domain.charAt(0), domain.length(), "S", "M", "D");
+    }
+}
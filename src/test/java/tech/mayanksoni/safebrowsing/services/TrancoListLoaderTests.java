@@ -0,0 +1,68 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.index.ReferenceDomainIndex;
+import tech.mayanksoni.safebrowsing.models.TrancoFileEntity;
+import tech.mayanksoni.safebrowsing.repository.TrancoListRepository;
+import tech.mayanksoni.safebrowsing.repository.TrancoProvidedDomainRepository;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TrancoListLoaderTests {
+    private static final String LIST_ID = "next-list";
+    private static final TrancoListLoader.LoadedTrancoList LOADED_LIST = new TrancoListLoader.LoadedTrancoList(LIST_ID, LIST_ID, null, 3, null);
+    private static final TrancoFileEntity ACTIVATED_LIST = new TrancoFileEntity("id", LIST_ID, LIST_ID, null, 0, true, false, true, "2026-01-01T00:00:00Z", 3, null);
+    private static final ReferenceDomainIndex INDEX = ReferenceDomainIndex.build(LIST_ID, SafeBrowsignConfig.builder().build(), Stream.empty());
+
+    private TrancoListRepository trancoListRepository;
+    private TrancoProvidedDomainRepository trancoProvidedDomainRepository;
+    private ReferenceDomainIndexService referenceDomainIndexService;
+    private TrancoListLoader trancoListLoader;
+
+    @BeforeEach
+    void setUp() {
+        trancoListRepository = mock(TrancoListRepository.class);
+        trancoProvidedDomainRepository = mock(TrancoProvidedDomainRepository.class);
+        referenceDomainIndexService = mock(ReferenceDomainIndexService.class);
+        trancoListLoader = new TrancoListLoader(mock(TrancoIngestionPipeline.class), mock(TrancoListDeltaApplier.class), trancoListRepository, trancoProvidedDomainRepository,
+                referenceDomainIndexService, mock(ReferenceIndexArtifactService.class), mock(JobLeaseService.class), SafeBrowsignConfig.builder().build());
+    }
+
+    @Test
+    void buildsTheDomainIndexesBeforeFlaggingTheListProcessedAndActive() {
+        when(trancoListRepository.activateTrancoList(LIST_ID, 3)).thenReturn(ACTIVATED_LIST);
+
+        trancoListLoader.activate(LOADED_LIST, INDEX);
+
+        InOrder indexThenActivate = inOrder(trancoProvidedDomainRepository, trancoListRepository, referenceDomainIndexService);
+        indexThenActivate.verify(trancoProvidedDomainRepository).buildDomainIndexes(LIST_ID);
+        indexThenActivate.verify(trancoListRepository).activateTrancoList(LIST_ID, 3);
+        indexThenActivate.verify(referenceDomainIndexService).activateIndex(INDEX, ACTIVATED_LIST);
+    }
+
+    @Test
+    void leavesTheListUnprocessedWhenItsIndexesCannotBeBuilt() {
+        doThrow(new IllegalStateException("index build interrupted")).when(trancoProvidedDomainRepository).buildDomainIndexes(LIST_ID);
+
+        assertThrows(IllegalStateException.class, () -> trancoListLoader.activate(LOADED_LIST, INDEX));
+
+        verify(trancoListRepository, never()).activateTrancoList(anyString(), anyLong());
+        verify(trancoListRepository, never()).updateTrancoFile(anyString(), anyBoolean(), anyLong());
+        verify(referenceDomainIndexService, never()).activateIndex(any(), any());
+    }
+}
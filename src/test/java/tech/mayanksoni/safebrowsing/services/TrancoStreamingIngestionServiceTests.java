@@ -0,0 +1,132 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+import tech.mayanksoni.safebrowsing.clients.TrancoStreamingClient;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.cucumber.MockMinioService;
+import tech.mayanksoni.safebrowsing.index.ReferenceDomainIndex;
+import tech.mayanksoni.safebrowsing.models.DomainFeatures;
+import tech.mayanksoni.safebrowsing.models.TrancoFileEntity;
+import tech.mayanksoni.safebrowsing.repository.JobLeaseRepository;
+import tech.mayanksoni.safebrowsing.repository.TrancoListRepository;
+import tech.mayanksoni.safebrowsing.repository.TrancoProvidedDomainRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TrancoStreamingIngestionServiceTests {
+    private static final String LIST_ID = "stub-list";
+    private static final int DOMAIN_COUNT = 20_000;
+
+    private HttpServer trancoStub;
+    private String trancoListContent;
+    private MockMinioService minioService;
+    private TrancoListRepository trancoListRepository;
+    private TrancoProvidedDomainRepository trancoProvidedDomainRepository;
+    private ReferenceDomainIndexService referenceDomainIndexService;
+    private AtomicLong insertedDomains;
+    private TrancoListLoader trancoListLoader;
+    private TrancoStreamingIngestionService trancoStreamingIngestionService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        trancoListContent = IntStream.rangeClosed(1, DOMAIN_COUNT)
+                .mapToObj(rank -> rank + ",domain" + rank + ".com")
+                .collect(Collectors.joining("\n", "", "\n"));
+        trancoStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        trancoStub.createContext("/download/" + LIST_ID + "/1000000", exchange -> {
+            byte[] body = trancoListContent.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                for (int offset = 0; offset < body.length; offset += 8192) {
+                    responseBody.write(body, offset, Math.min(8192, body.length - offset));
+                }
+            }
+        });
+        trancoStub.createContext("/download/missing-list/1000000", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        trancoStub.start();
+
+        SafeBrowsignConfig safeBrowsignConfig = SafeBrowsignConfig.builder().ingestionBatchSize(1000).streamingDownloadChunksInFlight(2).build();
+        minioService = new MockMinioService();
+        trancoListRepository = mock(TrancoListRepository.class);
+        trancoProvidedDomainRepository = mock(TrancoProvidedDomainRepository.class);
+        referenceDomainIndexService = mock(ReferenceDomainIndexService.class);
+        when(trancoListRepository.getFileInformation(anyString())).thenReturn(Optional.of(new TrancoFileEntity("id", LIST_ID, LIST_ID, null, 0, false, false, false, null, 0, null)));
+        insertedDomains = new AtomicLong();
+        doAnswer(invocation -> insertedDomains.addAndGet(invocation.<List<DomainFeatures>>getArgument(1).size()))
+                .when(trancoProvidedDomainRepository).bulkInsertDomains(anyString(), anyList());
+        TrancoStreamingClient trancoStreamingClient = new TrancoStreamingClient(RestClient.builder().baseUrl("http://127.0.0.1:" + trancoStub.getAddress().getPort()).build());
+        TrancoQuarantineService trancoQuarantineService = new TrancoQuarantineService(minioService);
+        JobLeaseService jobLeaseService = new JobLeaseService(mock(JobLeaseRepository.class), safeBrowsignConfig);
+        TrancoIngestionPipeline trancoIngestionPipeline = new TrancoIngestionPipeline(trancoProvidedDomainRepository, trancoListRepository, trancoQuarantineService, jobLeaseService, safeBrowsignConfig);
+        when(referenceDomainIndexService.buildIndex(LIST_ID, LIST_ID)).thenReturn(ReferenceDomainIndex.build(LIST_ID, safeBrowsignConfig, Stream.empty()));
+        ReferenceIndexArtifactService referenceIndexArtifactService = new ReferenceIndexArtifactService(minioService, new ReferenceDomainSnapshotStore(safeBrowsignConfig));
+        trancoListLoader = new TrancoListLoader(trancoIngestionPipeline, new TrancoListDeltaApplier(trancoProvidedDomainRepository, trancoQuarantineService, jobLeaseService, safeBrowsignConfig),
+                trancoListRepository, trancoProvidedDomainRepository, referenceDomainIndexService, referenceIndexArtifactService, jobLeaseService, safeBrowsignConfig);
+        trancoStreamingIngestionService = new TrancoStreamingIngestionService(trancoStreamingClient, minioService, trancoListLoader,
+                trancoListRepository, trancoProvidedDomainRepository, safeBrowsignConfig);
+    }
+
+    @AfterEach
+    void tearDown() {
+        trancoStub.stop(0);
+    }
+
+    @Test
+    void streamsDownloadIntoObjectStoreAndIngestionInOnePass() throws Exception {
+        TrancoListLoader.LoadedTrancoList loadedTrancoList = trancoStreamingIngestionService.downloadAndLoad(LIST_ID).orElseThrow();
+        trancoListLoader.activate(loadedTrancoList, trancoListLoader.buildIndex(loadedTrancoList));
+
+        try (BufferedReader uploadedList = minioService.downloadFile("tranco-full-" + LIST_ID + ".csv")) {
+            assertEquals(trancoListContent, uploadedList.lines().collect(Collectors.joining("\n", "", "\n")));
+        }
+        assertEquals(DOMAIN_COUNT, insertedDomains.get());
+        verify(trancoListRepository).updateTrancoFileSize(LIST_ID, trancoListContent.length());
+        verify(trancoListRepository).activateTrancoList(LIST_ID, DOMAIN_COUNT);
+        verify(referenceDomainIndexService).buildIndex(LIST_ID, LIST_ID);
+        assertTrue(minioService.isFilePresent("tranco-index-" + LIST_ID + ".bin"));
+    }
+
+    @Test
+    void discardsListWhenDownloadFails() throws Exception {
+        assertThrows(HttpClientErrorException.NotFound.class, () -> trancoStreamingIngestionService.downloadAndLoad("missing-list"));
+
+        assertFalse(minioService.isFilePresent("tranco-full-missing-list.csv"));
+        verify(trancoListRepository).deleteTrancoFile("missing-list");
+        verify(trancoListRepository, never()).activateTrancoList(eq("missing-list"), anyLong());
+        verify(trancoProvidedDomainRepository, atLeastOnce()).purgeDomainsByListId(any());
+    }
+}
@@ -0,0 +1,176 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.index.ReferenceDomainIndex;
+import tech.mayanksoni.safebrowsing.models.PhoneticModel;
+import tech.mayanksoni.safebrowsing.models.PossibleReferenceDomain;
+import tech.mayanksoni.safebrowsing.models.TrancoProvidedDomainEntity;
+import tech.mayanksoni.safebrowsing.models.TyposquattingValidationResponse;
+import tech.mayanksoni.safebrowsing.models.dto.DomainTyposquattingValidationRequest;
+import tech.mayanksoni.safebrowsing.repository.TrancoProvidedDomainRepository;
+import tech.mayanksoni.safebrowsing.utils.DomainUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyChar;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class TyposquattingDetectionServiceTests {
+    private static final String LIST_ID = "active-list";
+
+    private TrancoProvidedDomainRepository trancoProvidedDomainRepository;
+    private ReferenceDomainIndexService referenceDomainIndexService;
+    private SafeBrowsignConfig safeBrowsignConfig;
+    private SimpleMeterRegistry meterRegistry;
+    private TyposquattingDetectionService typosquattingDetectionService;
+
+    static TrancoProvidedDomainEntity entity(long rank, String ownerDomain, String registrySuffix) {
+        return new TrancoProvidedDomainEntity(null, rank, ownerDomain, LIST_ID, registrySuffix, ownerDomain.charAt(0), ownerDomain.length(), null, null, null);
+    }
+
+    static TrancoProvidedDomainEntity phoneticEntity(long rank, String ownerDomain, String registrySuffix) {
+        PhoneticModel phoneticModel = DomainUtils.encodePhoneticModel(ownerDomain);
+        return new TrancoProvidedDomainEntity(null, rank, ownerDomain, LIST_ID, registrySuffix, ownerDomain.charAt(0), ownerDomain.length(),
+                phoneticModel.soundexCode(), phoneticModel.metaphoneCode(), phoneticModel.doubleMetaphoneCode());
+    }
+
+    static DomainTyposquattingValidationRequest request(String domain) {
+        return DomainTyposquattingValidationRequest.builder().domain(domain).build();
+    }
+
+    @BeforeEach
+    void setUp() {
+        trancoProvidedDomainRepository = mock(TrancoProvidedDomainRepository.class);
+        referenceDomainIndexService = mock(ReferenceDomainIndexService.class);
+        configure(SafeBrowsignConfig.builder().build());
+    }
+
+    private void configure(SafeBrowsignConfig safeBrowsignConfig) {
+        this.safeBrowsignConfig = safeBrowsignConfig;
+        meterRegistry = new SimpleMeterRegistry();
+        typosquattingDetectionService = new TyposquattingDetectionService(trancoProvidedDomainRepository, referenceDomainIndexService, safeBrowsignConfig, meterRegistry,
+                new TyposquattingVerdictCache(safeBrowsignConfig, meterRegistry));
+    }
+
+    private void serveIndex(TrancoProvidedDomainEntity... domains) {
+        ReferenceDomainIndex referenceDomainIndex = ReferenceDomainIndex.build(LIST_ID, safeBrowsignConfig, Stream.of(domains));
+        when(referenceDomainIndexService.getActiveIndex()).thenReturn(Optional.of(referenceDomainIndex));
+    }
+
+    @Test
+    void flagsTyposquatsFromTheInMemoryIndexWithoutQueryingTheStore() {
+        serveIndex(entity(1, "google", "com"), entity(2, "amazon", "com"));
+
+        TyposquattingValidationResponse verdict = typosquattingDetectionService.checkDomainForTyposquatting(request("gogle.com"));
+
+        assertTrue(verdict.isTyposquatting());
+        assertEquals("google", verdict.matchedReferenceDomain());
+        assertEquals("gogle.com", verdict.domainUnderCheck());
+        verifyNoInteractions(trancoProvidedDomainRepository);
+    }
+
+    @Test
+    void doesNotFlagTheReferenceDomainItselfOrAnUnrelatedDomain() {
+        serveIndex(entity(1, "google", "com"));
+
+        assertFalse(typosquattingDetectionService.checkDomainForTyposquatting(request("google.com")).isTyposquatting());
+        assertFalse(typosquattingDetectionService.checkDomainForTyposquatting(request("wikipedia.com")).isTyposquatting());
+        assertFalse(typosquattingDetectionService.checkDomainForTyposquatting(request("gogle.org")).isTyposquatting());
+    }
+
+    @Test
+    void queriesTheStoreWhileNoIndexIsLoaded() {
+        when(referenceDomainIndexService.getActiveIndex()).thenReturn(Optional.empty());
+        when(referenceDomainIndexService.getActiveDomainSetId()).thenReturn(Optional.of(LIST_ID));
+        when(trancoProvidedDomainRepository.getPossibleReferenceDomainsForTyposquattingValidation(eq(LIST_ID), anyInt(), anyInt(), anyChar(), anyString()))
+                .thenReturn(List.of(new PossibleReferenceDomain("com", "google", 6, 1, null, null, null)));
+
+        TyposquattingValidationResponse verdict = typosquattingDetectionService.checkDomainForTyposquatting(request("gogle.com"));
+
+        assertTrue(verdict.isTyposquatting());
+        assertEquals("google", verdict.matchedReferenceDomain());
+        verify(trancoProvidedDomainRepository).containsDomain(LIST_ID, "gogle", "com");
+        verify(trancoProvidedDomainRepository).getPossibleReferenceDomainsForTyposquattingValidation(LIST_ID, 3, 7, 'g', "com");
+    }
+
+    @Test
+    void matchesSoundAlikesBeyondTheEditDistanceThresholdWhenPhoneticMatchingIsEnabled() {
+        configure(SafeBrowsignConfig.builder().editDistanceThreshold(1).phoneticMatchingEnabled(true).build());
+        serveIndex(phoneticEntity(1, "facebook", "com"), phoneticEntity(2, "amazon", "com"));
+
+        TyposquattingValidationResponse verdict = typosquattingDetectionService.checkDomainForTyposquatting(request("phasebook.com"));
+
+        assertTrue(verdict.isTyposquatting());
+        assertEquals("facebook", verdict.matchedReferenceDomain());
+        assertTrue(verdict.phoneticMatchEnabled());
+    }
+
+    @Test
+    void skipsThePhoneticStageWhenPhoneticMatchingIsDisabled() {
+        configure(SafeBrowsignConfig.builder().editDistanceThreshold(1).build());
+        serveIndex(phoneticEntity(1, "facebook", "com"));
+
+        TyposquattingValidationResponse verdict = typosquattingDetectionService.checkDomainForTyposquatting(request("phasebook.com"));
+
+        assertFalse(verdict.isTyposquatting());
+        assertFalse(verdict.phoneticMatchEnabled());
+    }
+
+    @Test
+    void matchesABatchWithOneAutomatonCallPerCandidateBucket() {
+        ReferenceDomainIndex referenceDomainIndex = spy(ReferenceDomainIndex.build(LIST_ID, safeBrowsignConfig, Stream.of(entity(1, "google", "com"), entity(2, "amazon", "com"))));
+        when(referenceDomainIndexService.getActiveIndex()).thenReturn(Optional.of(referenceDomainIndex));
+
+        List<TyposquattingValidationResponse> verdicts = typosquattingDetectionService.checkDomainsForTyposquatting(
+                List.of(request("goolge.com"), request("amazn.com"), request("gooogle.com"), request("goooogle.com")));
+
+        assertEquals(List.of("google", "amazon", "google", "google"), verdicts.stream().map(TyposquattingValidationResponse::matchedReferenceDomain).toList());
+        assertEquals(List.of("goolge.com", "amazn.com", "gooogle.com", "goooogle.com"), verdicts.stream().map(TyposquattingValidationResponse::domainUnderCheck).toList());
+        verify(referenceDomainIndex).findAllMatches(List.of("goolge", "gooogle", "goooogle"), "com", 2);
+        verify(referenceDomainIndex).findAllMatches(List.of("amazn"), "com", 2);
+        verify(referenceDomainIndex, never()).findMatches(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    void fetchesTheCandidatesOfALengthWindowOnceWhileNoIndexIsLoaded() {
+        when(referenceDomainIndexService.getActiveIndex()).thenReturn(Optional.empty());
+        when(referenceDomainIndexService.getActiveDomainSetId()).thenReturn(Optional.of(LIST_ID));
+        when(trancoProvidedDomainRepository.getPossibleReferenceDomainsForTyposquattingValidation(eq(LIST_ID), anyInt(), anyInt(), eq('g'), eq("com")))
+                .thenReturn(List.of(new PossibleReferenceDomain("com", "google", 6, 1, null, null, null)));
+
+        List<TyposquattingValidationResponse> verdicts = typosquattingDetectionService.checkDomainsForTyposquatting(
+                List.of(request("goolge.com"), request("gooogle.com"), request("goooogle.com"), request("amazn.com")));
+
+        assertEquals(List.of(true, true, true, false), verdicts.stream().map(TyposquattingValidationResponse::isTyposquatting).toList());
+        verify(trancoProvidedDomainRepository).getPossibleReferenceDomainsForTyposquattingValidation(LIST_ID, 4, 10, 'g', "com");
+        verify(trancoProvidedDomainRepository).getPossibleReferenceDomainsForTyposquattingValidation(LIST_ID, 1, 7, 'a', "com");
+        verify(trancoProvidedDomainRepository, times(2)).getPossibleReferenceDomainsForTyposquattingValidation(anyString(), anyInt(), anyInt(), anyChar(), anyString());
+    }
+
+    @Test
+    void answersInvalidDomainsWithoutAVerdict() {
+        serveIndex(entity(1, "google", "com"));
+
+        TyposquattingValidationResponse verdict = typosquattingDetectionService.checkDomainForTyposquatting(request("not a domain"));
+
+        assertFalse(verdict.isTyposquatting());
+        assertEquals("not a domain", verdict.domainUnderCheck());
+    }
+}
@@ -0,0 +1,80 @@
+package tech.mayanksoni.safebrowsing.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.mayanksoni.safebrowsing.configuration.SafeBrowsignConfig;
+import tech.mayanksoni.safebrowsing.models.TyposquattingValidationResponse;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class TyposquattingVerdictCacheTests {
+    private static final TyposquattingValidationResponse TYPOSQUAT = new TyposquattingValidationResponse(true, "google", "gogle.com", false);
+    private static final TyposquattingValidationResponse NOT_A_TYPOSQUAT = new TyposquattingValidationResponse(false, null, "wikipedia.org", false);
+
+    private SimpleMeterRegistry meterRegistry;
+    private TyposquattingVerdictCache typosquattingVerdictCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        typosquattingVerdictCache = new TyposquattingVerdictCache(SafeBrowsignConfig.builder().build(), meterRegistry);
+    }
+
+    @Test
+    void computesAVerdictOncePerListAndNormalizedDomain() {
+        AtomicInteger detections = new AtomicInteger();
+
+        typosquattingVerdictCache.get("list-a", "gogle.com", () -> {
+            detections.incrementAndGet();
+            return TYPOSQUAT;
+        });
+        TyposquattingValidationResponse cachedVerdict = typosquattingVerdictCache.get("list-a", " GOGLE.com. ", () -> {
+            detections.incrementAndGet();
+            return NOT_A_TYPOSQUAT;
+        });
+
+        assertEquals(1, detections.get());
+        assertSame(TYPOSQUAT, cachedVerdict);
+    }
+
+    @Test
+    void cachesNegativeVerdicts() {
+        typosquattingVerdictCache.put("list-a", "wikipedia.org", NOT_A_TYPOSQUAT);
+
+        assertSame(NOT_A_TYPOSQUAT, typosquattingVerdictCache.getIfPresent("list-a", "wikipedia.org"));
+    }
+
+    @Test
+    void missesOnceANewListIsActive() {
+        typosquattingVerdictCache.put("list-a", "gogle.com", TYPOSQUAT);
+
+        assertNull(typosquattingVerdictCache.getIfPresent("list-b", "gogle.com"));
+        assertNotNull(typosquattingVerdictCache.getIfPresent("list-a", "gogle.com"));
+    }
+
+    @Test
+    void normalizesCaseWhitespaceAndTheTrailingDot() {
+        assertEquals("gogle.com", TyposquattingVerdictCache.normalizeDomain("  GoGle.COM. "));
+    }
+
+    @Test
+    void publishesHitAndMissCountersForTheCache() {
+        typosquattingVerdictCache.getIfPresent("list-a", "gogle.com");
+        typosquattingVerdictCache.put("list-a", "gogle.com", TYPOSQUAT);
+        typosquattingVerdictCache.getIfPresent("list-a", "gogle.com");
+
+        assertEquals(1.0, cacheGets("hit").count());
+        assertEquals(1.0, cacheGets("miss").count());
+    }
+
+    private FunctionCounter cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "typosquattingVerdicts").tag("result", result).functionCounter();
+    }
+}
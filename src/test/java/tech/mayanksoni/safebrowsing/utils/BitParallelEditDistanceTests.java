@@ -0,0 +1,62 @@
+package tech.mayanksoni.safebrowsing.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BitParallelEditDistanceTests {
+    private static final String ALPHABET = "abcdefgo0-";
+
+    private static String randomDomainLabel(Random random, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder label = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            label.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return label.toString();
+    }
+
+    @Test
+    void matchesLevenshteinOracleForRandomAsciiLabels() {
+        Random random = new Random(20240601L);
+        for (int i = 0; i < 50_000; i++) {
+            String pattern = randomDomainLabel(random, 64);
+            String text = randomDomainLabel(random, 70);
+            assertEquals(EditDistanceUtil.computeLevenshteinDistance(pattern, text), BitParallelEditDistance.compile(pattern).distance(text),
+                    () -> String.format("pattern: %s, text: %s", pattern, text));
+        }
+    }
+
+    @Test
+    void reusesCompiledPatternAcrossCandidates() {
+        BitParallelEditDistance compiledPattern = BitParallelEditDistance.compile("google");
+        assertEquals(0, compiledPattern.distance("google"));
+        assertEquals(1, compiledPattern.distance("gogle"));
+        assertEquals(1, compiledPattern.distance("g0ogle"));
+        assertEquals(1, compiledPattern.distance("foogle"));
+        assertEquals(6, compiledPattern.distance(""));
+    }
+
+    @Test
+    void fallsBackToDynamicProgrammingForLongOrNonAsciiInput() {
+        String longPattern = "a".repeat(80);
+        assertEquals(EditDistanceUtil.computeLevenshteinDistance(longPattern, "a".repeat(78) + "bc"), BitParallelEditDistance.compile(longPattern).distance("a".repeat(78) + "bc"));
+        assertEquals(EditDistanceUtil.computeLevenshteinDistance("b\u00fccher", "bucher"), BitParallelEditDistance.compile("b\u00fccher").distance("bucher"));
+        assertEquals(EditDistanceUtil.computeLevenshteinDistance("bucher", "b\u00fccher"), BitParallelEditDistance.compile("bucher").distance("b\u00fccher"));
+    }
+
+    @Test
+    void boundedDistanceMatchesTheBoundedKernelForEveryThreshold() {
+        Random random = new Random(20240605L);
+        for (int i = 0; i < 50_000; i++) {
+            String pattern = randomDomainLabel(random, 16);
+            String text = randomDomainLabel(random, 16);
+            int threshold = random.nextInt(5);
+            assertEquals(EditDistanceUtil.computeBoundedLevenshteinDistance(pattern, text, threshold), BitParallelEditDistance.compile(pattern).boundedDistance(text, threshold),
+                    () -> String.format("pattern: %s, text: %s, threshold: %d", pattern, text, threshold));
+        }
+        assertEquals(2, BitParallelEditDistance.compile("b\u00fccher").boundedDistance("bxcxer", 1));
+    }
+}
@@ -0,0 +1,72 @@
+package tech.mayanksoni.safebrowsing.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EditDistanceUtilTests {
+    private static final String ALPHABET = "abcdefgo0-";
+
+    private static String randomDomainLabel(Random random, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder label = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            label.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return label.toString();
+    }
+
+    @Test
+    void matchesLevenshteinOracleUpToTheThresholdForRandomLabels() {
+        Random random = new Random(20240604L);
+        for (int i = 0; i < 50_000; i++) {
+            String s1 = randomDomainLabel(random, 12);
+            String s2 = randomDomainLabel(random, 12);
+            int threshold = random.nextInt(4);
+            int expectedDistance = Math.min(EditDistanceUtil.computeLevenshteinDistance(s1, s2), threshold + 1);
+            assertEquals(expectedDistance, EditDistanceUtil.computeBoundedLevenshteinDistance(s1, s2, threshold),
+                    () -> String.format("s1: %s, s2: %s, threshold: %d", s1, s2, threshold));
+        }
+    }
+
+    @Test
+    void returnsTheExactDistanceAtTheThresholdAndCutsOffBeyondIt() {
+        assertEquals(2, EditDistanceUtil.computeBoundedLevenshteinDistance("github", "gitlab", 2));
+        assertEquals(2, EditDistanceUtil.computeBoundedLevenshteinDistance("github", "gitlab", 1));
+        assertEquals(1, EditDistanceUtil.computeBoundedLevenshteinDistance("google", "facebook", 0));
+    }
+
+    @Test
+    void returnsZeroForEqualStrings() {
+        assertEquals(0, EditDistanceUtil.computeBoundedLevenshteinDistance("google", "google", 0));
+        assertEquals(0, EditDistanceUtil.computeBoundedLevenshteinDistance("google", "google", 2));
+    }
+
+    @Test
+    void handlesEmptyStrings() {
+        assertEquals(0, EditDistanceUtil.computeBoundedLevenshteinDistance("", "", 0));
+        assertEquals(2, EditDistanceUtil.computeBoundedLevenshteinDistance("", "ab", 2));
+        assertEquals(2, EditDistanceUtil.computeBoundedLevenshteinDistance("ab", "", 2));
+        assertEquals(2, EditDistanceUtil.computeBoundedLevenshteinDistance("", "abc", 1));
+    }
+
+    @Test
+    void cutsOffWhenTheLengthDifferenceExceedsTheThreshold() {
+        assertEquals(2, EditDistanceUtil.computeBoundedLevenshteinDistance("go", "google", 1));
+        assertEquals(3, EditDistanceUtil.computeBoundedLevenshteinDistance("google", "googleapis", 2));
+    }
+
+    @Test
+    void handlesStringsLongerThanTheScratchRows() {
+        String longLabel = "a".repeat(100);
+        assertEquals(1, EditDistanceUtil.computeBoundedLevenshteinDistance(longLabel, "a".repeat(99) + "b", 2));
+        assertEquals(1, EditDistanceUtil.computeBoundedLevenshteinDistance("google", "gogle", 2));
+    }
+
+    @Test
+    void isSymmetric() {
+        assertEquals(EditDistanceUtil.computeBoundedLevenshteinDistance("amazon", "amaz0n-shop", 5), EditDistanceUtil.computeBoundedLevenshteinDistance("amaz0n-shop", "amazon", 5));
+    }
+}
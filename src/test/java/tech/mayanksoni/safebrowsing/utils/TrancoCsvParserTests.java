@@ -0,0 +1,91 @@
+package tech.mayanksoni.safebrowsing.utils;
+
+import org.junit.jupiter.api.Test;
+import tech.mayanksoni.safebrowsing.exceptions.MalformedCSVRecord;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrancoCsvParserTests {
+
+    private static TrancoCsvParser parser(String content, int bufferSize) {
+        return new TrancoCsvParser(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), bufferSize);
+    }
+
+    @Test
+    void parsesRowsAcrossBufferRefills() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int rank = 1; rank <= 5_000; rank++) {
+            content.append(rank).append(',').append("domain-").append(rank).append(".com").append(rank % 2 == 0 ? "\r\n" : "\n");
+        }
+        TrancoCsvParser trancoCsvParser = parser(content.toString(), 16);
+        List<String> domains = new ArrayList<>();
+        long expectedRank = 1;
+        while (trancoCsvParser.next()) {
+            assertEquals(expectedRank, trancoCsvParser.getRank());
+            assertEquals(expectedRank, trancoCsvParser.getLineNumber());
+            domains.add(trancoCsvParser.getDomain());
+            expectedRank++;
+        }
+        assertEquals(5_000, domains.size());
+        assertEquals("domain-4999.com", domains.get(4_998));
+        assertEquals("domain-5000.com", domains.get(4_999));
+    }
+
+    @Test
+    void parsesFinalRowWithoutNewline() throws IOException {
+        TrancoCsvParser trancoCsvParser = parser("1,example.com\n2,example.org", 64);
+        assertTrue(trancoCsvParser.next());
+        assertTrue(trancoCsvParser.next());
+        assertEquals(2, trancoCsvParser.getRank());
+        assertEquals("example.org", trancoCsvParser.getDomain());
+        assertEquals(14, trancoCsvParser.getRowByteOffset());
+        assertFalse(trancoCsvParser.next());
+    }
+
+    @Test
+    void keepsFilePositionsWhenStartingMidFile() throws IOException {
+        String content = "1,example.com\n2,example.org\n3,example.net\n";
+        int secondRowOffset = content.indexOf("2,");
+        TrancoCsvParser trancoCsvParser = new TrancoCsvParser(new ByteArrayInputStream(content.substring(secondRowOffset).getBytes(StandardCharsets.UTF_8)), secondRowOffset, 1);
+        assertTrue(trancoCsvParser.next());
+        assertEquals(2, trancoCsvParser.getLineNumber());
+        assertEquals(secondRowOffset, trancoCsvParser.getRowByteOffset());
+        assertEquals(content.indexOf("3,"), trancoCsvParser.getNextRowByteOffset());
+    }
+
+    @Test
+    void continuesAfterMalformedRow() throws IOException {
+        TrancoCsvParser trancoCsvParser = parser("1,example.com\nx2,example.org\n3,example.net\n", 64);
+        assertTrue(trancoCsvParser.next());
+        assertThrows(MalformedCSVRecord.class, trancoCsvParser::next);
+        assertTrue(trancoCsvParser.next());
+        assertEquals("example.net", trancoCsvParser.getDomain());
+        assertEquals(3, trancoCsvParser.getLineNumber());
+    }
+
+    @Test
+    void reportsMalformedRowsWithLineAndByteOffset() throws IOException {
+        TrancoCsvParser trancoCsvParser = parser("1,example.com\nx2,example.org\n", 64);
+        assertTrue(trancoCsvParser.next());
+        MalformedCSVRecord malformedCSVRecord = assertThrows(MalformedCSVRecord.class, trancoCsvParser::next);
+        assertTrue(malformedCSVRecord.getMessage().contains("line 2, byte offset 14"), malformedCSVRecord.getMessage());
+    }
+
+    @Test
+    void rejectsMissingAndExtraColumns() {
+        assertThrows(MalformedCSVRecord.class, () -> parser("1\n", 64).next());
+        assertThrows(MalformedCSVRecord.class, () -> parser("1,\n", 64).next());
+        assertThrows(MalformedCSVRecord.class, () -> parser(",example.com\n", 64).next());
+        assertThrows(MalformedCSVRecord.class, () -> parser("1,example.com,extra\n", 64).next());
+        assertThrows(MalformedCSVRecord.class, () -> parser("\n", 64).next());
+    }
+}
@@ -0,0 +1,14 @@
+Feature: Bulk Scan Jobs
+  As a user of the Safe Browsing service
+  I want to scan large domain files stored in the object store
+  So that I can check millions of domains without holding an HTTP request open
+
+  Background:
+    Given the MinIO service is available
+    And the MongoDB service is available
+
+  Scenario: Scan a domain file from the object store
+    Given a domain file "bulk-scan-input/domains.txt" with 5 domains exists in MinIO
+    When a bulk scan job "test-bulk-scan-job" is submitted for "bulk-scan-input/domains.txt"
+    Then the bulk scan job "test-bulk-scan-job" should complete with 5 processed domains
+    And the results file for "test-bulk-scan-job" should contain 5 verdicts and a summary line